@@ -0,0 +1,149 @@
+package rpg;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkRunner class runs the JMH benchmarks and keeps named baselines to compare later runs against.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar [--save-baseline NAME] [--compare NAME] [--baseline-dir DIR] [REGEX]
+ * </pre>
+ * A saved baseline is written as NAME.csv and NAME.json (full JMH output) in the baseline directory,
+ * benchmarks/baselines by default. The CSV file has the header benchmark,score,error,unit, where the benchmark field
+ * is the benchmark name followed by its parameters as name=value, and is quoted when a value holds a comma or a quote.
+ */
+public class BenchmarkRunner {
+
+    /**
+     * Runs the benchmarks matching the optional regex, then saves and/or compares baselines.
+     *
+     * @param args command line options.
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        String save = null, compare = null, include = ".*Benchmark.*";
+        Path directory = Path.of("benchmarks", "baselines");
+        for(int i = 0; i < args.length; i++){
+            switch (args[i]) {
+                case "--save-baseline" -> save = args[++i];
+                case "--compare" -> compare = args[++i];
+                case "--baseline-dir" -> directory = Path.of(args[++i]);
+                default -> include = args[i];
+            }
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().include(include);
+        if(save != null){
+            Files.createDirectories(directory);
+            options.resultFormat(ResultFormatType.JSON).result(directory.resolve(save + ".json").toString());
+        }
+        Collection<RunResult> results = new Runner(options.build()).run();
+        Map<String, double[]> current = toScores(results);
+
+        if(save != null){
+            writeBaseline(directory.resolve(save + ".csv"), results);
+            System.out.println("Baseline saved : " + directory.resolve(save + ".csv"));
+        }
+        if(compare != null){
+            printComparison(readBaseline(directory.resolve(compare + ".csv")), current);
+        }
+    }
+
+    /**
+     * Builds the key identifying a result: benchmark name followed by its parameters.
+     *
+     * @param result result of one benchmark with one set of parameters.
+     * @return key of the result.
+     */
+    private static String key(RunResult result){
+        StringBuilder key = new StringBuilder(result.getParams().getBenchmark());
+        for(String param : result.getParams().getParamsKeys()){
+            key.append(' ').append(param).append('=').append(result.getParams().getParam(param));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Collects the score and error of every result by key.
+     *
+     * @param results results of the run.
+     * @return score and error by key.
+     */
+    private static Map<String, double[]> toScores(Collection<RunResult> results){
+        Map<String, double[]> scores = new LinkedHashMap<>();
+        for(RunResult result : results){
+            scores.put(key(result), new double[]{result.getPrimaryResult().getScore(), result.getPrimaryResult().getScoreError()});
+        }
+        return scores;
+    }
+
+    /**
+     * Writes the results as a baseline CSV file.
+     *
+     * @param file    baseline file.
+     * @param results results of the run.
+     */
+    private static void writeBaseline(Path file, Collection<RunResult> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("benchmark,score,error,unit");
+        StringBuilder line = new StringBuilder();
+        for(RunResult result : results){
+            line.setLength(0);
+            CharacterSheetRenderer.appendCsvField(key(result), line);
+            line.append(',').append(result.getPrimaryResult().getScore())
+                    .append(',').append(result.getPrimaryResult().getScoreError()).append(',');
+            CharacterSheetRenderer.appendCsvField(result.getPrimaryResult().getScoreUnit(), line);
+            lines.add(line.toString());
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a baseline CSV file, with quoted fields as written by writeBaseline().
+     *
+     * @param file baseline file.
+     * @return score and error by key.
+     * @throws IllegalArgumentException if a line has an unclosed quote.
+     */
+    private static Map<String, double[]> readBaseline(Path file) throws IOException {
+        Map<String, double[]> scores = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for(String line : lines.subList(1, lines.size())){
+            List<String> fields = Fields.splitCsv(line);
+            scores.put(fields.get(0), new double[]{Double.parseDouble(fields.get(1)), Double.parseDouble(fields.get(2))});
+        }
+        return scores;
+    }
+
+    /**
+     * Prints every current score next to its baseline score and the relative change.
+     *
+     * @param baseline baseline scores by key.
+     * @param current  current scores by key.
+     */
+    private static void printComparison(Map<String, double[]> baseline, Map<String, double[]> current){
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for(Map.Entry<String, double[]> entry : current.entrySet()){
+            double[] before = baseline.get(entry.getKey());
+            double now = entry.getValue()[0];
+            if(before == null){
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", now, "new");
+            }else {
+                System.out.printf("%-90s %14.3f %14.3f %+8.1f%%%n", entry.getKey(), before[0], now, (now - before[0]) / before[0] * 100);
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package rpg;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * CharacterBenchmark class measures the character operations over a population of warriors, mages, and archers.
+ * Each benchmark method runs one operation on every character, and console output goes to a null stream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CharacterBenchmark {
+
+    /** Number of characters each benchmark method goes through. */
+    @Param({"1000", "100000"})
+    public int characterCount;
+
+    /** Event sink in use: "noop" skips events, "console" formats them into the null stream. */
+    @Param({"noop", "console"})
+    public String sink;
+
+    /** Characters, one job after another. */
+    private BaseCharacter[] characters;
+
+    /** Equipment each character's job can equip, and equipment its job rejects, at the character's index. */
+    private Equipment[] allowed, rejected;
+
+    /** Accessories equipped by each character, at the character's index. */
+    private Accessory[] accessories;
+
+    /** Console stream replaced by the null stream during the trial. */
+    private PrintStream console;
+
+    /**
+     * Creates the characters and items, and silences the console.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        GameEvents.setSink("console".equals(sink) ? new ConsoleEventSink() : new NoOpEventSink());
+
+        characters = new BaseCharacter[characterCount];
+        allowed = new Equipment[characterCount];
+        rejected = new Equipment[characterCount];
+        accessories = new Accessory[characterCount];
+        for(int i = 0; i < characterCount; i++){
+            switch (i % 3) {
+                case 0 -> {
+                    characters[i] = new WarriorCharacter("Warrior " + i);
+                    allowed[i] = new Sword("Sword", i % 50, 10);
+                    rejected[i] = new Staff("Staff", i % 50, 10);
+                }
+                case 1 -> {
+                    characters[i] = new MageCharacter("Mage " + i);
+                    allowed[i] = new Charm("Charm", i % 50, 10);
+                    rejected[i] = new Bow("Bow", i % 50, 10);
+                }
+                default -> {
+                    characters[i] = new ArcherCharacter("Archer " + i);
+                    allowed[i] = new Bow("Bow", i % 50, 10);
+                    rejected[i] = new Shield("Shield", i % 50, 10);
+                }
+            }
+            accessories[i] = new Ring("Ring", "Life steal", 0.1);
+            characters[i].equipEquipment(allowed[i]);
+            characters[i].equipAccessory(accessories[i]);
+        }
+    }
+
+    /**
+     * Restores the console and the default event sink.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        System.setOut(console);
+        GameEvents.setSink(new ConsoleEventSink());
+    }
+
+    /**
+     * Levels up every character.
+     */
+    @Benchmark
+    public void levelUp(){
+        for(BaseCharacter character : characters){
+            character.levelUp();
+        }
+    }
+
+    /**
+     * Equips every character with equipment its job allows.
+     */
+    @Benchmark
+    public void equipEquipment(){
+        for(int i = 0; i < characters.length; i++){
+            characters[i].equipEquipment(allowed[i]);
+        }
+    }
+
+    /**
+     * Tries to equip every character with equipment its job rejects.
+     */
+    @Benchmark
+    public void equipEquipmentRejected(){
+        for(int i = 0; i < characters.length; i++){
+            characters[i].equipEquipment(rejected[i]);
+        }
+    }
+
+    /**
+     * Equips every character with an accessory.
+     */
+    @Benchmark
+    public void equipAccessory(){
+        for(int i = 0; i < characters.length; i++){
+            characters[i].equipAccessory(accessories[i]);
+        }
+    }
+
+    /**
+     * Retrieves the equipped accessory array of every character.
+     *
+     * @param blackhole consumes the arrays.
+     */
+    @Benchmark
+    public void getEquippedAccessory(Blackhole blackhole){
+        for(BaseCharacter character : characters){
+            blackhole.consume(character.getEquippedAccessory());
+        }
+    }
+
+    /**
+     * Retrieves the equipped equipment array of every character.
+     *
+     * @param blackhole consumes the arrays.
+     */
+    @Benchmark
+    public void getEquippedEquipment(Blackhole blackhole){
+        for(BaseCharacter character : characters){
+            blackhole.consume(character.getEquippedEquipment());
+        }
+    }
+
+    /**
+     * Renders the character information of every character into the null stream.
+     */
+    @Benchmark
+    public void showCharacterInfo(){
+        for(BaseCharacter character : characters){
+            character.showCharacterInfo();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package rpg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CharacterIndexBenchmark class measures queries over an index of equipped characters of every job and level.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class CharacterIndexBenchmark {
+
+    /** Number of indexed characters. */
+    @Param({"100000", "1000000"})
+    public int characterCount;
+
+    /** Indexed characters. */
+    private List<RPGCharacter> characters;
+
+    /** Index of the characters. */
+    private CharacterIndex index;
+
+    /**
+     * Creates characters at levels 1 to 60, sharing a few weapons and rings.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        GameEvents.setSink(new NoOpEventSink());
+        Equipment[] staffs = new Equipment[100];
+        for(int i = 0; i < staffs.length; i++){
+            staffs[i] = new Staff("Staff" + i, i, 100 + i);
+        }
+        Accessory lifeSteal = new Ring("Vampire's Ring", EffectType.LIFE_STEAL.getName(), 0.1);
+        Accessory haste = new Ring("Swift Ring", EffectType.HASTE.getName(), 0.1);
+        characters = new ArrayList<>(characterCount);
+        for(int i = 0; i < characterCount; i++){
+            BaseCharacter character = BaseCharacter.create(JobType.fromCode(i % 3), "Character" + i);
+            BaseCharacter.Vitals vitals = character.getVitals();
+            for(int level = 1; level < 1 + i % 60; level++){
+                vitals = vitals.levelUp();
+            }
+            character.restoreVitals(vitals);
+            if(character.getJobType() == JobType.MAGE){
+                character.restoreSlot(Slot.MAIN_HAND, staffs[i % staffs.length]);
+            }
+            character.restoreSlot(Slot.RING, i % 2 == 0 ? lifeSteal : haste);
+            characters.add(character);
+        }
+        index = CharacterIndex.build(characters);
+    }
+
+    /**
+     * Builds the index again.
+     *
+     * @return new index.
+     */
+    @Benchmark
+    public CharacterIndex build(){
+        return CharacterIndex.build(characters);
+    }
+
+    /**
+     * Counts mages above level 40 with a Staff of main stat above 200 and a life steal Ring.
+     *
+     * @return number of matches.
+     */
+    @Benchmark
+    public long countFiltered(){
+        return index.query().job(JobType.MAGE).minLevel(41).item(ItemType.STAFF).minStat(Slot.MAIN_HAND, 200)
+                .effect(Slot.RING, EffectType.LIFE_STEAL.getName()).count();
+    }
+
+    /**
+     * Aggregates the Ring effect values of every character, scanning every row.
+     *
+     * @return aggregate of the effect values.
+     */
+    @Benchmark
+    public CharacterIndex.Aggregate aggregateAll(){
+        return index.query().stats(Slot.RING);
+    }
+
+    /**
+     * Looks for any character with a Haste Ring, stopping at the first match.
+     *
+     * @return true if one exists.
+     */
+    @Benchmark
+    public boolean exists(){
+        return index.query().effect(Slot.RING, EffectType.HASTE.getName()).exists();
+    }
+}
@@ -0,0 +1,90 @@
+package rpg;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CombatBenchmark class measures how long the combat engine takes to fight a batch of encounters to the end.
+ * Encounters per minute are 60 000 divided by the reported milliseconds, times battleCount.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombatBenchmark {
+
+    /** Number of battles fought per invocation. */
+    @Param({"10000", "1000000"})
+    public int battleCount;
+
+    /** Largest number of ticks a batch may run. */
+    private static final int MAX_TICKS = 10_000;
+
+    /** Characters the battles are drawn from. */
+    private BaseCharacter[] roster;
+
+    /** Engine holding a fresh batch of battles. */
+    private CombatEngine engine;
+
+    /**
+     * Creates an equipped roster of every job at different levels.
+     */
+    @Setup(Level.Trial)
+    public void setUpRoster(){
+        GameEvents.setSink(new NoOpEventSink());
+        roster = new BaseCharacter[60];
+        for(int i = 0; i < roster.length; i++){
+            BaseCharacter character = BaseCharacter.create(JobType.fromCode(i % 3), "Fighter" + i);
+            for(int level = 0; level < i % 10; level++){
+                character.applyLevelUp();
+            }
+            switch (character.getJobType()) {
+                case WARRIOR -> {
+                    character.equipEquipment(new Sword("Sword", i % 5, 10 + i));
+                    character.equipEquipment(new Shield("Shield", 1, i));
+                }
+                case MAGE -> character.equipEquipment(new Staff("Staff", 2, 15 + i));
+                case ARCHER -> character.equipEquipment(new Bow("Bow", 3, 12));
+            }
+            if(i % 4 == 0){
+                character.equipAccessory(new Ring("Ring", EffectType.LIFE_STEAL.getName(), 0.1));
+            }
+            roster[i] = character;
+        }
+    }
+
+    /**
+     * Pairs up the roster into a new batch of battles.
+     */
+    @Setup(Level.Invocation)
+    public void setUpBattles(){
+        engine = new CombatEngine(42);
+        for(int i = 0; i < battleCount; i++){
+            engine.addBattle(roster[i % roster.length], roster[(i * 7 + 3) % roster.length]);
+        }
+    }
+
+    /**
+     * Fights every battle of the batch to the end.
+     *
+     * @return number of ticks run.
+     */
+    @Benchmark
+    public int runUntilDone(){
+        return engine.runUntilDone(MAX_TICKS);
+    }
+}
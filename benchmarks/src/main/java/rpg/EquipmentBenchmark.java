@@ -0,0 +1,80 @@
+package rpg;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * EquipmentBenchmark class measures weapon upgrades over the weapons held by a population of characters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EquipmentBenchmark {
+
+    /** Number of characters, each holding a main weapon and a sub weapon. */
+    @Param({"1000", "100000"})
+    public int characterCount;
+
+    /** Weapons of all characters. */
+    private Equipment[] weapons;
+
+    /**
+     * Creates two weapons per character.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        weapons = new Equipment[characterCount * 2];
+        for(int i = 0; i < characterCount; i++){
+            weapons[2 * i] = new Sword("Sword", i % 50, 10);
+            weapons[2 * i + 1] = new Shield("Shield", i % 50, 10);
+        }
+    }
+
+    /**
+     * Upgrades every weapon by one level.
+     */
+    @Benchmark
+    public void upgrade(){
+        for(Equipment weapon : weapons){
+            weapon.upgrade();
+        }
+    }
+
+    /**
+     * Upgrades every weapon by ten levels in one step.
+     */
+    @Benchmark
+    public void upgradeByTen(){
+        for(Equipment weapon : weapons){
+            weapon.upgradeBy(10);
+        }
+    }
+
+    /**
+     * Reads the main stat of every weapon.
+     *
+     * @param blackhole consumes the main stats.
+     */
+    @Benchmark
+    public void getMainStat(Blackhole blackhole){
+        for(Equipment weapon : weapons){
+            blackhole.consume(weapon.getMainStat());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package rpg;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * EquipmentStoreBenchmark class compares weapons in an off-heap EquipmentStore with on-heap weapon objects:
+ * creating a zone of weapons, upgrading them, and summing their main stats.
+ * Run it with -prof gc to compare allocation rates and collection time as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EquipmentStoreBenchmark {
+
+    /** Number of weapons. */
+    @Param({"100000", "10000000"})
+    public int weaponCount;
+
+    /** On-heap weapons. */
+    private Equipment[] weapons;
+
+    /** Store holding the off-heap weapons. */
+    private EquipmentStore store;
+
+    /** Zone holding the off-heap weapons. */
+    private EquipmentStore.Zone zone;
+
+    /**
+     * Creates the same weapons on the heap and in the store.
+     */
+    @Setup(Level.Trial)
+    public void setUp(){
+        weapons = new Equipment[weaponCount];
+        store = new EquipmentStore();
+        zone = store.newZone();
+        for(int i = 0; i < weaponCount; i++){
+            weapons[i] = new Sword("Sword", i % 50, 10);
+            zone.allocate(ItemType.SWORD, "Sword", i % 50, 10);
+        }
+    }
+
+    /**
+     * Frees the off-heap weapons.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        store.close();
+    }
+
+    /**
+     * Creates every weapon on the heap.
+     *
+     * @return new weapons.
+     */
+    @Benchmark
+    public Equipment[] createHeap(){
+        Equipment[] created = new Equipment[weaponCount];
+        for(int i = 0; i < weaponCount; i++){
+            created[i] = new Sword("Sword", i % 50, 10);
+        }
+        return created;
+    }
+
+    /**
+     * Creates every weapon in a new zone of the store, then frees the zone.
+     *
+     * @return number of weapons created.
+     */
+    @Benchmark
+    public int createStore(){
+        try(EquipmentStore.Zone created = store.newZone()){
+            for(int i = 0; i < weaponCount; i++){
+                created.allocate(ItemType.SWORD, "Sword", i % 50, 10);
+            }
+            return created.size();
+        }
+    }
+
+    /**
+     * Upgrades every on-heap weapon by one level.
+     */
+    @Benchmark
+    public void upgradeHeap(){
+        for(Equipment weapon : weapons){
+            weapon.upgrade();
+        }
+    }
+
+    /**
+     * Upgrades every off-heap weapon by one level, directly in the slabs.
+     */
+    @Benchmark
+    public void upgradeStore(){
+        zone.upgradeAll(1);
+    }
+
+    /**
+     * Upgrades every off-heap weapon by one level through a reused handle.
+     */
+    @Benchmark
+    public void upgradeStoreHandles(){
+        zone.forEach(Equipment::upgrade);
+    }
+
+    /**
+     * Sums the main stats of the on-heap weapons.
+     *
+     * @param blackhole consumes the total.
+     */
+    @Benchmark
+    public void mainStatHeap(Blackhole blackhole){
+        double total = 0;
+        for(Equipment weapon : weapons){
+            total += weapon.getMainStat();
+        }
+        blackhole.consume(total);
+    }
+
+    /**
+     * Sums the main stats of the off-heap weapons.
+     *
+     * @param blackhole consumes the total.
+     */
+    @Benchmark
+    public void mainStatStore(Blackhole blackhole){
+        blackhole.consume(zone.totalMainStat());
+    }
+}
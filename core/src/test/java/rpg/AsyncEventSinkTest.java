@@ -0,0 +1,68 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import org.junit.jupiter.api.Test;
+
+/**
+ * AsyncEventSinkTest class checks that every published event is either handed to the delegate or counted as
+ * dropped, also while the sink closes, and that a failing delegate does not stop the delivery.
+ */
+class AsyncEventSinkTest {
+
+    /**
+     * Publishes from several threads while the sink closes, and checks that no event is lost without being counted
+     * and that the delegate receives nothing after close() returned.
+     */
+    @Test
+    void eventsRacingCloseAreDeliveredOrDropped() throws InterruptedException {
+        LongAdder delivered = new LongAdder();
+        AsyncEventSink sink = new AsyncEventSink(1024, event -> delivered.increment());
+        GameEvent event = new GameEvent(GameEventType.LEVEL_UP, new WarriorCharacter("Conan"), null);
+        int threads = 4, perThread = 200_000;
+        List<Thread> publishers = new ArrayList<>();
+        for(int t = 0; t < threads; t++){
+            publishers.add(Thread.ofPlatform().start(() -> {
+                for(int i = 0; i < perThread; i++){
+                    sink.accept(event);
+                }
+            }));
+        }
+        Thread.sleep(5);
+        sink.close();
+        long deliveredAtClose = delivered.sum();
+        for(Thread publisher : publishers){
+            publisher.join();
+        }
+
+        assertEquals(deliveredAtClose, delivered.sum(), "nothing is delivered after close()");
+        assertEquals((long) threads * perThread, delivered.sum() + sink.getDroppedCount());
+    }
+
+    /**
+     * Makes the delegate throw for every other event and checks that the others are still delivered.
+     */
+    @Test
+    void delegateFailuresAreCounted(){
+        LongAdder delivered = new LongAdder();
+        int[] calls = {0};
+        AsyncEventSink sink = new AsyncEventSink(256, event -> {
+            if(calls[0]++ % 2 == 0){
+                throw new IllegalStateException("delegate failure");
+            }
+            delivered.increment();
+        });
+        GameEvent event = new GameEvent(GameEventType.LEVEL_UP, new MageCharacter("Merlin"), null);
+        for(int i = 0; i < 100; i++){
+            sink.accept(event);
+        }
+        sink.close();
+
+        assertEquals(0, sink.getDroppedCount());
+        assertEquals(50, sink.getFailedCount());
+        assertEquals(50, delivered.sum());
+    }
+}
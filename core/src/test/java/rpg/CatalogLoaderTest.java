@@ -0,0 +1,197 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * CatalogLoaderTest class loads small CSV and JSON Lines files with chunks of a few bytes, so records cross chunk
+ * boundaries, and checks the built records, the line numbers of malformed lines, and the handling of the CSV header,
+ * a byte order mark, and CRLF line ends.
+ */
+class CatalogLoaderTest {
+
+    /** Loader with several parser threads and chunks shorter than most lines. */
+    private static final CatalogLoader LOADER = new CatalogLoader(3, 16);
+
+    /**
+     * Silences the events published by the characters.
+     */
+    @BeforeAll
+    static void silenceEvents(){
+        GameEvents.setSink(new NoOpEventSink());
+    }
+
+    /**
+     * Loads a CSV item catalog with a byte order mark, CRLF line ends, reordered and extra columns, quoted fields,
+     * blank lines, and malformed lines.
+     */
+    @Test
+    void loadsCsvItems(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("items.csv");
+        String text = "\uFEFFname,extra,type,level,baseStat,effectType,effectValue\r\n"
+                + "Excalibur,x,Sword,3,10,,\r\n"
+                + "\"Oak, Staff\",,STAFF,,12.5,,\r\n"
+                + "Bad Type,,Spoon,1,1,,\r\n"
+                + "\r\n"
+                + "Vampire Ring,,ring,,,Life steal,0.1\r\n"
+                + "\"Unclosed,,Sword,1,1,,\r\n"
+                + "No Stat,,Bow,2,,,\r\n"
+                + "\"Say \"\"Hi\"\"\",,Earring,,,Wisdom,0.15\r\n"
+                + "Longbow,,Bow,5,eleven,,";
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+
+        ConcurrentLinkedQueue<Object> items = new ConcurrentLinkedQueue<>();
+        CatalogLoader.Report report = LOADER.loadItems(file, items::add);
+
+        Map<String, Object> byName = new TreeMap<>();
+        for(Object item : items){
+            byName.put(item instanceof Equipment equipment ? equipment.getName() : ((Accessory) item).getName(), item);
+        }
+        assertEquals(List.of("Excalibur", "Oak, Staff", "Say \"Hi\"", "Vampire Ring"), List.copyOf(byName.keySet()));
+        Equipment sword = (Equipment) byName.get("Excalibur");
+        assertEquals(ItemType.SWORD, sword.getItemType());
+        assertEquals(3, sword.getLevel());
+        Equipment staff = (Equipment) byName.get("Oak, Staff");
+        assertEquals(ItemType.STAFF, staff.getItemType());
+        assertEquals(1, staff.getLevel());
+        assertEquals(new Staff("Oak, Staff", 1, 12.5).getMainStat(), staff.getMainStat());
+        Accessory ring = (Accessory) byName.get("Vampire Ring");
+        assertEquals(ItemType.RING, ring.getItemType());
+        assertEquals("Life steal", ring.getEffectType());
+        assertEquals(0.1, ring.getEffectValue());
+        assertEquals(ItemType.EARRING, ((Accessory) byName.get("Say \"Hi\"")).getItemType());
+
+        assertEquals(10, report.lines());
+        assertEquals(4, report.records());
+        assertEquals(4, report.malformed());
+        assertEquals(Files.size(file), report.bytes());
+        assertEquals(List.of(4L, 7L, 8L, 10L), lines(report));
+        assertTrue(message(report, 8).contains("baseStat"), message(report, 8));
+        assertTrue(message(report, 10).contains("eleven"), message(report, 10));
+    }
+
+    /**
+     * Loads a JSON Lines roster with nested values, nulls, a line longer than a chunk, and malformed lines.
+     */
+    @Test
+    void loadsJsonCharacters(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("roster.jsonl");
+        String text = """
+                {"job":"Warrior","name":"Conan","level":3}
+                {"name":"Merlin","job":"MAGE","stats":{"hp":[1,2]},"level":null}
+                not json
+                {"job":"Archer","name":"Robin, the \\"Hood\\"","level":12,"note":"%s"}
+
+                {"job":"Bard","name":"Nobody"}
+                {"job":"Warrior","name":"Zero","level":0}
+                {"job":"Mage"}
+                """.formatted("x".repeat(100));
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+
+        ConcurrentLinkedQueue<RPGCharacter> characters = new ConcurrentLinkedQueue<>();
+        CatalogLoader.Report report = LOADER.loadCharacters(file, characters::add);
+
+        List<RPGCharacter> sorted = new ArrayList<>(characters);
+        sorted.sort(Comparator.comparing(RPGCharacter::getName));
+        assertEquals(List.of("Conan", "Merlin", "Robin, the \"Hood\""), sorted.stream().map(RPGCharacter::getName).toList());
+        assertEquals(List.of(JobType.WARRIOR, JobType.MAGE, JobType.ARCHER), sorted.stream().map(RPGCharacter::getJobType).toList());
+        assertEquals(List.of(3, 1, 12), sorted.stream().map(RPGCharacter::getLevel).toList());
+
+        BaseCharacter leveled = new ArcherCharacter("Reference");
+        for(int i = 1; i < 12; i++){
+            leveled.levelUp();
+        }
+        assertEquals(leveled.getVitals(), ((BaseCharacter) sorted.get(2)).getVitals());
+
+        assertEquals(8, report.lines());
+        assertEquals(3, report.records());
+        assertEquals(List.of(3L, 6L, 7L, 8L), lines(report));
+        assertTrue(message(report, 6).contains("Bard"), message(report, 6));
+        assertTrue(message(report, 8).contains("name"), message(report, 8));
+    }
+
+    /**
+     * Writes characters with CharacterSheetRenderer in CSV and JSON and loads them back.
+     */
+    @Test
+    void loadsRendererOutput(@TempDir Path dir) throws IOException {
+        BaseCharacter warrior = new WarriorCharacter("Conan, \"the\" Barbarian");
+        warrior.levelUp();
+        warrior.equipEquipment(new Sword("Excalibur", 3, 10));
+        List<RPGCharacter> written = List.of(warrior, new MageCharacter("Merlin"), new ArcherCharacter("Robin"));
+
+        for(CharacterSheetRenderer.Format format : List.of(CharacterSheetRenderer.Format.CSV, CharacterSheetRenderer.Format.JSON)){
+            Path file = dir.resolve(format == CharacterSheetRenderer.Format.CSV ? "sheets.csv" : "sheets.jsonl");
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)){
+                new CharacterSheetRenderer(format).write(written, channel);
+            }
+            ConcurrentLinkedQueue<RPGCharacter> loaded = new ConcurrentLinkedQueue<>();
+            CatalogLoader.Report report = LOADER.loadCharacters(file, loaded::add);
+
+            assertEquals(0, report.malformed(), format.name() + " " + report.problems());
+            List<String> expected = written.stream().map(c -> c.getName() + "/" + c.getJobType() + "/" + c.getLevel()).sorted().toList();
+            List<String> actual = loaded.stream().map(c -> c.getName() + "/" + c.getJobType() + "/" + c.getLevel()).sorted().toList();
+            assertEquals(expected, actual, format.name());
+        }
+    }
+
+    /**
+     * Checks that a CSV file without a header line or without a required column is refused as a whole.
+     */
+    @Test
+    void refusesBadCsvHeader(@TempDir Path dir) throws IOException {
+        Path empty = Files.writeString(dir.resolve("empty.csv"), "");
+        IOException noHeader = assertThrows(IOException.class, () -> LOADER.loadItems(empty, item -> {}));
+        assertTrue(noHeader.getMessage().contains("no header"), noHeader.getMessage());
+
+        Path bomOnly = Files.writeString(dir.resolve("bom.csv"), "\uFEFF", StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> LOADER.loadItems(bomOnly, item -> {}));
+
+        Path noName = Files.writeString(dir.resolve("no-name.csv"), "type,level,baseStat\nSword,1,10\n");
+        IOException missing = assertThrows(IOException.class, () -> LOADER.loadItems(noName, item -> {}));
+        assertTrue(missing.getMessage().contains("name"), missing.getMessage());
+
+        Path headerOnly = Files.writeString(dir.resolve("header.csv"), "\uFEFFtype,name\r\n", StandardCharsets.UTF_8);
+        CatalogLoader.Report report = LOADER.loadItems(headerOnly, item -> {});
+        assertEquals(1, report.lines());
+        assertEquals(0, report.records());
+    }
+
+    /**
+     * Retrieves the line numbers of the malformed lines of a report, in order.
+     *
+     * @param report report of a load.
+     * @return sorted line numbers.
+     */
+    private static List<Long> lines(CatalogLoader.Report report){
+        return report.problems().stream().map(CatalogLoader.Problem::line).sorted().toList();
+    }
+
+    /**
+     * Retrieves the message of the problem reported for a line.
+     *
+     * @param report report of a load.
+     * @param line   line number.
+     * @return message of the problem.
+     */
+    private static String message(CatalogLoader.Report report, long line){
+        return report.problems().stream().filter(problem -> problem.line() == line).findFirst().orElseThrow().message();
+    }
+}
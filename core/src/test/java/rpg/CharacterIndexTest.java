@@ -0,0 +1,281 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleFunction;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CharacterIndexTest class runs random queries over an index large enough to be scanned by several tasks, and
+ * checks their counts, matches, and aggregates against a scan of the characters themselves.
+ */
+class CharacterIndexTest {
+
+    /** Effect types the test accessories are given. */
+    private static final String[] EFFECTS = {"Life steal", "Wisdom", "Vitality", "Slowdown yourself"};
+
+    /** Pool running the scans, apart from the common pool. */
+    private static ForkJoinPool pool;
+
+    /** Indexed characters. */
+    private static List<BaseCharacter> characters;
+
+    /** Index under test. */
+    private static CharacterIndex index;
+
+    /**
+     * Silences the events, then builds characters of random jobs, levels, and items, and indexes them.
+     */
+    @BeforeAll
+    static void buildIndex(){
+        GameEvents.setSink(new NoOpEventSink());
+        Random random = new Random(11);
+        List<Equipment> weapons = new ArrayList<>();
+        List<Accessory> accessories = new ArrayList<>();
+        for(int i = 0; i < 40; i++){
+            double stat = 1 + random.nextInt(400) / 10.0;
+            int level = 1 + random.nextInt(5);
+            weapons.add(switch (i % 6) {
+                case 0 -> new Sword("Sword " + i, level, stat);
+                case 1 -> new Shield("Shield " + i, level, stat);
+                case 2 -> new Staff("Staff " + i, level, stat);
+                case 3 -> new Charm("Charm " + i, level, stat);
+                case 4 -> new Bow("Bow " + i, level, stat);
+                default -> new Dagger("Dagger " + i, level, stat);
+            });
+            String effect = EFFECTS[random.nextInt(EFFECTS.length)];
+            double value = random.nextInt(30) / 100.0;
+            accessories.add(switch (i % 3) {
+                case 0 -> new Amulet("Amulet " + i, effect, value);
+                case 1 -> new Ring("Ring " + i, effect, value);
+                default -> new Earring("Earring " + i, effect, value);
+            });
+        }
+
+        Map<JobType, List<BaseCharacter.Vitals>> vitalsByLevel = new IdentityHashMap<>();
+        characters = new ArrayList<>();
+        for(int i = 0; i < 40_000; i++){
+            JobType job = JobType.values()[random.nextInt(JobType.values().length)];
+            BaseCharacter character = BaseCharacter.create(job, "NPC " + i);
+            List<BaseCharacter.Vitals> vitals = vitalsByLevel.computeIfAbsent(job, j -> new ArrayList<>(List.of(character.getVitals())));
+            int level = 1 + random.nextInt(50);
+            while(vitals.size() < level){
+                vitals.add(vitals.get(vitals.size() - 1).levelUp());
+            }
+            character.restoreVitals(vitals.get(level - 1));
+            for(int tries = 0; tries < 3; tries++){
+                Equipment weapon = weapons.get(random.nextInt(weapons.size()));
+                if(job.canEquip(weapon.getItemType())){
+                    character.equipEquipment(weapon);
+                }
+            }
+            for(int tries = random.nextInt(3); tries > 0; tries--){
+                character.equipAccessory(accessories.get(random.nextInt(accessories.size())));
+            }
+            characters.add(character);
+        }
+        Collections.shuffle(characters, random);
+        pool = new ForkJoinPool(4);
+        index = CharacterIndex.build(characters, pool);
+    }
+
+    /**
+     * Stops the scan pool.
+     */
+    @AfterAll
+    static void stopPool(){
+        pool.shutdown();
+    }
+
+    /**
+     * Runs random combinations of every filter and compares count(), exists(), list(), and the aggregates with the
+     * scan.
+     */
+    @Test
+    void randomQueriesMatchScan(){
+        assertEquals(characters.size(), index.size());
+        Random random = new Random(5);
+        for(int i = 0; i < 200; i++){
+            Filter filter = Filter.random(random);
+            String name = filter.toString();
+            List<BaseCharacter> expected = characters.stream().filter(filter::matches).toList();
+
+            assertEquals(expected.size(), filter.apply(index.query()).count(), name);
+            assertEquals(!expected.isEmpty(), filter.apply(index.query()).exists(), name);
+            int limit = random.nextInt(2) == 0 ? 5 : Integer.MAX_VALUE;
+            List<RPGCharacter> listed = filter.apply(index.query()).list(limit);
+            assertEquals(Math.min(limit, expected.size()), listed.size(), name);
+            Map<RPGCharacter, Boolean> seen = new IdentityHashMap<>();
+            for(RPGCharacter character : listed){
+                assertTrue(filter.matches((BaseCharacter) character), name);
+                assertTrue(seen.put(character, true) == null, name + " lists a character twice");
+            }
+
+            assertAggregate(expected, c -> c.getLevel(), filter.apply(index.query()).levels(), name + " levels");
+            for(Slot slot : Slot.values()){
+                assertAggregate(expected, c -> stat(c.getSlot(slot)), filter.apply(index.query()).stats(slot), name + " " + slot);
+            }
+        }
+    }
+
+    /**
+     * Checks queries that match nothing, and that an effect filter is refused on a weapon slot.
+     */
+    @Test
+    void emptyAndInvalidQueries(){
+        CharacterIndex.Query none = index.query().minLevel(30).maxLevel(20);
+        assertEquals(0, none.count());
+        assertEquals(List.of(), none.list(10));
+        CharacterIndex.Aggregate aggregate = none.levels();
+        assertEquals(0, aggregate.count());
+        assertTrue(Double.isNaN(aggregate.min()) && Double.isNaN(aggregate.max()) && Double.isNaN(aggregate.average()));
+        assertEquals(List.of(), index.query().list(0));
+        assertEquals(0, CharacterIndex.build(List.of(), pool).query().count());
+        assertThrows(IllegalArgumentException.class, () -> index.query().effect(Slot.MAIN_HAND, "Wisdom"));
+    }
+
+    /**
+     * Compares an aggregate of the index with the same aggregate computed over the expected matches.
+     *
+     * @param expected characters the query should match.
+     * @param value    value of a character, NaN when it has none.
+     * @param actual   aggregate returned by the index.
+     * @param name     description of the query, for the failure messages.
+     */
+    private static void assertAggregate(List<BaseCharacter> expected, ToDoubleFunction<BaseCharacter> value,
+                                        CharacterIndex.Aggregate actual, String name){
+        double[] values = expected.stream().mapToDouble(value).filter(v -> !Double.isNaN(v)).toArray();
+        assertEquals(values.length, actual.count(), name);
+        if(values.length == 0){
+            assertTrue(Double.isNaN(actual.average()), name);
+            return;
+        }
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY, sum = 0;
+        for(double v : values){
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+            sum += v;
+        }
+        assertEquals(min, actual.min(), name);
+        assertEquals(max, actual.max(), name);
+        // The index adds the values in another order, so the average may differ in its last bits.
+        assertEquals(sum / values.length, actual.average(), 1e-9 * Math.abs(sum / values.length), name);
+    }
+
+    /**
+     * Retrieves the stat the index keeps for an equipped item.
+     *
+     * @param item item in a slot, or null.
+     * @return main stat of a weapon, effect value of an accessory, NaN for an empty slot.
+     */
+    private static double stat(Object item){
+        if(item instanceof Equipment equipment){
+            return equipment.getMainStat();
+        }
+        return item instanceof Accessory accessory ? accessory.getEffectValue() : Double.NaN;
+    }
+
+    /**
+     * Filter record is one combination of query filters, applied both to a query and to a character.
+     *
+     * @param job        job to match, or null.
+     * @param minLevel   smallest level.
+     * @param maxLevel   largest level.
+     * @param item       item type that must be equipped, or null.
+     * @param statSlot   slot whose stat is bounded, or null.
+     * @param minStat    smallest stat of statSlot.
+     * @param maxStat    largest stat of statSlot.
+     * @param effectSlot accessory slot whose effect type must match, or null.
+     * @param effect     effect type to match.
+     */
+    private record Filter(JobType job, int minLevel, int maxLevel, ItemType item, Slot statSlot, double minStat,
+                          double maxStat, Slot effectSlot, String effect) {
+
+        /**
+         * Draws a random combination, where each filter is present about half the time.
+         *
+         * @param random source of randomness.
+         * @return new combination.
+         */
+        static Filter random(Random random){
+            JobType job = random.nextBoolean() ? JobType.values()[random.nextInt(JobType.values().length)] : null;
+            int minLevel = random.nextBoolean() ? 1 + random.nextInt(50) : Integer.MIN_VALUE;
+            int maxLevel = random.nextBoolean() ? minLevel == Integer.MIN_VALUE ? random.nextInt(50) : minLevel + random.nextInt(20) : Integer.MAX_VALUE;
+            ItemType item = random.nextInt(3) == 0 ? ItemType.values()[random.nextInt(ItemType.values().length)] : null;
+            Slot statSlot = random.nextBoolean() ? Slot.values()[random.nextInt(Slot.COUNT)] : null;
+            boolean accessory = statSlot != null && statSlot != Slot.MAIN_HAND && statSlot != Slot.SUB_HAND;
+            double minStat = accessory ? random.nextInt(30) / 100.0 : random.nextInt(60);
+            double maxStat = random.nextBoolean() ? minStat + (accessory ? 0.1 : 20) : Double.POSITIVE_INFINITY;
+            Slot effectSlot = random.nextInt(3) == 0 ? List.of(Slot.AMULET, Slot.RING, Slot.EARRING).get(random.nextInt(3)) : null;
+            String effect = EFFECTS[random.nextInt(EFFECTS.length)];
+            return new Filter(job, minLevel, maxLevel, item, statSlot, minStat, maxStat, effectSlot,
+                    random.nextBoolean() ? effect : effect.toUpperCase());
+        }
+
+        /**
+         * Adds the filters to a query.
+         *
+         * @param query query to be filtered.
+         * @return the query.
+         */
+        CharacterIndex.Query apply(CharacterIndex.Query query){
+            if(job != null){
+                query.job(job);
+            }
+            query.minLevel(minLevel).maxLevel(maxLevel);
+            if(item != null){
+                query.item(item);
+            }
+            if(statSlot != null){
+                query.minStat(statSlot, minStat).maxStat(statSlot, maxStat);
+            }
+            if(effectSlot != null){
+                query.effect(effectSlot, effect);
+            }
+            return query;
+        }
+
+        /**
+         * Checks a character against the filters by reading it directly.
+         *
+         * @param character character to check.
+         * @return true if every filter matches.
+         */
+        boolean matches(BaseCharacter character){
+            if(job != null && character.getJobType() != job){
+                return false;
+            }
+            if(character.getLevel() < minLevel || character.getLevel() > maxLevel){
+                return false;
+            }
+            if(item != null){
+                Object equipped = character.getSlot(item.getSlot());
+                ItemType type = equipped instanceof Equipment e ? e.getItemType() : equipped instanceof Accessory a ? a.getItemType() : null;
+                if(type != item){
+                    return false;
+                }
+            }
+            if(statSlot != null){
+                double stat = stat(character.getSlot(statSlot));
+                if(!(stat >= minStat && stat <= maxStat)){
+                    return false;
+                }
+            }
+            if(effectSlot != null){
+                return character.getSlot(effectSlot) instanceof Accessory accessory && accessory.getEffect() == EffectType.of(effect);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CharacterServiceTest class checks that the service registers no more new item templates than its limit allows.
+ */
+class CharacterServiceTest {
+
+    /**
+     * Silences the events published by the characters.
+     */
+    @BeforeAll
+    static void silenceEvents(){
+        GameEvents.setSink(new NoOpEventSink());
+    }
+
+    /**
+     * Equips items of new and known templates to a service limited to two new templates.
+     */
+    @Test
+    void newItemTemplatesAreBounded() throws IOException {
+        String unique = UUID.randomUUID().toString();
+        new Sword("Catalog Blade " + unique, 1, 10);
+        try(CharacterService service = CharacterService.start(0, 2);
+            CharacterServiceClient client = new CharacterServiceClient(service.getPort())){
+            int warrior = client.createCharacter(JobType.WARRIOR, "Conan");
+            assertTrue(client.equipEquipment(warrior, ItemType.SWORD, "Sword " + unique, 1, 10) >= 0);
+            assertTrue(client.equipEquipment(warrior, ItemType.SWORD, "Sword " + unique, 3, 10) >= 0);
+            assertTrue(client.equipAccessory(warrior, ItemType.RING, "Ring " + unique, "Wisdom", 0.1));
+            assertEquals(2, service.getRegisteredTemplateCount());
+
+            IllegalStateException rejected = assertThrows(IllegalStateException.class,
+                    () -> client.equipEquipment(warrior, ItemType.SWORD, "Other Sword " + unique, 1, 10));
+            assertTrue(rejected.getMessage().contains("limit"), rejected.getMessage());
+            assertThrows(IllegalStateException.class,
+                    () -> client.equipAccessory(warrior, ItemType.RING, "Ring " + unique, "Wisdom", 0.2));
+
+            assertTrue(client.equipEquipment(warrior, ItemType.SWORD, "Catalog Blade " + unique, 2, 10) >= 0,
+                    "items of templates registered before are accepted");
+            assertEquals(2, service.getRegisteredTemplateCount());
+        }
+    }
+}
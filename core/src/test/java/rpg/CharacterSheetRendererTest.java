@@ -0,0 +1,243 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CharacterSheetRendererTest class checks that the TEXT format is byte for byte what showCharacterInfo() printed with
+ * println before the renderer existed, for heap characters, table characters, and characters the renderer does not
+ * know.
+ */
+class CharacterSheetRendererTest {
+
+    /**
+     * Silences the events published by the characters.
+     */
+    @BeforeAll
+    static void silenceEvents(){
+        GameEvents.setSink(new NoOpEventSink());
+    }
+
+    /**
+     * Renders heap characters of every job, equipped or not, and compares them with the println output.
+     */
+    @Test
+    void textMatchesPrintlnForHeapCharacters() throws IOException {
+        BaseCharacter warrior = new WarriorCharacter("Conan");
+        warrior.levelUp();
+        warrior.equipEquipment(new Sword("Excalibur", 3, 10));
+        warrior.equipEquipment(new Shield("Aegis", 1, 8));
+        warrior.equipAccessory(new Amulet("Bear Amulet", "Vitality", 0.2));
+        warrior.equipAccessory(new Ring("Vampire Ring", "Life steal", 0.1));
+        BaseCharacter mage = new MageCharacter("Merlin é世");
+        mage.equipEquipment(new Staff("Oak Staff", 2, 12));
+        mage.equipAccessory(new Earring("Sage Earring", "Wisdom", 0.15));
+        BaseCharacter archer = new ArcherCharacter("Robin");
+        for(int i = 0; i < 7; i++){
+            archer.levelUp();
+        }
+
+        for(BaseCharacter character : List.of(warrior, mage, archer)){
+            BaseCharacter.Vitals v = character.getVitals();
+            byte[] expected = printed(character, out -> {
+                out.println("Level : " + v.level());
+                out.println("Hp : " + v.hp() + " / " + v.maxHp());
+                out.println("Mana : " + v.mana() + " / " + v.maxMana());
+                out.println("Speed" + "(Base " + character.getBaseSpeed() + ") : " + v.speed() + " / " + v.maxSpeed());
+            });
+            assertArrayEquals(expected, rendered(character), character.getName());
+            assertArrayEquals(expected, captured(character::showCharacterInfo), character.getName());
+        }
+    }
+
+    /**
+     * Renders table characters of every job, equipped or not, and compares them with the println output.
+     */
+    @Test
+    void textMatchesPrintlnForTableCharacters() throws IOException {
+        CharacterTable table = new CharacterTable(4);
+        RPGCharacter warrior = table.addWarrior("Conan");
+        warrior.levelUp();
+        warrior.levelUp();
+        warrior.equipEquipment(new Sword("Excalibur", 3, 10));
+        warrior.equipAccessory(new Ring("Vampire Ring", "Life steal", 0.1));
+        RPGCharacter mage = table.addMage("Merlin");
+        mage.equipEquipment(new Charm("Moon Charm", 0, 4));
+        RPGCharacter archer = table.addArcher("Robin");
+        archer.equipEquipment(new Bow("Longbow", 5, 11));
+        archer.equipEquipment(new Dagger("Dirk", 2, 6));
+        archer.equipAccessory(new Amulet("Bear Amulet", "Vitality", 0.2));
+        archer.equipAccessory(new Earring("Hawk Earring", "Slowdown yourself", 0.05));
+
+        for(RPGCharacter character : List.of(warrior, mage, archer)){
+            TableCharacter view = (TableCharacter) character;
+            int r = view.row;
+            byte[] expected = printed(character, out -> {
+                out.println("Level : " + table.level(r));
+                out.println("Hp : " + table.hp(r) + " / " + table.maxHp(r));
+                out.println("Mana : " + table.mana(r) + " / " + table.maxMana(r));
+                out.println("Speed" + "(Base " + table.baseSpeed(r) + ") : " + table.speed(r) + " / " + table.maxSpeed(r));
+            });
+            assertArrayEquals(expected, rendered(character), character.getName());
+            assertArrayEquals(expected, captured(character::showCharacterInfo), character.getName());
+        }
+    }
+
+    /**
+     * Prints the sheet of a character the renderer does not know, which keeps its own showStats().
+     */
+    @Test
+    void showCharacterInfoFallsBackToShowStats(){
+        Probe probe = new Probe();
+        probe.equipEquipment(new Bow("Longbow", 5, 11));
+        probe.equipAccessory(new Ring("Vampire Ring", "Life steal", 0.1));
+
+        byte[] expected = printed(probe, out -> out.println("Stats of the probe"));
+        assertArrayEquals(expected, captured(probe::showCharacterInfo));
+        assertEquals(1, probe.showStatsCalls);
+    }
+
+    /**
+     * Renders a character in the TEXT format through write().
+     *
+     * @param character character to render.
+     * @return bytes written.
+     * @throws IOException never, the channel writes to memory.
+     */
+    private static byte[] rendered(RPGCharacter character) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new CharacterSheetRenderer(CharacterSheetRenderer.Format.TEXT).write(List.of(character), Channels.newChannel(bytes));
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Prints a sheet the way showCharacterInfo() did before the renderer, with one println per line.
+     *
+     * @param character character to print.
+     * @param stats     printer of the stats lines.
+     * @return bytes printed.
+     */
+    private static byte[] printed(RPGCharacter character, Consumer<PrintStream> stats){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        out.println("Name : " + character.getName());
+        out.println("Job : " + character.getJobName());
+        stats.accept(out);
+        out.println("Accessory : ");
+        for(Accessory acc : character.getEquippedAccessory()){
+            switch (acc) {
+                case Amulet amulet -> out.println("  Amulet : " + amulet.getName());
+                case Ring ring -> out.println("  Ring : " + ring.getName());
+                case Earring earring -> out.println("  Earring : " + earring.getName());
+                case null, default -> out.print("");
+            }
+        }
+        out.println("Equipment : ");
+        for(Equipment equ : character.getEquippedEquipment()){
+            switch (equ) {
+                case MainWeapon mainWeapon -> out.println("  Main Weapon : " + mainWeapon.getName() + " Lv." + mainWeapon.getLevel());
+                case SubWeapon subWeapon -> out.println("  Sub Weapon : " + subWeapon.getName() + " Lv." + subWeapon.getLevel());
+                case null, default -> out.print("");
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Captures what an action prints to System.out.
+     *
+     * @param action action to run.
+     * @return bytes printed, in UTF-8.
+     */
+    private static synchronized byte[] captured(Runnable action){
+        PrintStream console = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        try {
+            action.run();
+        }finally {
+            System.setOut(console);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Probe class is a minimal RPGCharacter outside the BaseCharacter and CharacterTable hierarchies.
+     */
+    private static final class Probe implements RPGCharacter {
+
+        /** Equipped accessories in amulet, ring, earring order. */
+        private final Accessory[] accessories = new Accessory[3];
+
+        /** Equipped equipment in main hand, sub hand order. */
+        private final Equipment[] equipment = new Equipment[2];
+
+        /** Number of calls to showStats(). */
+        int showStatsCalls;
+
+        @Override
+        public String getName(){
+            return "Probe";
+        }
+
+        @Override
+        public int getLevel(){
+            return 1;
+        }
+
+        @Override
+        public String getJobName(){
+            return "Tester";
+        }
+
+        @Override
+        public JobType getJobType(){
+            return JobType.WARRIOR;
+        }
+
+        @Override
+        public void levelUp(){
+        }
+
+        @Override
+        public Inventory getInventory(){
+            return null;
+        }
+
+        @Override
+        public Accessory[] getEquippedAccessory(){
+            return accessories.clone();
+        }
+
+        @Override
+        public Equipment[] getEquippedEquipment(){
+            return equipment.clone();
+        }
+
+        @Override
+        public void equipAccessory(Accessory accessory){
+            accessories[accessory instanceof Amulet ? 0 : accessory instanceof Ring ? 1 : 2] = accessory;
+        }
+
+        @Override
+        public void equipEquipment(Equipment equ){
+            equipment[equ instanceof MainWeapon ? 0 : 1] = equ;
+        }
+
+        @Override
+        public void showStats(){
+            showStatsCalls++;
+            System.out.println("Stats of the probe");
+        }
+    }
+}
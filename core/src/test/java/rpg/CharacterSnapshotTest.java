@@ -0,0 +1,141 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * CharacterSnapshotTest class checks that a batch of mutations publishes exactly one snapshot when it ends, that
+ * snapshot() hands out the state from before the batch until then, and that concurrent readers never see part of a
+ * batch.
+ */
+class CharacterSnapshotTest {
+
+    /**
+     * Silences the events published by the characters.
+     */
+    @BeforeAll
+    static void silenceEvents(){
+        GameEvents.setSink(new NoOpEventSink());
+    }
+
+    /**
+     * Levels up, equips, and upgrades inside one batch, reading snapshot() before, during, and after it.
+     */
+    @Test
+    void batchPublishesOneSnapshot(){
+        BaseCharacter warrior = new WarriorCharacter("Conan");
+        Sword sword = new Sword("Excalibur", 3, 10);
+        CharacterSnapshot before = warrior.snapshot();
+        assertSame(before, warrior.snapshot(), "nothing changed, so nothing is published");
+
+        List<CharacterSnapshot> during = new ArrayList<>();
+        warrior.batch(character -> {
+            character.levelUp();
+            during.add(character.snapshot());
+            character.equipEquipment(sword);
+            during.add(character.snapshot());
+            sword.upgrade();
+            character.equipAccessory(new Ring("Vampire Ring", "Life steal", 0.1));
+            during.add(character.snapshot());
+        });
+        for(CharacterSnapshot snapshot : during){
+            assertSame(before, snapshot, "a batch publishes nothing before it ends");
+        }
+
+        CharacterSnapshot after = warrior.snapshot();
+        assertNotSame(before, after);
+        assertSame(after, warrior.snapshot(), "the batch published one snapshot");
+        assertEquals(before.level() + 1, after.level());
+        assertEquals(EquipmentSnapshot.of(sword), after.mainHand());
+        assertEquals(4, after.mainHand().level());
+        assertEquals("Vampire Ring", after.ring().name());
+        assertNull(before.mainHand());
+        assertNull(before.ring());
+    }
+
+    /**
+     * Checks that an empty batch publishes nothing and that nested batches publish once, when the outer one ends.
+     */
+    @Test
+    void nestedBatchesPublishOnce(){
+        BaseCharacter mage = new MageCharacter("Merlin");
+        CharacterSnapshot before = mage.snapshot();
+        mage.batch(character -> {});
+        assertSame(before, mage.snapshot());
+
+        mage.batch(outer -> {
+            outer.levelUp();
+            outer.batch(inner -> inner.equipEquipment(new Staff("Oak Staff", 2, 12)));
+            assertSame(before, outer.snapshot(), "an inner batch does not publish");
+            outer.levelUp();
+        });
+        CharacterSnapshot after = mage.snapshot();
+        assertEquals(before.level() + 2, after.level());
+        assertEquals("Oak Staff", after.mainHand().name());
+        assertSame(after, mage.snapshot());
+    }
+
+    /**
+     * Runs batches that level up and swap both the weapon and the ring, while other threads read snapshots, and
+     * checks that every snapshot read holds all of a batch or none of it, and that no more snapshots appear than
+     * there are batches.
+     */
+    @Test
+    void readersSeeWholeBatches() throws InterruptedException {
+        BaseCharacter archer = new ArcherCharacter("Robin");
+        CharacterSnapshot initial = archer.snapshot();
+        int batches = 2_000;
+        AtomicBoolean done = new AtomicBoolean();
+        List<Set<CharacterSnapshot>> seen = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+        for(int t = 0; t < 3; t++){
+            Set<CharacterSnapshot> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+            seen.add(distinct);
+            readers.add(Thread.ofPlatform().start(() -> {
+                while(!done.get()){
+                    distinct.add(archer.snapshot());
+                }
+            }));
+        }
+        for(int k = 1; k <= batches; k++){
+            String suffix = " " + k;
+            archer.batch(character -> {
+                character.levelUp();
+                character.equipEquipment(new Bow("Bow" + suffix, 1, 11));
+                character.equipAccessory(new Ring("Ring" + suffix, "Life steal", 0.1));
+            });
+        }
+        done.set(true);
+        for(Thread reader : readers){
+            reader.join();
+        }
+
+        Set<CharacterSnapshot> all = Collections.newSetFromMap(new IdentityHashMap<>());
+        seen.forEach(all::addAll);
+        all.add(archer.snapshot());
+        assertTrue(all.size() <= batches + 1, all.size() + " snapshots for " + batches + " batches");
+        for(CharacterSnapshot snapshot : all){
+            int k = snapshot.level() - initial.level();
+            if(k == 0){
+                assertNull(snapshot.mainHand());
+                assertNull(snapshot.ring());
+            }else {
+                assertEquals("Bow " + k, snapshot.mainHand().name(), "level " + snapshot.level());
+                assertEquals("Ring " + k, snapshot.ring().name(), "level " + snapshot.level());
+            }
+        }
+        assertEquals(initial.level() + batches, archer.snapshot().level());
+    }
+}
@@ -0,0 +1,133 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ConcurrencyStressTest class hammers a shared character and weapon from many threads and verifies that
+ * no level up, upgrade, or slot swap is lost and that readers never see torn stats.
+ */
+class ConcurrencyStressTest {
+
+    /** Number of writer threads. */
+    private static final int THREADS = 8;
+
+    /** Operations per thread. */
+    private static final int OPERATIONS = 100_000;
+
+    /**
+     * Silences the events published by the characters.
+     */
+    @BeforeAll
+    static void silenceEvents(){
+        GameEvents.setSink(new NoOpEventSink());
+    }
+
+    /**
+     * Levels up one character from every thread while a reader checks that the stats it sees belong together.
+     */
+    @Test
+    void levelUpLosesNoUpdateAndNeverTears() throws InterruptedException {
+        BaseCharacter warrior = new WarriorCharacter("Stress");
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong tornReads = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            while(!done.get()){
+                BaseCharacter.Vitals v = warrior.getVitals();
+                int gained = v.level() - 1;
+                if(v.maxHp() != 150 + 10.0 * gained || v.hp() != v.maxHp() || v.mana() != 25 + 5.0 * gained){
+                    tornReads.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        runAll(() -> {
+            for(int i = 0; i < OPERATIONS; i++){
+                warrior.levelUp();
+            }
+        });
+        done.set(true);
+        reader.join();
+
+        long expected = 1L + (long) THREADS * OPERATIONS;
+        assertEquals(expected, warrior.getLevel());
+        assertEquals(150 + 10.0 * (expected - 1), warrior.getMaxHp());
+        assertEquals(100 + 1.5 * (expected - 1), warrior.getSpeed());
+        assertEquals(0, tornReads.get(), "torn reads");
+    }
+
+    /**
+     * Upgrades one weapon from every thread.
+     */
+    @Test
+    void upgradeLosesNoUpdate() throws InterruptedException {
+        Sword sword = new Sword("Stress Sword", 0, 10);
+        runAll(() -> {
+            for(int i = 0; i < OPERATIONS; i++){
+                sword.upgrade();
+            }
+        });
+        long expected = (long) THREADS * OPERATIONS;
+        assertEquals(expected, sword.getLevel());
+        assertEquals(10 + 2.5 * expected, sword.getMainStat());
+        assertEquals(expected, sword.getStatVersion());
+    }
+
+    /**
+     * Swaps distinct swords into one main hand from every thread and checks that each sword is handed back exactly once,
+     * except the one left equipped.
+     */
+    @Test
+    void swapReturnsEveryReplacedItemOnce() throws InterruptedException {
+        BaseCharacter warrior = new WarriorCharacter("Swapper");
+        Set<Equipment> returned = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        AtomicLong duplicates = new AtomicLong();
+        int operations = OPERATIONS / 10;
+        runAll(() -> {
+            for(int i = 0; i < operations; i++){
+                Equipment previous = warrior.swapEquipment(new Sword("Swap", 1, 1));
+                if(previous != null && !returned.add(previous)){
+                    duplicates.incrementAndGet();
+                }
+            }
+        });
+        long total = (long) THREADS * operations;
+        assertEquals(0, duplicates.get(), "duplicates");
+        assertEquals(total - 1, returned.size());
+        assertFalse(returned.contains((Equipment) warrior.getSlot(Slot.MAIN_HAND)));
+    }
+
+    /**
+     * Runs a task on several threads started together and waits for all of them.
+     *
+     * @param task task each thread runs.
+     */
+    private static void runAll(Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[THREADS];
+        for(int i = 0; i < THREADS; i++){
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                }catch (InterruptedException e){
+                    return;
+                }
+                task.run();
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for(Thread worker : workers){
+            worker.join();
+        }
+    }
+}
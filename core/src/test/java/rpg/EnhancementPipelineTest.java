@@ -0,0 +1,48 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * EnhancementPipelineTest class checks that the pipeline returns one result per item, in item order, and reports
+ * failed items without stopping the others.
+ */
+class EnhancementPipelineTest {
+
+    /**
+     * Upgrades more items than one task handles, some of which cannot reach the target level, and checks every result.
+     */
+    @Test
+    void everyItemGetsItsResult(){
+        List<Equipment> items = new ArrayList<>();
+        for(int i = 0; i < 5000; i++){
+            items.add(new Dagger("Dirk", i % 20, 6));
+        }
+        items.add(null);
+
+        List<EnhancementPipeline.Result> results = new EnhancementPipeline().upgradeTo(items, 10);
+        assertEquals(items.size(), results.size());
+        for(int i = 0; i < 5000; i++){
+            EnhancementPipeline.Result result = results.get(i);
+            assertSame(items.get(i), result.item());
+            assertEquals(i % 20, result.fromLevel());
+            if(i % 20 <= 10){
+                assertTrue(result.succeeded());
+                assertEquals(10, result.toLevel());
+            }else {
+                assertFalse(result.succeeded());
+                assertInstanceOf(IllegalArgumentException.class, result.failure());
+                assertEquals(result.fromLevel(), result.toLevel());
+            }
+        }
+        assertInstanceOf(NullPointerException.class, results.get(5000).failure());
+        assertEquals(5000 / 20 * 9 + 1, EnhancementPipeline.countFailures(results));
+    }
+}
@@ -0,0 +1,54 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * EquipmentTest class pins the main stat of a weapon to base stat + 2.5 * level, whichever way the level was reached.
+ */
+class EquipmentTest {
+
+    /**
+     * Upgrades a weapon one level at a time and checks the computed main stat, which differs in the last bit from
+     * adding 2.5 on every upgrade as weapons did before templates.
+     */
+    @Test
+    void mainStatIsComputedFromTheLevel(){
+        Sword sword = new Sword("Blade", 0, 12.34);
+        double accumulated = 12.34;
+        for(int i = 0; i < 98; i++){
+            sword.upgrade();
+            accumulated += 2.5;
+        }
+        assertEquals(98, sword.getLevel());
+        assertEquals(12.34 + 2.5 * 98, sword.getMainStat());
+        assertEquals(257.34, sword.getMainStat());
+        assertNotEquals(accumulated, sword.getMainStat(), "the old accumulated stat drifted by one ulp");
+        assertEquals(257.34000000000003, accumulated);
+    }
+
+    /**
+     * Reaches the same level through the constructor, upgrade(), upgradeBy(), and upgradeTo(), and checks that
+     * every weapon has the same main stat.
+     */
+    @Test
+    void everyUpgradePathGivesTheSameMainStat(){
+        double baseStat = 7.1;
+        Bow constructed = new Bow("Bow", 40, baseStat);
+        Bow stepped = new Bow("Bow", 3, baseStat);
+        for(int i = 3; i < 40; i++){
+            stepped.upgrade();
+        }
+        Bow bulk = new Bow("Bow", 3, baseStat);
+        bulk.upgradeBy(37);
+        Bow target = new Bow("Bow", 3, baseStat);
+        target.upgradeTo(40);
+
+        assertEquals(baseStat + 2.5 * 40, constructed.getMainStat());
+        assertEquals(constructed.getMainStat(), stepped.getMainStat());
+        assertEquals(constructed.getMainStat(), bulk.getMainStat());
+        assertEquals(constructed.getMainStat(), target.getMainStat());
+    }
+}
@@ -0,0 +1,241 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * InventoryTest class checks the type, stat, and level lookups and the top-k queries of every job against a scan of
+ * the items, before and after weapons are upgraded in place and items are removed.
+ */
+class InventoryTest {
+
+    /** Effect types the test accessories are given. */
+    private static final String[] EFFECTS = {"Life steal", "Wisdom", "Vitality", "Slowdown yourself"};
+
+    /**
+     * Silences the events published by the items.
+     */
+    @BeforeAll
+    static void silenceEvents(){
+        GameEvents.setSink(new NoOpEventSink());
+    }
+
+    /**
+     * Fills an inventory with items of every type, upgrades some weapons in place, removes some items, and compares
+     * every query with the scan after each step.
+     */
+    @Test
+    void queriesMatchScanAfterUpgrades(){
+        Random random = new Random(7);
+        Inventory inventory = new Inventory();
+        List<Object> items = new ArrayList<>();
+        for(int i = 0; i < 150; i++){
+            ItemType type = ItemType.values()[random.nextInt(ItemType.values().length)];
+            // One decimal makes equal stats common, so the order of insertion among them is checked too.
+            double stat = random.nextInt(200) / 10.0;
+            Object item = type.isWeapon()
+                    ? weapon(type, type.getDisplayName() + " " + i, 1 + random.nextInt(6), stat)
+                    : accessory(type, type.getDisplayName() + " " + i, stat / 100);
+            assertTrue(item instanceof Equipment equipment ? inventory.add(equipment) : inventory.add((Accessory) item));
+            items.add(item);
+        }
+        assertMatches(inventory, items);
+
+        List<Equipment> weapons = items.stream().filter(Equipment.class::isInstance).map(Equipment.class::cast).toList();
+        for(int i = 0; i < 60; i++){
+            weapons.get(random.nextInt(weapons.size())).upgrade();
+        }
+        assertMatches(inventory, items);
+
+        for(int i = 0; i < 40; i++){
+            assertTrue(inventory.remove(items.remove(random.nextInt(items.size()))));
+        }
+        for(int i = 0; i < 20; i++){
+            weapons.get(random.nextInt(weapons.size())).upgrade();
+        }
+        assertMatches(inventory, items);
+    }
+
+    /**
+     * Checks that an upgrade moves a weapon past the others of its type and that a removed weapon is no longer
+     * moved by the inventory it left.
+     */
+    @Test
+    void upgradeReindexesWeapon(){
+        Inventory inventory = new Inventory();
+        Sword weak = new Sword("Weak", 1, 5), strong = new Sword("Strong", 4, 9);
+        inventory.add(weak);
+        inventory.add(strong);
+        assertEquals(List.of(strong, weak), inventory.byType(ItemType.SWORD));
+        assertEquals(List.of(weak), inventory.byLevel(ItemType.SWORD, 1, 3));
+
+        while(weak.getMainStat() <= strong.getMainStat()){
+            weak.upgrade();
+        }
+        assertEquals(List.of(weak, strong), inventory.byType(ItemType.SWORD));
+        assertEquals(weak, inventory.best(ItemType.SWORD));
+        assertEquals(List.of(weak), inventory.topEquipment(JobType.WARRIOR, 1));
+        assertEquals(List.of(), inventory.byLevel(ItemType.SWORD, 1, 3));
+
+        assertTrue(inventory.remove(weak));
+        Inventory other = new Inventory();
+        other.add(weak);
+        weak.upgrade();
+        assertEquals(List.of(strong), inventory.byType(ItemType.SWORD));
+        assertEquals(List.of(weak), other.byType(ItemType.SWORD));
+    }
+
+    /**
+     * Checks that a weapon is in one inventory at a time, and that clear() lets it join another.
+     */
+    @Test
+    void weaponBelongsToOneInventory(){
+        Inventory first = new Inventory(), second = new Inventory();
+        Bow bow = new Bow("Longbow", 5, 11);
+        assertTrue(first.add(bow));
+        assertFalse(first.add(bow));
+        assertThrows(IllegalStateException.class, () -> second.add(bow));
+        assertFalse(second.contains(bow));
+
+        first.clear();
+        assertEquals(0, first.size());
+        assertNull(first.best(ItemType.BOW));
+        assertTrue(second.add(bow));
+    }
+
+    /**
+     * Compares every query of an inventory with a scan of its items.
+     *
+     * @param inventory inventory under test.
+     * @param items     items of the inventory, in the order they were added.
+     */
+    private static void assertMatches(Inventory inventory, List<Object> items){
+        assertEquals(items.size(), inventory.size());
+        for(ItemType type : ItemType.values()){
+            // Stable sorts keep the order of insertion among equal stats and levels, like the indexes.
+            List<Object> added = items.stream().filter(item -> typeOf(item) == type).toList();
+            List<Object> ofType = new ArrayList<>(added);
+            ofType.sort(Comparator.comparingDouble(InventoryTest::statOf).reversed());
+            assertEquals(ofType.size(), inventory.count(type), type.name());
+            assertEquals(ofType, inventory.byType(type), type.name());
+            assertEquals(ofType.isEmpty() ? null : ofType.get(0), inventory.best(type), type.name());
+            for(double minStat : new double[]{0, 0.05, 5, 12.3, 40}){
+                assertEquals(ofType.stream().filter(item -> statOf(item) >= minStat).toList(),
+                        inventory.withStatAtLeast(type, minStat), type.name() + " stat >= " + minStat);
+            }
+
+            List<Object> byLevel = new ArrayList<>(added);
+            byLevel.sort(Comparator.comparingInt(InventoryTest::levelOf));
+            for(int[] range : new int[][]{{0, 0}, {1, 3}, {2, 8}, {0, 100}, {5, 4}}){
+                assertEquals(byLevel.stream().filter(item -> levelOf(item) >= range[0] && levelOf(item) <= range[1]).toList(),
+                        inventory.byLevel(type, range[0], range[1]), type.name() + " level " + range[0] + ".." + range[1]);
+            }
+        }
+        for(JobType job : JobType.values()){
+            List<Object> equipment = equippable(items, job, true);
+            List<Object> accessories = equippable(items, job, false);
+            for(int k : new int[]{0, 1, 5, items.size()}){
+                assertEquals(equipment.subList(0, Math.min(k, equipment.size())), inventory.topEquipment(job, k), job.name() + " top " + k);
+                assertEquals(accessories.subList(0, Math.min(k, accessories.size())), inventory.topAccessories(job, k), job.name() + " top " + k);
+            }
+        }
+    }
+
+    /**
+     * Lists the items a job can equip, highest stat first.
+     *
+     * @param items   items to scan, in the order they were added.
+     * @param job     job that would equip the items.
+     * @param weapons true to list weapons, false to list accessories.
+     * @return equippable items.
+     */
+    private static List<Object> equippable(List<Object> items, JobType job, boolean weapons){
+        List<Object> equippable = new ArrayList<>();
+        for(Object item : items){
+            if(typeOf(item).isWeapon() == weapons && job.canEquip(typeOf(item))){
+                equippable.add(item);
+            }
+        }
+        equippable.sort(Comparator.comparingDouble(InventoryTest::statOf).reversed());
+        return equippable;
+    }
+
+    /**
+     * Retrieves the item type of an item.
+     *
+     * @param item Equipment or Accessory.
+     * @return item type.
+     */
+    private static ItemType typeOf(Object item){
+        return item instanceof Equipment equipment ? equipment.getItemType() : ((Accessory) item).getItemType();
+    }
+
+    /**
+     * Retrieves the stat an item is indexed by.
+     *
+     * @param item Equipment or Accessory.
+     * @return main stat of equipment, effect value of an accessory.
+     */
+    private static double statOf(Object item){
+        return item instanceof Equipment equipment ? equipment.getMainStat() : ((Accessory) item).getEffectValue();
+    }
+
+    /**
+     * Retrieves the level an item is indexed by.
+     *
+     * @param item Equipment or Accessory.
+     * @return level of equipment, 0 for an accessory.
+     */
+    private static int levelOf(Object item){
+        return item instanceof Equipment equipment ? equipment.getLevel() : 0;
+    }
+
+    /**
+     * Creates a weapon of a type.
+     *
+     * @param type  weapon type.
+     * @param name  name of the weapon.
+     * @param level level of the weapon.
+     * @param stat  main stat of the weapon.
+     * @return new weapon.
+     */
+    private static Equipment weapon(ItemType type, String name, int level, double stat){
+        return switch (type) {
+            case SWORD -> new Sword(name, level, stat);
+            case SHIELD -> new Shield(name, level, stat);
+            case STAFF -> new Staff(name, level, stat);
+            case CHARM -> new Charm(name, level, stat);
+            case BOW -> new Bow(name, level, stat);
+            case DAGGER -> new Dagger(name, level, stat);
+            default -> throw new IllegalArgumentException(type + " is not a weapon");
+        };
+    }
+
+    /**
+     * Creates an accessory of a type.
+     *
+     * @param type  accessory type.
+     * @param name  name of the accessory.
+     * @param value effect value of the accessory.
+     * @return new accessory.
+     */
+    private static Accessory accessory(ItemType type, String name, double value){
+        String effect = EFFECTS[name.length() % EFFECTS.length];
+        return switch (type) {
+            case AMULET -> new Amulet(name, effect, value);
+            case RING -> new Ring(name, effect, value);
+            case EARRING -> new Earring(name, effect, value);
+            default -> throw new IllegalArgumentException(type + " is not an accessory");
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * LeaderboardTest class checks ranks, top-N, and level ranges of the global and per job rankings against a plain
+ * list sorted by level, before and after level ups and removals.
+ */
+class LeaderboardTest {
+
+    /**
+     * Silences the events published by the characters.
+     */
+    @BeforeAll
+    static void silenceEvents(){
+        GameEvents.setSink(new NoOpEventSink());
+    }
+
+    /**
+     * Ranks characters of random levels, levels some of them up through the installed leaderboard, removes others,
+     * and compares every query with the sorted list after each step.
+     */
+    @Test
+    void rankingsMatchSortedList(){
+        Random random = new Random(42);
+        Leaderboard board = new Leaderboard();
+        List<BaseCharacter> ranked = new ArrayList<>();
+        board.install();
+        try {
+            for(int i = 0; i < 120; i++){
+                BaseCharacter character = BaseCharacter.create(JobType.values()[i % 3], "NPC " + i);
+                levelUp(character, random.nextInt(12));
+                board.add(character);
+                ranked.add(character);
+            }
+            assertMatches(board, ranked);
+
+            for(int i = 0; i < 40; i++){
+                levelUp(ranked.get(random.nextInt(ranked.size())), 1 + random.nextInt(4));
+            }
+            assertMatches(board, ranked);
+
+            for(int i = 0; i < 30; i++){
+                BaseCharacter removed = ranked.remove(random.nextInt(ranked.size()));
+                assertTrue(board.remove(removed));
+                assertEquals(0, board.global().rankOf(removed));
+            }
+            assertMatches(board, ranked);
+        }finally {
+            board.uninstall();
+        }
+    }
+
+    /**
+     * Checks that a character is added once, and that a level up of an uninstalled leaderboard's character only
+     * moves it on update().
+     */
+    @Test
+    void updateMovesCharacterOfUninstalledBoard(){
+        Leaderboard board = new Leaderboard();
+        BaseCharacter warrior = new WarriorCharacter("Conan");
+        BaseCharacter mage = new MageCharacter("Merlin");
+        assertTrue(board.add(warrior));
+        assertFalse(board.add(warrior));
+        board.add(mage);
+
+        mage.levelUp();
+        assertEquals(List.of(warrior, mage), board.global().top(2), "not moved before update()");
+        board.update(mage);
+        assertEquals(List.of(mage, warrior), board.global().top(2));
+        assertEquals(1, board.global().rankOf(mage));
+        assertEquals(2, board.global().rankOf(warrior));
+        assertEquals(1, board.forJob(JobType.WARRIOR).rankOf(warrior));
+        assertEquals(0, board.forJob(JobType.WARRIOR).rankOf(mage));
+        assertEquals(board.forJob(JobType.MAGE).top(5), board.forJob(mage.getJobName()).top(5));
+    }
+
+    /**
+     * Compares the global ranking and the ranking of every job with the sorted list.
+     *
+     * @param board  leaderboard under test.
+     * @param ranked characters ranked by the leaderboard, in the order they were added.
+     */
+    private static void assertMatches(Leaderboard board, List<BaseCharacter> ranked){
+        assertMatches(board.global(), ranked, "global");
+        for(JobType job : JobType.values()){
+            List<BaseCharacter> ofJob = ranked.stream().filter(c -> c.getJobType() == job).toList();
+            assertMatches(board.forJob(job), ofJob, job.name());
+        }
+    }
+
+    /**
+     * Compares one ranking with the sorted list of its characters.
+     *
+     * @param ranking ranking under test.
+     * @param ranked  characters of the ranking, in the order they were added.
+     * @param name    name of the ranking, for the failure messages.
+     */
+    private static void assertMatches(Leaderboard.Ranking ranking, List<BaseCharacter> ranked, String name){
+        // A stable sort keeps the order of addition among characters of the same level, like the leaderboard.
+        List<RPGCharacter> sorted = new ArrayList<>(ranked);
+        sorted.sort(Comparator.comparingInt(RPGCharacter::getLevel).reversed());
+
+        assertEquals(sorted.size(), ranking.size(), name);
+        for(int n : new int[]{0, 1, 10, sorted.size(), sorted.size() + 5}){
+            assertEquals(sorted.subList(0, Math.min(n, sorted.size())), ranking.top(n), name + " top " + n);
+        }
+        for(BaseCharacter character : ranked){
+            long higher = ranked.stream().filter(c -> c.getLevel() > character.getLevel()).count();
+            assertEquals(higher + 1, ranking.rankOf(character), name + " rank of " + character.getName());
+        }
+        for(int[] range : new int[][]{{1, 1}, {3, 7}, {5, 30}, {0, 100}, {8, 2}}){
+            List<RPGCharacter> expected = sorted.stream()
+                    .filter(c -> c.getLevel() >= range[0] && c.getLevel() <= range[1]).toList();
+            assertEquals(expected, ranking.range(range[0], range[1]), name + " range " + range[0] + ".." + range[1]);
+            assertEquals(expected.size(), ranking.countInRange(range[0], range[1]), name + " count " + range[0] + ".." + range[1]);
+        }
+    }
+
+    /**
+     * Levels up a character several times.
+     *
+     * @param character character to level up.
+     * @param times     number of level ups.
+     */
+    private static void levelUp(BaseCharacter character, int times){
+        for(int i = 0; i < times; i++){
+            character.levelUp();
+        }
+    }
+}
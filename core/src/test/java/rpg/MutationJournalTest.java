@@ -0,0 +1,223 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * MutationJournalTest class writes a checkpoint, mutates the characters, and checks that replaying the snapshot and
+ * the journal rebuilds the world as it was, including items shared between characters, a torn final frame, and
+ * mutations racing with the checkpoint.
+ */
+class MutationJournalTest {
+
+    /** Commit settings of the tests: small commits, no fsync. */
+    private static final MutationJournal.Config CONFIG = new MutationJournal.Config(512, 100, 1 << 20, false);
+
+    /** Commit settings that only commit on sync() and close(), so the records in between share one frame. */
+    private static final MutationJournal.Config ON_DEMAND = new MutationJournal.Config(1 << 16, 60_000_000, 1 << 20, false);
+
+    /**
+     * Silences the events published by the characters.
+     */
+    @BeforeAll
+    static void silenceEvents(){
+        GameEvents.setSink(new NoOpEventSink());
+    }
+
+    /**
+     * Levels up, equips, and upgrades after a checkpoint, adds a character, and compares the replayed world with
+     * the live one.
+     */
+    @Test
+    void replayRebuildsTheWorld(@TempDir Path dir) throws IOException {
+        Ring sharedRing = new Ring("Vampire Ring", "Life steal", 0.1);
+        Sword sword = new Sword("Excalibur", 3, 10);
+        BaseCharacter warrior = new WarriorCharacter("Conan");
+        warrior.equipEquipment(sword);
+        warrior.equipAccessory(sharedRing);
+        BaseCharacter mage = new MageCharacter("Merlin");
+        mage.levelUp();
+        BaseCharacter archer = new ArcherCharacter("Robin");
+        archer.equipAccessory(sharedRing);
+        List<BaseCharacter> live = new ArrayList<>(List.of(warrior, mage, archer));
+
+        Path snapshotFile = dir.resolve("world.snapshot"), journalFile = dir.resolve("world.journal");
+        try(MutationJournal journal = MutationJournal.checkpoint(snapshotFile, journalFile, live, CONFIG)){
+            warrior.levelUp();
+            warrior.levelUp();
+            sword.upgrade();
+            Staff staff = new Staff("Oak Staff", 2, 12);
+            mage.equipEquipment(staff);
+            staff.upgrade();
+            archer.equipEquipment(new Bow("Longbow", 5, 11));
+            archer.equipAccessory(new Ring("Hawk Ring", "Slowdown yourself", 0.05));
+            BaseCharacter newcomer = new WarriorCharacter("Newcomer");
+            newcomer.equipAccessory(sharedRing);
+            newcomer.levelUp();
+            live.add(newcomer);
+        }
+
+        List<BaseCharacter> replayed = MutationJournal.replay(WorldSnapshot.open(snapshotFile), journalFile);
+        assertEquals(describe(live), describe(replayed));
+        assertSameSharing(live, replayed);
+    }
+
+    /**
+     * Cuts the last frame of a journal short and checks that replay stops before it, at the last synced state.
+     */
+    @Test
+    void replayStopsAtTornFrame(@TempDir Path dir) throws IOException {
+        BaseCharacter warrior = new WarriorCharacter("Conan");
+        Sword sword = new Sword("Excalibur", 3, 10);
+        warrior.equipEquipment(sword);
+        List<BaseCharacter> live = List.of(warrior);
+
+        Path snapshotFile = dir.resolve("world.snapshot"), journalFile = dir.resolve("world.journal");
+        List<CharacterState> synced;
+        try(MutationJournal journal = MutationJournal.checkpoint(snapshotFile, journalFile, live, ON_DEMAND)){
+            warrior.levelUp();
+            sword.upgrade();
+            journal.sync();
+            synced = describe(live);
+            warrior.levelUp();
+            warrior.equipAccessory(new Amulet("Bear Amulet", "Vitality", 0.2));
+        }
+        WorldSnapshot snapshot = WorldSnapshot.open(snapshotFile);
+        assertEquals(describe(live), describe(MutationJournal.replay(snapshot, journalFile)));
+
+        try(FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)){
+            channel.truncate(Files.size(journalFile) - 3);
+        }
+        assertEquals(synced, describe(MutationJournal.replay(WorldSnapshot.open(snapshotFile), journalFile)));
+    }
+
+    /**
+     * Mutates characters from several threads while a checkpoint is taken, and checks that every mutation is either
+     * in the snapshot or replayed from the journal onto the item the snapshot saved.
+     */
+    @Test
+    void checkpointLosesNoMutationRacingWithIt(@TempDir Path dir) throws Exception {
+        List<BaseCharacter> live = new ArrayList<>();
+        for(int i = 0; i < 64; i++){
+            BaseCharacter character = BaseCharacter.create(JobType.values()[i % 3], "NPC " + i);
+            character.equipEquipment(mainWeapon(character.getJobType(), "Starter " + i));
+            live.add(character);
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < 4; t++){
+            threads.add(Thread.ofPlatform().start(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int made = 0;
+                while(!stop.get()){
+                    BaseCharacter character = live.get(random.nextInt(live.size()));
+                    switch (random.nextInt(3)) {
+                        case 0 -> character.levelUp();
+                        case 1 -> character.equipEquipment(mainWeapon(character.getJobType(), "Loot " + made++));
+                        default -> ((Equipment) character.getSlot(Slot.MAIN_HAND)).upgrade();
+                    }
+                }
+            }));
+        }
+
+        Path snapshotFile = dir.resolve("world.snapshot"), journalFile = dir.resolve("world.journal");
+        Thread.sleep(20);
+        MutationJournal journal = MutationJournal.checkpoint(snapshotFile, journalFile, live, CONFIG);
+        Thread.sleep(20);
+        stop.set(true);
+        for(Thread thread : threads){
+            thread.join();
+        }
+        journal.close();
+
+        List<BaseCharacter> replayed = MutationJournal.replay(WorldSnapshot.open(snapshotFile), journalFile);
+        assertEquals(describe(live), describe(replayed));
+        assertSameSharing(live, replayed);
+    }
+
+    /**
+     * Creates the main weapon of a job.
+     *
+     * @param job  job wielding the weapon.
+     * @param name name of the weapon.
+     * @return new weapon at level 1.
+     */
+    private static Equipment mainWeapon(JobType job, String name){
+        return switch (job) {
+            case WARRIOR -> new Sword(name, 1, 10);
+            case MAGE -> new Staff(name, 1, 12);
+            case ARCHER -> new Bow(name, 1, 11);
+        };
+    }
+
+    /**
+     * CharacterState record is what a test compares of a character: name, job, vitals, and equipped items.
+     *
+     * @param name   name of the character.
+     * @param job    job of the character.
+     * @param vitals vitals of the character.
+     * @param slots  copies of the equipped items in Slot order, null for an empty slot.
+     */
+    private record CharacterState(String name, JobType job, BaseCharacter.Vitals vitals, List<EquipmentSnapshot> slots){
+    }
+
+    /**
+     * Copies the state of characters.
+     *
+     * @param characters characters to copy.
+     * @return state of every character, in order.
+     */
+    private static List<CharacterState> describe(List<BaseCharacter> characters){
+        List<CharacterState> states = new ArrayList<>();
+        for(BaseCharacter character : characters){
+            List<EquipmentSnapshot> slots = new ArrayList<>();
+            for(Slot slot : Slot.values()){
+                slots.add(EquipmentSnapshot.of(character.getSlot(slot)));
+            }
+            states.add(new CharacterState(character.getName(), character.getJobType(), character.getVitals(), slots));
+        }
+        return states;
+    }
+
+    /**
+     * Checks that two worlds share items the same way: the same live item always maps to the same replayed item,
+     * and different live items to different replayed items.
+     *
+     * @param live     live characters.
+     * @param replayed replayed characters, in the same order.
+     */
+    private static void assertSameSharing(List<BaseCharacter> live, List<BaseCharacter> replayed){
+        Map<Object, Object> replayedOf = new IdentityHashMap<>(), liveOf = new IdentityHashMap<>();
+        for(int i = 0; i < live.size(); i++){
+            for(Slot slot : Slot.values()){
+                Object expected = live.get(i).getSlot(slot), actual = replayed.get(i).getSlot(slot);
+                if(expected == null){
+                    assertNull(actual);
+                    continue;
+                }
+                assertNotNull(actual);
+                Object known = replayedOf.putIfAbsent(expected, actual);
+                assertSame(known == null ? actual : known, actual, "replayed item of " + live.get(i).getName() + " " + slot);
+                Object back = liveOf.putIfAbsent(actual, expected);
+                assertSame(back == null ? expected : back, expected, "live item of " + live.get(i).getName() + " " + slot);
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * NpcPoolTest class checks that reused objects match new ones, that shared items stay with their other holders,
+ * that double releases are refused, and that unreleased objects are reported as leaks.
+ */
+class NpcPoolTest {
+
+    /**
+     * Silences the events published by the characters.
+     */
+    @BeforeAll
+    static void silenceEvents(){
+        GameEvents.setSink(new NoOpEventSink());
+    }
+
+    /**
+     * Levels up, equips, and fills the inventory of a character of every job, releases it, acquires it again,
+     * and compares it with a new character of the same job.
+     */
+    @Test
+    void resetCharacterMatchesConstructor(){
+        NpcPool pool = new NpcPool(4, 0);
+        for(JobType job : JobType.values()){
+            RPGCharacter used = pool.acquire(job, "Used");
+            used.levelUp();
+            used.levelUp();
+            used.equipEquipment(new Sword("Excalibur", 3, 10));
+            used.equipAccessory(new Ring("Vampire Ring", "Life steal", 0.1));
+            used.getInventory().add(new Dagger("Dirk", 2, 6));
+            pool.release(used);
+
+            BaseCharacter reused = (BaseCharacter) pool.acquire(job, "Fresh");
+            BaseCharacter fresh = BaseCharacter.create(job, "Fresh");
+            assertSame(used, reused, job.name());
+            assertEquals(fresh.getName(), reused.getName());
+            assertEquals(fresh.getJobType(), reused.getJobType());
+            assertEquals(fresh.getVitals(), reused.getVitals(), job.name());
+            assertEquals(fresh.getBaseSpeed(), reused.getBaseSpeed());
+            for(Slot slot : Slot.values()){
+                assertNull(reused.getSlot(slot), slot.name());
+            }
+            assertEquals(0, reused.getInventory().size());
+            EffectiveStats expected = fresh.getEffectiveStats(), actual = reused.getEffectiveStats();
+            assertEquals(expected.getMaxHp(), actual.getMaxHp());
+            assertEquals(expected.getMaxMana(), actual.getMaxMana());
+            assertEquals(expected.getAttack(), actual.getAttack());
+            assertEquals(expected.getDefense(), actual.getDefense());
+            assertEquals(expected.getEffectiveSpeed(), actual.getEffectiveSpeed());
+        }
+    }
+
+    /**
+     * Upgrades a weapon and reuses it for another weapon, then compares it with a new weapon.
+     */
+    @Test
+    void resetWeaponMatchesConstructor(){
+        NpcPool pool = new NpcPool(4, 0);
+        Equipment used = pool.acquireEquipment(ItemType.SWORD, "Old Blade", 1, 7.5);
+        used.upgrade();
+        used.upgrade();
+        pool.release(used);
+
+        Equipment reused = pool.acquireEquipment(ItemType.SWORD, "Excalibur", 3, 10);
+        Equipment fresh = new Sword("Excalibur", 3, 10);
+        assertSame(used, reused);
+        assertEquals(fresh.getName(), reused.getName());
+        assertEquals(fresh.getLevel(), reused.getLevel());
+        assertEquals(fresh.getMainStat(), reused.getMainStat());
+        assertEquals(fresh.getItemType(), reused.getItemType());
+        reused.upgrade();
+        fresh.upgrade();
+        assertEquals(fresh.getMainStat(), reused.getMainStat());
+    }
+
+    /**
+     * Reuses an accessory for another accessory and compares it with a new accessory.
+     */
+    @Test
+    void resetAccessoryMatchesConstructor(){
+        NpcPool pool = new NpcPool(4, 0);
+        Accessory used = pool.acquireAccessory(ItemType.RING, "Old Ring", "Wisdom", 0.05);
+        pool.release(used);
+
+        Accessory reused = pool.acquireAccessory(ItemType.RING, "Vampire Ring", "Life steal", 0.1);
+        Accessory fresh = new Ring("Vampire Ring", "Life steal", 0.1);
+        assertSame(used, reused);
+        assertEquals(fresh.getName(), reused.getName());
+        assertEquals(fresh.getEffectType(), reused.getEffectType());
+        assertEquals(fresh.getEffectValue(), reused.getEffectValue());
+        assertSame(fresh.getEffect(), reused.getEffect());
+    }
+
+    /**
+     * Releases one of two characters sharing a weapon and checks that the weapon is not handed out again.
+     */
+    @Test
+    void releasingCharacterKeepsSharedItems(){
+        NpcPool pool = new NpcPool(4, 0);
+        Equipment shared = pool.acquireEquipment(ItemType.BOW, "Longbow", 5, 11);
+        RPGCharacter first = pool.acquire(JobType.ARCHER, "First");
+        RPGCharacter second = pool.acquire(JobType.ARCHER, "Second");
+        first.equipEquipment(shared);
+        second.equipEquipment(shared);
+
+        pool.release(first);
+        Equipment next = pool.acquireEquipment(ItemType.BOW, "Shortbow", 1, 4);
+        assertNotSame(shared, next);
+        assertSame(shared, second.getSlot(Slot.MAIN_HAND));
+        assertEquals("Longbow", shared.getName());
+        assertEquals(5, shared.getLevel());
+    }
+
+    /**
+     * Releases every kind of object twice and checks that the second release is refused and that the object is
+     * handed out only once.
+     */
+    @Test
+    void doubleReleaseIsRefused(){
+        NpcPool pool = new NpcPool(4, 0);
+        RPGCharacter character = pool.acquire(JobType.MAGE, "Merlin");
+        Equipment weapon = pool.acquireEquipment(ItemType.STAFF, "Oak Staff", 2, 12);
+        Accessory accessory = pool.acquireAccessory(ItemType.EARRING, "Sage Earring", "Wisdom", 0.15);
+        pool.release(character);
+        pool.release(weapon);
+        pool.release(accessory);
+
+        assertThrows(IllegalStateException.class, () -> pool.release(character));
+        assertThrows(IllegalStateException.class, () -> pool.release(weapon));
+        assertThrows(IllegalStateException.class, () -> pool.release(accessory));
+        assertEquals(0, pool.getOutstanding());
+
+        assertSame(character, pool.acquire(JobType.MAGE, "A"));
+        assertNotSame(character, pool.acquire(JobType.MAGE, "B"));
+        assertSame(weapon, pool.acquireEquipment(ItemType.STAFF, "A", 1, 1));
+        assertNotSame(weapon, pool.acquireEquipment(ItemType.STAFF, "B", 1, 1));
+
+        pool.release(character);
+        assertSame(character, pool.acquire(JobType.MAGE, "C"), "an acquired object can be released again");
+    }
+
+    /**
+     * Drops tracked objects without releasing them and checks that they are reported once collected, while
+     * released objects are not.
+     */
+    @Test
+    void unreleasedObjectsAreReportedAsLeaks() throws InterruptedException {
+        NpcPool pool = new NpcPool(0, 1);
+        pool.release(pool.acquire(JobType.WARRIOR, "Returned"));
+        dropCharacter(pool);
+        dropWeapon(pool);
+
+        List<NpcPool.Leak> leaks = new ArrayList<>();
+        for(int i = 0; i < 100 && leaks.size() < 2; i++){
+            System.gc();
+            Thread.sleep(20);
+            leaks.addAll(pool.pollLeaks());
+        }
+        assertEquals(2, leaks.size());
+        assertEquals(2, pool.getLeakCount());
+        List<String> descriptions = leaks.stream().map(NpcPool.Leak::description).sorted().toList();
+        assertEquals(List.of("Sword \"Lost Blade\"", "Warrior \"Lost\""), descriptions);
+        for(NpcPool.Leak leak : leaks){
+            assertTrue(leak.acquiredAt().getMessage().startsWith("Acquired by "));
+            assertTrue(leak.acquiredAt().getStackTrace().length > 0);
+        }
+        assertFalse(pool.pollLeaks().iterator().hasNext(), "a leak is reported once");
+    }
+
+    /**
+     * Acquires a character and drops it without releasing it.
+     *
+     * @param pool pool to acquire from.
+     */
+    private static void dropCharacter(NpcPool pool){
+        pool.acquire(JobType.WARRIOR, "Lost");
+    }
+
+    /**
+     * Acquires a weapon and drops it without releasing it.
+     *
+     * @param pool pool to acquire from.
+     */
+    private static void dropWeapon(NpcPool pool){
+        pool.acquireEquipment(ItemType.SWORD, "Lost Blade", 1, 5);
+    }
+}
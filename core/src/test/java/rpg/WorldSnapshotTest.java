@@ -0,0 +1,96 @@
+package rpg;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * WorldSnapshotTest class saves characters of every job with their weapons and accessories, loads them back, and
+ * checks that the loaded characters match the saved ones.
+ */
+class WorldSnapshotTest {
+
+    /**
+     * Silences the events published by the characters.
+     */
+    @BeforeAll
+    static void silenceEvents(){
+        GameEvents.setSink(new NoOpEventSink());
+    }
+
+    /**
+     * Saves a warrior, a mage and an archer and checks every loaded field.
+     */
+    @Test
+    void roundTripKeepsCharactersAndItems(@TempDir Path dir) throws IOException {
+        Ring sharedRing = new Ring("Vampire Ring", "Life steal", 0.1);
+
+        BaseCharacter warrior = new WarriorCharacter("Conan");
+        warrior.levelUp();
+        warrior.levelUp();
+        Sword sword = new Sword("Excalibur", 3, 10);
+        sword.upgrade();
+        warrior.equipEquipment(sword);
+        warrior.equipEquipment(new Shield("Aegis", 1, 8));
+        warrior.equipAccessory(new Amulet("Bear Amulet", "Vitality", 0.2));
+        warrior.equipAccessory(sharedRing);
+
+        BaseCharacter mage = new MageCharacter("Merlin");
+        mage.levelUp();
+        mage.equipEquipment(new Staff("Oak Staff", 2, 12));
+        mage.equipEquipment(new Charm("Moon Charm", 0, 4));
+        mage.equipAccessory(new Earring("Sage Earring", "Wisdom", 0.15));
+        mage.equipAccessory(sharedRing);
+
+        BaseCharacter archer = new ArcherCharacter("Robin");
+        archer.equipEquipment(new Bow("Longbow", 5, 11));
+        archer.equipEquipment(new Dagger("Dirk", 2, 6));
+        archer.equipAccessory(new Earring("Hawk Earring", "Slowdown yourself", 0.05));
+
+        List<BaseCharacter> saved = List.of(warrior, mage, archer);
+        Path file = dir.resolve("world.snapshot");
+        WorldSnapshot.write(file, saved);
+        WorldSnapshot snapshot = WorldSnapshot.open(file);
+
+        assertEquals(saved.size(), snapshot.getCharacterCount());
+        for(int i = 0; i < saved.size(); i++){
+            assertSameCharacter(saved.get(i), snapshot.getCharacter(i));
+            assertEquals(saved.get(i).getLevel(), snapshot.getLevel(i));
+        }
+        assertSame(snapshot.getCharacter(0).getSlot(Slot.RING), snapshot.getCharacter(1).getSlot(Slot.RING),
+                "an item shared before saving is shared after loading");
+    }
+
+    /**
+     * Checks that a loaded character matches the saved one.
+     *
+     * @param expected saved character.
+     * @param actual   loaded character.
+     */
+    private static void assertSameCharacter(BaseCharacter expected, BaseCharacter actual){
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getJobType(), actual.getJobType());
+        assertEquals(expected.getLevel(), actual.getLevel());
+        assertEquals(expected.getVitals(), actual.getVitals());
+        assertEquals(expected.getSpeed(), actual.getSpeed());
+        for(Slot slot : Slot.values()){
+            Object saved = expected.getSlot(slot);
+            Object loaded = actual.getSlot(slot);
+            if(saved == null){
+                assertNull(loaded, slot.name());
+                continue;
+            }
+            assertEquals(EquipmentSnapshot.of(saved), EquipmentSnapshot.of(loaded), slot.name());
+            if(saved instanceof Equipment weapon){
+                assertEquals(weapon.getLevel(), ((Equipment) loaded).getLevel(), slot.name());
+            }
+        }
+    }
+}
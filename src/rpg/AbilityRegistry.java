@@ -0,0 +1,179 @@
+package rpg;
+
+/**
+ * AbilityRegistry class gives every ability a stable int id and precomputes, for every job, the table of abilities it
+ * can perform. An ability is performed by looking up its event type in a table indexed by id and testing one bit of
+ * the job's ability mask, so hot loops can use abilities without downcasts, interface calls, or allocation.
+ * Ids are part of the public contract: new abilities are appended, existing ids never change.
+ */
+public final class AbilityRegistry {
+
+    /** Warrior's Slash. */
+    public static final int SLASH = 0;
+
+    /** Warrior's Block. */
+    public static final int BLOCK = 1;
+
+    /** Mage's Cast Spell. */
+    public static final int CAST_SPELL = 2;
+
+    /** Mage's Teleport. */
+    public static final int TELEPORT = 3;
+
+    /** Archer's Shot. */
+    public static final int SHOT = 4;
+
+    /** Archer's Dodge. */
+    public static final int DODGE = 5;
+
+    /** Ability names indexed by ability id. */
+    private static final String[] NAMES = {"Slash", "Block", "Cast Spell", "Teleport", "Shot", "Dodge"};
+
+    /** Event published by each ability, indexed by ability id. */
+    private static final GameEventType[] EVENTS = {
+            GameEventType.SLASH, GameEventType.BLOCK, GameEventType.CAST_SPELL,
+            GameEventType.TELEPORT, GameEventType.SHOT, GameEventType.DODGE};
+
+    /** Ability ids of every job in display order, indexed by job code. */
+    private static final int[][] BY_JOB = new int[JobType.values().length][];
+
+    /** Ability names of every job in display order, indexed by job code. */
+    private static final String[][] NAMES_BY_JOB = new String[BY_JOB.length][];
+
+    /** Bitmask of the ability ids every job can perform, indexed by job code. */
+    private static final int[] MASKS = new int[BY_JOB.length];
+
+    static {
+        define(JobType.WARRIOR, SLASH, BLOCK);
+        define(JobType.MAGE, CAST_SPELL, TELEPORT);
+        define(JobType.ARCHER, SHOT, DODGE);
+    }
+
+    private AbilityRegistry(){
+    }
+
+    /**
+     * Precomputes the ability tables of a job.
+     *
+     * @param job       job to define.
+     * @param abilities ability ids of the job in display order.
+     */
+    private static void define(JobType job, int... abilities){
+        int code = job.code();
+        BY_JOB[code] = abilities;
+        NAMES_BY_JOB[code] = new String[abilities.length];
+        for(int i = 0; i < abilities.length; i++){
+            NAMES_BY_JOB[code][i] = NAMES[abilities[i]];
+            MASKS[code] |= 1 << abilities[i];
+        }
+    }
+
+    /**
+     * Retrieves the number of registered abilities. Valid ids are 0 to count() - 1.
+     *
+     * @return number of abilities.
+     */
+    public static int count(){
+        return NAMES.length;
+    }
+
+    /**
+     * Retrieves the name of an ability.
+     *
+     * @param abilityId id of the ability.
+     * @return name of the ability.
+     * @throws IllegalArgumentException if no ability has that id.
+     */
+    public static String getName(int abilityId){
+        return NAMES[checkId(abilityId)];
+    }
+
+    /**
+     * Retrieves the id of the ability with the given name.
+     *
+     * @param name name of the ability, as returned by getName().
+     * @return id of the ability.
+     * @throws IllegalArgumentException if no ability has that name.
+     */
+    public static int idOf(String name){
+        for(int id = 0; id < NAMES.length; id++){
+            if(NAMES[id].equals(name)){
+                return id;
+            }
+        }
+        throw new IllegalArgumentException("Unknown ability: " + name);
+    }
+
+    /**
+     * Retrieves the number of abilities of a job.
+     *
+     * @param job job to look up.
+     * @return number of abilities of the job.
+     */
+    public static int abilityCount(JobType job){
+        return BY_JOB[job.code()].length;
+    }
+
+    /**
+     * Retrieves one ability of a job.
+     *
+     * @param job   job to look up.
+     * @param index position of the ability in the job's display order.
+     * @return id of the ability.
+     */
+    public static int abilityAt(JobType job, int index){
+        return BY_JOB[job.code()][index];
+    }
+
+    /**
+     * Retrieves a copy of the ability names of a job in display order.
+     *
+     * @param job job to look up.
+     * @return ability names of the job.
+     */
+    public static String[] getAbilityNames(JobType job){
+        return NAMES_BY_JOB[job.code()].clone();
+    }
+
+    /**
+     * Checks whether a job can perform an ability.
+     *
+     * @param job       job to check.
+     * @param abilityId id of the ability.
+     * @return true if the job can perform the ability, false for other jobs' abilities and unknown ids.
+     */
+    public static boolean canPerform(JobType job, int abilityId){
+        return abilityId >= 0 && abilityId < 32 && ((MASKS[job.code()] >>> abilityId) & 1) != 0;
+    }
+
+    /**
+     * Performs an ability for a character by publishing its event.
+     *
+     * @param character character performing the ability.
+     * @param abilityId id of the ability.
+     * @return true if the ability was performed, false if the character's job does not have it.
+     * @throws IllegalArgumentException if no ability has that id.
+     */
+    static boolean perform(RPGCharacter character, int abilityId){
+        checkId(abilityId);
+        if(((MASKS[character.getJobType().code()] >>> abilityId) & 1) == 0){
+            return false;
+        }
+        GameEvents.publish(EVENTS[abilityId], character, null);
+        return true;
+    }
+
+    /**
+     * Checks that an ability id is registered.
+     *
+     * @param abilityId id to check.
+     * @return the id.
+     * @throws IllegalArgumentException if no ability has that id.
+     */
+    private static int checkId(int abilityId){
+        if(abilityId < 0 || abilityId >= NAMES.length){
+            throw new IllegalArgumentException("Unknown ability id: " + abilityId);
+        }
+        return abilityId;
+    }
+}
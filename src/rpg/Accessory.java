@@ -0,0 +1,248 @@
+package rpg;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Accessory interface represents an accessory that can be equipped by a character.
+ * Defines methods to retrieve the accessory's name, effect type, and effect value.
+ * Provides a default method to display the accessory's stats.
+ */
+public interface Accessory {
+
+      /**
+       * Retrieves name of the accessory.
+       *
+       * @return name of the accessory.
+       */
+      String getName();
+
+      /**
+       * Retrieves a type of effect provided by the accessory.
+       *
+       * @return type of effect provided by the accessory.
+       */
+      String getEffectType();
+
+      /**
+       * Retrieves value of the accessory's effect.
+       *
+       * @return value of the accessory's effect.
+       */
+      double getEffectValue();
+
+      /**
+       * Retrieves the interned type of effect provided by the accessory.
+       *
+       * @return effect type of the accessory, null without an effect type.
+       */
+      default EffectType getEffect(){
+            String effectType = getEffectType();
+            return effectType == null ? null : EffectType.of(effectType);
+      }
+
+      /**
+       * Retrieves the item type of the accessory, which decides its slot and which jobs can equip it.
+       *
+       * @return item type of the accessory.
+       */
+      ItemType getItemType();
+
+      /**
+       * Displays the accessory's stats, including name, effect, and value of the effect in percent to the console.
+       */
+      default void showStats(){
+            System.out.print(CharacterSheetRenderer.appendStats(this, new StringBuilder(64)));
+      }
+}
+
+
+/**
+ * The BaseAccessory abstract class provides a base implementation of the
+ * Accessory interface. The accessory's name, effect type, and effect value are kept in a shared ItemTemplate,
+ * so an accessory only holds the template id. The constructor interns these attributes as a template.
+ */
+abstract class BaseAccessory implements Accessory{
+
+      /** VarHandle for the compare-and-set of pooled. */
+      private static final VarHandle POOLED;
+
+      static {
+            try {
+                  POOLED = MethodHandles.lookup().findVarHandle(BaseAccessory.class, "pooled", boolean.class);
+            }catch (ReflectiveOperationException e){
+                  throw new ExceptionInInitializerError(e);
+            }
+      }
+
+      /** Id of the template holding the accessory's name, effect type, and effect value, replaced only when a pooled accessory is reset. */
+      volatile int templateId;
+
+      /** Whether the accessory was released to an NpcPool and not acquired again. */
+      private volatile boolean pooled;
+
+      /**
+       * Initialize a new BaseAccessory with the provided values.
+       *
+       * @param name        name of the accessory.
+       * @param effectType  type of effect provided by the accessory.
+       * @param effectValue value of the accessory's effect.
+       */
+      BaseAccessory(String name , String effectType , double effectValue){
+            this.templateId = ItemTemplate.ofAccessory(getItemType(), name, effectType, effectValue).getId();
+      }
+
+      /**
+       * Turns the accessory into a new accessory of the same item type, as the constructor leaves it.
+       * Used by NpcPool; the caller must make sure no other thread uses the accessory meanwhile.
+       *
+       * @param template template of the reset accessory, of the accessory's item type.
+       */
+      void reset(ItemTemplate template){
+            templateId = template.getId();
+      }
+
+      /**
+       * Marks the accessory as released to an NpcPool.
+       *
+       * @return true if the accessory was in use, false if it was released already.
+       */
+      boolean markReleased(){
+            return POOLED.compareAndSet(this, false, true);
+      }
+
+      /**
+       * Marks the accessory as handed out again by an NpcPool.
+       */
+      void markAcquired(){
+            pooled = false;
+      }
+
+      /**
+       * Retrieves the template of the accessory.
+       *
+       * @return template of the accessory.
+       */
+      ItemTemplate getTemplate(){
+            return ItemTemplate.get(templateId);
+      }
+
+      /**
+       * Retrieves name of the accessory.
+       *
+       * @return name of the accessory.
+       */
+      public String getName() {
+            return getTemplate().getName();
+      }
+
+      /**
+       * Retrieves type of the accessory's effect.
+       *
+       * @return type of the accessory's effect.
+       */
+      public String getEffectType() {
+            return getTemplate().getEffectType();
+      }
+
+      /**
+       * Retrieves value of the accessory's effect.
+       *
+       * @return value of the accessory's effect.
+       */
+      public double getEffectValue() {
+            return getTemplate().getEffectValue();
+      }
+
+      /**
+       * Retrieves the interned type of the accessory's effect.
+       *
+       * @return effect type of the accessory.
+       */
+      @Override
+      public EffectType getEffect() {
+            return getTemplate().getEffect();
+      }
+}
+
+/**
+ * Ring class represents a ring accessory, extending the BaseAccessory class.
+ * Provides a constructor to initialize the ring with specific values.
+ */
+class Amulet extends BaseAccessory{
+
+      /**
+       * Initializes a new Amulet with the provided values.
+       *
+       * @param name        name of the amulet.
+       * @param effectType  type of effect provided by the amulet.
+       * @param effectValue value of the amulet's effect.
+       */
+      Amulet(String name, String effectType, double effectValue) {
+            super(name, effectType, effectValue);
+      }
+
+      /**
+       * Retrieves the item type of an amulet.
+       *
+       * @return ItemType.AMULET.
+       */
+      public ItemType getItemType() {
+            return ItemType.AMULET;
+      }
+
+}
+
+/**
+ * Ring class represents a ring accessory, extending the BaseAccessory class.
+ * Provides a constructor to initialize the ring with specific values.
+ */
+class Ring extends BaseAccessory{
+
+      /**
+       * Initializes a new Ring with the provided values.
+       *
+       * @param name        name of the ring.
+       * @param effectType  type of effect provided by the ring.
+       * @param effectValue value of the ring's effect.
+       */
+      Ring(String name, String effectType, double effectValue) {
+            super(name, effectType, effectValue);
+      }
+
+      /**
+       * Retrieves the item type of a ring.
+       *
+       * @return ItemType.RING.
+       */
+      public ItemType getItemType() {
+            return ItemType.RING;
+      }
+}
+
+/**
+ * Earring class represents an earring accessory, extending the BaseAccessory class.
+ * Provides a constructor to initialize the earring with specific values.
+ */
+class Earring extends BaseAccessory{
+
+      /**
+       * Initializes a new Earring with the provided values.
+       *
+       * @param name        name of the earring.
+       * @param effectType  type of effect provided by the earring.
+       * @param effectValue value of the earring's effect.
+       */
+      Earring(String name, String effectType, double effectValue) {
+            super(name, effectType, effectValue);
+      }
+
+      /**
+       * Retrieves the item type of an earring.
+       *
+       * @return ItemType.EARRING.
+       */
+      public ItemType getItemType() {
+            return ItemType.EARRING;
+      }
+}
\ No newline at end of file
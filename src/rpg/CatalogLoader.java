@@ -0,0 +1,964 @@
+package rpg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * CatalogLoader class builds items and characters from CSV or JSON Lines files of any size.
+ * The calling thread reads the file in chunks of whole lines and hands them to parser threads through a bounded
+ * queue, so at most a few chunks are in memory and reading waits whenever parsing or the consumer falls behind.
+ * Records reach the consumer on the parser threads, in no particular order.
+ * A malformed line is skipped and reported with its line number; the rest of the file still loads.
+ *
+ * Item records have the fields type, name, level and baseStat for weapons, or type, name, effectType and
+ * effectValue for accessories. Character records have job, name, and optionally level. A CSV file starts with a
+ * header line naming its columns, in any order; other columns are ignored, so the CSV and JSON output of
+ * CharacterSheetRenderer load as characters. CSV fields may be quoted but may not span lines.
+ */
+public final class CatalogLoader {
+
+    /** Default size of a chunk in bytes. */
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /** Largest number of problems a report lists; the rest are only counted. */
+    private static final int MAX_PROBLEMS = 1000;
+
+    /** Number of parser threads. */
+    private final int parallelism;
+
+    /** Size of a chunk in bytes. */
+    private final int chunkSize;
+
+    /**
+     * Format enum lists the file formats the loader reads.
+     */
+    public enum Format {
+
+        /** Comma-separated values with a header line. */
+        CSV,
+
+        /** One JSON object per line. */
+        JSONL;
+
+        /**
+         * Retrieves the format of a file from its extension: .csv for CSV, anything else for JSON Lines.
+         *
+         * @param file file to look at.
+         * @return format of the file.
+         */
+        public static Format of(Path file){
+            return file.getFileName().toString().toLowerCase().endsWith(".csv") ? CSV : JSONL;
+        }
+    }
+
+    /**
+     * Problem class is one malformed line.
+     *
+     * @param line    line number, starting at 1.
+     * @param message what is wrong with the line.
+     */
+    public record Problem(long line, String message) {
+    }
+
+    /**
+     * Report class sums up one load.
+     *
+     * @param lines     number of lines read, header included.
+     * @param records   number of records built and handed to the consumer.
+     * @param malformed number of malformed lines.
+     * @param bytes     size of the file.
+     * @param nanos     time the load took.
+     * @param problems  first malformed lines, in no particular order.
+     */
+    public record Report(long lines, long records, long malformed, long bytes, long nanos, List<Problem> problems) {
+
+        /**
+         * Retrieves the throughput of the load.
+         *
+         * @return records built per second.
+         */
+        public double recordsPerSecond(){
+            return nanos == 0 ? 0 : records * 1e9 / nanos;
+        }
+
+        /**
+         * Formats the report as one line.
+         *
+         * @return counts, time, and throughput.
+         */
+        @Override
+        public String toString(){
+            return String.format("%d records from %d lines in %d ms (%.0f records/s, %.1f MB/s), %d malformed",
+                    records, lines, nanos / 1_000_000, recordsPerSecond(), nanos == 0 ? 0 : bytes * 1e3 / nanos, malformed);
+        }
+    }
+
+    /**
+     * Initializes a new CatalogLoader with one parser thread per processor and 1 MiB chunks.
+     */
+    public CatalogLoader(){
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Initializes a new CatalogLoader.
+     *
+     * @param parallelism number of parser threads.
+     * @param chunkSize   size of a chunk in bytes; longer lines get a chunk of their own.
+     * @throws IllegalArgumentException if parallelism or chunkSize is not positive.
+     */
+    public CatalogLoader(int parallelism, int chunkSize){
+        if(parallelism <= 0 || chunkSize <= 0){
+            throw new IllegalArgumentException("Invalid loader settings: parallelism=" + parallelism + ", chunkSize=" + chunkSize);
+        }
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Loads an item catalog.
+     *
+     * @param file     CSV or JSON Lines file, told apart by Format.of().
+     * @param consumer receives every Equipment and Accessory, on the parser threads.
+     * @return report of the load.
+     * @throws IOException if the file cannot be read or a CSV file lacks a required column.
+     */
+    public Report loadItems(Path file, Consumer<Object> consumer) throws IOException {
+        return load(file, Format.of(file), CatalogLoader::item, List.of("type", "name"), consumer);
+    }
+
+    /**
+     * Loads a character roster.
+     *
+     * @param file     CSV or JSON Lines file, told apart by Format.of().
+     * @param consumer receives every character, on the parser threads.
+     * @return report of the load.
+     * @throws IOException if the file cannot be read or a CSV file lacks a required column.
+     */
+    public Report loadCharacters(Path file, Consumer<? super RPGCharacter> consumer) throws IOException {
+        return load(file, Format.of(file), CatalogLoader::character, List.of("job", "name"), consumer);
+    }
+
+    /**
+     * Builds an item from a record.
+     *
+     * @param fields fields of the record.
+     * @return new Equipment or Accessory.
+     * @throws IllegalArgumentException if a field is missing or invalid.
+     */
+    static Object item(Fields fields){
+        ItemType type = itemType(fields.require("type"));
+        String name = fields.require("name");
+        if(type.isWeapon()){
+            int level = fields.getInt("level", 1);
+            return ItemTemplate.ofWeapon(type, name, fields.getDouble("baseStat")).newItem(level);
+        }
+        return ItemTemplate.ofAccessory(type, name, fields.require("effectType"), fields.getDouble("effectValue")).newItem(0);
+    }
+
+    /**
+     * Builds a character from a record, at the given level with the stats a character reaches by leveling up.
+     *
+     * @param fields fields of the record.
+     * @return new character.
+     * @throws IllegalArgumentException if a field is missing or invalid.
+     */
+    static BaseCharacter character(Fields fields){
+        JobType job = jobType(fields.require("job"));
+        BaseCharacter character = BaseCharacter.create(job, fields.require("name"));
+        int level = fields.getInt("level", 1);
+        if(level < 1){
+            throw new IllegalArgumentException("Invalid level: " + level);
+        }
+        if(level > 1){
+            BaseCharacter.Vitals vitals = character.getVitals();
+            for(int i = 1; i < level; i++){
+                vitals = vitals.levelUp();
+            }
+            character.restoreVitals(vitals);
+        }
+        return character;
+    }
+
+    /**
+     * Retrieves an item type from its constant name, ignoring case, or its display name.
+     *
+     * @param name name of the item type.
+     * @return item type.
+     * @throws IllegalArgumentException if no item type has that name.
+     */
+    private static ItemType itemType(String name){
+        for(ItemType type : ItemType.values()){
+            if(type.name().equalsIgnoreCase(name)){
+                return type;
+            }
+        }
+        return ItemType.fromDisplayName(name);
+    }
+
+    /**
+     * Retrieves a job type from its job name or constant name, ignoring case.
+     *
+     * @param name name of the job.
+     * @return job type.
+     * @throws IllegalArgumentException if no job has that name.
+     */
+    private static JobType jobType(String name){
+        for(JobType job : JobType.values()){
+            if(job.getJobName().equalsIgnoreCase(name) || job.name().equalsIgnoreCase(name)){
+                return job;
+            }
+        }
+        throw new IllegalArgumentException("Unknown job: " + name);
+    }
+
+    /**
+     * Loads a file: reads chunks on the calling thread and parses them on the parser threads.
+     *
+     * @param file     file to load.
+     * @param format   format of the file.
+     * @param builder  builds a record's object, throwing IllegalArgumentException for a malformed record.
+     * @param required columns a CSV header must have.
+     * @param consumer receives every object.
+     * @param <T>      type of the objects.
+     * @return report of the load.
+     * @throws IOException if the file cannot be read or a CSV header lacks a required column.
+     */
+    private <T> Report load(Path file, Format format, Function<Fields, ? extends T> builder, List<String> required,
+                            Consumer<? super T> consumer) throws IOException {
+        long start = System.nanoTime();
+        Run<T> run = new Run<>(builder, consumer);
+        long lines, bytes;
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            bytes = channel.size();
+            Thread[] parsers = new Thread[parallelism];
+            for(int i = 0; i < parallelism; i++){
+                parsers[i] = Thread.ofPlatform().name("catalog-parser-" + i).start(run::parse);
+            }
+            try {
+                lines = read(channel, format, required, run);
+            }finally {
+                for(int i = 0; i < parallelism; i++){
+                    run.putUninterruptibly(Chunk.END);
+                }
+                for(Thread parser : parsers){
+                    joinUninterruptibly(parser);
+                }
+            }
+        }
+        Throwable failure = run.failure.get();
+        if(failure instanceof RuntimeException e){
+            throw e;
+        }else if(failure instanceof Error e){
+            throw e;
+        }
+        return new Report(lines, run.records.sum(), run.malformed.sum(), bytes, System.nanoTime() - start,
+                List.copyOf(run.problems));
+    }
+
+    /**
+     * Reads a file in chunks of whole lines and queues them for the parsers.
+     *
+     * @param channel  file to read.
+     * @param format   format of the file.
+     * @param required columns a CSV header must have.
+     * @param run      state of the load.
+     * @return number of lines read.
+     * @throws IOException if the file cannot be read or a CSV header lacks a required column.
+     */
+    private long read(FileChannel channel, Format format, List<String> required, Run<?> run) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+        long line = 1;
+        boolean header = format == Format.CSV, first = true;
+        boolean eof = false;
+        while(!eof && run.failure.get() == null){
+            eof = channel.read(buffer) < 0;
+            if(!eof && buffer.hasRemaining()){
+                continue;
+            }
+            byte[] data = buffer.array();
+            int length = buffer.position(), offset = 0;
+            if(first && length >= 3 && (data[0] & 0xFF) == 0xEF && (data[1] & 0xFF) == 0xBB && (data[2] & 0xFF) == 0xBF){
+                offset = 3;
+            }
+            int end = eof ? length : lastNewline(data, offset, length) + 1;
+            if(end <= offset && !eof){
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+                continue;
+            }
+            first = false;
+            if(header && end > offset){
+                int newline = indexOf(data, offset, end, (byte) '\n');
+                int headerEnd = newline < 0 ? end : newline;
+                run.columns = columns(new String(data, offset, trimCr(data, offset, headerEnd) - offset, StandardCharsets.UTF_8), required);
+                offset = newline < 0 ? end : newline + 1;
+                line++;
+                header = false;
+            }
+            if(end > offset){
+                byte[] chunk = Arrays.copyOfRange(data, offset, end);
+                run.putUninterruptibly(new Chunk(chunk, line, format));
+                line += count(chunk, (byte) '\n');
+                if(eof && chunk[chunk.length - 1] != '\n'){
+                    line++;
+                }
+            }
+            ByteBuffer rest = ByteBuffer.allocate(Math.max(chunkSize, (length - end) * 2));
+            buffer = rest.put(data, end, length - end);
+        }
+        if(header){
+            throw new IOException("CSV file has no header line");
+        }
+        return line - 1;
+    }
+
+    /**
+     * Reads a CSV header.
+     *
+     * @param header   header line.
+     * @param required columns the header must have.
+     * @return column index by column name.
+     * @throws IOException if a required column is missing.
+     */
+    private static Map<String, Integer> columns(String header, List<String> required) throws IOException {
+        List<String> names = Fields.splitCsv(header);
+        Map<String, Integer> columns = new HashMap<>();
+        for(int i = 0; i < names.size(); i++){
+            columns.putIfAbsent(names.get(i).trim(), i);
+        }
+        for(String column : required){
+            if(!columns.containsKey(column)){
+                throw new IOException("CSV header lacks the " + column + " column: " + header);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Finds the last line feed in a range.
+     *
+     * @param data array to search.
+     * @param from first index of the range.
+     * @param to   index after the range.
+     * @return index of the last line feed, or from - 1 if there is none.
+     */
+    private static int lastNewline(byte[] data, int from, int to){
+        for(int i = to - 1; i >= from; i--){
+            if(data[i] == '\n'){
+                return i;
+            }
+        }
+        return from - 1;
+    }
+
+    /**
+     * Finds the first occurrence of a byte in a range.
+     *
+     * @param data  array to search.
+     * @param from  first index of the range.
+     * @param to    index after the range.
+     * @param value byte to find.
+     * @return index of the byte, or -1 if there is none.
+     */
+    private static int indexOf(byte[] data, int from, int to, byte value){
+        for(int i = from; i < to; i++){
+            if(data[i] == value){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the occurrences of a byte.
+     *
+     * @param data  array to search.
+     * @param value byte to count.
+     * @return number of occurrences.
+     */
+    private static int count(byte[] data, byte value){
+        int count = 0;
+        for(byte b : data){
+            if(b == value){
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Drops a carriage return at the end of a line.
+     *
+     * @param data array holding the line.
+     * @param from first index of the line.
+     * @param to   index after the line, without the line feed.
+     * @return index after the line without the carriage return.
+     */
+    private static int trimCr(byte[] data, int from, int to){
+        return to > from && data[to - 1] == '\r' ? to - 1 : to;
+    }
+
+    /**
+     * Waits for a thread to finish, even if interrupted, and keeps the interrupt status.
+     *
+     * @param thread thread to wait for.
+     */
+    private static void joinUninterruptibly(Thread thread){
+        boolean interrupted = false;
+        while(true){
+            try {
+                thread.join();
+                break;
+            }catch (InterruptedException e){
+                interrupted = true;
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Loads a file and prints its report and first problems.
+     * Run it with: java rpg.CatalogLoader items|characters FILE [PARALLELISM].
+     *
+     * @param args kind of records, file, and optionally the number of parser threads.
+     * @throws IOException if the file cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.err.println("Usage: java rpg.CatalogLoader items|characters FILE [PARALLELISM]");
+            System.exit(2);
+        }
+        CatalogLoader loader = args.length > 2
+                ? new CatalogLoader(Integer.parseInt(args[2]), DEFAULT_CHUNK_SIZE) : new CatalogLoader();
+        LongAdder built = new LongAdder();
+        Path file = Path.of(args[1]);
+        Report report = args[0].equals("items")
+                ? loader.loadItems(file, item -> built.increment())
+                : loader.loadCharacters(file, character -> built.increment());
+        System.out.println(report);
+        report.problems().stream().sorted((a, b) -> Long.compare(a.line(), b.line())).limit(20)
+                .forEach(problem -> System.out.println("  line " + problem.line() + ": " + problem.message()));
+    }
+
+    /**
+     * Chunk class is a run of whole lines read from the file.
+     *
+     * @param data      bytes of the lines.
+     * @param firstLine line number of the first line.
+     * @param format    format of the lines.
+     */
+    private record Chunk(byte[] data, long firstLine, Format format) {
+
+        /** Marker telling a parser thread that the file is done. */
+        static final Chunk END = new Chunk(new byte[0], 0, null);
+    }
+
+    /**
+     * Run class holds the state of one load shared by the reading thread and the parser threads.
+     *
+     * @param <T> type of the built objects.
+     */
+    private final class Run<T> {
+
+        /** Builds a record's object. */
+        final Function<Fields, ? extends T> builder;
+
+        /** Receives every object. */
+        final Consumer<? super T> consumer;
+
+        /** Chunks waiting for a parser; its capacity bounds the memory of the load. */
+        final BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(2 * parallelism);
+
+        /** Column index by column name of a CSV file, set before the first chunk is queued. */
+        volatile Map<String, Integer> columns;
+
+        /** Counters of built records and malformed lines. */
+        final LongAdder records = new LongAdder(), malformed = new LongAdder();
+
+        /** First malformed lines, and how many are listed. */
+        final ConcurrentLinkedQueue<Problem> problems = new ConcurrentLinkedQueue<>();
+        final AtomicInteger listed = new AtomicInteger();
+
+        /** First exception thrown by the consumer, which stops the load. */
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        /**
+         * Initializes the state of a load.
+         *
+         * @param builder  builds a record's object.
+         * @param consumer receives every object.
+         */
+        Run(Function<Fields, ? extends T> builder, Consumer<? super T> consumer){
+            this.builder = builder;
+            this.consumer = consumer;
+        }
+
+        /**
+         * Queues a chunk, waiting for room even if interrupted.
+         *
+         * @param chunk chunk to queue.
+         */
+        void putUninterruptibly(Chunk chunk){
+            boolean interrupted = false;
+            while(true){
+                try {
+                    chunks.put(chunk);
+                    break;
+                }catch (InterruptedException e){
+                    interrupted = true;
+                }
+            }
+            if(interrupted){
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Parses chunks until the end marker. Body of a parser thread.
+         */
+        void parse(){
+            while(true){
+                Chunk chunk;
+                try {
+                    chunk = chunks.take();
+                }catch (InterruptedException e){
+                    return;
+                }
+                if(chunk == Chunk.END){
+                    return;
+                }
+                if(failure.get() == null){
+                    parse(chunk);
+                }
+            }
+        }
+
+        /**
+         * Parses the lines of a chunk and hands each built object to the consumer.
+         *
+         * @param chunk chunk to parse.
+         */
+        private void parse(Chunk chunk){
+            byte[] data = chunk.data();
+            long line = chunk.firstLine();
+            int start = 0;
+            while(start < data.length){
+                int newline = indexOf(data, start, data.length, (byte) '\n');
+                int end = newline < 0 ? data.length : newline;
+                int trimmed = trimCr(data, start, end);
+                if(trimmed > start){
+                    String text = new String(data, start, trimmed - start, StandardCharsets.UTF_8);
+                    T built;
+                    try {
+                        Fields fields = chunk.format() == Format.CSV ? Fields.ofCsv(text, columns) : Fields.ofJson(text);
+                        built = builder.apply(fields);
+                    }catch (IllegalArgumentException e){
+                        malformed.increment();
+                        if(listed.incrementAndGet() <= MAX_PROBLEMS){
+                            problems.add(new Problem(line, e.getMessage()));
+                        }
+                        built = null;
+                    }
+                    if(built != null){
+                        try {
+                            consumer.accept(built);
+                            records.increment();
+                        }catch (RuntimeException | Error e){
+                            failure.compareAndSet(null, e);
+                            return;
+                        }
+                    }
+                }
+                start = end + 1;
+                line++;
+            }
+        }
+    }
+}
+
+/**
+ * Fields class is the fields of one record, read from a CSV line by column name or from a flat JSON object.
+ * Parsing throws IllegalArgumentException for a malformed line.
+ */
+final class Fields {
+
+    /** Field values by name; empty CSV fields and JSON nulls are absent. */
+    private final Map<String, String> values;
+
+    /**
+     * Initializes fields from their values.
+     *
+     * @param values field values by name.
+     */
+    private Fields(Map<String, String> values){
+        this.values = values;
+    }
+
+    /**
+     * Reads a CSV line.
+     *
+     * @param line    line without its line break.
+     * @param columns column index by column name.
+     * @return fields of the line.
+     * @throws IllegalArgumentException if a quote is not closed.
+     */
+    static Fields ofCsv(String line, Map<String, Integer> columns){
+        List<String> cells = splitCsv(line);
+        Map<String, String> values = new HashMap<>();
+        for(Map.Entry<String, Integer> column : columns.entrySet()){
+            int index = column.getValue();
+            if(index < cells.size() && !cells.get(index).isEmpty()){
+                values.put(column.getKey(), cells.get(index));
+            }
+        }
+        return new Fields(values);
+    }
+
+    /**
+     * Splits a CSV line into fields. A quoted field may hold commas and doubled quotes.
+     *
+     * @param line line without its line break.
+     * @return fields of the line.
+     * @throws IllegalArgumentException if a quote is not closed.
+     */
+    static List<String> splitCsv(String line){
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        int i = 0;
+        while(true){
+            cell.setLength(0);
+            if(i < line.length() && line.charAt(i) == '"'){
+                i++;
+                while(true){
+                    if(i >= line.length()){
+                        throw new IllegalArgumentException("Unclosed quote in field " + (cells.size() + 1));
+                    }
+                    char c = line.charAt(i++);
+                    if(c == '"'){
+                        if(i < line.length() && line.charAt(i) == '"'){
+                            cell.append('"');
+                            i++;
+                        }else {
+                            break;
+                        }
+                    }else {
+                        cell.append(c);
+                    }
+                }
+                if(i < line.length() && line.charAt(i) != ','){
+                    throw new IllegalArgumentException("Text after closing quote in field " + (cells.size() + 1));
+                }
+            }else {
+                int comma = line.indexOf(',', i);
+                int end = comma < 0 ? line.length() : comma;
+                cell.append(line, i, end);
+                i = end;
+            }
+            cells.add(cell.toString());
+            if(i >= line.length()){
+                return cells;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * Reads a JSON object. Values of nested objects and arrays are skipped; strings, numbers, and booleans are kept
+     * as text, and nulls are left out.
+     *
+     * @param line line holding one JSON object.
+     * @return fields of the object.
+     * @throws IllegalArgumentException if the line is not a JSON object.
+     */
+    static Fields ofJson(String line){
+        JsonReader reader = new JsonReader(line);
+        Map<String, String> values = new HashMap<>();
+        reader.expect('{');
+        if(!reader.consume('}')){
+            do {
+                String name = reader.string();
+                reader.expect(':');
+                String value = reader.value();
+                if(value != null){
+                    values.put(name, value);
+                }
+            } while(reader.consume(','));
+            reader.expect('}');
+        }
+        reader.end();
+        return new Fields(values);
+    }
+
+    /**
+     * Retrieves a field that must be present.
+     *
+     * @param name name of the field.
+     * @return value of the field.
+     * @throws IllegalArgumentException if the field is missing.
+     */
+    String require(String name){
+        String value = values.get(name);
+        if(value == null){
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Retrieves an integer field.
+     *
+     * @param name         name of the field.
+     * @param defaultValue value used when the field is missing.
+     * @return value of the field.
+     * @throws IllegalArgumentException if the field is not an integer.
+     */
+    int getInt(String name, int defaultValue){
+        String value = values.get(name);
+        if(value == null){
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        }catch (NumberFormatException e){
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    /**
+     * Retrieves a number field that must be present.
+     *
+     * @param name name of the field.
+     * @return value of the field.
+     * @throws IllegalArgumentException if the field is missing or not a finite number.
+     */
+    double getDouble(String name){
+        String value = require(name);
+        try {
+            double number = Double.parseDouble(value.trim());
+            if(Double.isFinite(number)){
+                return number;
+            }
+        }catch (NumberFormatException e){
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+    }
+
+    /**
+     * JsonReader class reads the tokens of one JSON line.
+     */
+    private static final class JsonReader {
+
+        /** Syntax of a JSON number. */
+        private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+
+        /** Text being read. */
+        private final String text;
+
+        /** Index of the next character. */
+        private int at;
+
+        /**
+         * Initializes a reader over a line.
+         *
+         * @param text line to read.
+         */
+        JsonReader(String text){
+            this.text = text;
+        }
+
+        /**
+         * Skips white space.
+         */
+        private void skipSpace(){
+            while(at < text.length() && Character.isWhitespace(text.charAt(at))){
+                at++;
+            }
+        }
+
+        /**
+         * Reads an expected character.
+         *
+         * @param c expected character.
+         * @throws IllegalArgumentException if another character comes next.
+         */
+        void expect(char c){
+            if(!consume(c)){
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        /**
+         * Reads a character if it comes next.
+         *
+         * @param c character to read.
+         * @return true if it was read.
+         */
+        boolean consume(char c){
+            skipSpace();
+            if(at < text.length() && text.charAt(at) == c){
+                at++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Checks that nothing but white space is left.
+         *
+         * @throws IllegalArgumentException if more text follows.
+         */
+        void end(){
+            skipSpace();
+            if(at < text.length()){
+                throw error("Unexpected text after the object");
+            }
+        }
+
+        /**
+         * Reads a string.
+         *
+         * @return value of the string.
+         * @throws IllegalArgumentException if no valid string comes next.
+         */
+        String string(){
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while(true){
+                if(at >= text.length()){
+                    throw error("Unclosed string");
+                }
+                char c = text.charAt(at++);
+                if(c == '"'){
+                    return value.toString();
+                }
+                if(c != '\\'){
+                    value.append(c);
+                    continue;
+                }
+                if(at >= text.length()){
+                    throw error("Unclosed string");
+                }
+                char escaped = text.charAt(at++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append(escaped);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if(at + 4 > text.length()){
+                            throw error("Invalid escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(at, at + 4), 16));
+                        }catch (NumberFormatException e){
+                            throw error("Invalid escape");
+                        }
+                        at += 4;
+                    }
+                    default -> throw error("Invalid escape");
+                }
+            }
+        }
+
+        /**
+         * Reads a value.
+         *
+         * @return text of a string, number, or boolean, or null for null, an object, or an array.
+         * @throws IllegalArgumentException if no valid value comes next.
+         */
+        String value(){
+            skipSpace();
+            if(at >= text.length()){
+                throw error("Missing value");
+            }
+            char c = text.charAt(at);
+            if(c == '"'){
+                return string();
+            }
+            if(c == '{' || c == '['){
+                skipNested();
+                return null;
+            }
+            int start = at;
+            while(at < text.length() && ",}] \t".indexOf(text.charAt(at)) < 0){
+                at++;
+            }
+            String literal = text.substring(start, at);
+            if(literal.equals("null")){
+                return null;
+            }
+            if(literal.equals("true") || literal.equals("false") || isNumber(literal)){
+                return literal;
+            }
+            throw error("Invalid value " + literal);
+        }
+
+        /**
+         * Skips a nested object or array.
+         *
+         * @throws IllegalArgumentException if it is not closed.
+         */
+        private void skipNested(){
+            int depth = 0;
+            while(at < text.length()){
+                char c = text.charAt(at);
+                if(c == '"'){
+                    string();
+                    continue;
+                }
+                at++;
+                if(c == '{' || c == '['){
+                    depth++;
+                }else if(c == '}' || c == ']'){
+                    if(--depth == 0){
+                        return;
+                    }
+                }
+            }
+            throw error("Unclosed object or array");
+        }
+
+        /**
+         * Checks whether a literal is a JSON number.
+         *
+         * @param literal literal to check.
+         * @return true for a number.
+         */
+        private static boolean isNumber(String literal){
+            return NUMBER.matcher(literal).matches();
+        }
+
+        /**
+         * Creates the exception of a malformed line.
+         *
+         * @param message what is wrong.
+         * @return exception to throw.
+         */
+        private IllegalArgumentException error(String message){
+            return new IllegalArgumentException(message + " at column " + (at + 1));
+        }
+    }
+}
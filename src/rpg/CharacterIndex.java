@@ -0,0 +1,624 @@
+package rpg;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * CharacterIndex class answers filter and aggregate queries over many characters and their equipped items.
+ * Building the index copies every character's job, level, and slots into columns: the item type of each slot,
+ * its stat (main stat of a weapon, effect value of an accessory), and its EffectType code. Rows are sorted by job and
+ * then level, so job and level filters become row ranges found by binary search, and the remaining filters are
+ * checked by scanning those ranges in parallel on a fork-join pool. exists() and list() stop scanning once they
+ * have enough matches.
+ *
+ * The index is a copy taken when it is built: later level ups, equips, and upgrades are not seen until it is built
+ * again.
+ */
+public final class CharacterIndex {
+
+    /** Number of rows below which a scan task runs them itself instead of splitting. */
+    private static final int THRESHOLD = 16 * 1024;
+
+    /** Item type and effect code of an empty slot. */
+    private static final byte NO_ITEM = -1;
+    private static final int NO_EFFECT = -1;
+
+    /** Number of job codes. */
+    private static final int JOBS = JobType.values().length;
+
+    /**
+     * Mode enum lists what a scan does with the matching rows.
+     */
+    private enum Mode {
+
+        /** Counts the matches and aggregates a value over them. */
+        COUNT,
+
+        /** Stops at the first match. */
+        EXISTS,
+
+        /** Collects the matching characters. */
+        COLLECT
+    }
+
+    /** Pool running the scan tasks. */
+    private final ForkJoinPool pool;
+
+    /** Characters by row. */
+    private final RPGCharacter[] characters;
+
+    /** Level of each row, ascending within each job. */
+    private final int[] levels;
+
+    /** First row of each job, plus the row count at the end. */
+    private final int[] jobStart;
+
+    /** Item type code of each slot and row, NO_ITEM for an empty slot. */
+    private final byte[][] itemTypes;
+
+    /** Stat of each slot and row, NaN for an empty slot. */
+    private final double[][] stats;
+
+    /** Effect code of each accessory slot and row, NO_EFFECT for none. */
+    private final int[][] effects;
+
+    /**
+     * Aggregate class is the count, minimum, maximum, and average of a value over the matching characters.
+     *
+     * @param count   number of values.
+     * @param min     smallest value, NaN without values.
+     * @param max     largest value, NaN without values.
+     * @param average average value, NaN without values.
+     */
+    public record Aggregate(long count, double min, double max, double average) {
+    }
+
+    /**
+     * Initializes a new CharacterIndex from built columns.
+     */
+    private CharacterIndex(ForkJoinPool pool, RPGCharacter[] characters, int[] levels, int[] jobStart,
+                           byte[][] itemTypes, double[][] stats, int[][] effects){
+        this.pool = pool;
+        this.characters = characters;
+        this.levels = levels;
+        this.jobStart = jobStart;
+        this.itemTypes = itemTypes;
+        this.stats = stats;
+        this.effects = effects;
+    }
+
+    /**
+     * Builds an index of characters, scanning on the common fork-join pool.
+     *
+     * @param characters characters to be indexed.
+     * @return index of the characters.
+     */
+    public static CharacterIndex build(Collection<? extends RPGCharacter> characters){
+        return build(characters, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Builds an index of characters.
+     *
+     * @param characters characters to be indexed.
+     * @param pool       pool reading the characters and running the scans.
+     * @return index of the characters.
+     */
+    public static CharacterIndex build(Collection<? extends RPGCharacter> characters, ForkJoinPool pool){
+        RPGCharacter[] input = characters.toArray(new RPGCharacter[0]);
+        int size = input.length;
+        int[] jobStart = new int[JOBS + 1];
+        for(RPGCharacter character : input){
+            jobStart[character.getJobType().code() + 1]++;
+        }
+        for(int job = 0; job < JOBS; job++){
+            jobStart[job + 1] += jobStart[job];
+        }
+
+        long[] keys = new long[size];
+        int[] next = Arrays.copyOf(jobStart, JOBS);
+        for(int i = 0; i < size; i++){
+            int at = next[input[i].getJobType().code()]++;
+            keys[at] = ((long) input[i].getLevel() << 32) | i;
+        }
+        for(int job = 0; job < JOBS; job++){
+            Arrays.sort(keys, jobStart[job], jobStart[job + 1]);
+        }
+
+        RPGCharacter[] rows = new RPGCharacter[size];
+        int[] levels = new int[size];
+        byte[][] itemTypes = new byte[Slot.COUNT][size];
+        double[][] stats = new double[Slot.COUNT][size];
+        int[][] effects = new int[Slot.COUNT][];
+        for(Slot slot : Slot.values()){
+            if(!isWeaponSlot(slot)){
+                effects[slot.ordinal()] = new int[size];
+            }
+        }
+        pool.submit(() -> IntStream.range(0, size).parallel().forEach(row -> {
+            RPGCharacter character = input[(int) keys[row]];
+            rows[row] = character;
+            levels[row] = (int) (keys[row] >> 32);
+            for(Slot slot : Slot.values()){
+                int s = slot.ordinal();
+                Object item = character.getSlot(slot);
+                if(item instanceof Equipment equipment){
+                    itemTypes[s][row] = (byte) equipment.getItemType().code();
+                    stats[s][row] = equipment.getMainStat();
+                }else if(item instanceof Accessory accessory){
+                    EffectType effect = accessory.getEffect();
+                    itemTypes[s][row] = (byte) accessory.getItemType().code();
+                    stats[s][row] = accessory.getEffectValue();
+                    effects[s][row] = effect == null ? NO_EFFECT : effect.getCode();
+                }else {
+                    itemTypes[s][row] = NO_ITEM;
+                    stats[s][row] = Double.NaN;
+                    if(effects[s] != null){
+                        effects[s][row] = NO_EFFECT;
+                    }
+                }
+            }
+        })).join();
+        return new CharacterIndex(pool, rows, levels, jobStart, itemTypes, stats, effects);
+    }
+
+    /**
+     * Retrieves number of indexed characters.
+     *
+     * @return number of characters.
+     */
+    public int size(){
+        return characters.length;
+    }
+
+    /**
+     * Starts a query matching every indexed character.
+     *
+     * @return new query.
+     */
+    public Query query(){
+        return new Query();
+    }
+
+    /**
+     * Checks whether a slot holds a weapon.
+     *
+     * @param slot slot to check.
+     * @return true for the main hand and sub hand slots.
+     */
+    private static boolean isWeaponSlot(Slot slot){
+        return slot == Slot.MAIN_HAND || slot == Slot.SUB_HAND;
+    }
+
+    /**
+     * Finds the first row of a job whose level is at least the given level.
+     *
+     * @param job   job code.
+     * @param level smallest level.
+     * @return first row with that level or higher, or the end of the job's rows.
+     */
+    private int lowerBound(int job, long level){
+        int low = jobStart[job], high = jobStart[job + 1];
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(levels[middle] < level){
+                low = middle + 1;
+            }else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Query class is a set of filters over an index, combined with AND, and the operations that run it.
+     * Filter methods return the query itself; a query must not be changed while it runs.
+     */
+    public final class Query {
+
+        /** Job to match, or -1 for any job. */
+        private int job = -1;
+
+        /** Level range to match, inclusive. */
+        private int minLevel = Integer.MIN_VALUE, maxLevel = Integer.MAX_VALUE;
+
+        /** Item type code each slot must hold, NO_ITEM for no filter. */
+        private final byte[] itemType = new byte[Slot.COUNT];
+
+        /** Stat range each slot's item must have, inclusive. */
+        private final double[] minStat = new double[Slot.COUNT], maxStat = new double[Slot.COUNT];
+
+        /** Effect code each accessory slot must hold, NO_EFFECT for no filter. */
+        private final int[] effect = new int[Slot.COUNT];
+
+        /** Slots with at least one filter. */
+        private int[] filteredSlots = new int[0];
+
+        /**
+         * Queries are started by CharacterIndex.query().
+         */
+        private Query(){
+            Arrays.fill(itemType, NO_ITEM);
+            Arrays.fill(minStat, Double.NEGATIVE_INFINITY);
+            Arrays.fill(maxStat, Double.POSITIVE_INFINITY);
+            Arrays.fill(effect, NO_EFFECT);
+        }
+
+        /**
+         * Keeps characters of one job.
+         *
+         * @param job job to match.
+         * @return this query.
+         */
+        public Query job(JobType job){
+            this.job = job.code();
+            return this;
+        }
+
+        /**
+         * Keeps characters at the given level or higher.
+         *
+         * @param level smallest level.
+         * @return this query.
+         */
+        public Query minLevel(int level){
+            minLevel = Math.max(minLevel, level);
+            return this;
+        }
+
+        /**
+         * Keeps characters at the given level or lower.
+         *
+         * @param level largest level.
+         * @return this query.
+         */
+        public Query maxLevel(int level){
+            maxLevel = Math.min(maxLevel, level);
+            return this;
+        }
+
+        /**
+         * Keeps characters with an item of the given type equipped. The slot is the one of the item type.
+         *
+         * @param type item type to match.
+         * @return this query.
+         */
+        public Query item(ItemType type){
+            int slot = filter(type.getSlot());
+            itemType[slot] = (byte) type.code();
+            return this;
+        }
+
+        /**
+         * Keeps characters whose item in a slot has at least the given stat: main stat for a weapon slot, effect
+         * value for an accessory slot. An empty slot never matches.
+         *
+         * @param slot slot to check.
+         * @param stat smallest stat.
+         * @return this query.
+         */
+        public Query minStat(Slot slot, double stat){
+            int s = filter(slot);
+            minStat[s] = Math.max(minStat[s], stat);
+            return this;
+        }
+
+        /**
+         * Keeps characters whose item in a slot has at most the given stat. An empty slot never matches.
+         *
+         * @param slot slot to check.
+         * @param stat largest stat.
+         * @return this query.
+         */
+        public Query maxStat(Slot slot, double stat){
+            int s = filter(slot);
+            maxStat[s] = Math.min(maxStat[s], stat);
+            return this;
+        }
+
+        /**
+         * Keeps characters whose accessory in a slot has the given effect type.
+         *
+         * @param slot       accessory slot to check.
+         * @param effectType effect type to match, ignoring case.
+         * @return this query.
+         * @throws IllegalArgumentException if slot is a weapon slot.
+         */
+        public Query effect(Slot slot, String effectType){
+            if(isWeaponSlot(slot)){
+                throw new IllegalArgumentException(slot.getDisplayName() + " holds no effect");
+            }
+            effect[filter(slot)] = EffectType.of(effectType).getCode();
+            return this;
+        }
+
+        /**
+         * Counts the matching characters.
+         *
+         * @return number of matches.
+         */
+        public long count(){
+            return run(Mode.COUNT, -1, Integer.MAX_VALUE).count;
+        }
+
+        /**
+         * Checks whether any character matches, stopping at the first match.
+         *
+         * @return true if a character matches.
+         */
+        public boolean exists(){
+            return run(Mode.EXISTS, -1, 1).count > 0;
+        }
+
+        /**
+         * Retrieves matching characters, stopping once enough are found.
+         * When more characters match, which ones are returned depends on the scan.
+         *
+         * @param limit largest number of characters to return.
+         * @return up to limit matching characters.
+         */
+        public List<RPGCharacter> list(int limit){
+            if(limit <= 0){
+                return List.of();
+            }
+            List<RPGCharacter> found = run(Mode.COLLECT, -1, limit).found;
+            return found.size() > limit ? found.subList(0, limit) : found;
+        }
+
+        /**
+         * Aggregates the levels of the matching characters.
+         *
+         * @return count, minimum, maximum, and average level.
+         */
+        public Aggregate levels(){
+            return run(Mode.COUNT, Slot.COUNT, Integer.MAX_VALUE).toAggregate();
+        }
+
+        /**
+         * Aggregates the stat of a slot over the matching characters, skipping those with the slot empty.
+         *
+         * @param slot slot whose stat is aggregated.
+         * @return count, minimum, maximum, and average stat.
+         */
+        public Aggregate stats(Slot slot){
+            return run(Mode.COUNT, slot.ordinal(), Integer.MAX_VALUE).toAggregate();
+        }
+
+        /**
+         * Marks a slot as filtered.
+         *
+         * @param slot filtered slot.
+         * @return index of the slot.
+         */
+        private int filter(Slot slot){
+            int s = slot.ordinal();
+            for(int filtered : filteredSlots){
+                if(filtered == s){
+                    return s;
+                }
+            }
+            filteredSlots = Arrays.copyOf(filteredSlots, filteredSlots.length + 1);
+            filteredSlots[filteredSlots.length - 1] = s;
+            return s;
+        }
+
+        /**
+         * Scans the row ranges left by the job and level filters.
+         *
+         * @param mode   what the scan does with matching rows.
+         * @param metric slot index whose stat is aggregated, Slot.COUNT for the level, -1 for none.
+         * @param limit  number of matches after which scanning stops.
+         * @return accumulated result.
+         */
+        private Accumulator run(Mode mode, int metric, int limit){
+            Accumulator result = new Accumulator(mode == Mode.COLLECT);
+            if(minLevel > maxLevel){
+                return result;
+            }
+            Scan scan = new Scan(this, mode, metric, limit);
+            List<ScanTask> tasks = new ArrayList<>(JOBS);
+            for(int j = 0; j < JOBS; j++){
+                if(job < 0 || job == j){
+                    int from = lowerBound(j, minLevel), to = lowerBound(j, (long) maxLevel + 1);
+                    if(from < to){
+                        tasks.add(new ScanTask(scan, from, to));
+                    }
+                }
+            }
+            for(ScanTask task : tasks){
+                result.merge(pool.invoke(task));
+                if(result.count >= limit){
+                    break;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Checks the slot filters of one row.
+         *
+         * @param row row to check.
+         * @return true if every slot filter matches.
+         */
+        private boolean matches(int row){
+            for(int s : filteredSlots){
+                byte type = itemType[s];
+                if(type != NO_ITEM && itemTypes[s][row] != type){
+                    return false;
+                }
+                double stat = stats[s][row];
+                if(!(stat >= minStat[s] && stat <= maxStat[s])){
+                    return false;
+                }
+                int code = effect[s];
+                if(code != NO_EFFECT && effects[s][row] != code){
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Scan class is one run of a query, shared by its scan tasks.
+     *
+     * @param query  query being run.
+     * @param mode   what the scan does with matching rows.
+     * @param metric slot index whose stat is aggregated, Slot.COUNT for the level, -1 for none.
+     * @param limit  number of matches after which scanning stops.
+     * @param found  matches so far, for stopping early.
+     */
+    private record Scan(Query query, Mode mode, int metric, int limit, AtomicInteger found) {
+
+        /**
+         * Initializes a new run of a query.
+         */
+        Scan(Query query, Mode mode, int metric, int limit){
+            this(query, mode, metric, limit, new AtomicInteger());
+        }
+    }
+
+    /**
+     * Accumulator class holds the partial result of a scan.
+     */
+    private static final class Accumulator {
+
+        /** Number of matches, and number of aggregated values. */
+        long count, values;
+
+        /** Smallest, largest, and sum of the aggregated values. */
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY, sum;
+
+        /** Matching characters, when collected. */
+        final List<RPGCharacter> found;
+
+        /**
+         * Initializes an empty result.
+         *
+         * @param collect whether matching characters are collected.
+         */
+        Accumulator(boolean collect){
+            found = collect ? new ArrayList<>() : List.of();
+        }
+
+        /**
+         * Adds another partial result.
+         *
+         * @param other partial result to add.
+         */
+        void merge(Accumulator other){
+            count += other.count;
+            values += other.values;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            sum += other.sum;
+            if(!other.found.isEmpty()){
+                found.addAll(other.found);
+            }
+        }
+
+        /**
+         * Retrieves the aggregated values.
+         *
+         * @return aggregate of the values.
+         */
+        Aggregate toAggregate(){
+            return values == 0 ? new Aggregate(0, Double.NaN, Double.NaN, Double.NaN) : new Aggregate(values, min, max, sum / values);
+        }
+    }
+
+    /**
+     * ScanTask class scans a range of rows, splitting it in halves until it is small enough.
+     */
+    private final class ScanTask extends RecursiveTask<Accumulator> {
+
+        /** Version of the serialized form, which only holds the row range. */
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /** Run the task belongs to. */
+        private final transient Scan scan;
+
+        /** Range of rows, from inclusive and to exclusive. */
+        private final int from, to;
+
+        /**
+         * Initializes a new ScanTask over a range of rows.
+         *
+         * @param scan run the task belongs to.
+         * @param from first row, inclusive.
+         * @param to   last row, exclusive.
+         */
+        ScanTask(Scan scan, int from, int to){
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Scans the rows, directly or through two subtasks.
+         *
+         * @return partial result of the rows.
+         */
+        @Override
+        protected Accumulator compute(){
+            if(scan.found().get() >= scan.limit()){
+                return new Accumulator(scan.mode() == Mode.COLLECT);
+            }
+            if(to - from <= THRESHOLD){
+                return scanRows();
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(scan, from, middle);
+            left.fork();
+            Accumulator result = new ScanTask(scan, middle, to).compute();
+            result.merge(left.join());
+            return result;
+        }
+
+        /**
+         * Scans the rows of a leaf task.
+         *
+         * @return partial result of the rows.
+         */
+        private Accumulator scanRows(){
+            Query query = scan.query();
+            Mode mode = scan.mode();
+            int metric = scan.metric();
+            Accumulator result = new Accumulator(mode == Mode.COLLECT);
+            double[] metricColumn = metric >= 0 && metric < Slot.COUNT ? stats[metric] : null;
+            for(int row = from; row < to; row++){
+                if(!query.matches(row)){
+                    continue;
+                }
+                result.count++;
+                if(mode != Mode.COUNT){
+                    if(mode == Mode.COLLECT){
+                        result.found.add(characters[row]);
+                    }
+                    if(scan.found().incrementAndGet() >= scan.limit()){
+                        break;
+                    }
+                    continue;
+                }
+                if(metric >= 0){
+                    double value = metricColumn == null ? levels[row] : metricColumn[row];
+                    if(value == value){
+                        result.values++;
+                        result.min = Math.min(result.min, value);
+                        result.max = Math.max(result.max, value);
+                        result.sum += value;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package rpg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CharacterService class serves character operations to clients on a local TCP socket.
+ * Every connection runs on its own virtual thread, so idle connections cost little more than their socket.
+ * A client may send many requests without waiting for the answers. The server answers them in order, and only
+ * flushes once it has no more buffered requests, so a pipelined batch goes back in few packets.
+ * The wire format is described in ServiceProtocol.
+ * Characters and their equipment stay on the service until a client deletes the character, so a long-running client
+ * should delete the characters it no longer needs.
+ * Item templates are interned for good, so the service registers at most maxItemTemplates new ones; an equip that
+ * would register one more is rejected, while items of templates registered before are always accepted.
+ */
+public final class CharacterService implements AutoCloseable {
+
+    /** Port used by main() when none is given. */
+    static final int DEFAULT_PORT = 7070;
+
+    /** Number of new item templates a service registers when none is given. */
+    static final int DEFAULT_MAX_ITEM_TEMPLATES = 16 * 1024;
+
+    /** Size of the read and write buffers of a connection, kept small so idle connections stay cheap. */
+    private static final int BUFFER_SIZE = 4 * 1024;
+
+    /** Socket accepting the connections. */
+    private final ServerSocket server;
+
+    /** Thread accepting the connections. */
+    private final Thread acceptor;
+
+    /** Open client connections, closed with the service. */
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    /** Characters by id. */
+    private final ConcurrentHashMap<Integer, BaseCharacter> characters = new ConcurrentHashMap<>();
+
+    /** Equipment by id, for upgrades. */
+    private final ConcurrentHashMap<Integer, Equipment> equipment = new ConcurrentHashMap<>();
+
+    /** Ids of the equipment given out for each character, released when the character is deleted. */
+    private final ConcurrentHashMap<Integer, Set<Integer>> equipmentIds = new ConcurrentHashMap<>();
+
+    /** Next character id and next equipment id. */
+    private final AtomicInteger nextCharacterId = new AtomicInteger(), nextEquipmentId = new AtomicInteger();
+
+    /** Number of requests served and of connections accepted. */
+    private final AtomicLong requests = new AtomicLong(), accepted = new AtomicLong();
+
+    /** Largest number of new item templates the service registers. */
+    private final int maxItemTemplates;
+
+    /** Number of new item templates registered for clients so far. */
+    private final AtomicInteger registeredTemplates = new AtomicInteger();
+
+    /**
+     * Initializes a new CharacterService listening on a bound socket.
+     *
+     * @param server           bound server socket.
+     * @param maxItemTemplates largest number of new item templates the service registers.
+     */
+    private CharacterService(ServerSocket server, int maxItemTemplates){
+        this.server = server;
+        this.maxItemTemplates = maxItemTemplates;
+        this.acceptor = Thread.ofPlatform().name("character-service-acceptor").daemon(true).unstarted(this::acceptLoop);
+    }
+
+    /**
+     * Starts a service on the loopback interface that registers up to 16384 new item templates.
+     *
+     * @param port port to listen on, or 0 to pick a free port.
+     * @return running service.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static CharacterService start(int port) throws IOException {
+        return start(port, DEFAULT_MAX_ITEM_TEMPLATES);
+    }
+
+    /**
+     * Starts a service on the loopback interface.
+     *
+     * @param port             port to listen on, or 0 to pick a free port.
+     * @param maxItemTemplates largest number of new item templates the service registers for its clients.
+     * @return running service.
+     * @throws IOException              if the port cannot be bound.
+     * @throws IllegalArgumentException if maxItemTemplates is negative.
+     */
+    public static CharacterService start(int port, int maxItemTemplates) throws IOException {
+        if(maxItemTemplates < 0){
+            throw new IllegalArgumentException("Negative item template limit: " + maxItemTemplates);
+        }
+        ServerSocket server = new ServerSocket();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4096);
+        CharacterService service = new CharacterService(server, maxItemTemplates);
+        service.acceptor.start();
+        return service;
+    }
+
+    /**
+     * Runs a service until the process is stopped. Events are discarded instead of printed.
+     *
+     * @param args optional port, 7070 by default.
+     * @throws IOException          if the port cannot be bound.
+     * @throws InterruptedException if interrupted while serving.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        GameEvents.setSink(new NoOpEventSink());
+        CharacterService service = start(args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+        System.out.println("Character service listening on " + service.server.getLocalSocketAddress());
+        Runtime.getRuntime().addShutdownHook(new Thread(service::close));
+        service.acceptor.join();
+    }
+
+    /**
+     * Retrieves the port the service listens on.
+     *
+     * @return local port.
+     */
+    public int getPort(){
+        return server.getLocalPort();
+    }
+
+    /**
+     * Retrieves number of requests served so far.
+     *
+     * @return served requests.
+     */
+    public long getRequestCount(){
+        return requests.get();
+    }
+
+    /**
+     * Retrieves number of characters currently held by the service.
+     *
+     * @return held characters.
+     */
+    public int getCharacterCount(){
+        return characters.size();
+    }
+
+    /**
+     * Retrieves number of equipment ids currently held by the service.
+     *
+     * @return held equipment.
+     */
+    public int getEquipmentCount(){
+        return equipment.size();
+    }
+
+    /**
+     * Retrieves number of new item templates the service registered for its clients.
+     *
+     * @return registered templates.
+     */
+    public int getRegisteredTemplateCount(){
+        return registeredTemplates.get();
+    }
+
+    /**
+     * Retrieves number of connections currently open.
+     *
+     * @return open connections.
+     */
+    public int getConnectionCount(){
+        return connections.size();
+    }
+
+    /**
+     * Stops accepting connections and closes every open one.
+     */
+    @Override
+    public void close(){
+        try {
+            server.close();
+        }catch (IOException ignored){
+            // Closing a server socket only fails if it is already broken, which is the state we want.
+        }
+        for(Socket socket : connections){
+            try {
+                socket.close();
+            }catch (IOException ignored){
+                // Same as above: the connection is going away either way.
+            }
+        }
+    }
+
+    /**
+     * Accepts connections and starts a virtual thread for each until the server socket is closed.
+     */
+    private void acceptLoop(){
+        while(!server.isClosed()){
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                Thread.ofVirtual().name("character-service-" + accepted.incrementAndGet()).start(() -> serve(socket));
+            }catch (IOException e){
+                if(!server.isClosed()){
+                    System.err.println("Character service failed to accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads requests from one connection and answers each in order until the client disconnects.
+     *
+     * @param socket client connection.
+     */
+    private void serve(Socket socket){
+        try(socket){
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+            byte[] frame = new byte[256];
+            ByteBuffer response = ByteBuffer.allocate(256);
+            while(true){
+                int length;
+                try {
+                    length = in.readInt();
+                }catch (EOFException e){
+                    return;
+                }
+                if(length < ServiceProtocol.REQUEST_HEADER || length > ServiceProtocol.MAX_FRAME){
+                    throw new IOException("Invalid request length " + length);
+                }
+                if(frame.length < length){
+                    frame = new byte[Math.max(length, frame.length * 2)];
+                }
+                in.readFully(frame, 0, length);
+                response = handle(ByteBuffer.wrap(frame, 0, length), response);
+                out.write(response.array(), 0, response.position());
+                requests.incrementAndGet();
+                if(in.available() == 0){
+                    out.flush();
+                }
+            }
+        }catch (SocketException | EOFException e){
+            // The client went away, possibly in the middle of a frame; there is nobody left to answer.
+        }catch (IOException e){
+            System.err.println("Character service closed a connection: " + e.getMessage());
+        }finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Runs one request and encodes its response.
+     *
+     * @param request  request frame without its length prefix.
+     * @param response reusable response buffer.
+     * @return buffer holding the response frame, from 0 to its position.
+     */
+    ByteBuffer handle(ByteBuffer request, ByteBuffer response){
+        int requestId = request.getInt();
+        byte op = request.get();
+        response.clear().position(ServiceProtocol.RESPONSE_HEADER + 4);
+        byte status = ServiceProtocol.OK;
+        try {
+            response = execute(op, request, response);
+        }catch (IllegalArgumentException | IllegalStateException | BufferUnderflowException | IndexOutOfBoundsException e){
+            status = ServiceProtocol.ERROR;
+            response.clear().position(ServiceProtocol.RESPONSE_HEADER + 4);
+            response = ServiceProtocol.putString(response, e.getMessage() == null ? e.toString() : e.getMessage());
+        }
+        int end = response.position();
+        response.putInt(0, end - 4).putInt(4, requestId).put(8, status);
+        return response;
+    }
+
+    /**
+     * Runs one operation and writes its result after the response header.
+     *
+     * @param op       operation code.
+     * @param request  request payload.
+     * @param response response buffer positioned after the header.
+     * @return response buffer, replaced by a larger one if the result did not fit.
+     * @throws IllegalArgumentException if the request refers to an unknown character, item, or operation.
+     */
+    private ByteBuffer execute(byte op, ByteBuffer request, ByteBuffer response){
+        switch (op) {
+            case ServiceProtocol.CREATE_CHARACTER -> {
+                JobType job = JobType.fromCode(request.get());
+                String name = ServiceProtocol.getString(request);
+                int id = nextCharacterId.getAndIncrement();
+                equipmentIds.put(id, ConcurrentHashMap.newKeySet());
+                characters.put(id, BaseCharacter.create(job, name));
+                return ServiceProtocol.ensure(response, 4).putInt(id);
+            }
+            case ServiceProtocol.LEVEL_UP -> {
+                BaseCharacter character = character(request.getInt());
+                character.levelUp();
+                return ServiceProtocol.ensure(response, 4).putInt(character.getLevel());
+            }
+            case ServiceProtocol.EQUIP_EQUIPMENT -> {
+                int characterId = request.getInt();
+                BaseCharacter character = character(characterId);
+                ItemType type = ItemType.fromCode(request.get());
+                String name = ServiceProtocol.getString(request);
+                int level = request.getInt();
+                double baseStat = request.getDouble();
+                if(!type.isWeapon()){
+                    throw new IllegalArgumentException(type.getDisplayName() + " is not an equipment");
+                }
+                ItemTemplate template = ItemTemplate.findWeapon(type, name, baseStat);
+                if(template == null){
+                    reserveTemplate();
+                    template = ItemTemplate.ofWeapon(type, name, baseStat);
+                }
+                Equipment item = (Equipment) template.newItem(level);
+                character.equipEquipment(item);
+                int id = -1;
+                if(character.getSlot(type.getSlot()) == item){
+                    id = nextEquipmentId.getAndIncrement();
+                    equipment.put(id, item);
+                    Set<Integer> owned = equipmentIds.get(characterId);
+                    if(owned != null){
+                        owned.add(id);
+                    }
+                    if(characters.get(characterId) != character){
+                        // Deleted meanwhile by another connection, which may have missed this id.
+                        equipment.remove(id);
+                        throw new IllegalArgumentException("Unknown character " + characterId);
+                    }
+                }
+                return ServiceProtocol.ensure(response, 4).putInt(id);
+            }
+            case ServiceProtocol.EQUIP_ACCESSORY -> {
+                BaseCharacter character = character(request.getInt());
+                ItemType type = ItemType.fromCode(request.get());
+                String name = ServiceProtocol.getString(request);
+                String effectType = ServiceProtocol.getString(request);
+                double effectValue = request.getDouble();
+                if(type.isWeapon()){
+                    throw new IllegalArgumentException(type.getDisplayName() + " is not an accessory");
+                }
+                ItemTemplate template = ItemTemplate.findAccessory(type, name, effectType, effectValue);
+                if(template == null){
+                    reserveTemplate();
+                    template = ItemTemplate.ofAccessory(type, name, effectType, effectValue);
+                }
+                Accessory item = (Accessory) template.newItem(0);
+                character.equipAccessory(item);
+                return ServiceProtocol.ensure(response, 1).put((byte) (character.getSlot(type.getSlot()) == item ? 1 : 0));
+            }
+            case ServiceProtocol.UPGRADE -> {
+                int id = request.getInt();
+                Equipment item = equipment.get(id);
+                if(item == null){
+                    throw new IllegalArgumentException("Unknown equipment " + id);
+                }
+                item.upgrade();
+                return ServiceProtocol.ensure(response, 12).putInt(item.getLevel()).putDouble(item.getMainStat());
+            }
+            case ServiceProtocol.DELETE_CHARACTER -> {
+                int id = request.getInt();
+                if(characters.remove(id) == null){
+                    throw new IllegalArgumentException("Unknown character " + id);
+                }
+                int released = 0;
+                Set<Integer> owned = equipmentIds.remove(id);
+                if(owned != null){
+                    for(int equipmentId : owned){
+                        if(equipment.remove(equipmentId) != null){
+                            released++;
+                        }
+                    }
+                }
+                return ServiceProtocol.ensure(response, 4).putInt(released);
+            }
+            case ServiceProtocol.SHOW_CHARACTER_INFO -> {
+                return ServiceProtocol.putString(response, CharacterSheetRenderer.appendText(character(request.getInt()), new StringBuilder(256)).toString());
+            }
+            default -> throw new IllegalArgumentException("Unknown operation " + op);
+        }
+    }
+
+    /**
+     * Counts a new item template against the limit of the service. Two requests racing to register the same
+     * template may both count it, which only makes the limit stricter.
+     *
+     * @throws IllegalStateException if the service registered as many templates as it may.
+     */
+    private void reserveTemplate(){
+        if(registeredTemplates.getAndUpdate(n -> n < maxItemTemplates ? n + 1 : n) >= maxItemTemplates){
+            throw new IllegalStateException("Item template limit of " + maxItemTemplates + " reached");
+        }
+    }
+
+    /**
+     * Retrieves a character by id.
+     *
+     * @param id id of the character.
+     * @return the character.
+     * @throws IllegalArgumentException if no character has that id.
+     */
+    private BaseCharacter character(int id){
+        BaseCharacter character = characters.get(id);
+        if(character == null){
+            throw new IllegalArgumentException("Unknown character " + id);
+        }
+        return character;
+    }
+}
+
+/**
+ * ServiceProtocol class holds the wire format shared by CharacterService and CharacterServiceClient.
+ * Every frame starts with its length as a big-endian int, not counting the length itself.
+ * A request continues with a request id (int) and an operation code (byte), then the operation's payload.
+ * A response continues with the request id it answers (int) and a status (byte), then the result or, for ERROR,
+ * an error message. Strings are a UTF-8 byte count (int) followed by the bytes.
+ *
+ * CREATE_CHARACTER: job code (byte), name; returns the character id (int).
+ * LEVEL_UP: character id (int); returns the new level (int).
+ * EQUIP_EQUIPMENT: character id (int), item type code (byte), name, level (int), base stat (double);
+ * returns the equipment id used by UPGRADE (int), or -1 if the job cannot equip it.
+ * EQUIP_ACCESSORY: character id (int), item type code (byte), name, effect type, effect value (double);
+ * returns 1 if equipped, 0 otherwise (byte).
+ * UPGRADE: equipment id (int); returns the new level (int) and main stat (double).
+ * SHOW_CHARACTER_INFO: character id (int); returns the text showCharacterInfo() prints.
+ * DELETE_CHARACTER: character id (int); forgets the character and every equipment id given out for it, so they can
+ * no longer be used; returns the number of equipment ids released (int).
+ */
+final class ServiceProtocol {
+
+    /** Operation codes. */
+    static final byte CREATE_CHARACTER = 1, LEVEL_UP = 2, EQUIP_EQUIPMENT = 3, EQUIP_ACCESSORY = 4, UPGRADE = 5, SHOW_CHARACTER_INFO = 6,
+            DELETE_CHARACTER = 7;
+
+    /** Response statuses. */
+    static final byte OK = 0, ERROR = 1;
+
+    /** Bytes after the length prefix before a request payload, and before a response payload. */
+    static final int REQUEST_HEADER = 5, RESPONSE_HEADER = 5;
+
+    /** Largest accepted frame. */
+    static final int MAX_FRAME = 1 << 20;
+
+    private ServiceProtocol(){
+    }
+
+    /**
+     * Makes room for some bytes in a buffer, replacing it with a larger copy if needed.
+     *
+     * @param buffer buffer being written.
+     * @param size   number of bytes about to be written.
+     * @return buffer with enough room.
+     */
+    static ByteBuffer ensure(ByteBuffer buffer, int size){
+        if(buffer.remaining() >= size){
+            return buffer;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + size));
+        return grown.put(buffer.flip());
+    }
+
+    /**
+     * Writes a string as its UTF-8 byte count followed by its bytes.
+     *
+     * @param buffer buffer being written.
+     * @param value  string to be written.
+     * @return buffer holding the string, replaced by a larger one if needed.
+     */
+    static ByteBuffer putString(ByteBuffer buffer, String value){
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return ensure(buffer, 4 + bytes.length).putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * Reads a string written by putString().
+     *
+     * @param buffer buffer being read.
+     * @return the string.
+     * @throws IllegalArgumentException if the length is negative or longer than the buffer.
+     */
+    static String getString(ByteBuffer buffer){
+        int length = buffer.getInt();
+        if(length < 0 || length > buffer.remaining()){
+            throw new IllegalArgumentException("Invalid string length " + length);
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
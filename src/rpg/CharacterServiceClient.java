@@ -0,0 +1,347 @@
+package rpg;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * CharacterServiceClient class talks to a CharacterService over one connection.
+ * The blocking methods send one request and wait for its answer. The send methods only buffer a request and return
+ * its id, so many requests can be pipelined before flush() and answered in order through receive().
+ * A client is meant to be used by one thread at a time.
+ */
+public final class CharacterServiceClient implements AutoCloseable {
+
+    /** Connection to the service. */
+    private final Socket socket;
+
+    /** Buffered streams of the connection. */
+    private final DataInputStream in;
+    private final OutputStream out;
+
+    /** Reusable request buffer. */
+    private ByteBuffer request = ByteBuffer.allocate(256);
+
+    /** Id of the next request. */
+    private int nextRequestId;
+
+    /**
+     * Response class is one answer of the service.
+     *
+     * @param requestId id of the request it answers.
+     * @param status    ServiceProtocol.OK or ServiceProtocol.ERROR.
+     * @param payload   result, or the error message for ERROR.
+     */
+    public record Response(int requestId, byte status, ByteBuffer payload) {
+
+        /**
+         * Tells whether the request succeeded.
+         *
+         * @return true for OK.
+         */
+        public boolean isOk(){
+            return status == ServiceProtocol.OK;
+        }
+
+        /**
+         * Retrieves the payload of a successful response.
+         *
+         * @return payload positioned at the result.
+         * @throws IllegalStateException with the service's message if the request failed.
+         */
+        ByteBuffer result(){
+            if(!isOk()){
+                throw new IllegalStateException(ServiceProtocol.getString(payload.duplicate()));
+            }
+            return payload;
+        }
+    }
+
+    /**
+     * Initializes a new CharacterServiceClient connected to a service on this machine.
+     *
+     * @param port port of the service.
+     * @throws IOException if the connection fails.
+     */
+    public CharacterServiceClient(int port) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 16 * 1024));
+        this.out = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024);
+    }
+
+    /**
+     * Creates a character.
+     *
+     * @param job  job of the character.
+     * @param name name of the character.
+     * @return id of the character.
+     * @throws IOException if the connection fails.
+     * @throws IllegalStateException if the service rejects the request.
+     */
+    public int createCharacter(JobType job, String name) throws IOException {
+        return call(sendCreateCharacter(job, name)).result().getInt();
+    }
+
+    /**
+     * Levels up a character.
+     *
+     * @param characterId id of the character.
+     * @return new level of the character.
+     * @throws IOException if the connection fails.
+     * @throws IllegalStateException if the service rejects the request.
+     */
+    public int levelUp(int characterId) throws IOException {
+        return call(sendLevelUp(characterId)).result().getInt();
+    }
+
+    /**
+     * Creates a weapon and equips it to a character.
+     *
+     * @param characterId id of the character.
+     * @param type        item type of the weapon.
+     * @param name        name of the weapon.
+     * @param level       level of the weapon.
+     * @param baseStat    base stat of the weapon.
+     * @return id of the equipment, or -1 if the character's job cannot equip it.
+     * @throws IOException if the connection fails.
+     * @throws IllegalStateException if the service rejects the request.
+     */
+    public int equipEquipment(int characterId, ItemType type, String name, int level, double baseStat) throws IOException {
+        return call(sendEquipEquipment(characterId, type, name, level, baseStat)).result().getInt();
+    }
+
+    /**
+     * Creates an accessory and equips it to a character.
+     *
+     * @param characterId id of the character.
+     * @param type        item type of the accessory.
+     * @param name        name of the accessory.
+     * @param effectType  effect type of the accessory.
+     * @param effectValue effect value of the accessory.
+     * @return true if it was equipped.
+     * @throws IOException if the connection fails.
+     * @throws IllegalStateException if the service rejects the request.
+     */
+    public boolean equipAccessory(int characterId, ItemType type, String name, String effectType, double effectValue) throws IOException {
+        return call(sendEquipAccessory(characterId, type, name, effectType, effectValue)).result().get() == 1;
+    }
+
+    /**
+     * Upgrades an equipment by one level.
+     *
+     * @param equipmentId id returned by equipEquipment().
+     * @return new main stat of the equipment.
+     * @throws IOException if the connection fails.
+     * @throws IllegalStateException if the service rejects the request.
+     */
+    public double upgrade(int equipmentId) throws IOException {
+        ByteBuffer result = call(sendUpgrade(equipmentId)).result();
+        result.getInt();
+        return result.getDouble();
+    }
+
+    /**
+     * Retrieves the text showCharacterInfo() prints for a character.
+     *
+     * @param characterId id of the character.
+     * @return character information.
+     * @throws IOException if the connection fails.
+     * @throws IllegalStateException if the service rejects the request.
+     */
+    public String showCharacterInfo(int characterId) throws IOException {
+        return ServiceProtocol.getString(call(sendShowCharacterInfo(characterId)).result());
+    }
+
+    /**
+     * Deletes a character, releasing the equipment ids given out for it.
+     *
+     * @param characterId id of the character.
+     * @return number of equipment ids released.
+     * @throws IOException if the connection fails.
+     * @throws IllegalStateException if the service rejects the request.
+     */
+    public int deleteCharacter(int characterId) throws IOException {
+        return call(sendDeleteCharacter(characterId)).result().getInt();
+    }
+
+    /**
+     * Buffers a create character request.
+     *
+     * @param job  job of the character.
+     * @param name name of the character.
+     * @return id of the request.
+     * @throws IOException if the connection fails.
+     */
+    public int sendCreateCharacter(JobType job, String name) throws IOException {
+        begin(ServiceProtocol.CREATE_CHARACTER).put((byte) job.code());
+        request = ServiceProtocol.putString(request, name);
+        return end();
+    }
+
+    /**
+     * Buffers a level up request.
+     *
+     * @param characterId id of the character.
+     * @return id of the request.
+     * @throws IOException if the connection fails.
+     */
+    public int sendLevelUp(int characterId) throws IOException {
+        begin(ServiceProtocol.LEVEL_UP).putInt(characterId);
+        return end();
+    }
+
+    /**
+     * Buffers an equip equipment request.
+     *
+     * @param characterId id of the character.
+     * @param type        item type of the weapon.
+     * @param name        name of the weapon.
+     * @param level       level of the weapon.
+     * @param baseStat    base stat of the weapon.
+     * @return id of the request.
+     * @throws IOException if the connection fails.
+     */
+    public int sendEquipEquipment(int characterId, ItemType type, String name, int level, double baseStat) throws IOException {
+        begin(ServiceProtocol.EQUIP_EQUIPMENT).putInt(characterId).put((byte) type.code());
+        request = ServiceProtocol.putString(request, name);
+        request = ServiceProtocol.ensure(request, 12).putInt(level).putDouble(baseStat);
+        return end();
+    }
+
+    /**
+     * Buffers an equip accessory request.
+     *
+     * @param characterId id of the character.
+     * @param type        item type of the accessory.
+     * @param name        name of the accessory.
+     * @param effectType  effect type of the accessory.
+     * @param effectValue effect value of the accessory.
+     * @return id of the request.
+     * @throws IOException if the connection fails.
+     */
+    public int sendEquipAccessory(int characterId, ItemType type, String name, String effectType, double effectValue) throws IOException {
+        begin(ServiceProtocol.EQUIP_ACCESSORY).putInt(characterId).put((byte) type.code());
+        request = ServiceProtocol.putString(request, name);
+        request = ServiceProtocol.putString(request, effectType);
+        request = ServiceProtocol.ensure(request, 8).putDouble(effectValue);
+        return end();
+    }
+
+    /**
+     * Buffers an upgrade request.
+     *
+     * @param equipmentId id returned by equipEquipment().
+     * @return id of the request.
+     * @throws IOException if the connection fails.
+     */
+    public int sendUpgrade(int equipmentId) throws IOException {
+        begin(ServiceProtocol.UPGRADE).putInt(equipmentId);
+        return end();
+    }
+
+    /**
+     * Buffers a show character info request.
+     *
+     * @param characterId id of the character.
+     * @return id of the request.
+     * @throws IOException if the connection fails.
+     */
+    public int sendShowCharacterInfo(int characterId) throws IOException {
+        begin(ServiceProtocol.SHOW_CHARACTER_INFO).putInt(characterId);
+        return end();
+    }
+
+    /**
+     * Buffers a delete character request.
+     *
+     * @param characterId id of the character.
+     * @return id of the request.
+     * @throws IOException if the connection fails.
+     */
+    public int sendDeleteCharacter(int characterId) throws IOException {
+        begin(ServiceProtocol.DELETE_CHARACTER).putInt(characterId);
+        return end();
+    }
+
+    /**
+     * Sends every buffered request.
+     *
+     * @throws IOException if the connection fails.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Waits for the next response. Responses arrive in the order the requests were sent.
+     *
+     * @return next response.
+     * @throws IOException if the connection fails or the response is malformed.
+     */
+    public Response receive() throws IOException {
+        int length = in.readInt();
+        if(length < ServiceProtocol.RESPONSE_HEADER || length > ServiceProtocol.MAX_FRAME){
+            throw new IOException("Invalid response length " + length);
+        }
+        int requestId = in.readInt();
+        byte status = in.readByte();
+        byte[] payload = new byte[length - ServiceProtocol.RESPONSE_HEADER];
+        in.readFully(payload);
+        return new Response(requestId, status, ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException if closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    /**
+     * Flushes and waits for the answer of a request sent last.
+     *
+     * @param requestId id of the request.
+     * @return its response.
+     * @throws IOException if the connection fails or another request is answered first.
+     */
+    private Response call(int requestId) throws IOException {
+        flush();
+        Response response = receive();
+        if(response.requestId() != requestId){
+            throw new IOException("Expected the answer to request " + requestId + " but got " + response.requestId());
+        }
+        return response;
+    }
+
+    /**
+     * Starts encoding a request, leaving room for its length.
+     *
+     * @param op operation code.
+     * @return request buffer positioned at the payload.
+     */
+    private ByteBuffer begin(byte op){
+        request.clear();
+        return request.putInt(0).putInt(nextRequestId).put(op);
+    }
+
+    /**
+     * Fills in the length of the request being encoded and buffers it for sending.
+     *
+     * @return id of the request.
+     * @throws IOException if the connection fails.
+     */
+    private int end() throws IOException {
+        request.putInt(0, request.position() - 4);
+        out.write(request.array(), 0, request.position());
+        return nextRequestId++;
+    }
+}
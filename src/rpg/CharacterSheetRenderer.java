@@ -0,0 +1,542 @@
+package rpg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CharacterSheetRenderer class renders character sheets as the console text of showCharacterInfo(), as JSON Lines,
+ * or as CSV. Sheets are appended straight into a StringBuilder, numbers included, without building a string per line.
+ * write() renders a whole batch of characters into one reused StringBuilder and encodes it into one reused direct
+ * buffer, which goes to the channel only when it is full, so a server dump takes a handful of writes.
+ * A renderer is meant to be used by one thread at a time; the static text methods may be used by any thread.
+ */
+public final class CharacterSheetRenderer {
+
+    /** Line separator of the console text, the one println() uses. */
+    private static final String NEWLINE = System.lineSeparator();
+
+    /** Header line of the CSV format. */
+    static final String CSV_HEADER = "name,job,level,hp,maxHp,mana,maxMana,baseSpeed,speed,maxSpeed,"
+            + "amulet,ring,earring,mainWeapon,mainWeaponLevel,subWeapon,subWeaponLevel";
+
+    /** Accessory slots and equipment slots in the order sheets list them. */
+    private static final Slot[] ACCESSORY_SLOTS = {Slot.AMULET, Slot.RING, Slot.EARRING},
+            EQUIPMENT_SLOTS = {Slot.MAIN_HAND, Slot.SUB_HAND};
+
+    /** Default size of the output buffer in bytes. */
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** Output format. */
+    private final Format format;
+
+    /** Encoder of the rendered text. */
+    private final CharsetEncoder encoder;
+
+    /** Reused text of the sheets not yet encoded. */
+    private final StringBuilder text = new StringBuilder(8 * 1024);
+
+    /** Reused array copy of the text being encoded; encoders run much faster over an array than a StringBuilder. */
+    private char[] chars = new char[8 * 1024];
+
+    /** Reused buffer of the encoded bytes not yet written. */
+    private final ByteBuffer buffer;
+
+    /** Number of characters of text encoded at a time. */
+    private final int flushChars;
+
+    /**
+     * Format enum lists the output formats of a renderer.
+     */
+    public enum Format {
+
+        /** Console text of showCharacterInfo(), byte for byte. */
+        TEXT,
+
+        /** One JSON object per character and line. */
+        JSON,
+
+        /** A header line, then one comma-separated line per character. */
+        CSV
+    }
+
+    /**
+     * Initializes a new CharacterSheetRenderer writing UTF-8 with a 64 KiB buffer.
+     *
+     * @param format output format.
+     */
+    public CharacterSheetRenderer(Format format){
+        this(format, StandardCharsets.UTF_8, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Initializes a new CharacterSheetRenderer.
+     * Characters the charset cannot encode are replaced, as the console does.
+     *
+     * @param format     output format.
+     * @param charset    charset of the written bytes.
+     * @param bufferSize size of the output buffer in bytes, at least 64.
+     * @throws IllegalArgumentException if bufferSize is below 64.
+     */
+    public CharacterSheetRenderer(Format format, Charset charset, int bufferSize){
+        if(bufferSize < 64){
+            throw new IllegalArgumentException("Buffer too small: " + bufferSize);
+        }
+        this.format = format;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.flushChars = Math.max(16, (int) (bufferSize / encoder.maxBytesPerChar()));
+    }
+
+    /**
+     * Retrieves the output format.
+     *
+     * @return output format.
+     */
+    public Format getFormat(){
+        return format;
+    }
+
+    /**
+     * Renders the sheets of a batch of characters and writes them to a channel.
+     * A CSV batch starts with the header line.
+     *
+     * @param characters characters to render.
+     * @param channel    channel receiving the bytes.
+     * @return number of bytes written.
+     * @throws IOException              if the channel fails.
+     * @throws IllegalArgumentException if a character is neither a BaseCharacter nor a TableCharacter.
+     */
+    public long write(Iterable<? extends RPGCharacter> characters, WritableByteChannel channel) throws IOException {
+        text.setLength(0);
+        buffer.clear();
+        encoder.reset();
+        long written = 0;
+        if(format == Format.CSV){
+            text.append(CSV_HEADER).append('\n');
+        }
+        for(RPGCharacter character : characters){
+            append(character, text);
+            if(text.length() >= flushChars){
+                written += encode(channel, false);
+            }
+        }
+        written += encode(channel, true);
+        text.setLength(0);
+        return written;
+    }
+
+    /**
+     * Renders the sheet of one character into a string.
+     *
+     * @param character character to render.
+     * @return sheet of the character, ending with a line separator.
+     * @throws IllegalArgumentException if the character is neither a BaseCharacter nor a TableCharacter.
+     */
+    public String render(RPGCharacter character){
+        text.setLength(0);
+        append(character, text);
+        String sheet = text.toString();
+        text.setLength(0);
+        return sheet;
+    }
+
+    /**
+     * Appends the sheet of one character in the renderer's format. A CSV sheet is one line without the header.
+     *
+     * @param character character to render.
+     * @param out       builder receiving the sheet.
+     * @return out.
+     * @throws IllegalArgumentException if the character is neither a BaseCharacter nor a TableCharacter.
+     */
+    public StringBuilder append(RPGCharacter character, StringBuilder out){
+        return switch (format) {
+            case TEXT -> appendText(character, out);
+            case JSON -> appendJson(character, out);
+            case CSV -> appendCsv(character, out);
+        };
+    }
+
+    /**
+     * Encodes the pending text into the buffer, writing the buffer out whenever it fills up.
+     * A surrogate pair split at the end of the text is kept for the next call.
+     *
+     * @param channel channel receiving the bytes.
+     * @param last    true to encode everything and write the buffer out even if it is not full.
+     * @return number of bytes written.
+     * @throws IOException if the channel fails.
+     */
+    private long encode(WritableByteChannel channel, boolean last) throws IOException {
+        long written = 0;
+        int length = text.length();
+        if(chars.length < length){
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        text.getChars(0, length, chars, 0);
+        CharBuffer input = CharBuffer.wrap(chars, 0, length);
+        CoderResult result;
+        while((result = encoder.encode(input, buffer, last)).isOverflow()){
+            written += drain(channel);
+        }
+        if(result.isError()){
+            result.throwException();
+        }
+        text.delete(0, input.position());
+        if(last){
+            while(encoder.flush(buffer).isOverflow()){
+                written += drain(channel);
+            }
+            written += drain(channel);
+        }
+        return written;
+    }
+
+    /**
+     * Writes the whole buffer to a channel and clears it.
+     *
+     * @param channel channel receiving the bytes.
+     * @return number of bytes written.
+     * @throws IOException if the channel fails.
+     */
+    private long drain(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        long written = buffer.remaining();
+        while(buffer.hasRemaining()){
+            channel.write(buffer);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    /**
+     * Appends the console text of showCharacterInfo() for a character.
+     *
+     * @param character character to render.
+     * @param out       builder receiving the text.
+     * @return out.
+     * @throws IllegalArgumentException if the character is neither a BaseCharacter nor a TableCharacter.
+     */
+    static StringBuilder appendText(RPGCharacter character, StringBuilder out){
+        appendHeader(character, out);
+        appendStats(character, out);
+        out.append("Accessory : ").append(NEWLINE);
+        for(Slot slot : ACCESSORY_SLOTS){
+            appendAccessory(character.getSlot(slot), out);
+        }
+        out.append("Equipment : ").append(NEWLINE);
+        for(Slot slot : EQUIPMENT_SLOTS){
+            appendEquipment(character.getSlot(slot), out);
+        }
+        return out;
+    }
+
+    /**
+     * Tells whether the stats of a character can be rendered, which takes a BaseCharacter or a TableCharacter.
+     * Other characters print their stats with their own showStats().
+     *
+     * @param character character to check.
+     * @return true if the character can be rendered in any format.
+     */
+    static boolean canRender(RPGCharacter character){
+        return character instanceof BaseCharacter || character instanceof TableCharacter;
+    }
+
+    /**
+     * Appends the name and job lines of the console text of showCharacterInfo().
+     *
+     * @param character character to render.
+     * @param out       builder receiving the text.
+     * @return out.
+     */
+    static StringBuilder appendHeader(RPGCharacter character, StringBuilder out){
+        out.append("Name : ").append(character.getName()).append(NEWLINE);
+        return out.append("Job : ").append(character.getJobName()).append(NEWLINE);
+    }
+
+    /**
+     * Appends the item lines of the console text of showCharacterInfo() from the arrays of equipped items,
+     * for characters whose slots are known only through the RPGCharacter getters.
+     *
+     * @param accessories equipped accessories, with null for an empty slot.
+     * @param equipment   equipped equipment, with null for an empty slot.
+     * @param out         builder receiving the text.
+     * @return out.
+     */
+    static StringBuilder appendItems(Accessory[] accessories, Equipment[] equipment, StringBuilder out){
+        out.append("Accessory : ").append(NEWLINE);
+        for(Accessory accessory : accessories){
+            appendAccessory(accessory, out);
+        }
+        out.append("Equipment : ").append(NEWLINE);
+        for(Equipment equ : equipment){
+            appendEquipment(equ, out);
+        }
+        return out;
+    }
+
+    /**
+     * Appends the line of an equipped accessory, or nothing for an empty slot or an unknown kind of accessory.
+     *
+     * @param item item of an accessory slot.
+     * @param out  builder receiving the line.
+     */
+    private static void appendAccessory(Object item, StringBuilder out){
+        switch (item) {
+            case Amulet amulet -> out.append("  Amulet : ").append(amulet.getName()).append(NEWLINE);
+            case Ring ring -> out.append("  Ring : ").append(ring.getName()).append(NEWLINE);
+            case Earring earring -> out.append("  Earring : ").append(earring.getName()).append(NEWLINE);
+            case null, default -> {
+            }
+        }
+    }
+
+    /**
+     * Appends the line of an equipped equipment, or nothing for an empty slot or an unknown kind of equipment.
+     *
+     * @param item item of an equipment slot.
+     * @param out  builder receiving the line.
+     */
+    private static void appendEquipment(Object item, StringBuilder out){
+        switch (item) {
+            case MainWeapon mainWeapon -> out.append("  Main Weapon : ").append(mainWeapon.getName()).append(" Lv.").append(mainWeapon.getLevel()).append(NEWLINE);
+            case SubWeapon subWeapon -> out.append("  Sub Weapon : ").append(subWeapon.getName()).append(" Lv.").append(subWeapon.getLevel()).append(NEWLINE);
+            case null, default -> {
+            }
+        }
+    }
+
+    /**
+     * Appends the console text of showStats() for a character: level, hp, mana, and speed.
+     *
+     * @param character character to render.
+     * @param out       builder receiving the text.
+     * @return out.
+     */
+    static StringBuilder appendStats(RPGCharacter character, StringBuilder out){
+        Stats s = Stats.of(character);
+        out.append("Level : ").append(s.level()).append(NEWLINE);
+        out.append("Hp : ").append(s.hp()).append(" / ").append(s.maxHp()).append(NEWLINE);
+        out.append("Mana : ").append(s.mana()).append(" / ").append(s.maxMana()).append(NEWLINE);
+        out.append("Speed(Base ").append(s.baseSpeed()).append(") : ").append(s.speed()).append(" / ").append(s.maxSpeed()).append(NEWLINE);
+        return out;
+    }
+
+    /**
+     * Appends the console text of Accessory.showStats(): name, effect type, and effect value in percent.
+     *
+     * @param accessory accessory to render.
+     * @param out       builder receiving the text.
+     * @return out.
+     */
+    static StringBuilder appendStats(Accessory accessory, StringBuilder out){
+        out.append("Name : ").append(accessory.getName()).append(NEWLINE);
+        out.append("Effect : ").append(accessory.getEffectType()).append(' ').append(accessory.getEffectValue() * 100).append('%').append(NEWLINE);
+        return out;
+    }
+
+    /**
+     * Appends one JSON line for a character.
+     *
+     * @param character character to render.
+     * @param out       builder receiving the line.
+     * @return out.
+     */
+    static StringBuilder appendJson(RPGCharacter character, StringBuilder out){
+        Stats s = Stats.of(character);
+        out.append("{\"name\":");
+        appendJsonString(character.getName(), out);
+        out.append(",\"job\":");
+        appendJsonString(character.getJobName(), out);
+        out.append(",\"level\":").append(s.level());
+        out.append(",\"hp\":").append(s.hp()).append(",\"maxHp\":").append(s.maxHp());
+        out.append(",\"mana\":").append(s.mana()).append(",\"maxMana\":").append(s.maxMana());
+        out.append(",\"baseSpeed\":").append(s.baseSpeed()).append(",\"speed\":").append(s.speed()).append(",\"maxSpeed\":").append(s.maxSpeed());
+        out.append(",\"accessories\":{\"amulet\":");
+        appendJsonAccessory(character.getSlot(Slot.AMULET), out);
+        out.append(",\"ring\":");
+        appendJsonAccessory(character.getSlot(Slot.RING), out);
+        out.append(",\"earring\":");
+        appendJsonAccessory(character.getSlot(Slot.EARRING), out);
+        out.append("},\"equipment\":{\"mainWeapon\":");
+        appendJsonEquipment(character.getSlot(Slot.MAIN_HAND), out);
+        out.append(",\"subWeapon\":");
+        appendJsonEquipment(character.getSlot(Slot.SUB_HAND), out);
+        return out.append("}}\n");
+    }
+
+    /**
+     * Appends an accessory as a JSON object, or null.
+     *
+     * @param item item of an accessory slot.
+     * @param out  builder receiving the value.
+     */
+    private static void appendJsonAccessory(Object item, StringBuilder out){
+        if(!(item instanceof Accessory accessory)){
+            out.append("null");
+            return;
+        }
+        out.append("{\"name\":");
+        appendJsonString(accessory.getName(), out);
+        out.append(",\"effectType\":");
+        appendJsonString(accessory.getEffectType(), out);
+        out.append(",\"effectValue\":").append(accessory.getEffectValue()).append('}');
+    }
+
+    /**
+     * Appends an equipment as a JSON object, or null.
+     *
+     * @param item item of an equipment slot.
+     * @param out  builder receiving the value.
+     */
+    private static void appendJsonEquipment(Object item, StringBuilder out){
+        if(!(item instanceof Equipment equipment)){
+            out.append("null");
+            return;
+        }
+        out.append("{\"type\":\"").append(equipment.getItemType().getDisplayName()).append("\",\"name\":");
+        appendJsonString(equipment.getName(), out);
+        out.append(",\"level\":").append(equipment.getLevel()).append(",\"mainStat\":").append(equipment.getMainStat()).append('}');
+    }
+
+    /**
+     * Appends a JSON string literal, escaping quotes, backslashes, and control characters.
+     *
+     * @param value string to append, or null.
+     * @param out   builder receiving the literal.
+     */
+    static void appendJsonString(String value, StringBuilder out){
+        if(value == null){
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if(c < 0x20){
+                        out.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+                    }else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Appends one CSV line for a character, in the column order of CSV_HEADER. Empty slots are empty fields.
+     *
+     * @param character character to render.
+     * @param out       builder receiving the line.
+     * @return out.
+     */
+    static StringBuilder appendCsv(RPGCharacter character, StringBuilder out){
+        Stats s = Stats.of(character);
+        appendCsvField(character.getName(), out);
+        out.append(',');
+        appendCsvField(character.getJobName(), out);
+        out.append(',').append(s.level()).append(',').append(s.hp()).append(',').append(s.maxHp())
+                .append(',').append(s.mana()).append(',').append(s.maxMana())
+                .append(',').append(s.baseSpeed()).append(',').append(s.speed()).append(',').append(s.maxSpeed());
+        for(Slot slot : ACCESSORY_SLOTS){
+            out.append(',');
+            if(character.getSlot(slot) instanceof Accessory accessory){
+                appendCsvField(accessory.getName(), out);
+            }
+        }
+        for(Slot slot : EQUIPMENT_SLOTS){
+            out.append(',');
+            if(character.getSlot(slot) instanceof Equipment equipment){
+                appendCsvField(equipment.getName(), out);
+                out.append(',').append(equipment.getLevel());
+            }else {
+                out.append(',');
+            }
+        }
+        return out.append('\n');
+    }
+
+    /**
+     * Appends a CSV field, quoting it when it holds a comma, a quote, or a line break.
+     *
+     * @param value field to append, or null for an empty field.
+     * @param out   builder receiving the field.
+     */
+    static void appendCsvField(String value, StringBuilder out){
+        if(value == null){
+            return;
+        }
+        boolean quote = false;
+        for(int i = 0; i < value.length() && !quote; i++){
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if(!quote){
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for(int i = 0; i < value.length(); i++){
+            char c = value.charAt(i);
+            if(c == '"'){
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    /**
+     * Stats class holds the level, hp, mana, and speed of a character read for one sheet,
+     * from the vitals of a BaseCharacter or the columns of a TableCharacter.
+     *
+     * @param level     level of the character.
+     * @param hp        hp of the character.
+     * @param maxHp     maximum hp of the character.
+     * @param mana      mana of the character.
+     * @param maxMana   maximum mana of the character.
+     * @param baseSpeed base speed of the character.
+     * @param speed     speed of the character.
+     * @param maxSpeed  maximum speed of the character.
+     */
+    private record Stats(int level, double hp, double maxHp, double mana, double maxMana,
+                         double baseSpeed, double speed, double maxSpeed){
+
+        /**
+         * Reads the stats of a character.
+         *
+         * @param character character to read.
+         * @return stats of the character.
+         * @throws IllegalArgumentException if the character is neither a BaseCharacter nor a TableCharacter.
+         */
+        static Stats of(RPGCharacter character){
+            return switch (character) {
+                case BaseCharacter base -> {
+                    BaseCharacter.Vitals v = base.getVitals();
+                    yield new Stats(v.level(), v.hp(), v.maxHp(), v.mana(), v.maxMana(), base.getBaseSpeed(), v.speed(), v.maxSpeed());
+                }
+                case TableCharacter row -> {
+                    CharacterTable t = row.table;
+                    int r = row.row;
+                    yield new Stats(t.level(r), t.hp(r), t.maxHp(r), t.mana(r), t.maxMana(r), t.baseSpeed(r), t.speed(r), t.maxSpeed(r));
+                }
+                default -> throw new IllegalArgumentException("Cannot render " + character.getClass().getName());
+            };
+        }
+    }
+}
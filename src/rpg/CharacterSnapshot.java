@@ -0,0 +1,81 @@
+package rpg;
+
+/**
+ * CharacterSnapshot record is an immutable copy of a character and its equipped items, taken at one moment.
+ * RPGCharacter.snapshot() hands out the snapshot a character last published, so reader threads get a consistent
+ * view by reference without locking, while game threads keep mutating the character.
+ * A BaseCharacter starts publishing when its first snapshot is asked for. From then on it publishes at the end of
+ * each mutation made outside a batch and at the end of each batch, so a batch allocates one snapshot however many
+ * mutations it holds. Weapon upgrades are the exception: a weapon does not know who holds it, so the holder's next
+ * snapshot() call notices the new stat version and publishes then.
+ * A character backed by a CharacterTable publishes nothing; its snapshot is copied on each call.
+ *
+ * @param name      name of the character.
+ * @param job       job of the character.
+ * @param level     level of the character.
+ * @param hp        current hp of the character.
+ * @param maxHp     maximum hp of the character.
+ * @param mana      current mana of the character.
+ * @param maxMana   maximum mana of the character.
+ * @param baseSpeed base speed of the character.
+ * @param speed     current speed of the character.
+ * @param maxSpeed  maximum speed of the character.
+ * @param mainHand  main hand weapon, or null.
+ * @param subHand   sub hand weapon, or null.
+ * @param amulet    amulet, or null.
+ * @param ring      ring, or null.
+ * @param earring   earring, or null.
+ */
+public record CharacterSnapshot(String name, JobType job, int level, double hp, double maxHp, double mana, double maxMana,
+                                double baseSpeed, double speed, double maxSpeed,
+                                EquipmentSnapshot mainHand, EquipmentSnapshot subHand,
+                                EquipmentSnapshot amulet, EquipmentSnapshot ring, EquipmentSnapshot earring) {
+
+    /**
+     * Copies a character as it is now. A character backed by a CharacterTable must be copied on the thread that
+     * changes the table, since the table is not thread-safe.
+     *
+     * @param character character to copy.
+     * @return copy of the character.
+     * @throws IllegalArgumentException if the character is neither a BaseCharacter nor a TableCharacter.
+     */
+    static CharacterSnapshot of(RPGCharacter character){
+        return switch (character) {
+            case BaseCharacter base -> base.snapshot();
+            case TableCharacter row -> of(row);
+            default -> throw new IllegalArgumentException("Cannot snapshot " + character.getClass().getName());
+        };
+    }
+
+    /**
+     * Copies a character backed by a CharacterTable.
+     *
+     * @param character character view of a table row.
+     * @return copy of the character.
+     */
+    private static CharacterSnapshot of(TableCharacter character){
+        CharacterTable t = character.table;
+        int r = character.row;
+        return new CharacterSnapshot(character.getName(), character.getJobType(), t.level(r), t.hp(r), t.maxHp(r),
+                t.mana(r), t.maxMana(r), t.baseSpeed(r), t.speed(r), t.maxSpeed(r),
+                EquipmentSnapshot.of(character.getSlot(Slot.MAIN_HAND)), EquipmentSnapshot.of(character.getSlot(Slot.SUB_HAND)),
+                EquipmentSnapshot.of(character.getSlot(Slot.AMULET)), EquipmentSnapshot.of(character.getSlot(Slot.RING)),
+                EquipmentSnapshot.of(character.getSlot(Slot.EARRING)));
+    }
+
+    /**
+     * Retrieves the copy of the item in a slot.
+     *
+     * @param slot slot to look up.
+     * @return copy of the equipped item, or null if the slot was empty.
+     */
+    public EquipmentSnapshot slot(Slot slot){
+        return switch (slot) {
+            case MAIN_HAND -> mainHand;
+            case SUB_HAND -> subHand;
+            case AMULET -> amulet;
+            case RING -> ring;
+            case EARRING -> earring;
+        };
+    }
+}
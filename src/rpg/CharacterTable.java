@@ -0,0 +1,609 @@
+package rpg;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * CharacterTable class stores many characters in a struct-of-arrays layout.
+ * Each character is a row index, and its level, hp, mana and speed are kept in primitive columns and its equipped
+ * items in one flat slot column instead of one object per character, so large populations cost no object headers and can be scanned sequentially.
+ * Provides lightweight RPGCharacter views over a row that behave like WarriorCharacter, MageCharacter and ArcherCharacter.
+ */
+public class CharacterTable {
+
+    /** Number of equipment slots per character, indexed by Slot ordinal inside a row of the slot column. */
+    static final int SLOT_COUNT = Slot.COUNT;
+
+    /** VarHandle for the compare-and-set of inventory column entries. */
+    private static final VarHandle INVENTORIES = MethodHandles.arrayElementVarHandle(Inventory[].class);
+
+    /** Number of rows in the table. */
+    private int size;
+
+    /** Name column. */
+    private String[] names;
+
+    /** Job code column, holding JobType codes. */
+    private byte[] jobs;
+
+    /** Level column. */
+    private int[] levels;
+
+    /** Maximum and current health points (hp) columns. */
+    private double[] maxHp, hp;
+
+    /** Maximum and current mana points (mana) columns. */
+    private double[] maxMana, mana;
+
+    /** Base speed column. */
+    private double[] baseSpeed;
+
+    /** Current and maximum speed columns. */
+    private double[] speed, maxSpeed;
+
+    /** Inventory column, each entry created the first time its row's inventory is asked for. */
+    private Inventory[] inventories;
+
+    /** Equipped items, SLOT_COUNT entries per row, null for an empty slot. A replaced item is no longer referenced. */
+    private Object[] slots;
+
+    /**
+     * Initializes a new empty CharacterTable.
+     *
+     * @param initialCapacity number of rows to allocate up front.
+     */
+    public CharacterTable(int initialCapacity){
+        int capacity = Math.max(initialCapacity, 16);
+        names = new String[capacity];
+        jobs = new byte[capacity];
+        levels = new int[capacity];
+        maxHp = new double[capacity];
+        hp = new double[capacity];
+        maxMana = new double[capacity];
+        mana = new double[capacity];
+        baseSpeed = new double[capacity];
+        speed = new double[capacity];
+        maxSpeed = new double[capacity];
+        inventories = new Inventory[capacity];
+        slots = new Object[capacity * SLOT_COUNT];
+    }
+
+    /**
+     * Retrieves number of characters in the table.
+     *
+     * @return number of characters in the table.
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Adds a warrior with the initial base stats of a warrior job at level 1.
+     *
+     * @param name name of the warrior character.
+     * @return view over the new row.
+     */
+    public RPGCharacter addWarrior(String name){
+        return view(addRow(name, JobType.WARRIOR, 1, 150, 25, 100));
+    }
+
+    /**
+     * Adds a mage with the initial base stats of a mage job at level 1.
+     *
+     * @param name name of the mage character.
+     * @return view over the new row.
+     */
+    public RPGCharacter addMage(String name){
+        return view(addRow(name, JobType.MAGE, 1, 50, 125, 80));
+    }
+
+    /**
+     * Adds an archer with the initial base stats of an archer job at level 1.
+     *
+     * @param name name of the archer character.
+     * @return view over the new row.
+     */
+    public RPGCharacter addArcher(String name){
+        return view(addRow(name, JobType.ARCHER, 1, 100, 75, 150));
+    }
+
+    /**
+     * Appends a row initialized the same way as the BaseCharacter constructor.
+     *
+     * @param name      name of the character.
+     * @param job       job of the character.
+     * @param level     level of the character.
+     * @param maxHp     maximum hit points of the character.
+     * @param maxMana   maximum mana points of the character.
+     * @param baseSpeed base speed of the character.
+     * @return index of the new row.
+     */
+    int addRow(String name, JobType job, int level, double maxHp, double maxMana, double baseSpeed){
+        if(size == levels.length){
+            grow();
+        }
+        int row = size++;
+        names[row] = name;
+        jobs[row] = (byte) job.code();
+        levels[row] = level;
+        this.maxHp[row] = maxHp;
+        hp[row] = maxHp;
+        this.maxMana[row] = maxMana;
+        mana[row] = maxMana;
+        this.baseSpeed[row] = baseSpeed;
+        maxSpeed[row] = baseSpeed + (1.5 * (level - 1));
+        speed[row] = maxSpeed[row];
+        return row;
+    }
+
+    /**
+     * Doubles the capacity of every column.
+     */
+    private void grow(){
+        int capacity = levels.length * 2;
+        names = Arrays.copyOf(names, capacity);
+        jobs = Arrays.copyOf(jobs, capacity);
+        levels = Arrays.copyOf(levels, capacity);
+        maxHp = Arrays.copyOf(maxHp, capacity);
+        hp = Arrays.copyOf(hp, capacity);
+        maxMana = Arrays.copyOf(maxMana, capacity);
+        mana = Arrays.copyOf(mana, capacity);
+        baseSpeed = Arrays.copyOf(baseSpeed, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        maxSpeed = Arrays.copyOf(maxSpeed, capacity);
+        inventories = Arrays.copyOf(inventories, capacity);
+        slots = Arrays.copyOf(slots, capacity * SLOT_COUNT);
+    }
+
+    /**
+     * Creates a view over a row. Views hold only the table and the row index, so they are cheap to create and discard.
+     *
+     * @param row index of the row.
+     * @return view over the row, implementing the Warrior, Mage or Archer job of the row.
+     */
+    public RPGCharacter view(int row){
+        if(row < 0 || row >= size){
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for size " + size);
+        }
+        return switch (JobType.fromCode(jobs[row])) {
+            case WARRIOR -> new TableWarrior(this, row);
+            case MAGE -> new TableMage(this, row);
+            case ARCHER -> new TableArcher(this, row);
+        };
+    }
+
+    int jobCode(int row){
+        return jobs[row];
+    }
+
+    String name(int row){
+        return names[row];
+    }
+
+    int level(int row){
+        return levels[row];
+    }
+
+    double hp(int row){
+        return hp[row];
+    }
+
+    double maxHp(int row){
+        return maxHp[row];
+    }
+
+    double mana(int row){
+        return mana[row];
+    }
+
+    double maxMana(int row){
+        return maxMana[row];
+    }
+
+    double baseSpeed(int row){
+        return baseSpeed[row];
+    }
+
+    double speed(int row){
+        return speed[row];
+    }
+
+    double maxSpeed(int row){
+        return maxSpeed[row];
+    }
+
+    /**
+     * Retrieves the inventory of one row, creating it on first use. Threads racing to create it all get the same one.
+     *
+     * @param row index of the row.
+     * @return inventory of the row.
+     */
+    Inventory inventory(int row){
+        Inventory inventory = (Inventory) INVENTORIES.getAcquire(inventories, row);
+        if(inventory == null){
+            Inventory created = new Inventory();
+            inventory = (Inventory) INVENTORIES.compareAndExchange(inventories, row, null, created);
+            if(inventory == null){
+                inventory = created;
+            }
+        }
+        return inventory;
+    }
+
+    /**
+     * Levels up one row, increasing level, hp, maxHp, mana, maxMana, maxSpeed, and speed like BaseCharacter.levelUp().
+     *
+     * @param row index of the row.
+     */
+    void levelUp(int row){
+        levels[row]++;
+        maxHp[row] += 10;
+        hp[row] += 10;
+        maxMana[row] += 5;
+        mana[row] += 5;
+        maxSpeed[row] += 1.5;
+        speed[row] += 1.5;
+    }
+
+    /**
+     * Levels up every row in a range once, with the same result as calling levelUp() on each row, but without console output.
+     * Each column is updated in its own loop over contiguous memory, so the JIT can vectorize the additions.
+     *
+     * @param from index of the first row, inclusive.
+     * @param to   index of the last row, exclusive.
+     */
+    public void levelUpRange(int from, int to){
+        if(from < 0 || to > size || from > to){
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for size " + size);
+        }
+        for(int i = from; i < to; i++){
+            levels[i]++;
+        }
+        addRange(maxHp, from, to, 10);
+        addRange(hp, from, to, 10);
+        addRange(maxMana, from, to, 5);
+        addRange(mana, from, to, 5);
+        addRange(maxSpeed, from, to, 1.5);
+        addRange(speed, from, to, 1.5);
+    }
+
+    /**
+     * Levels up the given rows once each, without console output.
+     *
+     * @param rows  indexes of the rows; a row listed twice is leveled up twice.
+     * @param count number of entries of rows to use.
+     */
+    void levelUpRows(int[] rows, int count){
+        for(int i = 0; i < count; i++){
+            levels[rows[i]]++;
+        }
+        addRows(maxHp, rows, count, 10);
+        addRows(hp, rows, count, 10);
+        addRows(maxMana, rows, count, 5);
+        addRows(mana, rows, count, 5);
+        addRows(maxSpeed, rows, count, 1.5);
+        addRows(speed, rows, count, 1.5);
+    }
+
+    /**
+     * Adds a value to a contiguous range of a column.
+     *
+     * @param column column to be updated.
+     * @param from   index of the first row, inclusive.
+     * @param to     index of the last row, exclusive.
+     * @param value  value to be added.
+     */
+    private static void addRange(double[] column, int from, int to, double value){
+        for(int i = from; i < to; i++){
+            column[i] += value;
+        }
+    }
+
+    /**
+     * Adds a value to the listed rows of a column.
+     *
+     * @param column column to be updated.
+     * @param rows   indexes of the rows.
+     * @param count  number of entries of rows to use.
+     * @param value  value to be added.
+     */
+    private static void addRows(double[] column, int[] rows, int count, double value){
+        for(int i = 0; i < count; i++){
+            column[rows[i]] += value;
+        }
+    }
+
+    /**
+     * Retrieves the item equipped in a slot of a row.
+     *
+     * @param row  index of the row.
+     * @param slot slot to look up.
+     * @return equipped item, or null if the slot is empty.
+     */
+    Object slot(int row, Slot slot){
+        return slot(row, slot.ordinal());
+    }
+
+    /**
+     * Retrieves the item equipped in a slot of a row.
+     *
+     * @param row  index of the row.
+     * @param slot ordinal of the slot.
+     * @return equipped item, or null if the slot is empty.
+     */
+    Object slot(int row, int slot){
+        return slots[row * SLOT_COUNT + slot];
+    }
+
+    /**
+     * Stores an item into a slot of a row.
+     *
+     * @param row  index of the row.
+     * @param slot slot to be filled.
+     * @param item item to be equipped.
+     */
+    void setSlot(int row, Slot slot, Object item){
+        slots[row * SLOT_COUNT + slot.ordinal()] = item;
+    }
+}
+
+/**
+ * TableCharacter abstract class is an RPGCharacter view over one row of a CharacterTable.
+ * Provides the same leveling, equipping, and stat display behavior as BaseCharacter, reading and writing the table columns.
+ */
+abstract class TableCharacter implements RPGCharacter{
+
+    /** Table that owns the row. */
+    final CharacterTable table;
+
+    /** Index of the row. */
+    final int row;
+
+    /**
+     * Initializes a new view over a row.
+     *
+     * @param table table that owns the row.
+     * @param row   index of the row.
+     */
+    TableCharacter(CharacterTable table, int row){
+        this.table = table;
+        this.row = row;
+    }
+
+    /**
+     * Displays the character's stats, including level, hp, maxHp, mana, maxMana, baseSpeed, speed, and maxSpeed.
+     */
+    public void showStats() {
+        System.out.print(CharacterSheetRenderer.appendStats(this, new StringBuilder(128)));
+    }
+
+    /**
+     * Retrieves name of the character.
+     *
+     * @return name of the character.
+     */
+    public String getName(){
+        return table.name(row);
+    }
+
+    /**
+     * Retrieves level of the character.
+     *
+     * @return level of the character.
+     */
+    public int getLevel(){
+        return table.level(row);
+    }
+
+    /**
+     * Retrieves the inventory of the character.
+     *
+     * @return inventory of the character.
+     */
+    public Inventory getInventory(){
+        return table.inventory(row);
+    }
+
+    /**
+     * Levels up the character, increasing level, hp, maxHp, mana, maxMana, maxSpeed, and speed.
+     */
+    public void levelUp(){
+        long start = GameMetrics.start(GameMetrics.Operation.LEVEL_UP);
+        table.levelUp(row);
+        GameEvents.publish(GameEventType.LEVEL_UP, this, null);
+        GameMetrics.leveledUp(this, start);
+    }
+
+    /**
+     * Equips the provided accessory to the character, into the slot of its item type.
+     *
+     * @param accessory accessory to be equipped.
+     */
+    public void equipAccessory(Accessory accessory){
+        if(accessory == null){
+            return;
+        }
+        ItemType type = accessory.getItemType();
+        if(JobType.canEquip(table.jobCode(row), type.code())){
+            long start = GameMetrics.start(GameMetrics.Operation.EQUIP_ACCESSORY);
+            table.setSlot(row, type.getSlot(), accessory);
+            GameEvents.publish(GameEventType.EQUIP_ACCESSORY, this, accessory);
+            GameMetrics.equipped(this, accessory, start);
+        }
+    }
+
+    /**
+     * Equips the provided equipment to the character, into the slot of its item type.
+     * Equipment that the character's job cannot equip is rejected.
+     *
+     * @param equipment equipment to be equipped.
+     */
+    public void equipEquipment(Equipment equipment){
+        long start = GameMetrics.start(GameMetrics.Operation.EQUIP_EQUIPMENT);
+        if(equipment != null){
+            ItemType type = equipment.getItemType();
+            if(JobType.canEquip(table.jobCode(row), type.code())){
+                table.setSlot(row, type.getSlot(), equipment);
+                GameEvents.publish(GameEventType.EQUIP_EQUIPMENT, this, equipment);
+                GameMetrics.equipped(this, equipment, start);
+                return;
+            }
+        }
+        GameEvents.publish(GameEventType.EQUIP_REJECTED, this, equipment);
+        GameMetrics.rejected(this, equipment, start);
+    }
+
+    /**
+     * Retrieves the item equipped in a slot.
+     *
+     * @param slot slot to look up.
+     * @return equipped item, or null if the slot is empty.
+     */
+    @Override
+    public Object getSlot(Slot slot){
+        return table.slot(row, slot);
+    }
+
+    /**
+     * Retrieves an array of equipped accessories.
+     *
+     * @return An array of equipped accessories.
+     */
+    public Accessory[] getEquippedAccessory(){
+        Accessory[] accArr = new Accessory[3];
+        accArr[0] = (Accessory) table.slot(row, Slot.AMULET);
+        accArr[1] = (Accessory) table.slot(row, Slot.RING);
+        accArr[2] = (Accessory) table.slot(row, Slot.EARRING);
+        return accArr;
+    }
+
+    /**
+     * Retrieves an array of equipped equipment.
+     *
+     * @return An array of equipped equipment.
+     */
+    public Equipment[] getEquippedEquipment(){
+        Equipment[] eqmArr = new Equipment[2];
+        eqmArr[0] = (Equipment) table.slot(row, Slot.MAIN_HAND);
+        eqmArr[1] = (Equipment) table.slot(row, Slot.SUB_HAND);
+        return eqmArr;
+    }
+
+    /**
+     * Performs an action for each equipped accessory, reading the slot column without allocating.
+     *
+     * @param action action to be performed for each equipped accessory.
+     */
+    @Override
+    public void forEachAccessory(Consumer<? super Accessory> action){
+        for(int slot = Slot.AMULET.ordinal(); slot <= Slot.EARRING.ordinal(); slot++){
+            Object item = table.slot(row, slot);
+            if(item != null) action.accept((Accessory) item);
+        }
+    }
+
+    /**
+     * Performs an action for each equipped equipment, reading the slot column without allocating.
+     *
+     * @param action action to be performed for each equipped equipment.
+     */
+    @Override
+    public void forEachEquipment(Consumer<? super Equipment> action){
+        for(int slot = Slot.MAIN_HAND.ordinal(); slot <= Slot.SUB_HAND.ordinal(); slot++){
+            Object item = table.slot(row, slot);
+            if(item != null) action.accept((Equipment) item);
+        }
+    }
+}
+
+/**
+ * TableWarrior class is a warrior view over a CharacterTable row, behaving like WarriorCharacter.
+ */
+class TableWarrior extends TableCharacter implements Warrior{
+
+    /**
+     * Initializes a new warrior view over a row.
+     *
+     * @param table table that owns the row.
+     * @param row   index of the row.
+     */
+    TableWarrior(CharacterTable table, int row){
+        super(table, row);
+    }
+
+    /**
+     * Performs a Slash ability.
+     */
+    public void slash() {
+        perform(AbilityRegistry.SLASH);
+    }
+
+    /**
+     * Performs a Block ability.
+     */
+    public void block() {
+        perform(AbilityRegistry.BLOCK);
+    }
+}
+
+/**
+ * TableMage class is a mage view over a CharacterTable row, behaving like MageCharacter.
+ */
+class TableMage extends TableCharacter implements Mage{
+
+    /**
+     * Initializes a new mage view over a row.
+     *
+     * @param table table that owns the row.
+     * @param row   index of the row.
+     */
+    TableMage(CharacterTable table, int row){
+        super(table, row);
+    }
+
+    /**
+     * Performs a Cast Spell ability.
+     */
+    public void castSpell() {
+        perform(AbilityRegistry.CAST_SPELL);
+    }
+
+    /**
+     * Performs a Teleport ability.
+     */
+    public void teleport() {
+        perform(AbilityRegistry.TELEPORT);
+    }
+}
+
+/**
+ * TableArcher class is an archer view over a CharacterTable row, behaving like ArcherCharacter.
+ */
+class TableArcher extends TableCharacter implements Archer{
+
+    /**
+     * Initializes a new archer view over a row.
+     *
+     * @param table table that owns the row.
+     * @param row   index of the row.
+     */
+    TableArcher(CharacterTable table, int row){
+        super(table, row);
+    }
+
+    /**
+     * Performs a Shot ability.
+     */
+    public void shot() {
+        perform(AbilityRegistry.SHOT);
+    }
+
+    /**
+     * Performs a Dodge ability.
+     */
+    public void dodge() {
+        perform(AbilityRegistry.DODGE);
+    }
+}
@@ -0,0 +1,537 @@
+package rpg;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * CombatEngine class simulates many one-on-one battles at once, advancing all of them by fixed ticks.
+ * Every battle copies the effective stats of its two characters into columns when it is added, so a tick only
+ * reads and writes primitive arrays. Each tick splits the battles across a fork-join pool.
+ * Every battle draws its random numbers from its own generator, seeded from the engine seed and the battle index,
+ * so the outcome is the same whatever the pool size and however the battles are split.
+ *
+ * On each tick, both combatants fill their action gauge by their effective speed and act once it is full.
+ * An action is the job's attack (Slash, Cast Spell, Shot) or, one time in four, its defense (Block, Teleport, Dodge).
+ * Attacks deal the main stat of the main hand weapon plus an unarmed base, may hit critically, are reduced by the
+ * target's sub hand stat, and heal the attacker through life steal. Cast Spell and Teleport cost mana, and a mage
+ * without enough mana for Cast Spell hits with its weapon instead.
+ * Accessory effects reach combat through EffectiveStats when a battle is added, so a tick never looks at them.
+ */
+public final class CombatEngine {
+
+    /** Number of battles below which a task runs them itself instead of splitting. */
+    private static final int THRESHOLD = 1024;
+
+    /** Gauge a combatant must fill to act. */
+    static final double GAUGE_FULL = 100;
+
+    /** Damage every attack deals on top of the main hand stat. */
+    static final double UNARMED_ATTACK = 5;
+
+    /** Chance of a critical hit before accessory effects, and its damage multiplier. */
+    static final double CRITICAL_CHANCE = 0.1, CRITICAL_MULTIPLIER = 1.5;
+
+    /** Chance that a combatant defends instead of attacking. */
+    static final double DEFEND_CHANCE = 0.25;
+
+    /** Damage multipliers of Slash, Cast Spell, and Shot. */
+    static final double SLASH_MULTIPLIER = 1.0, SPELL_MULTIPLIER = 1.5, SHOT_MULTIPLIER = 1.2;
+
+    /** Mana spent by Cast Spell and Teleport, and mana regained every tick. */
+    static final double SPELL_COST = 10, TELEPORT_COST = 5, MANA_REGEN = 1;
+
+    /** Share of damage let through by Block, and chance that Dodge avoids the next hit. */
+    static final double BLOCK_REDUCTION = 0.5, DODGE_CHANCE = 0.5;
+
+    /** Winner value of a battle still running and of a battle where both combatants fell. */
+    public static final int RUNNING = -1, DRAW = 2;
+
+    /** Job codes of the combatant columns. */
+    private static final int WARRIOR = JobType.WARRIOR.code(), MAGE = JobType.MAGE.code();
+
+    /** Guard of a combatant against the next hit. */
+    private static final byte NO_GUARD = 0, BLOCKING = 1, TELEPORTED = 2, DODGING = 3;
+
+    /** Pool running the tick tasks. */
+    private final ForkJoinPool pool;
+
+    /** Seed every battle generator is derived from. */
+    private final long seed;
+
+    /** Number of battles. */
+    private int battleCount;
+
+    /** Number of battles still running. */
+    private int activeBattles;
+
+    /** Number of ticks run. */
+    private int tick;
+
+    /** Job code and guard columns, two entries per battle. */
+    private byte[] jobs, guards;
+
+    /** Hp, maximum hp, mana, maximum mana, attack, defense, life steal, critical chance, speed, and gauge columns, two entries per battle. */
+    private double[] hp, maxHp, mana, maxMana, attack, defense, lifeSteal, critical, speed, gauge;
+
+    /** Random generator state of each battle. */
+    private long[] random;
+
+    /** Winner of each battle, 0 or 1 for the combatant side, RUNNING, or DRAW. */
+    private int[] winners;
+
+    /** Tick each battle ended at, 0 while running. */
+    private int[] endTicks;
+
+    /** Report of every tick run. */
+    private final List<TickReport> reports = new ArrayList<>();
+
+    /**
+     * Timing of one tick.
+     *
+     * @param tick            number of the tick, starting at 1.
+     * @param nanos           time the tick took.
+     * @param activeBattles   battles still running after the tick.
+     * @param finishedBattles battles that ended during the tick.
+     */
+    public record TickReport(int tick, long nanos, int activeBattles, int finishedBattles) {
+    }
+
+    /**
+     * Timing summary of every tick run.
+     *
+     * @param ticks      number of ticks.
+     * @param totalNanos time of every tick together.
+     * @param minNanos   fastest tick.
+     * @param p50Nanos   median tick.
+     * @param p99Nanos   99th percentile tick.
+     * @param maxNanos   slowest tick.
+     */
+    public record TickTiming(int ticks, long totalNanos, long minNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+
+        /**
+         * Retrieves the average time of a tick.
+         *
+         * @return mean tick time in nanoseconds, or 0 before the first tick.
+         */
+        public double meanNanos(){
+            return ticks == 0 ? 0 : (double) totalNanos / ticks;
+        }
+    }
+
+    /**
+     * Initializes a new CombatEngine running on the common fork-join pool.
+     *
+     * @param seed seed every battle generator is derived from.
+     */
+    public CombatEngine(long seed){
+        this(seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initializes a new CombatEngine running on the provided pool.
+     *
+     * @param seed seed every battle generator is derived from.
+     * @param pool pool running the tick tasks.
+     */
+    public CombatEngine(long seed, ForkJoinPool pool){
+        this.seed = seed;
+        this.pool = pool;
+        allocate(16);
+    }
+
+    /**
+     * Adds a battle between two characters, copying their current hp, mana, and effective stats.
+     * Battles must not be added while a tick is running.
+     *
+     * @param first  character on side 0.
+     * @param second character on side 1.
+     * @return index of the new battle.
+     */
+    public int addBattle(BaseCharacter first, BaseCharacter second){
+        if(battleCount == winners.length){
+            allocate(battleCount * 2);
+        }
+        int battle = battleCount++;
+        load(2 * battle, first);
+        load(2 * battle + 1, second);
+        random[battle] = mix(seed + battle * 0x9E3779B97F4A7C15L);
+        winners[battle] = RUNNING;
+        activeBattles++;
+        return battle;
+    }
+
+    /**
+     * Advances every running battle by one tick.
+     *
+     * @return timing of the tick.
+     */
+    public TickReport tick(){
+        long start = System.nanoTime();
+        int finished = pool.invoke(new TickTask(this, 0, battleCount));
+        long nanos = System.nanoTime() - start;
+        tick++;
+        activeBattles -= finished;
+        TickReport report = new TickReport(tick, nanos, activeBattles, finished);
+        reports.add(report);
+        return report;
+    }
+
+    /**
+     * Runs ticks until every battle has ended or the tick limit is reached.
+     *
+     * @param maxTicks largest number of ticks the engine may have run in total.
+     * @return number of ticks run by this call.
+     */
+    public int runUntilDone(int maxTicks){
+        int ran = 0;
+        while(activeBattles > 0 && tick < maxTicks){
+            tick();
+            ran++;
+        }
+        return ran;
+    }
+
+    /**
+     * Retrieves number of battles.
+     *
+     * @return number of battles.
+     */
+    public int getBattleCount(){
+        return battleCount;
+    }
+
+    /**
+     * Retrieves number of battles still running.
+     *
+     * @return number of running battles.
+     */
+    public int getActiveBattles(){
+        return activeBattles;
+    }
+
+    /**
+     * Retrieves number of ticks run.
+     *
+     * @return current tick.
+     */
+    public int getTick(){
+        return tick;
+    }
+
+    /**
+     * Retrieves the winner of a battle.
+     *
+     * @param battle index of the battle.
+     * @return 0 or 1 for the winning side, RUNNING, or DRAW.
+     */
+    public int getWinner(int battle){
+        checkBattle(battle);
+        return winners[battle];
+    }
+
+    /**
+     * Retrieves the tick a battle ended at.
+     *
+     * @param battle index of the battle.
+     * @return tick the battle ended at, or 0 while it is running.
+     */
+    public int getEndTick(int battle){
+        checkBattle(battle);
+        return endTicks[battle];
+    }
+
+    /**
+     * Retrieves the remaining hp of one side of a battle.
+     *
+     * @param battle index of the battle.
+     * @param side   0 or 1.
+     * @return remaining hp, 0 or less once fallen.
+     */
+    public double getHp(int battle, int side){
+        checkBattle(battle);
+        return hp[2 * battle + side];
+    }
+
+    /**
+     * Retrieves the timing of every tick run, in order.
+     *
+     * @return tick reports.
+     */
+    public List<TickReport> getTickReports(){
+        return List.copyOf(reports);
+    }
+
+    /**
+     * Summarizes the timing of every tick run.
+     *
+     * @return tick timing summary.
+     */
+    public TickTiming getTickTiming(){
+        if(reports.isEmpty()){
+            return new TickTiming(0, 0, 0, 0, 0, 0);
+        }
+        long[] nanos = new long[reports.size()];
+        long total = 0;
+        for(int i = 0; i < nanos.length; i++){
+            nanos[i] = reports.get(i).nanos();
+            total += nanos[i];
+        }
+        Arrays.sort(nanos);
+        return new TickTiming(nanos.length, total, nanos[0], nanos[(nanos.length - 1) / 2],
+                nanos[(int) Math.ceil(nanos.length * 0.99) - 1], nanos[nanos.length - 1]);
+    }
+
+    /**
+     * Advances the battles in a range by one tick.
+     *
+     * @param from first battle, inclusive.
+     * @param to   last battle, exclusive.
+     * @return number of battles that ended.
+     */
+    int step(int from, int to){
+        int finished = 0;
+        int now = tick + 1;
+        for(int battle = from; battle < to; battle++){
+            if(winners[battle] == RUNNING && stepBattle(battle)){
+                endTicks[battle] = now;
+                finished++;
+            }
+        }
+        return finished;
+    }
+
+    /**
+     * Advances one battle by one tick. The combatant with the fuller gauge acts first.
+     *
+     * @param battle index of the battle.
+     * @return true if the battle ended.
+     */
+    private boolean stepBattle(int battle){
+        int a = 2 * battle, b = a + 1;
+        for(int c = a; c <= b; c++){
+            gauge[c] += speed[c];
+            mana[c] = Math.min(maxMana[c], mana[c] + MANA_REGEN);
+        }
+        int first = gauge[b] > gauge[a] ? b : a;
+        int second = first == a ? b : a;
+        act(battle, first, second);
+        act(battle, second, first);
+        boolean firstDown = hp[first] <= 0, secondDown = hp[second] <= 0;
+        if(!firstDown && !secondDown){
+            return false;
+        }
+        winners[battle] = firstDown && secondDown ? DRAW : (firstDown ? second : first) - a;
+        return true;
+    }
+
+    /**
+     * Lets a combatant act if its gauge is full and it is still standing.
+     *
+     * @param battle   index of the battle.
+     * @param actor    combatant acting.
+     * @param opponent combatant facing it.
+     */
+    private void act(int battle, int actor, int opponent){
+        if(gauge[actor] < GAUGE_FULL || hp[actor] <= 0 || hp[opponent] <= 0){
+            return;
+        }
+        gauge[actor] -= GAUGE_FULL;
+        boolean defend = nextDouble(battle) < DEFEND_CHANCE;
+        int job = jobs[actor];
+        if(job == WARRIOR){
+            if(defend){
+                guards[actor] = BLOCKING;
+            }else {
+                strike(battle, actor, opponent, SLASH_MULTIPLIER);
+            }
+        }else if(job == MAGE){
+            if(defend && mana[actor] >= TELEPORT_COST){
+                mana[actor] -= TELEPORT_COST;
+                guards[actor] = TELEPORTED;
+            }else if(mana[actor] >= SPELL_COST){
+                mana[actor] -= SPELL_COST;
+                strike(battle, actor, opponent, SPELL_MULTIPLIER);
+            }else {
+                strike(battle, actor, opponent, SLASH_MULTIPLIER);
+            }
+        }else {
+            if(defend){
+                guards[actor] = DODGING;
+            }else {
+                strike(battle, actor, opponent, SHOT_MULTIPLIER);
+            }
+        }
+    }
+
+    /**
+     * Resolves one attack: critical hit, the target's guard, the target's defense, then life steal.
+     *
+     * @param battle     index of the battle.
+     * @param attacker   combatant attacking.
+     * @param target     combatant hit.
+     * @param multiplier damage multiplier of the ability.
+     */
+    private void strike(int battle, int attacker, int target, double multiplier){
+        double damage = (attack[attacker] + UNARMED_ATTACK) * multiplier;
+        if(nextDouble(battle) < critical[attacker]){
+            damage *= CRITICAL_MULTIPLIER;
+        }
+        switch (guards[target]) {
+            case BLOCKING -> damage *= BLOCK_REDUCTION;
+            case TELEPORTED -> damage = 0;
+            case DODGING -> {
+                if(nextDouble(battle) < DODGE_CHANCE){
+                    damage = 0;
+                }
+            }
+            default -> {
+            }
+        }
+        guards[target] = NO_GUARD;
+        damage *= 100 / (100 + Math.max(0, defense[target]));
+        hp[target] -= damage;
+        hp[attacker] = Math.min(maxHp[attacker], hp[attacker] + damage * lifeSteal[attacker]);
+    }
+
+    /**
+     * Copies a character's state into one combatant row.
+     *
+     * @param c         combatant row.
+     * @param character character to be copied.
+     */
+    private void load(int c, BaseCharacter character){
+        EffectiveStats stats = character.getEffectiveStats();
+        jobs[c] = (byte) character.getJobType().code();
+        guards[c] = NO_GUARD;
+        hp[c] = character.getHp();
+        maxHp[c] = stats.getMaxHp();
+        mana[c] = character.getMana();
+        maxMana[c] = stats.getMaxMana();
+        attack[c] = stats.getAttack();
+        defense[c] = stats.getDefense();
+        lifeSteal[c] = stats.getLifeSteal();
+        critical[c] = Math.min(1, Math.max(0, CRITICAL_CHANCE + stats.getModifier(EffectType.Stat.CRITICAL_CHANCE)));
+        speed[c] = Math.max(1, stats.getEffectiveSpeed());
+        gauge[c] = 0;
+    }
+
+    /**
+     * Resizes every column to hold the given number of battles.
+     *
+     * @param battles number of battles.
+     */
+    private void allocate(int battles){
+        int combatants = battles * 2;
+        jobs = jobs == null ? new byte[combatants] : Arrays.copyOf(jobs, combatants);
+        guards = guards == null ? new byte[combatants] : Arrays.copyOf(guards, combatants);
+        hp = grow(hp, combatants);
+        maxHp = grow(maxHp, combatants);
+        mana = grow(mana, combatants);
+        maxMana = grow(maxMana, combatants);
+        attack = grow(attack, combatants);
+        defense = grow(defense, combatants);
+        lifeSteal = grow(lifeSteal, combatants);
+        critical = grow(critical, combatants);
+        speed = grow(speed, combatants);
+        gauge = grow(gauge, combatants);
+        random = random == null ? new long[battles] : Arrays.copyOf(random, battles);
+        winners = winners == null ? new int[battles] : Arrays.copyOf(winners, battles);
+        endTicks = endTicks == null ? new int[battles] : Arrays.copyOf(endTicks, battles);
+    }
+
+    /**
+     * Resizes one column.
+     *
+     * @param column column to be resized, or null.
+     * @param length new length.
+     * @return resized column.
+     */
+    private static double[] grow(double[] column, int length){
+        return column == null ? new double[length] : Arrays.copyOf(column, length);
+    }
+
+    /**
+     * Draws the next random number of a battle, uniformly between 0 inclusive and 1 exclusive.
+     *
+     * @param battle index of the battle.
+     * @return random number.
+     */
+    private double nextDouble(int battle){
+        long state = random[battle] + 0x9E3779B97F4A7C15L;
+        random[battle] = state;
+        return (mix(state) >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Scrambles a 64-bit value with the SplitMix64 finalizer.
+     *
+     * @param z value to be scrambled.
+     * @return scrambled value.
+     */
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Checks that a battle index exists.
+     *
+     * @param battle index of the battle.
+     */
+    private void checkBattle(int battle){
+        if(battle < 0 || battle >= battleCount){
+            throw new IndexOutOfBoundsException("Battle " + battle + " out of bounds for " + battleCount + " battles");
+        }
+    }
+
+    /**
+     * TickTask class advances a range of battles by one tick, splitting it in halves until it is small enough.
+     */
+    private static final class TickTask extends RecursiveTask<Integer> {
+
+        /** Serialized form version of the task. */
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /** Engine owning the battles. */
+        private final transient CombatEngine engine;
+
+        /** Range of battles, from inclusive and to exclusive. */
+        private final int from, to;
+
+        /**
+         * Initializes a new TickTask over a range of battles.
+         *
+         * @param engine engine owning the battles.
+         * @param from   first battle, inclusive.
+         * @param to     last battle, exclusive.
+         */
+        TickTask(CombatEngine engine, int from, int to){
+            this.engine = engine;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Advances the battles, directly or through two subtasks.
+         *
+         * @return number of battles that ended.
+         */
+        @Override
+        protected Integer compute(){
+            if(to - from <= THRESHOLD){
+                return engine.step(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            TickTask left = new TickTask(engine, from, middle);
+            left.fork();
+            int right = new TickTask(engine, middle, to).compute();
+            return left.join() + right;
+        }
+    }
+}
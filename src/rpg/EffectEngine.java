@@ -0,0 +1,62 @@
+package rpg;
+
+/**
+ * EffectEngine class applies accessory effects to stats.
+ * The effects of a character's equipped accessories are summed into a modifier vector, one double per
+ * EffectType.Stat indexed by ordinal, when its accessories change; stats and combat then read the vector by index.
+ * Effects without a stat and accessories without an effect type leave the vector unchanged.
+ */
+public final class EffectEngine {
+
+    /** Length of a modifier vector. */
+    public static final int STATS = EffectType.Stat.values().length;
+
+    /**
+     * EffectEngine only has static methods.
+     */
+    private EffectEngine(){
+    }
+
+    /**
+     * Sums the effects of accessories into a new modifier vector.
+     *
+     * @param accessories accessories to sum, null entries skipped.
+     * @return modifier vector of the accessories.
+     */
+    public static double[] aggregate(Iterable<? extends Accessory> accessories){
+        double[] modifiers = new double[STATS];
+        aggregate(accessories, modifiers, 0);
+        return modifiers;
+    }
+
+    /**
+     * Adds the effects of accessories to a modifier vector stored in a larger array, such as one row per character.
+     *
+     * @param accessories accessories to sum, null entries skipped.
+     * @param modifiers   array holding the vector.
+     * @param offset      index of the vector's first stat in the array.
+     */
+    public static void aggregate(Iterable<? extends Accessory> accessories, double[] modifiers, int offset){
+        for(Accessory accessory : accessories){
+            if(accessory == null){
+                continue;
+            }
+            EffectType effect = accessory.getEffect();
+            if(effect != null && effect.getStat() != null){
+                modifiers[offset + effect.getStat().ordinal()] += effect.modifier(accessory.getEffectValue());
+            }
+        }
+    }
+
+    /**
+     * Applies a modifier vector to a stat that effects scale, such as maximum hp or attack.
+     *
+     * @param modifiers modifier vector.
+     * @param stat      stat to be applied.
+     * @param base      value of the stat without accessories.
+     * @return value of the stat with accessories, never negative.
+     */
+    public static double apply(double[] modifiers, EffectType.Stat stat, double base){
+        return Math.max(0, base * (1 + modifiers[stat.ordinal()]));
+    }
+}
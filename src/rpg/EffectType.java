@@ -0,0 +1,213 @@
+package rpg;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EffectType class is an interned accessory effect type, identified by an int code.
+ * Names are matched ignoring case and surrounding spaces, so "Life steal" and "life STEAL" are the same type.
+ * A known effect type changes one stat by its accessory's effect value, as a ratio; any other name is registered on
+ * first use as an effect type without a stat, which EffectEngine ignores.
+ */
+public final class EffectType {
+
+    /**
+     * Stat enum lists the stats accessory effects can change. The ordinal is the stat's index in a modifier vector.
+     */
+    public enum Stat {
+
+        /** Ratio added to maximum hp. */
+        MAX_HP,
+
+        /** Ratio added to maximum mana. */
+        MAX_MANA,
+
+        /** Ratio added to attack. */
+        ATTACK,
+
+        /** Ratio added to defense. */
+        DEFENSE,
+
+        /** Ratio added to speed. */
+        SPEED,
+
+        /** Share of dealt damage healed back. */
+        LIFE_STEAL,
+
+        /** Chance added to the chance of a critical hit. */
+        CRITICAL_CHANCE
+    }
+
+    /** Effect types by normalized name. */
+    private static final ConcurrentHashMap<String, EffectType> BY_NAME = new ConcurrentHashMap<>();
+
+    /** Effect types indexed by code. */
+    private static volatile EffectType[] byCode = new EffectType[16];
+
+    /** Number of registered effect types. */
+    private static int count;
+
+    /** Heals the wearer by a share of the damage it deals. */
+    public static final EffectType LIFE_STEAL = register("Life steal", Stat.LIFE_STEAL, 1);
+
+    /** Lowers the wearer's speed. */
+    public static final EffectType SLOWDOWN = register("Slowdown yourself", Stat.SPEED, -1);
+
+    /** Raises the wearer's speed. */
+    public static final EffectType HASTE = register("Haste", Stat.SPEED, 1);
+
+    /** Raises the wearer's maximum hp. */
+    public static final EffectType VITALITY = register("Vitality", Stat.MAX_HP, 1);
+
+    /** Raises the wearer's maximum mana. */
+    public static final EffectType WISDOM = register("Wisdom", Stat.MAX_MANA, 1);
+
+    /** Raises the wearer's attack. */
+    public static final EffectType MIGHT = register("Might", Stat.ATTACK, 1);
+
+    /** Raises the wearer's defense. */
+    public static final EffectType GUARD = register("Guard", Stat.DEFENSE, 1);
+
+    /** Raises the wearer's chance of a critical hit. */
+    public static final EffectType PRECISION = register("Precision", Stat.CRITICAL_CHANCE, 1);
+
+    /** Code of the effect type. */
+    private final int code;
+
+    /** Name of the effect type, as first registered. */
+    private final String name;
+
+    /** Stat the effect changes, null for an effect without a stat. */
+    private final Stat stat;
+
+    /** Sign the effect value is applied with: 1 to raise the stat, -1 to lower it. */
+    private final int sign;
+
+    /**
+     * Initializes a new EffectType with the provided values.
+     *
+     * @param code code of the effect type.
+     * @param name name of the effect type.
+     * @param stat stat the effect changes, or null.
+     * @param sign sign the effect value is applied with.
+     */
+    private EffectType(int code, String name, Stat stat, int sign){
+        this.code = code;
+        this.name = name;
+        this.stat = stat;
+        this.sign = sign;
+    }
+
+    /**
+     * Retrieves the effect type with the given name, registering an effect type without a stat on first use.
+     *
+     * @param name name of the effect type.
+     * @return shared effect type.
+     */
+    public static EffectType of(String name){
+        EffectType type = BY_NAME.get(normalize(name));
+        return type != null ? type : register(name, null, 0);
+    }
+
+    /**
+     * Retrieves a registered effect type by code.
+     *
+     * @param code code of the effect type.
+     * @return effect type with the given code.
+     */
+    public static EffectType get(int code){
+        return byCode[code];
+    }
+
+    /**
+     * Retrieves number of registered effect types.
+     *
+     * @return number of registered effect types.
+     */
+    public static synchronized int count(){
+        return count;
+    }
+
+    /**
+     * Registers a new effect type, unless one with the same name is registered already.
+     *
+     * @param name name of the effect type.
+     * @param stat stat the effect changes, or null.
+     * @param sign sign the effect value is applied with.
+     * @return shared effect type.
+     */
+    private static synchronized EffectType register(String name, Stat stat, int sign){
+        String key = normalize(name);
+        EffectType type = BY_NAME.get(key);
+        if(type != null){
+            return type;
+        }
+        EffectType[] table = byCode;
+        if(count == table.length){
+            table = Arrays.copyOf(table, count * 2);
+        }
+        type = new EffectType(count, name, stat, sign);
+        table[count++] = type;
+        byCode = table;
+        BY_NAME.put(key, type);
+        return type;
+    }
+
+    /**
+     * Retrieves the lookup key of a name.
+     *
+     * @param name name of an effect type.
+     * @return name without surrounding spaces, in lower case.
+     */
+    private static String normalize(String name){
+        return name.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Retrieves code of the effect type.
+     *
+     * @return code of the effect type.
+     */
+    public int getCode(){
+        return code;
+    }
+
+    /**
+     * Retrieves name of the effect type.
+     *
+     * @return name of the effect type, as first registered.
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Retrieves the stat the effect changes.
+     *
+     * @return stat of the effect, or null for an effect without a stat.
+     */
+    public Stat getStat(){
+        return stat;
+    }
+
+    /**
+     * Retrieves how much an accessory with this effect changes its stat.
+     *
+     * @param effectValue effect value of the accessory.
+     * @return signed change of the stat, 0 for an effect without a stat.
+     */
+    public double modifier(double effectValue){
+        return sign * effectValue;
+    }
+
+    /**
+     * Retrieves the name of the effect type.
+     *
+     * @return name of the effect type.
+     */
+    @Override
+    public String toString(){
+        return name;
+    }
+}
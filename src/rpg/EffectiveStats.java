@@ -0,0 +1,195 @@
+package rpg;
+
+/**
+ * EffectiveStats class holds a character's derived totals: its base stats combined with the main stat of its
+ * equipped weapons and the effects of its equipped accessories.
+ * Accessory effects are summed into a modifier vector by EffectEngine only when the accessory slots change.
+ * An instance is immutable and remembers the version stamps it was computed from, so BaseCharacter can keep it
+ * cached and only recompute the parts whose stamps changed.
+ */
+public final class EffectiveStats {
+
+    /** Character stamps the stats were computed from: level, equipment slots, and accessory slots. */
+    private final int levelStamp, equipmentStamp, accessoryStamp;
+
+    /** Weapons the stats were computed from, and their stat versions at that time. */
+    private final Equipment mainHand, subHand;
+    private final int mainHandVersion, subHandVersion;
+
+    /** Level-based stats of the character. */
+    private final double maxHp, maxMana, speed;
+
+    /** Attack from the main hand weapon and defense from the sub hand weapon, before accessory effects. */
+    private final double attack, defense;
+
+    /** Modifier vector of the equipped accessories, indexed by EffectType.Stat ordinal; never modified. */
+    private final double[] modifiers;
+
+    /**
+     * Initializes a new EffectiveStats with the provided values.
+     */
+    private EffectiveStats(int levelStamp, int equipmentStamp, int accessoryStamp,
+                           Equipment mainHand, int mainHandVersion, Equipment subHand, int subHandVersion,
+                           double maxHp, double maxMana, double speed,
+                           double attack, double defense, double[] modifiers){
+        this.levelStamp = levelStamp;
+        this.equipmentStamp = equipmentStamp;
+        this.accessoryStamp = accessoryStamp;
+        this.mainHand = mainHand;
+        this.mainHandVersion = mainHandVersion;
+        this.subHand = subHand;
+        this.subHandVersion = subHandVersion;
+        this.maxHp = maxHp;
+        this.maxMana = maxMana;
+        this.speed = speed;
+        this.attack = attack;
+        this.defense = defense;
+        this.modifiers = modifiers;
+    }
+
+    /**
+     * Checks whether the stats still match the character, including in-place upgrades of its weapons.
+     *
+     * @param character character the stats were computed for.
+     * @return true if nothing the stats depend on has changed.
+     */
+    boolean isCurrent(BaseCharacter character){
+        return levelStamp == character.getLevelStamp()
+                && equipmentStamp == character.getEquipmentStamp()
+                && accessoryStamp == character.getAccessoryStamp()
+                && mainHandVersion == statVersion(mainHand)
+                && subHandVersion == statVersion(subHand);
+    }
+
+    /**
+     * Computes the stats of a character, reusing every part of the previous stats whose stamps did not change.
+     *
+     * @param character character to compute the stats for.
+     * @param previous  previously computed stats of the character, or null.
+     * @return up-to-date stats of the character.
+     */
+    static EffectiveStats refresh(BaseCharacter character, EffectiveStats previous){
+        int levelStamp = character.getLevelStamp();
+        int equipmentStamp = character.getEquipmentStamp();
+        int accessoryStamp = character.getAccessoryStamp();
+        Equipment main = (Equipment) character.getSlot(Slot.MAIN_HAND);
+        Equipment sub = (Equipment) character.getSlot(Slot.SUB_HAND);
+        int mainVersion = statVersion(main);
+        int subVersion = statVersion(sub);
+
+        double maxHp, maxMana, speed;
+        if(previous != null && previous.levelStamp == levelStamp){
+            maxHp = previous.maxHp;
+            maxMana = previous.maxMana;
+            speed = previous.speed;
+        }else {
+            maxHp = character.getMaxHp();
+            maxMana = character.getMaxMana();
+            speed = character.getSpeed();
+        }
+
+        double attack = previous != null && previous.mainHand == main && previous.mainHandVersion == mainVersion
+                ? previous.attack : mainStat(main);
+        double defense = previous != null && previous.subHand == sub && previous.subHandVersion == subVersion
+                ? previous.defense : mainStat(sub);
+
+        double[] modifiers = previous != null && previous.accessoryStamp == accessoryStamp
+                ? previous.modifiers : EffectEngine.aggregate(character.getEquippedAccessoryView());
+
+        return new EffectiveStats(levelStamp, equipmentStamp, accessoryStamp, main, mainVersion, sub, subVersion,
+                maxHp, maxMana, speed, attack, defense, modifiers);
+    }
+
+    /**
+     * Retrieves the stat version of an equipped weapon.
+     *
+     * @param equipment equipped weapon, or null.
+     * @return stat version of the weapon, 0 for an empty slot.
+     */
+    private static int statVersion(Equipment equipment){
+        return equipment == null ? 0 : equipment.getStatVersion();
+    }
+
+    /**
+     * Retrieves the main stat of an equipped weapon.
+     *
+     * @param equipment equipped weapon, or null.
+     * @return main stat of the weapon, 0 for an empty slot.
+     */
+    private static double mainStat(Equipment equipment){
+        return equipment == null ? 0 : equipment.getMainStat();
+    }
+
+    /**
+     * Retrieves maximum hp of the character with accessory effects applied.
+     *
+     * @return maximum hp.
+     */
+    public double getMaxHp(){
+        return EffectEngine.apply(modifiers, EffectType.Stat.MAX_HP, maxHp);
+    }
+
+    /**
+     * Retrieves maximum mana of the character with accessory effects applied.
+     *
+     * @return maximum mana.
+     */
+    public double getMaxMana(){
+        return EffectEngine.apply(modifiers, EffectType.Stat.MAX_MANA, maxMana);
+    }
+
+    /**
+     * Retrieves attack, the main stat of the main hand weapon with accessory effects applied.
+     *
+     * @return attack, 0 without a main weapon.
+     */
+    public double getAttack(){
+        return EffectEngine.apply(modifiers, EffectType.Stat.ATTACK, attack);
+    }
+
+    /**
+     * Retrieves defense, the main stat of the sub hand weapon with accessory effects applied.
+     *
+     * @return defense, 0 without a sub weapon.
+     */
+    public double getDefense(){
+        return EffectEngine.apply(modifiers, EffectType.Stat.DEFENSE, defense);
+    }
+
+    /**
+     * Retrieves the life steal ratio added by the equipped accessories.
+     *
+     * @return life steal ratio, for example 0.155 for 15.5%.
+     */
+    public double getLifeSteal(){
+        return modifiers[EffectType.Stat.LIFE_STEAL.ordinal()];
+    }
+
+    /**
+     * Retrieves the ratio the equipped accessories change speed by.
+     *
+     * @return speed modifier ratio, negative for a slowdown.
+     */
+    public double getSpeedModifier(){
+        return modifiers[EffectType.Stat.SPEED.ordinal()];
+    }
+
+    /**
+     * Retrieves what the equipped accessories add to one stat.
+     *
+     * @param stat stat to look up.
+     * @return summed modifier of the stat, 0 if no accessory changes it.
+     */
+    public double getModifier(EffectType.Stat stat){
+        return modifiers[stat.ordinal()];
+    }
+
+    /**
+     * Retrieves the current speed of the character with the speed modifier applied.
+     *
+     * @return effective speed.
+     */
+    public double getEffectiveSpeed(){
+        return speed * (1 + getSpeedModifier());
+    }
+}
@@ -0,0 +1,192 @@
+package rpg;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * EnhancementPipeline class upgrades large collections of equipment in parallel on a fork-join pool.
+ * Every item gets its own Result, and an item that fails to upgrade is reported without stopping the others.
+ */
+public class EnhancementPipeline {
+
+    /** Number of items below which a task upgrades its items itself instead of splitting. */
+    private static final int THRESHOLD = 1024;
+
+    /** Pool running the upgrade tasks. */
+    private final ForkJoinPool pool;
+
+    /**
+     * Initializes a new EnhancementPipeline running on the common fork-join pool.
+     */
+    public EnhancementPipeline(){
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Initializes a new EnhancementPipeline running on the provided pool.
+     *
+     * @param pool pool running the upgrade tasks.
+     */
+    public EnhancementPipeline(ForkJoinPool pool){
+        this.pool = pool;
+    }
+
+    /**
+     * Upgrades every item by the same number of levels.
+     *
+     * @param items  items to be upgraded.
+     * @param levels number of levels to add to each item.
+     * @return one result per item, in the iteration order of items.
+     */
+    public List<Result> upgradeBy(Collection<? extends Equipment> items, int levels){
+        return run(items, equipment -> equipment.upgradeBy(levels));
+    }
+
+    /**
+     * Upgrades every item up to the same level.
+     *
+     * @param items items to be upgraded.
+     * @param level level every item should reach.
+     * @return one result per item, in the iteration order of items.
+     */
+    public List<Result> upgradeTo(Collection<? extends Equipment> items, int level){
+        return run(items, equipment -> equipment.upgradeTo(level));
+    }
+
+    /**
+     * Applies an enhancement to every item in parallel.
+     *
+     * @param items       items to be enhanced.
+     * @param enhancement enhancement applied to each item.
+     * @return one result per item, in the iteration order of items.
+     */
+    public List<Result> run(Collection<? extends Equipment> items, Enhancement enhancement){
+        Equipment[] array = items.toArray(new Equipment[0]);
+        Result[] results = new Result[array.length];
+        pool.invoke(new EnhanceTask(array, results, 0, array.length, enhancement));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Counts the failed results.
+     *
+     * @param results results returned by the pipeline.
+     * @return number of items that failed to upgrade.
+     */
+    public static long countFailures(List<Result> results){
+        return results.stream().filter(result -> !result.succeeded()).count();
+    }
+
+    /**
+     * Result record is the outcome of upgrading one item in an EnhancementPipeline.
+     *
+     * @param item      upgraded item.
+     * @param fromLevel level of the item before the upgrade.
+     * @param toLevel   level of the item after the upgrade.
+     * @param failure   exception thrown by the upgrade, or null if it succeeded.
+     */
+    public record Result(Equipment item, int fromLevel, int toLevel, RuntimeException failure) {
+
+        /**
+         * Tells whether the upgrade succeeded.
+         *
+         * @return true if no exception was thrown.
+         */
+        public boolean succeeded(){
+            return failure == null;
+        }
+    }
+
+    /**
+     * Enhancement interface is an operation applied to one item of the pipeline.
+     */
+    @FunctionalInterface
+    public interface Enhancement {
+
+        /**
+         * Applies the enhancement to one item.
+         *
+         * @param equipment item to be enhanced.
+         */
+        void apply(Equipment equipment);
+    }
+
+    /**
+     * EnhanceTask class upgrades a range of items, splitting it in halves while it is larger than THRESHOLD.
+     */
+    private static final class EnhanceTask extends RecursiveAction {
+
+        /** Serialized form version; the items, results, and enhancement are transient. */
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        /** Items of the whole batch. */
+        private final transient Equipment[] items;
+
+        /** Results of the whole batch, filled at the index of each item. */
+        private final transient Result[] results;
+
+        /** Range of items handled by this task. */
+        private final int from, to;
+
+        /** Enhancement applied to each item. */
+        private final transient Enhancement enhancement;
+
+        /**
+         * Initializes a new EnhanceTask over a range of items.
+         *
+         * @param items       items of the whole batch.
+         * @param results     results of the whole batch.
+         * @param from        index of the first item, inclusive.
+         * @param to          index of the last item, exclusive.
+         * @param enhancement enhancement applied to each item.
+         */
+        EnhanceTask(Equipment[] items, Result[] results, int from, int to, Enhancement enhancement){
+            this.items = items;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.enhancement = enhancement;
+        }
+
+        /**
+         * Upgrades the range, or splits it and upgrades both halves in parallel.
+         */
+        @Override
+        protected void compute(){
+            if(to - from <= THRESHOLD){
+                for(int i = from; i < to; i++){
+                    results[i] = enhance(items[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new EnhanceTask(items, results, from, middle, enhancement),
+                    new EnhanceTask(items, results, middle, to, enhancement));
+        }
+
+        /**
+         * Applies the enhancement to one item and records the outcome.
+         *
+         * @param equipment item to be enhanced.
+         * @return result for the item.
+         */
+        private Result enhance(Equipment equipment){
+            if(equipment == null){
+                return new Result(null, 0, 0, new NullPointerException("Item is null"));
+            }
+            int fromLevel = equipment.getLevel();
+            try {
+                enhancement.apply(equipment);
+                return new Result(equipment, fromLevel, equipment.getLevel(), null);
+            }catch (RuntimeException e){
+                return new Result(equipment, fromLevel, equipment.getLevel(), e);
+            }
+        }
+    }
+}
+
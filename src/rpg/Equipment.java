@@ -0,0 +1,516 @@
+package rpg;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Equipment interface represents equipment that can be used by a character.
+ * Defines methods to retrieve the equipment's name, main stat, level, and an upgrade operation.
+ */
+public interface Equipment {
+
+    /**
+     * Retrieves name of the equipment.
+     *
+     * @return name of the equipment.
+     */
+    String getName();
+
+    /**
+     * Retrieves the main stat of the equipment.
+     *
+     * @return main stat of the equipment.
+     */
+    double getMainStat();
+
+    /**
+     * Retrieves level of the equipment.
+     *
+     * @return level of the equipment.
+     */
+    int getLevel();
+
+    /**
+     * Retrieves the item type of the equipment, which decides its slot and which jobs can equip it.
+     *
+     * @return item type of the equipment.
+     */
+    ItemType getItemType();
+
+    /**
+     * Upgrades the equipment by increasing its level and adjusting its main stat.
+     */
+    void upgrade();
+
+    /**
+     * Upgrades the equipment by several levels, with the same result as calling upgrade() that many times.
+     *
+     * @param levels number of levels to add.
+     * @throws IllegalArgumentException if levels is negative.
+     */
+    default void upgradeBy(int levels){
+        if(levels < 0){
+            throw new IllegalArgumentException("Cannot upgrade by a negative number of levels: " + levels);
+        }
+        for(int i = 0; i < levels; i++){
+            upgrade();
+        }
+    }
+
+    /**
+     * Upgrades the equipment up to the given level, with the same result as calling upgrade() until it reaches that level.
+     *
+     * @param level level to reach.
+     * @throws IllegalArgumentException if level is below the current level.
+     */
+    default void upgradeTo(int level){
+        int current = getLevel();
+        if(level < current){
+            throw new IllegalArgumentException("Cannot upgrade " + getName() + " from Lv." + current + " down to Lv." + level);
+        }
+        upgradeBy(level - current);
+    }
+
+    /**
+     * Retrieves a stamp that changes whenever the main stat of the equipment changes, so cached totals can tell they are stale.
+     *
+     * @return stat version of the equipment.
+     */
+    default int getStatVersion(){
+        return getLevel();
+    }
+
+}
+
+/**
+ * BaseWeapon abstract class provides the shared implementation of the Equipment interface for main weapons and sub weapons.
+ * The name and base stat live in a shared ItemTemplate, so a weapon only holds the template id and its own level.
+ * The stat value is computed as base stat + 2.5 * level, whichever way the weapon reached its level. Before templates,
+ * each upgrade() added 2.5 to a stored stat; for base stats that are not exact in binary, such as 12.34, that sum
+ * can differ from the computed value in the last bit: 12.34 upgraded 98 times gave 257.34000000000003, not 257.34.
+ * Level and stat version are raised with atomic increments, so concurrent upgrades are never lost.
+ */
+abstract class BaseWeapon implements Equipment{
+
+    /** VarHandles for the atomic increments of level and stat version, and the compare-and-set of owner and pooled. */
+    private static final VarHandle LEVEL, STAT_VERSION, OWNER, POOLED;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            LEVEL = lookup.findVarHandle(BaseWeapon.class, "level", int.class);
+            STAT_VERSION = lookup.findVarHandle(BaseWeapon.class, "statVersion", int.class);
+            OWNER = lookup.findVarHandle(BaseWeapon.class, "owner", Inventory.class);
+            POOLED = lookup.findVarHandle(BaseWeapon.class, "pooled", boolean.class);
+        }catch (ReflectiveOperationException e){
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Id of the template holding the weapon's name and base stat, replaced only when a pooled weapon is reset. */
+    private volatile int templateId;
+
+    /** Level of the weapon. */
+    private volatile int level;
+
+    /** Stat version of the weapon, raised on every upgrade. */
+    private volatile int statVersion;
+
+    /** Inventory holding the weapon, or null if it is in none. */
+    private volatile Inventory owner;
+
+    /** Whether the weapon was released to an NpcPool and not acquired again. */
+    private volatile boolean pooled;
+
+    /**
+     * Initializes a new BaseWeapon with the provided values, interning its name and base stat as a template.
+     *
+     * @param name      name of the weapon.
+     * @param level     level of the weapon.
+     * @param baseStat  base stat of the weapon.
+     */
+    BaseWeapon(String name, int level, double baseStat){
+        this.templateId = ItemTemplate.ofWeapon(getItemType(), name, baseStat).getId();
+        this.level = level;
+    }
+
+    /**
+     * Turns the weapon into a new weapon of the same item type, as the constructor leaves it.
+     * The stat version is raised, so characters that held the weapon recompute their stats.
+     * Used by NpcPool; the caller must make sure no other thread uses the weapon meanwhile.
+     *
+     * @param template template of the reset weapon, of the weapon's item type.
+     * @param level    level of the reset weapon.
+     */
+    void reset(ItemTemplate template, int level){
+        templateId = template.getId();
+        this.level = level;
+        STAT_VERSION.getAndAdd(this, 1);
+    }
+
+    /**
+     * Marks the weapon as released to an NpcPool.
+     *
+     * @return true if the weapon was in use, false if it was released already.
+     */
+    boolean markReleased(){
+        return POOLED.compareAndSet(this, false, true);
+    }
+
+    /**
+     * Marks the weapon as handed out again by an NpcPool.
+     */
+    void markAcquired(){
+        pooled = false;
+    }
+
+    /**
+     * Retrieves the inventory holding the weapon.
+     *
+     * @return inventory holding the weapon, or null if it is in none.
+     */
+    Inventory getOwner(){
+        return owner;
+    }
+
+    /**
+     * Records an inventory as the one holding the weapon, unless another inventory holds it already.
+     *
+     * @param inventory inventory the weapon is added to.
+     * @return true if the inventory now holds the weapon.
+     */
+    boolean claimOwner(Inventory inventory){
+        Inventory current = (Inventory) OWNER.compareAndExchange(this, null, inventory);
+        return current == null || current == inventory;
+    }
+
+    /**
+     * Clears the inventory holding the weapon, if it is the given one.
+     *
+     * @param inventory inventory the weapon is removed from.
+     */
+    void releaseOwner(Inventory inventory){
+        OWNER.compareAndSet(this, inventory, null);
+    }
+
+    /**
+     * Retrieves the template of the weapon.
+     *
+     * @return template of the weapon.
+     */
+    ItemTemplate getTemplate(){
+        return ItemTemplate.get(templateId);
+    }
+
+    /**
+     * Retrieves name of the weapon.
+     *
+     * @return name of the weapon.
+     */
+    public String getName(){
+        return getTemplate().getName();
+    }
+
+    /**
+     * Retrieves the main stat of the weapon base on level and base stat, computed as base stat + 2.5 * level.
+     *
+     * @return main stat of the weapon.
+     */
+    public double getMainStat() {
+        return getTemplate().getBaseStat() + (2.5 * level);
+    }
+
+    /**
+     * Retrieves level of the weapon.
+     *
+     * @return level of the weapon.
+     */
+    public int getLevel(){
+        return level;
+    }
+
+    /**
+     * Upgrades the weapon by increasing its level, which raises its main stat by 2.5.
+     */
+    public void upgrade(){
+        long start = GameMetrics.start(GameMetrics.Operation.UPGRADE);
+        LEVEL.getAndAdd(this, 1);
+        STAT_VERSION.getAndAdd(this, 1);
+        Inventory.onUpgrade(this);
+        MutationJournal.recordUpgrade(this);
+        GameMetrics.upgraded(this, start);
+    }
+
+    /**
+     * Upgrades the weapon by several levels in one step. The main stat is computed from the level,
+     * so this gives the same main stat as calling upgrade() that many times.
+     *
+     * @param levels number of levels to add.
+     * @throws IllegalArgumentException if levels is negative.
+     */
+    @Override
+    public void upgradeBy(int levels){
+        if(levels < 0){
+            throw new IllegalArgumentException("Cannot upgrade by a negative number of levels: " + levels);
+        }
+        if(levels > 0){
+            long start = GameMetrics.start(GameMetrics.Operation.UPGRADE);
+            LEVEL.getAndAdd(this, levels);
+            STAT_VERSION.getAndAdd(this, levels);
+            Inventory.onUpgrade(this);
+            MutationJournal.recordUpgrade(this);
+            GameMetrics.upgraded(this, start);
+        }
+    }
+
+    /**
+     * Upgrades the weapon up to the given level in one step, even while other threads upgrade it.
+     *
+     * @param target level to reach.
+     * @throws IllegalArgumentException if target is below the current level.
+     */
+    @Override
+    public void upgradeTo(int target){
+        long start = GameMetrics.start(GameMetrics.Operation.UPGRADE);
+        int current;
+        do {
+            current = level;
+            if(target < current){
+                throw new IllegalArgumentException("Cannot upgrade " + getName() + " from Lv." + current + " down to Lv." + target);
+            }
+        } while(!LEVEL.compareAndSet(this, current, target));
+        if(target > current){
+            STAT_VERSION.getAndAdd(this, target - current);
+            Inventory.onUpgrade(this);
+            MutationJournal.recordUpgrade(this);
+            GameMetrics.upgraded(this, start);
+        }
+    }
+
+    /**
+     * Raises the level of the weapon to the given level without recording it, for example when replaying a journal.
+     * Levels below the current one are ignored, since a weapon's level never goes down.
+     *
+     * @param target level to reach.
+     */
+    void restoreLevel(int target){
+        int current;
+        do {
+            current = level;
+            if(target <= current){
+                return;
+            }
+        } while(!LEVEL.compareAndSet(this, current, target));
+        STAT_VERSION.getAndAdd(this, target - current);
+        Inventory.onUpgrade(this);
+    }
+
+    /**
+     * Retrieves the stat version of the weapon, raised on every upgrade. Every character holding the weapon
+     * compares it with the version its cached stats were computed from.
+     *
+     * @return stat version of the weapon.
+     */
+    @Override
+    public int getStatVersion(){
+        return statVersion;
+    }
+}
+
+/**
+ * MainWeapon abstract class provides a base implementation of the Equipment interface for the main weapons.
+ * Inherits the name, level, base stat, and upgrade behavior from BaseWeapon.
+ */
+abstract class MainWeapon extends BaseWeapon{
+
+    /**
+     * Initializes a new MainWeapon with the provided values.
+     *
+     * @param name      name of the main weapon.
+     * @param level     level of the main weapon.
+     * @param baseStat  base stat of the main weapon.
+     */
+    public MainWeapon(String name, int level, double baseStat){
+        super(name, level, baseStat);
+    }
+}
+
+/**
+ * SubWeapon abstract class provides a base implementation of the Equipment interface for sub weapons.
+ * Inherits the name, level, base stat, and upgrade behavior from BaseWeapon.
+ */
+abstract class SubWeapon extends BaseWeapon{
+
+    /**
+     * Initializes a new SubWeapon with the provided values.
+     *
+     * @param name      name of the sub weapon.
+     * @param level     level of the sub weapon.
+     * @param baseStat  base stat of the sub weapon.
+     */
+    public SubWeapon(String name, int level, double baseStat){
+        super(name, level, baseStat);
+    }
+}
+
+/**
+ * Sword class represents a main weapon of type Sword, extending the MainWeapon class.
+ * Provides a constructor to initialize the sword with specific values.
+ */
+class Sword extends MainWeapon{
+
+    /**
+     * Initializes a new Sword with the provided values.
+     *
+     * @param name      name of the sword.
+     * @param level     level of the sword.
+     * @param baseStat  base stat of the sword.
+     */
+    public Sword(String name, int level, double baseStat) {
+        super(name, level, baseStat);
+    }
+
+    /**
+     * Retrieves the item type of a sword.
+     *
+     * @return ItemType.SWORD.
+     */
+    public ItemType getItemType() {
+        return ItemType.SWORD;
+    }
+}
+
+/**
+ * Shield class represents a sub weapon of type Shield, extending the SubWeapon class.
+ * Provides a constructor to initialize the shield with specific values.
+ */
+class  Shield extends SubWeapon{
+
+    /**
+     * Initializes a new Shield with the provided values.
+     *
+     * @param name      name of the shield.
+     * @param level     level of the shield.
+     * @param baseStat  base stat of the shield.
+     */
+    public Shield(String name, int level, double baseStat) {
+        super(name, level, baseStat);
+    }
+
+    /**
+     * Retrieves the item type of a shield.
+     *
+     * @return ItemType.SHIELD.
+     */
+    public ItemType getItemType() {
+        return ItemType.SHIELD;
+    }
+}
+
+/**
+ * Staff class represents a main weapon of type Staff, extending the MainWeapon class.
+ * Provides a constructor to initialize the staff with specific values.
+ */
+class Staff extends MainWeapon{
+
+    /**
+     * Initializes a new Staff with the provided values.
+     *
+     * @param name      name of the staff.
+     * @param level     level of the staff.
+     * @param baseStat  base stat of the staff.
+     */
+    public Staff(String name, int level, double baseStat) {
+        super(name, level, baseStat);
+    }
+
+    /**
+     * Retrieves the item type of a staff.
+     *
+     * @return ItemType.STAFF.
+     */
+    public ItemType getItemType() {
+        return ItemType.STAFF;
+    }
+}
+
+/**
+ * Charm class represents a sub weapon of type Charm, extending the SubWeapon class.
+ * Provides a constructor to initialize the charm with specific values.
+ */
+class Charm extends SubWeapon{
+
+    /**
+     * Initializes a new Charm with the provided values.
+     *
+     * @param name      name of the charm.
+     * @param level     level of the charm.
+     * @param baseStat  base stat of the charm.
+     */
+    public Charm(String name, int level, double baseStat) {
+        super(name, level, baseStat);
+    }
+
+    /**
+     * Retrieves the item type of a charm.
+     *
+     * @return ItemType.CHARM.
+     */
+    public ItemType getItemType() {
+        return ItemType.CHARM;
+    }
+}
+
+/**
+ * Bow class represents a main weapon of type Bow, extending the MainWeapon class.
+ * Provides a constructor to initialize the bow with specific values.
+ */
+class Bow extends MainWeapon{
+
+    /**
+     * Initializes a new Bow with the provided values.
+     *
+     * @param name      name of the bow.
+     * @param level     level of the bow.
+     * @param baseStat  base stat of the bow.
+     */
+    public Bow(String name, int level, double baseStat) {
+        super(name, level, baseStat);
+    }
+
+    /**
+     * Retrieves the item type of a bow.
+     *
+     * @return ItemType.BOW.
+     */
+    public ItemType getItemType() {
+        return ItemType.BOW;
+    }
+}
+
+/**
+ * Dagger class represents a sub weapon of type Dagger, extending the SubWeapon class.
+ * Provides a constructor to initialize the dagger with specific values.
+ */
+class Dagger extends SubWeapon{
+
+    /**
+     * Initializes a new Dagger with the provided values.
+     *
+     * @param name      name of the dagger.
+     * @param level     level of the dagger.
+     * @param baseStat  base stat of the dagger.
+     */
+    public Dagger(String name, int level, double baseStat) {
+        super(name, level, baseStat);
+    }
+
+    /**
+     * Retrieves the item type of a dagger.
+     *
+     * @return ItemType.DAGGER.
+     */
+    public ItemType getItemType() {
+        return ItemType.DAGGER;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package rpg;
+
+/**
+ * EquipmentSnapshot record is an immutable copy of an equipped weapon or accessory, taken at one moment.
+ * A weapon copy has a level and main stat and no effect; an accessory copy has an effect and level and main stat 0.
+ *
+ * @param type        item type of the item.
+ * @param name        name of the item.
+ * @param level       level of a weapon, 0 for an accessory.
+ * @param mainStat    main stat of a weapon, 0 for an accessory.
+ * @param effectType  type of effect of an accessory, null for a weapon.
+ * @param effectValue value of the effect of an accessory, 0 for a weapon.
+ */
+public record EquipmentSnapshot(ItemType type, String name, int level, double mainStat, String effectType, double effectValue) {
+
+    /**
+     * Copies an equipped item. The level and main stat of a weapon are read at the same stat version, so they
+     * match even while other threads upgrade it.
+     *
+     * @param item weapon or accessory, or null.
+     * @return copy of the item, or null for null.
+     * @throws IllegalArgumentException if item is neither Equipment nor Accessory.
+     */
+    public static EquipmentSnapshot of(Object item){
+        return switch (item) {
+            case null -> null;
+            case Equipment equipment -> {
+                int version, level;
+                double mainStat;
+                do {
+                    version = equipment.getStatVersion();
+                    level = equipment.getLevel();
+                    mainStat = equipment.getMainStat();
+                } while(version != equipment.getStatVersion());
+                yield new EquipmentSnapshot(equipment.getItemType(), equipment.getName(), level, mainStat, null, 0);
+            }
+            case Accessory accessory -> new EquipmentSnapshot(accessory.getItemType(), accessory.getName(), 0, 0,
+                    accessory.getEffectType(), accessory.getEffectValue());
+            default -> throw new IllegalArgumentException("Not an item: " + item.getClass().getName());
+        };
+    }
+
+    /**
+     * Checks whether the copy is of a weapon.
+     *
+     * @return true for a weapon, false for an accessory.
+     */
+    public boolean isWeapon(){
+        return type.isWeapon();
+    }
+}
@@ -0,0 +1,649 @@
+package rpg;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * EquipmentStore class keeps weapons off the Java heap, as fixed-size records in direct memory slabs, so that tens of
+ * millions of weapons add nothing for the garbage collector to trace.
+ * A record holds the weapon's template id, level, stat version, and a generation; the name and base stat stay in the
+ * shared ItemTemplate, as for BaseWeapon.
+ *
+ * Records are allocated in a Zone and addressed by a long reference. Zone.handle() wraps a reference in an Equipment
+ * handle that reads and upgrades the record in place, and can be equipped like any weapon.
+ * A record is freed on its own with Zone.free(), or together with the rest of its zone by Zone.close(). Freeing
+ * changes the record's generation, so stale references and handles fail with IllegalStateException instead of
+ * reaching a reused record. The slabs of a closed zone are kept for new zones, up to a limit; the direct memory of
+ * dropped slabs is returned to the system once the slab buffers are collected.
+ * Upgrades of store weapons are timed by GameMetrics but are not journaled or indexed by Inventory.
+ */
+public final class EquipmentStore implements AutoCloseable {
+
+    /** Size of a record in bytes. */
+    public static final int RECORD_SIZE = 16;
+
+    /** Offsets of the record fields: template id, level, stat version, and generation, odd while the record is live. */
+    private static final int TEMPLATE = 0, LEVEL = 4, STAT_VERSION = 8, GENERATION = 12;
+
+    /** Atomic int access to direct slabs. */
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    /** Default number of records per slab, 1 MiB of memory. */
+    private static final int DEFAULT_SLAB_RECORDS = 1 << 16;
+
+    /** Default number of spare slabs kept for new zones. */
+    private static final int DEFAULT_SPARE_SLABS = 16;
+
+    /** Log2 of the number of records per slab. */
+    private final int slabShift;
+
+    /** Largest number of spare slabs kept. */
+    private final int maxSpareSlabs;
+
+    /** Slabs of closed zones, kept for new zones. */
+    private final ArrayDeque<ByteBuffer> spareSlabs = new ArrayDeque<>();
+
+    /** Open zones. */
+    private final List<Zone> zones = new ArrayList<>();
+
+    /** Direct memory held by zones and spare slabs, in bytes. */
+    private long reservedBytes;
+
+    /** Whether close() was called. */
+    private boolean closed;
+
+    /**
+     * Initializes a new EquipmentStore with 1 MiB slabs, keeping up to 16 spare slabs.
+     */
+    public EquipmentStore(){
+        this(DEFAULT_SLAB_RECORDS, DEFAULT_SPARE_SLABS);
+    }
+
+    /**
+     * Initializes a new EquipmentStore.
+     *
+     * @param slabRecords   number of records per slab, a power of two.
+     * @param maxSpareSlabs largest number of slabs of closed zones kept for new zones.
+     * @throws IllegalArgumentException if slabRecords is not a power of two or maxSpareSlabs is negative.
+     */
+    public EquipmentStore(int slabRecords, int maxSpareSlabs){
+        if(slabRecords <= 0 || Integer.bitCount(slabRecords) != 1 || slabRecords > (1 << 26) || maxSpareSlabs < 0){
+            throw new IllegalArgumentException("Invalid store settings: slabRecords=" + slabRecords + ", maxSpareSlabs=" + maxSpareSlabs);
+        }
+        this.slabShift = Integer.numberOfTrailingZeros(slabRecords);
+        this.maxSpareSlabs = maxSpareSlabs;
+    }
+
+    /**
+     * Opens a new zone.
+     *
+     * @return empty zone.
+     * @throws IllegalStateException if the store is closed.
+     */
+    public synchronized Zone newZone(){
+        if(closed){
+            throw new IllegalStateException("Equipment store is closed");
+        }
+        Zone zone = new Zone();
+        zones.add(zone);
+        return zone;
+    }
+
+    /**
+     * Retrieves the direct memory the store holds, in zones and spare slabs.
+     *
+     * @return reserved memory in bytes.
+     */
+    public synchronized long getReservedBytes(){
+        return reservedBytes;
+    }
+
+    /**
+     * Closes every zone and drops the spare slabs. Handles must not be used meanwhile.
+     */
+    @Override
+    public void close(){
+        List<Zone> open;
+        synchronized (this){
+            closed = true;
+            open = new ArrayList<>(zones);
+        }
+        for(Zone zone : open){
+            zone.close();
+        }
+        synchronized (this){
+            reservedBytes -= (long) spareSlabs.size() * slabBytes();
+            spareSlabs.clear();
+        }
+    }
+
+    /**
+     * Retrieves the size of a slab.
+     *
+     * @return slab size in bytes.
+     */
+    private int slabBytes(){
+        return RECORD_SIZE << slabShift;
+    }
+
+    /**
+     * Hands a slab to a zone, reusing a spare slab if there is one.
+     *
+     * @return slab for the zone.
+     */
+    private synchronized ByteBuffer takeSlab(){
+        ByteBuffer slab = spareSlabs.poll();
+        if(slab == null){
+            slab = ByteBuffer.allocateDirect(slabBytes()).order(ByteOrder.nativeOrder());
+            reservedBytes += slabBytes();
+        }
+        return slab;
+    }
+
+    /**
+     * Takes back the slabs of a closed zone, keeping some as spares.
+     *
+     * @param slabs slabs of the zone.
+     * @param count number of slabs.
+     * @param zone  closed zone.
+     */
+    private synchronized void giveBack(ByteBuffer[] slabs, int count, Zone zone){
+        zones.remove(zone);
+        for(int i = 0; i < count; i++){
+            if(!closed && spareSlabs.size() < maxSpareSlabs){
+                spareSlabs.push(slabs[i]);
+            }else {
+                reservedBytes -= slabBytes();
+            }
+        }
+    }
+
+    /**
+     * Retrieves the index of a record from a reference.
+     *
+     * @param ref record reference.
+     * @return index of the record in its zone.
+     */
+    private static int indexOf(long ref){
+        return (int) ref;
+    }
+
+    /**
+     * Retrieves the generation of a record from a reference.
+     *
+     * @param ref record reference.
+     * @return generation of the record when the reference was made.
+     */
+    private static int generationOf(long ref){
+        return (int) (ref >>> 32);
+    }
+
+    /**
+     * Zone class is a group of store records freed together.
+     * Allocation and freeing are synchronized on the zone; reads and upgrades of records are atomic and lock-free.
+     */
+    public final class Zone implements AutoCloseable {
+
+        /** Slabs of the zone, replaced by a longer copy when a slab is added. */
+        private volatile ByteBuffer[] slabs = new ByteBuffer[4];
+
+        /** Number of slabs. */
+        private int slabCount;
+
+        /** Number of record indexes ever used. */
+        private int top;
+
+        /** Indexes of freed records, reused before new ones. */
+        private int[] freeIndexes = new int[16];
+
+        /** Number of freed indexes. */
+        private int freeCount;
+
+        /** Number of live records. */
+        private int live;
+
+        /** Whether the zone is closed. */
+        private volatile boolean closed;
+
+        /**
+         * Zones are opened by EquipmentStore.newZone().
+         */
+        private Zone(){
+        }
+
+        /**
+         * Allocates a weapon record.
+         *
+         * @param type     kind of weapon.
+         * @param name     name of the weapon.
+         * @param level    level of the weapon.
+         * @param baseStat base stat of the weapon.
+         * @return reference to the record.
+         * @throws IllegalArgumentException if type is not a weapon.
+         * @throws IllegalStateException    if the zone is closed.
+         */
+        public synchronized long allocate(ItemType type, String name, int level, double baseStat){
+            if(!type.isWeapon()){
+                throw new IllegalArgumentException(type.getDisplayName() + " is not a weapon");
+            }
+            checkOpen();
+            int index;
+            if(freeCount > 0){
+                index = freeIndexes[--freeCount];
+            }else {
+                index = top++;
+                if(index >>> slabShift == slabCount){
+                    addSlab();
+                }
+            }
+            ByteBuffer slab = slabs[index >>> slabShift];
+            int at = offsetOf(index);
+            int generation = ((int) INT.getVolatile(slab, at + GENERATION) + 2) | 1;
+            slab.putInt(at + TEMPLATE, ItemTemplate.ofWeapon(type, name, baseStat).getId());
+            slab.putInt(at + LEVEL, level);
+            slab.putInt(at + STAT_VERSION, 0);
+            INT.setRelease(slab, at + GENERATION, generation);
+            live++;
+            return ((long) generation << 32) | index;
+        }
+
+        /**
+         * Frees a record, so its memory holds the next record allocated in the zone.
+         *
+         * @param ref reference to the record.
+         * @return true if the record was freed, false if it was freed already.
+         * @throws IllegalStateException if the zone is closed.
+         */
+        public synchronized boolean free(long ref){
+            checkOpen();
+            int index = indexOf(ref);
+            if(index < 0 || index >= top){
+                return false;
+            }
+            int generation = generationOf(ref);
+            if(!INT.compareAndSet(slabs[index >>> slabShift], offsetOf(index) + GENERATION, generation, generation + 1)){
+                return false;
+            }
+            if(freeCount == freeIndexes.length){
+                freeIndexes = Arrays.copyOf(freeIndexes, freeCount * 2);
+            }
+            freeIndexes[freeCount++] = index;
+            live--;
+            return true;
+        }
+
+        /**
+         * Creates a handle on a record.
+         *
+         * @param ref reference to the record.
+         * @return Equipment reading and upgrading the record in place.
+         * @throws IllegalStateException if the record was freed or the zone is closed.
+         */
+        public Handle handle(long ref){
+            Handle handle = new Handle(this, ref);
+            handle.slab();
+            return handle;
+        }
+
+        /**
+         * Checks whether a reference still points to a live record.
+         *
+         * @param ref reference to the record.
+         * @return true if the record is live.
+         */
+        public boolean isLive(long ref){
+            return liveSlab(ref) != null;
+        }
+
+        /**
+         * Retrieves the slab holding a live record.
+         *
+         * @param ref reference to the record.
+         * @return slab of the record, or null if the record was freed or the zone is closed.
+         */
+        private ByteBuffer liveSlab(long ref){
+            int index = indexOf(ref);
+            ByteBuffer[] current = slabs;
+            if(closed || index < 0 || index >>> slabShift >= current.length){
+                return null;
+            }
+            ByteBuffer slab = current[index >>> slabShift];
+            return slab != null && (int) INT.getAcquire(slab, offsetOf(index) + GENERATION) == generationOf(ref) ? slab : null;
+        }
+
+        /**
+         * Retrieves the number of live records.
+         *
+         * @return number of live records.
+         */
+        public synchronized int size(){
+            return live;
+        }
+
+        /**
+         * Upgrades every live record of the zone by several levels, directly in the slabs.
+         *
+         * @param levels number of levels to add.
+         * @throws IllegalArgumentException if levels is negative.
+         * @throws IllegalStateException    if the zone is closed.
+         */
+        public synchronized void upgradeAll(int levels){
+            if(levels < 0){
+                throw new IllegalArgumentException("Cannot upgrade by a negative number of levels: " + levels);
+            }
+            checkOpen();
+            for(int index = 0; index < top; index++){
+                ByteBuffer slab = slabs[index >>> slabShift];
+                int at = offsetOf(index);
+                if((slab.getInt(at + GENERATION) & 1) != 0){
+                    INT.getAndAdd(slab, at + LEVEL, levels);
+                    INT.getAndAdd(slab, at + STAT_VERSION, levels);
+                }
+            }
+        }
+
+        /**
+         * Sums the main stats of every live record of the zone. Upgrades made meanwhile through handles may or may
+         * not be counted.
+         *
+         * @return total main stat.
+         * @throws IllegalStateException if the zone is closed.
+         */
+        public synchronized double totalMainStat(){
+            checkOpen();
+            double total = 0;
+            int templateId = -1;
+            double baseStat = 0;
+            for(int index = 0; index < top; index++){
+                ByteBuffer slab = slabs[index >>> slabShift];
+                int at = offsetOf(index);
+                if((slab.getInt(at + GENERATION) & 1) != 0){
+                    int id = slab.getInt(at + TEMPLATE);
+                    if(id != templateId){
+                        templateId = id;
+                        baseStat = ItemTemplate.get(id).getBaseStat();
+                    }
+                    total += baseStat + 2.5 * slab.getInt(at + LEVEL);
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Visits every live record through one reused handle, which must not be kept or equipped.
+         *
+         * @param action action run for each record.
+         * @throws IllegalStateException if the zone is closed.
+         */
+        public synchronized void forEach(Consumer<? super Handle> action){
+            checkOpen();
+            Handle handle = new Handle(this, 0);
+            for(int index = 0; index < top; index++){
+                int generation = (int) INT.getAcquire(slabs[index >>> slabShift], offsetOf(index) + GENERATION);
+                if((generation & 1) != 0){
+                    handle.ref = ((long) generation << 32) | index;
+                    action.accept(handle);
+                }
+            }
+        }
+
+        /**
+         * Frees every record of the zone at once and hands its slabs back to the store.
+         * Handles of the zone must not be used meanwhile; afterwards they fail with IllegalStateException.
+         */
+        @Override
+        public void close(){
+            ByteBuffer[] released;
+            int count;
+            synchronized (this){
+                if(closed){
+                    return;
+                }
+                closed = true;
+                released = slabs;
+                count = slabCount;
+                slabs = new ByteBuffer[0];
+                slabCount = top = freeCount = live = 0;
+            }
+            giveBack(released, count, this);
+        }
+
+        /**
+         * Adds a slab for the next records.
+         */
+        private void addSlab(){
+            ByteBuffer[] table = slabs;
+            if(slabCount == table.length){
+                table = Arrays.copyOf(table, slabCount * 2);
+            }
+            table[slabCount++] = takeSlab();
+            slabs = table;
+        }
+
+        /**
+         * Retrieves the offset of a record in its slab.
+         *
+         * @param index index of the record.
+         * @return offset in bytes.
+         */
+        private int offsetOf(int index){
+            return (index & ((1 << slabShift) - 1)) * RECORD_SIZE;
+        }
+
+        /**
+         * Checks that the zone is open.
+         *
+         * @throws IllegalStateException if the zone is closed.
+         */
+        private void checkOpen(){
+            if(closed){
+                throw new IllegalStateException("Equipment zone is closed");
+            }
+        }
+    }
+
+    /**
+     * Handle class is an Equipment view of one store record. Its main stat is base stat + 2.5 per level, as for
+     * BaseWeapon, and upgrades change the record atomically. Two handles on the same record are equal.
+     */
+    public static final class Handle implements Equipment {
+
+        /** Zone holding the record. */
+        private final Zone zone;
+
+        /** Reference to the record; changed only by Zone.forEach(). */
+        private long ref;
+
+        /**
+         * Initializes a new Handle on a record.
+         *
+         * @param zone zone holding the record.
+         * @param ref  reference to the record.
+         */
+        private Handle(Zone zone, long ref){
+            this.zone = zone;
+            this.ref = ref;
+        }
+
+        /**
+         * Retrieves the reference to the record.
+         *
+         * @return record reference.
+         */
+        public long ref(){
+            return ref;
+        }
+
+        /**
+         * Frees the record.
+         *
+         * @return true if the record was freed, false if it was freed already.
+         */
+        public boolean free(){
+            return zone.free(ref);
+        }
+
+        /**
+         * Retrieves the slab holding the record.
+         *
+         * @return slab of the record.
+         * @throws IllegalStateException if the record was freed or the zone is closed.
+         */
+        private ByteBuffer slab(){
+            ByteBuffer slab = zone.liveSlab(ref);
+            if(slab == null){
+                zone.checkOpen();
+                throw new IllegalStateException("Equipment record was freed");
+            }
+            return slab;
+        }
+
+        /**
+         * Retrieves the offset of the record in its slab.
+         *
+         * @return offset of the record.
+         */
+        private int at(){
+            return zone.offsetOf(indexOf(ref));
+        }
+
+        /**
+         * Retrieves the template of the weapon.
+         *
+         * @return template of the weapon.
+         */
+        private ItemTemplate template(){
+            return ItemTemplate.get(slab().getInt(at() + TEMPLATE));
+        }
+
+        /**
+         * Retrieves name of the weapon.
+         *
+         * @return name of the weapon.
+         */
+        public String getName(){
+            return template().getName();
+        }
+
+        /**
+         * Retrieves the main stat of the weapon base on level and base stat.
+         *
+         * @return main stat of the weapon.
+         */
+        public double getMainStat(){
+            ByteBuffer slab = slab();
+            int at = at();
+            return ItemTemplate.get(slab.getInt(at + TEMPLATE)).getBaseStat() + 2.5 * (int) INT.getVolatile(slab, at + LEVEL);
+        }
+
+        /**
+         * Retrieves level of the weapon.
+         *
+         * @return level of the weapon.
+         */
+        public int getLevel(){
+            ByteBuffer slab = slab();
+            return (int) INT.getVolatile(slab, at() + LEVEL);
+        }
+
+        /**
+         * Retrieves the item type of the weapon.
+         *
+         * @return item type of the weapon.
+         */
+        public ItemType getItemType(){
+            return template().getType();
+        }
+
+        /**
+         * Upgrades the weapon by increasing its level, which raises its main stat by 2.5.
+         */
+        public void upgrade(){
+            upgradeBy(1);
+        }
+
+        /**
+         * Upgrades the weapon by several levels in one step.
+         *
+         * @param levels number of levels to add.
+         * @throws IllegalArgumentException if levels is negative.
+         */
+        @Override
+        public void upgradeBy(int levels){
+            if(levels < 0){
+                throw new IllegalArgumentException("Cannot upgrade by a negative number of levels: " + levels);
+            }
+            if(levels > 0){
+                long start = GameMetrics.start(GameMetrics.Operation.UPGRADE);
+                ByteBuffer slab = slab();
+                int at = at();
+                INT.getAndAdd(slab, at + LEVEL, levels);
+                INT.getAndAdd(slab, at + STAT_VERSION, levels);
+                GameMetrics.upgraded(this, start);
+            }
+        }
+
+        /**
+         * Upgrades the weapon up to the given level in one step, even while other threads upgrade it.
+         *
+         * @param target level to reach.
+         * @throws IllegalArgumentException if target is below the current level.
+         */
+        @Override
+        public void upgradeTo(int target){
+            long start = GameMetrics.start(GameMetrics.Operation.UPGRADE);
+            ByteBuffer slab = slab();
+            int at = at();
+            int current;
+            do {
+                current = (int) INT.getVolatile(slab, at + LEVEL);
+                if(target < current){
+                    throw new IllegalArgumentException("Cannot upgrade " + getName() + " from Lv." + current + " down to Lv." + target);
+                }
+            } while(!INT.compareAndSet(slab, at + LEVEL, current, target));
+            if(target > current){
+                INT.getAndAdd(slab, at + STAT_VERSION, target - current);
+                GameMetrics.upgraded(this, start);
+            }
+        }
+
+        /**
+         * Retrieves the stat version of the weapon, raised on every upgrade.
+         *
+         * @return stat version of the weapon.
+         */
+        @Override
+        public int getStatVersion(){
+            ByteBuffer slab = slab();
+            return (int) INT.getVolatile(slab, at() + STAT_VERSION);
+        }
+
+        /**
+         * Checks whether another object is a handle on the same record.
+         *
+         * @param other object to compare with.
+         * @return true for a handle on the same record.
+         */
+        @Override
+        public boolean equals(Object other){
+            return other instanceof Handle handle && handle.zone == zone && handle.ref == ref;
+        }
+
+        /**
+         * Retrieves the hash code of the record.
+         *
+         * @return hash code of the handle.
+         */
+        @Override
+        public int hashCode(){
+            return System.identityHashCode(zone) * 31 + Long.hashCode(ref);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package rpg;
+
+/**
+ * GameEvent class represents something that happened to a character, such as leveling up, equipping an item, or using an ability.
+ * Events keep the character and item they refer to instead of a message, so the message is only built when a sink formats it.
+ * The names used in the message are captured when the event is created, so a message formatted later on another
+ * thread still shows them as they were, even if the character or item was renamed or reused since.
+ */
+public final class GameEvent {
+
+    /** Type of the event. */
+    private final GameEventType type;
+
+    /** Character the event happened to. */
+    private final RPGCharacter character;
+
+    /** Item involved in the event, or null if no item is involved. */
+    private final Object item;
+
+    /** Name and job of the character when the event was created. */
+    private final String characterName;
+    private final JobType job;
+
+    /** Slot name and name of the item when the event was created. */
+    private final String slotName, itemName;
+
+    /**
+     * Initializes a new GameEvent with the provided values.
+     *
+     * @param type      type of the event.
+     * @param character character the event happened to.
+     * @param item      item involved in the event, or null.
+     */
+    public GameEvent(GameEventType type, RPGCharacter character, Object item){
+        this.type = type;
+        this.character = character;
+        this.item = item;
+        this.characterName = character.getName();
+        this.job = character.getJobType();
+        this.slotName = type == GameEventType.EQUIP_ACCESSORY || type == GameEventType.EQUIP_EQUIPMENT ? slotName(item) : null;
+        this.itemName = slotName != null ? itemName(item) : null;
+    }
+
+    /**
+     * Retrieves type of the event.
+     *
+     * @return type of the event.
+     */
+    public GameEventType getType(){
+        return type;
+    }
+
+    /**
+     * Retrieves character the event happened to.
+     *
+     * @return character the event happened to.
+     */
+    public RPGCharacter getCharacter(){
+        return character;
+    }
+
+    /**
+     * Retrieves item involved in the event.
+     *
+     * @return item involved in the event, or null if no item is involved.
+     */
+    public Object getItem(){
+        return item;
+    }
+
+    /**
+     * Formats the event as the console message printed for it.
+     *
+     * @return message of the event.
+     */
+    public String format(){
+        return switch (type) {
+            case LEVEL_UP -> characterName + " level Up!";
+            case EQUIP_ACCESSORY, EQUIP_EQUIPMENT -> "Equipped " + slotName + " : " + itemName;
+            case EQUIP_REJECTED -> job.getRestrictionMessage();
+            case SLASH -> characterName + " using Slash !!";
+            case BLOCK -> characterName + " using Block";
+            case CAST_SPELL -> characterName + " using Cast Spell !!";
+            case TELEPORT -> characterName + " using Teleport ";
+            case SHOT -> characterName + " using Shot !!";
+            case DODGE -> characterName + " using Dodge";
+        };
+    }
+
+    /**
+     * Formats the event as its console message.
+     *
+     * @return message of the event.
+     */
+    @Override
+    public String toString(){
+        return format();
+    }
+
+    /**
+     * Retrieves the slot name used in equip messages.
+     *
+     * @param item equipped item.
+     * @return slot name of the item.
+     */
+    private static String slotName(Object item){
+        return switch (item) {
+            case Accessory accessory -> accessory.getItemType().getSlot().getDisplayName();
+            case Equipment equipment -> equipment.getItemType().getSlot().getDisplayName();
+            case null, default -> "Item";
+        };
+    }
+
+    /**
+     * Retrieves name of an item.
+     *
+     * @param item equipped item.
+     * @return name of the item.
+     */
+    private static String itemName(Object item){
+        return switch (item) {
+            case Accessory accessory -> accessory.getName();
+            case Equipment equipment -> equipment.getName();
+            case null, default -> String.valueOf(item);
+        };
+    }
+}
+
+/**
+ * GameEventType enum lists the kinds of events a character can publish.
+ */
+enum GameEventType {
+
+    /** Character leveled up. */
+    LEVEL_UP,
+
+    /** Character equipped an accessory. */
+    EQUIP_ACCESSORY,
+
+    /** Character equipped an equipment. */
+    EQUIP_EQUIPMENT,
+
+    /** Character's job is not allowed to equip an equipment. */
+    EQUIP_REJECTED,
+
+    /** Warrior used Slash. */
+    SLASH,
+
+    /** Warrior used Block. */
+    BLOCK,
+
+    /** Mage used Cast Spell. */
+    CAST_SPELL,
+
+    /** Mage used Teleport. */
+    TELEPORT,
+
+    /** Archer used Shot. */
+    SHOT,
+
+    /** Archer used Dodge. */
+    DODGE
+}
@@ -0,0 +1,289 @@
+package rpg;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GameEventSink interface receives the events published by characters.
+ * The sink in use is chosen through GameEvents, and prints to the console by default.
+ */
+public interface GameEventSink {
+
+    /**
+     * Receives an event.
+     *
+     * @param event event to be handled.
+     */
+    void accept(GameEvent event);
+
+    /**
+     * Tells whether the sink handles events at all. Publishers skip creating events for a disabled sink.
+     *
+     * @return true if events should be published to this sink.
+     */
+    default boolean isEnabled(){
+        return true;
+    }
+}
+
+/**
+ * GameEvents class holds the event sink used by every character and publishes events to it.
+ */
+final class GameEvents {
+
+    /** Sink receiving the events, the console by default. */
+    private static volatile GameEventSink sink = new ConsoleEventSink();
+
+    private GameEvents(){
+    }
+
+    /**
+     * Retrieves the sink receiving the events.
+     *
+     * @return current event sink.
+     */
+    static GameEventSink getSink(){
+        return sink;
+    }
+
+    /**
+     * Replaces the sink receiving the events.
+     *
+     * @param newSink sink to be used from now on.
+     */
+    static void setSink(GameEventSink newSink){
+        if(newSink == null){
+            throw new NullPointerException("sink");
+        }
+        sink = newSink;
+    }
+
+    /**
+     * Publishes an event to the current sink. No event is created when the sink is disabled.
+     *
+     * @param type      type of the event.
+     * @param character character the event happened to.
+     * @param item      item involved in the event, or null.
+     */
+    static void publish(GameEventType type, RPGCharacter character, Object item){
+        GameEventSink current = sink;
+        if(current.isEnabled()){
+            current.accept(new GameEvent(type, character, item));
+        }
+    }
+}
+
+/**
+ * ConsoleEventSink class prints every event to the console as soon as it is published.
+ */
+class ConsoleEventSink implements GameEventSink {
+
+    /**
+     * Prints the event message to the console.
+     *
+     * @param event event to be printed.
+     */
+    public void accept(GameEvent event){
+        System.out.println(event.format());
+    }
+}
+
+/**
+ * NoOpEventSink class discards every event.
+ */
+class NoOpEventSink implements GameEventSink {
+
+    /**
+     * Discards the event.
+     *
+     * @param event ignored event.
+     */
+    public void accept(GameEvent event){
+    }
+
+    /**
+     * Reports the sink as disabled, so no event is created.
+     *
+     * @return false.
+     */
+    @Override
+    public boolean isEnabled(){
+        return false;
+    }
+}
+
+/**
+ * AsyncEventSink class hands events to another sink on a background thread.
+ * Publishers only claim a slot of a bounded lock-free ring buffer and never wait for the delegate.
+ * When the buffer is full, or the sink is closed, the event is dropped and counted instead of blocking the publisher.
+ * An exception thrown by the delegate is counted and the next event is handed over as usual.
+ */
+class AsyncEventSink implements GameEventSink, AutoCloseable {
+
+    /** Ring buffer of pending events. */
+    private final GameEvent[] buffer;
+
+    /** Per-slot sequence numbers telling publishers and the consumer whose turn a slot is. */
+    private final AtomicLongArray sequences;
+
+    /** Mask turning a sequence number into a buffer index. */
+    private final int mask;
+
+    /** Tail of a closed sink; no sequence number reaches it. */
+    private static final long CLOSED = Long.MAX_VALUE;
+
+    /** Next sequence number to be claimed by a publisher, or CLOSED once close() has started. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Next sequence number to be read by the consumer thread. */
+    private long head;
+
+    /** Tail when close() closed it, the end of the events to be handed over; guarded by this. */
+    private long closedAt = -1;
+
+    /** Number of events dropped because the buffer was full or the sink closed, and of events the delegate failed on. */
+    private final LongAdder dropped = new LongAdder(), failed = new LongAdder();
+
+    /** Sink receiving the events on the consumer thread. */
+    private final GameEventSink delegate;
+
+    /** Thread draining the buffer into the delegate. */
+    private final Thread consumer;
+
+    /** Whether the consumer thread should keep waiting for events. */
+    private volatile boolean running = true;
+
+    /**
+     * Initializes a new AsyncEventSink and starts its consumer thread.
+     *
+     * @param capacity number of pending events the buffer can hold, rounded up to a power of two.
+     * @param delegate sink receiving the events on the consumer thread.
+     */
+    AsyncEventSink(int capacity, GameEventSink delegate){
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.buffer = new GameEvent[size];
+        this.sequences = new AtomicLongArray(size);
+        for(int i = 0; i < size; i++){
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.delegate = delegate;
+        this.consumer = new Thread(this::drainLoop, "game-event-sink");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * Puts the event into the buffer, or drops it if the buffer is full or the sink is closed.
+     *
+     * @param event event to be handled.
+     */
+    public void accept(GameEvent event){
+        if(!running){
+            dropped.increment();
+            return;
+        }
+        while(true){
+            long sequence = tail.get();
+            if(sequence == CLOSED){
+                dropped.increment();
+                return;
+            }
+            int index = (int) sequence & mask;
+            long diff = sequences.get(index) - sequence;
+            if(diff == 0){
+                if(tail.compareAndSet(sequence, sequence + 1)){
+                    buffer[index] = event;
+                    sequences.lazySet(index, sequence + 1);
+                    return;
+                }
+            }else if(diff < 0){
+                dropped.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retrieves number of events dropped because the buffer was full or the sink was closed.
+     *
+     * @return number of dropped events.
+     */
+    long getDroppedCount(){
+        return dropped.sum();
+    }
+
+    /**
+     * Retrieves number of events the delegate threw an exception for.
+     *
+     * @return number of failed events.
+     */
+    long getFailedCount(){
+        return failed.sum();
+    }
+
+    /**
+     * Closes the tail, so every later event is dropped and counted, then stops the consumer thread and hands the
+     * delegate every event accepted before, including those whose publisher had claimed a slot but not yet filled it.
+     * If interrupted while waiting for the consumer, returns without draining, keeping the interrupt status;
+     * calling close() again finishes the drain.
+     */
+    public synchronized void close(){
+        running = false;
+        if(closedAt < 0){
+            closedAt = tail.getAndSet(CLOSED);
+        }
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            return;
+        }
+        while(head != closedAt){
+            if(drain() == 0){
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Body of the consumer thread: drains the buffer, and parks briefly when it is empty.
+     */
+    private void drainLoop(){
+        while(running){
+            if(drain() == 0){
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Hands every event currently in the buffer to the delegate, counting the events it throws for.
+     *
+     * @return number of events handed over.
+     */
+    private int drain(){
+        int count = 0;
+        while(true){
+            int index = (int) head & mask;
+            if(sequences.get(index) != head + 1){
+                return count;
+            }
+            GameEvent event = buffer[index];
+            buffer[index] = null;
+            sequences.lazySet(index, head + buffer.length);
+            head++;
+            count++;
+            try {
+                delegate.accept(event);
+            }catch (RuntimeException e){
+                failed.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,731 @@
+package rpg;
+
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * GameMetrics class counts and times the character lifecycle operations: level ups, equips, and weapon upgrades,
+ * and how often the job restriction rejects an equipment.
+ * Counters are striped LongAdders and latencies go into log-linear histograms of LongAdders, so threads updating
+ * the same operation do not contend. The installed metrics are exposed over JMX as rpg:type=GameMetrics.
+ * Each operation also commits a JDK Flight Recorder event while a recording enables it.
+ * When no metrics are installed and no recording is running, an operation only reads one volatile field
+ * and one JFR enabled flag, and does not read the clock.
+ */
+public final class GameMetrics implements GameMetricsMXBean {
+
+    /** Name the installed metrics are registered under. */
+    public static final String OBJECT_NAME = "rpg:type=GameMetrics";
+
+    /** Metrics receiving the operations, or null. */
+    private static volatile GameMetrics active;
+
+    /** Histogram of each operation, indexed by ordinal. */
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Operation.values().length];
+
+    /**
+     * Operation enum lists the timed operations. Each one keeps an event instance to ask JFR whether its event is on.
+     */
+    public enum Operation {
+
+        /** levelUp(). */
+        LEVEL_UP(new LevelUpEvent()),
+
+        /** equipEquipment() and swapEquipment() that equipped the equipment. */
+        EQUIP_EQUIPMENT(new EquipEquipmentEvent()),
+
+        /** equipEquipment() and swapEquipment() that the job restriction rejected. */
+        EQUIP_REJECTED(new EquipRejectedEvent()),
+
+        /** equipAccessory() and swapAccessory(). */
+        EQUIP_ACCESSORY(new EquipAccessoryEvent()),
+
+        /** upgrade(), upgradeBy(), and upgradeTo() of main and sub weapons. */
+        UPGRADE(new UpgradeEvent());
+
+        /** Event only used to read whether its type is enabled, never committed. */
+        private final Event probe;
+
+        /**
+         * Initializes an operation with the probe of its event.
+         *
+         * @param probe event of the operation.
+         */
+        Operation(Event probe){
+            this.probe = probe;
+        }
+    }
+
+    /**
+     * OperationStats class is a snapshot of the counters of one operation, shown by JMX as composite data.
+     */
+    public static final class OperationStats {
+
+        /** Number of operations. */
+        private final long count;
+
+        /** Mean, median, 99th percentile, and largest latency in microseconds. */
+        private final double meanMicros, p50Micros, p99Micros, maxMicros;
+
+        /**
+         * Initializes a snapshot.
+         *
+         * @param count      number of operations.
+         * @param meanMicros mean latency.
+         * @param p50Micros  median latency.
+         * @param p99Micros  99th percentile latency.
+         * @param maxMicros  largest latency.
+         */
+        @ConstructorProperties({"count", "meanMicros", "p50Micros", "p99Micros", "maxMicros"})
+        public OperationStats(long count, double meanMicros, double p50Micros, double p99Micros, double maxMicros){
+            this.count = count;
+            this.meanMicros = meanMicros;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        /**
+         * Retrieves the number of operations.
+         *
+         * @return number of operations.
+         */
+        public long getCount(){
+            return count;
+        }
+
+        /**
+         * Retrieves the mean latency.
+         *
+         * @return mean latency in microseconds.
+         */
+        public double getMeanMicros(){
+            return meanMicros;
+        }
+
+        /**
+         * Retrieves the median latency.
+         *
+         * @return median latency in microseconds.
+         */
+        public double getP50Micros(){
+            return p50Micros;
+        }
+
+        /**
+         * Retrieves the 99th percentile latency.
+         *
+         * @return 99th percentile latency in microseconds.
+         */
+        public double getP99Micros(){
+            return p99Micros;
+        }
+
+        /**
+         * Retrieves the largest latency.
+         *
+         * @return largest latency in microseconds.
+         */
+        public double getMaxMicros(){
+            return maxMicros;
+        }
+
+        /**
+         * Formats the snapshot for a report.
+         *
+         * @return count and latencies.
+         */
+        @Override
+        public String toString(){
+            return String.format("count %d, mean %.2f us, p50 %.2f us, p99 %.2f us, max %.2f us",
+                    count, meanMicros, p50Micros, p99Micros, maxMicros);
+        }
+    }
+
+    /**
+     * Initializes new GameMetrics with every counter at zero.
+     */
+    public GameMetrics(){
+        for(int i = 0; i < histograms.length; i++){
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Makes these metrics receive every operation from now on and registers them with the platform MBean server,
+     * replacing the metrics registered before.
+     *
+     * @throws IllegalStateException if the MBean cannot be registered.
+     */
+    public void install(){
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            synchronized (GameMetrics.class){
+                if(server.isRegistered(name)){
+                    server.unregisterMBean(name);
+                }
+                server.registerMBean(this, name);
+                active = this;
+            }
+        }catch (JMException e){
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Stops these metrics from receiving operations and unregisters them, if they are the installed ones.
+     */
+    public void uninstall(){
+        synchronized (GameMetrics.class){
+            if(active != this){
+                return;
+            }
+            active = null;
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+            }catch (JMException e){
+                // already unregistered through JMX
+            }
+        }
+    }
+
+    /**
+     * Retrieves the installed metrics.
+     *
+     * @return installed metrics, or null.
+     */
+    public static GameMetrics getInstalled(){
+        return active;
+    }
+
+    /**
+     * Reads the clock at the start of an operation if anything records it.
+     *
+     * @param operation operation starting.
+     * @return start time in nanoseconds, or 0 when the operation is not recorded.
+     */
+    static long start(Operation operation){
+        if(active == null && !operation.probe.isEnabled()){
+            return 0;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a level up.
+     *
+     * @param character character that leveled up.
+     * @param start     value returned by start().
+     */
+    static void leveledUp(RPGCharacter character, long start){
+        if(start == 0){
+            return;
+        }
+        long latency = finish(Operation.LEVEL_UP, start);
+        LevelUpEvent event = new LevelUpEvent();
+        if(event.shouldCommit()){
+            event.character = character.getName();
+            event.job = character.getJobName();
+            event.level = character.getLevel();
+            event.latency = latency;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records an equipped equipment.
+     *
+     * @param character character that equipped it.
+     * @param equipment equipped equipment.
+     * @param start     value returned by start().
+     */
+    static void equipped(RPGCharacter character, Equipment equipment, long start){
+        if(start == 0){
+            return;
+        }
+        long latency = finish(Operation.EQUIP_EQUIPMENT, start);
+        EquipEquipmentEvent event = new EquipEquipmentEvent();
+        if(event.shouldCommit()){
+            event.character = character.getName();
+            event.item = equipment.getName();
+            event.itemType = equipment.getItemType().getDisplayName();
+            event.latency = latency;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records an equipment the job restriction rejected.
+     *
+     * @param character character that tried to equip it.
+     * @param equipment rejected equipment, or null.
+     * @param start     value returned by start().
+     */
+    static void rejected(RPGCharacter character, Equipment equipment, long start){
+        if(start == 0){
+            return;
+        }
+        long latency = finish(Operation.EQUIP_REJECTED, start);
+        EquipRejectedEvent event = new EquipRejectedEvent();
+        if(event.shouldCommit()){
+            event.character = character.getName();
+            event.job = character.getJobName();
+            event.item = equipment == null ? null : equipment.getName();
+            event.itemType = equipment == null ? null : equipment.getItemType().getDisplayName();
+            event.latency = latency;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records an equipped accessory.
+     *
+     * @param character character that equipped it.
+     * @param accessory equipped accessory.
+     * @param start     value returned by start().
+     */
+    static void equipped(RPGCharacter character, Accessory accessory, long start){
+        if(start == 0){
+            return;
+        }
+        long latency = finish(Operation.EQUIP_ACCESSORY, start);
+        EquipAccessoryEvent event = new EquipAccessoryEvent();
+        if(event.shouldCommit()){
+            event.character = character.getName();
+            event.item = accessory.getName();
+            event.itemType = accessory.getItemType().getDisplayName();
+            event.latency = latency;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a weapon upgrade.
+     *
+     * @param weapon upgraded weapon.
+     * @param start  value returned by start().
+     */
+    static void upgraded(Equipment weapon, long start){
+        if(start == 0){
+            return;
+        }
+        long latency = finish(Operation.UPGRADE, start);
+        UpgradeEvent event = new UpgradeEvent();
+        if(event.shouldCommit()){
+            event.item = weapon.getName();
+            event.itemType = weapon.getItemType().getDisplayName();
+            event.level = weapon.getLevel();
+            event.latency = latency;
+            event.commit();
+        }
+    }
+
+    /**
+     * Reads the clock at the end of an operation and adds its latency to the installed metrics, if any.
+     *
+     * @param operation finished operation.
+     * @param start     start time in nanoseconds.
+     * @return latency in nanoseconds.
+     */
+    private static long finish(Operation operation, long start){
+        long latency = System.nanoTime() - start;
+        GameMetrics metrics = active;
+        if(metrics != null){
+            metrics.histograms[operation.ordinal()].record(latency);
+        }
+        return latency;
+    }
+
+    /**
+     * Retrieves how many times an operation ran.
+     *
+     * @param operation operation to look up.
+     * @return number of operations.
+     */
+    public long getCount(Operation operation){
+        return histograms[operation.ordinal()].count();
+    }
+
+    /**
+     * Retrieves the statistics of an operation.
+     *
+     * @param operation operation to look up.
+     * @return snapshot of the counters of the operation.
+     */
+    public OperationStats getStats(Operation operation){
+        return histograms[operation.ordinal()].snapshot();
+    }
+
+    /**
+     * Retrieves the statistics of levelUp().
+     *
+     * @return level up statistics.
+     */
+    @Override
+    public OperationStats getLevelUp(){
+        return getStats(Operation.LEVEL_UP);
+    }
+
+    /**
+     * Retrieves the statistics of equipEquipment() that equipped the equipment.
+     *
+     * @return equip equipment statistics.
+     */
+    @Override
+    public OperationStats getEquipEquipment(){
+        return getStats(Operation.EQUIP_EQUIPMENT);
+    }
+
+    /**
+     * Retrieves the statistics of equipEquipment() that the job restriction rejected.
+     *
+     * @return rejected equip statistics.
+     */
+    @Override
+    public OperationStats getEquipRejected(){
+        return getStats(Operation.EQUIP_REJECTED);
+    }
+
+    /**
+     * Retrieves the statistics of equipAccessory().
+     *
+     * @return equip accessory statistics.
+     */
+    @Override
+    public OperationStats getEquipAccessory(){
+        return getStats(Operation.EQUIP_ACCESSORY);
+    }
+
+    /**
+     * Retrieves the statistics of weapon upgrades.
+     *
+     * @return upgrade statistics.
+     */
+    @Override
+    public OperationStats getUpgrade(){
+        return getStats(Operation.UPGRADE);
+    }
+
+    /**
+     * Retrieves how many equipment the job restriction rejected.
+     *
+     * @return number of rejected equipment.
+     */
+    @Override
+    public long getEquipRejectedCount(){
+        return getCount(Operation.EQUIP_REJECTED);
+    }
+
+    /**
+     * Clears every counter and histogram. Operations running meanwhile may be counted either side of the reset.
+     */
+    @Override
+    public void reset(){
+        for(LatencyHistogram histogram : histograms){
+            histogram.reset();
+        }
+    }
+}
+
+/**
+ * LatencyHistogram class counts latencies in log-linear buckets, like an HDR histogram with 16 sub-buckets
+ * per power of two, so every recorded value is known to within about 6 percent.
+ * Each bucket is a LongAdder, so recording never contends and never allocates once the adder is striped.
+ */
+final class LatencyHistogram {
+
+    /** Number of sub-buckets per power of two, and its log. */
+    private static final int SUB_BUCKETS = 16, SUB_BITS = 4;
+
+    /** Values below this are counted exactly. */
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+
+    /** Number of buckets, enough for any positive long. */
+    private static final int BUCKETS = LINEAR + (63 - (SUB_BITS + 1)) * SUB_BUCKETS;
+
+    /** Count of each bucket. */
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+    /** Sum of the recorded values. */
+    private final LongAdder total = new LongAdder();
+
+    /** Largest recorded value. */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Initializes a new empty LatencyHistogram.
+     */
+    LatencyHistogram(){
+        for(int i = 0; i < BUCKETS; i++){
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one value.
+     *
+     * @param nanos value in nanoseconds, negative values count as 0.
+     */
+    void record(long nanos){
+        long value = Math.max(0, nanos);
+        buckets[indexOf(value)].increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Retrieves the bucket of a value.
+     *
+     * @param value non-negative value.
+     * @return bucket index.
+     */
+    static int indexOf(long value){
+        if(value < LINEAR){
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - SUB_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Retrieves the smallest value of a bucket.
+     *
+     * @param index bucket index.
+     * @return lowest value counted in the bucket.
+     */
+    static long lowestOf(int index){
+        if(index < LINEAR){
+            return index;
+        }
+        int exponent = (index - LINEAR) / SUB_BUCKETS + SUB_BITS + 1;
+        int sub = (index - LINEAR) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+
+    /**
+     * Retrieves the number of recorded values.
+     *
+     * @return number of values.
+     */
+    long count(){
+        long count = 0;
+        for(LongAdder bucket : buckets){
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Takes a snapshot of the histogram. Values recorded meanwhile may be partly counted.
+     *
+     * @return count, mean, median, 99th percentile, and largest value, latencies in microseconds.
+     */
+    GameMetrics.OperationStats snapshot(){
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        long largest = max.get();
+        double mean = count == 0 ? 0 : total.sum() / (double) count;
+        return new GameMetrics.OperationStats(count, mean / 1_000, percentile(counts, count, 0.50, largest) / 1_000.0,
+                percentile(counts, count, 0.99, largest) / 1_000.0, largest / 1_000.0);
+    }
+
+    /**
+     * Finds a percentile in bucket counts.
+     *
+     * @param counts   count of each bucket.
+     * @param count    sum of the counts.
+     * @param fraction percentile between 0 and 1.
+     * @param largest  largest recorded value.
+     * @return middle of the bucket holding the percentile, at most the largest value.
+     */
+    private static long percentile(long[] counts, long count, double fraction, long largest){
+        if(count == 0){
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * fraction));
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            seen += counts[i];
+            if(seen >= rank){
+                long low = lowestOf(i);
+                long high = i + 1 < BUCKETS ? lowestOf(i + 1) : Long.MAX_VALUE;
+                return Math.min(largest, low + (high - low) / 2);
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Clears every bucket.
+     */
+    void reset(){
+        for(LongAdder bucket : buckets){
+            bucket.reset();
+        }
+        total.reset();
+        max.reset();
+    }
+}
+
+/**
+ * LevelUpEvent class is the Flight Recorder event of a level up.
+ */
+@Name("rpg.LevelUp")
+@Label("Level Up")
+@Category({"RPG", "Character"})
+@Description("A character leveled up")
+@StackTrace(false)
+class LevelUpEvent extends Event {
+
+    /** Name of the character. */
+    @Label("Character")
+    String character;
+
+    /** Job name of the character. */
+    @Label("Job")
+    String job;
+
+    /** Level reached. */
+    @Label("Level")
+    int level;
+
+    /** Time the level up took. */
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
+
+/**
+ * EquipEquipmentEvent class is the Flight Recorder event of an equipped equipment.
+ */
+@Name("rpg.EquipEquipment")
+@Label("Equip Equipment")
+@Category({"RPG", "Character"})
+@Description("A character equipped a weapon")
+@StackTrace(false)
+class EquipEquipmentEvent extends Event {
+
+    /** Name of the character. */
+    @Label("Character")
+    String character;
+
+    /** Name of the equipment. */
+    @Label("Item")
+    String item;
+
+    /** Item type of the equipment. */
+    @Label("Item Type")
+    String itemType;
+
+    /** Time the equip took. */
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
+
+/**
+ * EquipRejectedEvent class is the Flight Recorder event of an equipment the character's job cannot equip.
+ */
+@Name("rpg.EquipRejected")
+@Label("Equip Rejected")
+@Category({"RPG", "Character"})
+@Description("A character's job could not equip a weapon")
+@StackTrace(false)
+class EquipRejectedEvent extends Event {
+
+    /** Name of the character. */
+    @Label("Character")
+    String character;
+
+    /** Job name of the character. */
+    @Label("Job")
+    String job;
+
+    /** Name of the equipment, or null. */
+    @Label("Item")
+    String item;
+
+    /** Item type of the equipment, or null. */
+    @Label("Item Type")
+    String itemType;
+
+    /** Time the rejection took. */
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
+
+/**
+ * EquipAccessoryEvent class is the Flight Recorder event of an equipped accessory.
+ */
+@Name("rpg.EquipAccessory")
+@Label("Equip Accessory")
+@Category({"RPG", "Character"})
+@Description("A character equipped an accessory")
+@StackTrace(false)
+class EquipAccessoryEvent extends Event {
+
+    /** Name of the character. */
+    @Label("Character")
+    String character;
+
+    /** Name of the accessory. */
+    @Label("Item")
+    String item;
+
+    /** Item type of the accessory. */
+    @Label("Item Type")
+    String itemType;
+
+    /** Time the equip took. */
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
+
+/**
+ * UpgradeEvent class is the Flight Recorder event of a weapon upgrade.
+ */
+@Name("rpg.Upgrade")
+@Label("Upgrade")
+@Category({"RPG", "Item"})
+@Description("A weapon was upgraded")
+@StackTrace(false)
+class UpgradeEvent extends Event {
+
+    /** Name of the weapon. */
+    @Label("Item")
+    String item;
+
+    /** Item type of the weapon. */
+    @Label("Item Type")
+    String itemType;
+
+    /** Level reached. */
+    @Label("Level")
+    int level;
+
+    /** Time the upgrade took. */
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+}
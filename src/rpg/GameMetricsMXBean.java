@@ -0,0 +1,55 @@
+package rpg;
+
+/**
+ * GameMetricsMXBean interface is the JMX view of the installed GameMetrics, registered as rpg:type=GameMetrics.
+ * Latencies are in microseconds.
+ */
+public interface GameMetricsMXBean {
+
+    /**
+     * Retrieves the statistics of levelUp().
+     *
+     * @return level up statistics.
+     */
+    GameMetrics.OperationStats getLevelUp();
+
+    /**
+     * Retrieves the statistics of equipEquipment() that equipped the equipment.
+     *
+     * @return equip equipment statistics.
+     */
+    GameMetrics.OperationStats getEquipEquipment();
+
+    /**
+     * Retrieves the statistics of equipEquipment() that the job restriction rejected.
+     *
+     * @return rejected equip statistics.
+     */
+    GameMetrics.OperationStats getEquipRejected();
+
+    /**
+     * Retrieves the statistics of equipAccessory().
+     *
+     * @return equip accessory statistics.
+     */
+    GameMetrics.OperationStats getEquipAccessory();
+
+    /**
+     * Retrieves the statistics of weapon upgrades.
+     *
+     * @return upgrade statistics.
+     */
+    GameMetrics.OperationStats getUpgrade();
+
+    /**
+     * Retrieves how many equipment the job restriction rejected.
+     *
+     * @return number of rejected equipment.
+     */
+    long getEquipRejectedCount();
+
+    /**
+     * Clears every counter and histogram.
+     */
+    void reset();
+}
@@ -0,0 +1,383 @@
+package rpg;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Inventory class holds the items a character carries besides the five equipped slots.
+ * Items are indexed by item type, and inside each type by stat and by level: the main stat for equipment,
+ * the effect value for accessories. Lookups by type, stat, or level and top-k queries take logarithmic time
+ * instead of scanning every item.
+ * A weapon belongs to at most one inventory at a time, which it records itself. When it is upgraded in place, its
+ * inventory moves it to its new position in the indexes, so queries never see a stale stat or level.
+ * Nothing outside the weapons refers to an inventory, so a discarded inventory is collected with its items.
+ * Other Equipment implementations, such as EquipmentStore handles, are indexed with the stat and level they had
+ * when added.
+ */
+public final class Inventory {
+
+    /** Orders entries by stat, highest first, then by insertion. */
+    private static final Comparator<Entry> BY_STAT = (a, b) -> {
+        int order = Double.compare(b.stat, a.stat);
+        return order != 0 ? order : Long.compare(a.seq, b.seq);
+    };
+
+    /** Orders entries by level, lowest first, then by insertion. */
+    private static final Comparator<Entry> BY_LEVEL = (a, b) -> {
+        int order = Integer.compare(a.level, b.level);
+        return order != 0 ? order : Long.compare(a.seq, b.seq);
+    };
+
+    /** Entry of every item in the inventory. */
+    private final Map<Object, Entry> entries = new IdentityHashMap<>();
+
+    /** Stat index and level index of each item type, created on first use. */
+    private final EnumMap<ItemType, NavigableSet<Entry>> byStat = new EnumMap<>(ItemType.class),
+            byLevel = new EnumMap<>(ItemType.class);
+
+    /** Insertion counter, breaking ties between items with the same stat or level. */
+    private long nextSeq;
+
+    /**
+     * Initializes a new empty Inventory.
+     */
+    public Inventory(){
+    }
+
+    /**
+     * Moves an upgraded equipment to its new position in the indexes of the inventory holding it, if any.
+     *
+     * @param equipment upgraded equipment.
+     */
+    static void onUpgrade(BaseWeapon equipment){
+        Inventory owner = equipment.getOwner();
+        if(owner != null){
+            owner.reindex(equipment);
+        }
+    }
+
+    /**
+     * Removes an equipment that was released to a pool from the inventory holding it, if any.
+     *
+     * @param equipment released equipment.
+     */
+    static void onReleased(BaseWeapon equipment){
+        Inventory owner = equipment.getOwner();
+        if(owner != null){
+            owner.remove(equipment);
+        }
+    }
+
+    /**
+     * Adds an equipment to the inventory.
+     *
+     * @param equipment equipment to be added.
+     * @return true if it was added, false if it was already in this inventory.
+     * @throws IllegalStateException if the equipment is a weapon in another inventory.
+     */
+    public synchronized boolean add(Equipment equipment){
+        if(entries.containsKey(equipment)){
+            return false;
+        }
+        if(equipment instanceof BaseWeapon weapon && !weapon.claimOwner(this)){
+            throw new IllegalStateException(equipment.getName() + " is already in another inventory");
+        }
+        insert(new Entry(equipment, equipment.getItemType(), nextSeq++, equipment.getMainStat(), equipment.getLevel()));
+        return true;
+    }
+
+    /**
+     * Adds an accessory to the inventory.
+     *
+     * @param accessory accessory to be added.
+     * @return true if it was added, false if it was already in this inventory.
+     */
+    public synchronized boolean add(Accessory accessory){
+        if(entries.containsKey(accessory)){
+            return false;
+        }
+        insert(new Entry(accessory, accessory.getItemType(), nextSeq++, accessory.getEffectValue(), 0));
+        return true;
+    }
+
+    /**
+     * Removes an item from the inventory.
+     *
+     * @param item Equipment or Accessory to be removed.
+     * @return true if the item was in the inventory.
+     */
+    public synchronized boolean remove(Object item){
+        Entry entry = entries.remove(item);
+        if(entry == null){
+            return false;
+        }
+        byStat.get(entry.type).remove(entry);
+        byLevel.get(entry.type).remove(entry);
+        if(item instanceof BaseWeapon weapon){
+            weapon.releaseOwner(this);
+        }
+        return true;
+    }
+
+    /**
+     * Removes every item from the inventory.
+     */
+    public synchronized void clear(){
+        for(Object item : entries.keySet()){
+            if(item instanceof BaseWeapon weapon){
+                weapon.releaseOwner(this);
+            }
+        }
+        entries.clear();
+        byStat.clear();
+        byLevel.clear();
+    }
+
+    /**
+     * Tells whether an item is in the inventory.
+     *
+     * @param item Equipment or Accessory.
+     * @return true if the item is in the inventory.
+     */
+    public synchronized boolean contains(Object item){
+        return entries.containsKey(item);
+    }
+
+    /**
+     * Retrieves number of items in the inventory.
+     *
+     * @return number of items.
+     */
+    public synchronized int size(){
+        return entries.size();
+    }
+
+    /**
+     * Retrieves number of items of one type in the inventory.
+     *
+     * @param type item type.
+     * @return number of items of that type.
+     */
+    public synchronized int count(ItemType type){
+        NavigableSet<Entry> index = byStat.get(type);
+        return index == null ? 0 : index.size();
+    }
+
+    /**
+     * Retrieves the items of one type, highest stat first.
+     *
+     * @param type item type.
+     * @return Equipment or Accessory items of that type.
+     */
+    public synchronized List<Object> byType(ItemType type){
+        return items(byStat.get(type));
+    }
+
+    /**
+     * Retrieves the item of one type with the highest stat.
+     *
+     * @param type item type.
+     * @return best Equipment or Accessory of that type, or null if there is none.
+     */
+    public synchronized Object best(ItemType type){
+        NavigableSet<Entry> index = byStat.get(type);
+        return index == null || index.isEmpty() ? null : index.first().item;
+    }
+
+    /**
+     * Retrieves the items of one type whose stat is at least the given value, highest stat first.
+     *
+     * @param type    item type.
+     * @param minStat lowest stat to include.
+     * @return Equipment or Accessory items of that type.
+     */
+    public synchronized List<Object> withStatAtLeast(ItemType type, double minStat){
+        NavigableSet<Entry> index = byStat.get(type);
+        return index == null ? new ArrayList<>() : items(index.headSet(new Entry(null, type, Long.MAX_VALUE, minStat, 0), true));
+    }
+
+    /**
+     * Retrieves the equipment of one type whose level is inside the given range, lowest level first.
+     *
+     * @param type     item type.
+     * @param minLevel lowest level to include.
+     * @param maxLevel highest level to include.
+     * @return Equipment or Accessory items of that type.
+     */
+    public synchronized List<Object> byLevel(ItemType type, int minLevel, int maxLevel){
+        NavigableSet<Entry> index = byLevel.get(type);
+        if(index == null || minLevel > maxLevel){
+            return new ArrayList<>();
+        }
+        return items(index.subSet(new Entry(null, type, Long.MIN_VALUE, 0, minLevel), true,
+                new Entry(null, type, Long.MAX_VALUE, 0, maxLevel), true));
+    }
+
+    /**
+     * Retrieves the k equipment with the highest main stat that a job can equip, highest first.
+     *
+     * @param job job that would equip the items.
+     * @param k   largest number of items to return.
+     * @return best equippable equipment.
+     */
+    public synchronized List<Equipment> topEquipment(JobType job, int k){
+        List<Equipment> top = new ArrayList<>(Math.min(k, entries.size()));
+        merge(job, true, k, item -> top.add((Equipment) item));
+        return top;
+    }
+
+    /**
+     * Retrieves the k accessories with the highest effect value that a job can equip, highest first.
+     *
+     * @param job job that would equip the items.
+     * @param k   largest number of items to return.
+     * @return best equippable accessories.
+     */
+    public synchronized List<Accessory> topAccessories(JobType job, int k){
+        List<Accessory> top = new ArrayList<>(Math.min(k, entries.size()));
+        merge(job, false, k, item -> top.add((Accessory) item));
+        return top;
+    }
+
+    /**
+     * Walks the stat indexes of the item types a job can equip together, highest stat first, stopping after k items.
+     * Each index is already sorted, so this takes time in k and the number of item types, not in the inventory size.
+     *
+     * @param job     job that would equip the items.
+     * @param weapons true to walk weapon types, false to walk accessory types.
+     * @param k       largest number of items to visit.
+     * @param action  action receiving each item.
+     */
+    private void merge(JobType job, boolean weapons, int k, Consumer<Object> action){
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> BY_STAT.compare(a.head, b.head));
+        for(ItemType type : ItemType.values()){
+            NavigableSet<Entry> index = byStat.get(type);
+            if(type.isWeapon() == weapons && job.canEquip(type) && index != null && !index.isEmpty()){
+                Iterator<Entry> iterator = index.iterator();
+                heads.add(new Cursor(iterator.next(), iterator));
+            }
+        }
+        for(int taken = 0; taken < k && !heads.isEmpty(); taken++){
+            Cursor cursor = heads.poll();
+            action.accept(cursor.head.item);
+            if(cursor.rest.hasNext()){
+                cursor.head = cursor.rest.next();
+                heads.add(cursor);
+            }
+        }
+    }
+
+    /**
+     * Moves an upgraded equipment to its new position in the indexes.
+     *
+     * @param equipment upgraded equipment.
+     */
+    private synchronized void reindex(Equipment equipment){
+        Entry entry = entries.get(equipment);
+        if(entry == null){
+            return;
+        }
+        NavigableSet<Entry> stats = byStat.get(entry.type), levels = byLevel.get(entry.type);
+        stats.remove(entry);
+        levels.remove(entry);
+        entry.stat = equipment.getMainStat();
+        entry.level = equipment.getLevel();
+        stats.add(entry);
+        levels.add(entry);
+    }
+
+    /**
+     * Puts a new entry into the indexes of its type.
+     *
+     * @param entry entry to be inserted.
+     */
+    private void insert(Entry entry){
+        entries.put(entry.item, entry);
+        byStat.computeIfAbsent(entry.type, type -> new TreeSet<>(BY_STAT)).add(entry);
+        byLevel.computeIfAbsent(entry.type, type -> new TreeSet<>(BY_LEVEL)).add(entry);
+    }
+
+    /**
+     * Copies the items of some entries into a list.
+     *
+     * @param index entries in the order to be returned, or null.
+     * @return items of the entries.
+     */
+    private static List<Object> items(NavigableSet<Entry> index){
+        List<Object> items = new ArrayList<>(index == null ? 0 : index.size());
+        if(index != null){
+            for(Entry entry : index){
+                items.add(entry.item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Entry class holds an item with the stat and level it is indexed by.
+     */
+    private static final class Entry {
+
+        /** Indexed Equipment or Accessory. */
+        final Object item;
+
+        /** Item type of the item. */
+        final ItemType type;
+
+        /** Insertion number of the entry. */
+        final long seq;
+
+        /** Stat and level the entry is currently indexed by. */
+        double stat;
+        int level;
+
+        /**
+         * Initializes a new Entry with the provided values.
+         *
+         * @param item  indexed item, or null for a search bound.
+         * @param type  item type of the item.
+         * @param seq   insertion number of the entry.
+         * @param stat  main stat or effect value of the item.
+         * @param level level of the item.
+         */
+        Entry(Object item, ItemType type, long seq, double stat, int level){
+            this.item = item;
+            this.type = type;
+            this.seq = seq;
+            this.stat = stat;
+            this.level = level;
+        }
+    }
+
+    /**
+     * Cursor class walks one stat index during a top-k merge.
+     */
+    private static final class Cursor {
+
+        /** Entry the cursor is at. */
+        Entry head;
+
+        /** Entries after the head. */
+        final Iterator<Entry> rest;
+
+        /**
+         * Initializes a new Cursor at the first entry of an index.
+         *
+         * @param head first entry.
+         * @param rest entries after the first.
+         */
+        Cursor(Entry head, Iterator<Entry> rest){
+            this.head = head;
+            this.rest = rest;
+        }
+    }
+}
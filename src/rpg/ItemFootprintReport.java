@@ -0,0 +1,95 @@
+package rpg;
+
+import java.lang.ref.Reference;
+
+/**
+ * ItemFootprintReport class measures the heap used by a few million items in two modes and prints a comparison.
+ * The per-item mode keeps a name String, base stat, level, and stat value in every item, the layout MainWeapon used before
+ * ItemTemplate, with each name loaded as its own String. The template mode uses Sword, which shares one ItemTemplate per catalog item.
+ * Run with the number of items as the first argument, default 2000000.
+ */
+public class ItemFootprintReport {
+
+    /** Number of distinct catalog items the generated items are copies of. */
+    private static final int CATALOG_SIZE = 500;
+
+    /**
+     * Runs both modes and prints the heap used per item.
+     *
+     * @param args optional number of items to create.
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        String[] catalog = new String[CATALOG_SIZE];
+        for(int i = 0; i < CATALOG_SIZE; i++){
+            catalog[i] = "Catalog Sword #" + i;
+        }
+
+        long before = usedHeap();
+        Object[] perItem = new Object[count];
+        for(int i = 0; i < count; i++){
+            perItem[i] = new PerItemWeapon(new String(catalog[i % CATALOG_SIZE]), i % 100, 10 + i % CATALOG_SIZE);
+        }
+        long perItemBytes = usedHeap() - before;
+        Reference.reachabilityFence(perItem);
+        perItem = null;
+
+        before = usedHeap();
+        Object[] templated = new Object[count];
+        for(int i = 0; i < count; i++){
+            templated[i] = new Sword(catalog[i % CATALOG_SIZE], i % 100, 10 + i % CATALOG_SIZE);
+        }
+        long templatedBytes = usedHeap() - before;
+        Reference.reachabilityFence(templated);
+
+        System.out.println("Items : " + count + " copies of " + CATALOG_SIZE + " catalog items");
+        System.out.println("Per-item mode : " + perItemBytes / (1024 * 1024) + " MiB (" + perItemBytes / count + " bytes/item)");
+        System.out.println("Template mode : " + templatedBytes / (1024 * 1024) + " MiB (" + templatedBytes / count + " bytes/item)");
+        System.out.println("Templates registered : " + ItemTemplate.count());
+    }
+
+    /**
+     * Retrieves the heap in use after asking for a few garbage collections.
+     *
+     * @return used heap in bytes.
+     */
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 4; i++){
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * PerItemWeapon class has the per-item field layout of a weapon without templates.
+     */
+    private static final class PerItemWeapon {
+
+        /** Name of the weapon. */
+        private final String name;
+
+        /** Level of the weapon. */
+        private final int level;
+
+        /** Base stat of the weapon. */
+        private final double baseStat;
+
+        /** Current stat value of the weapon. */
+        private final double statValue;
+
+        /**
+         * Initializes a new PerItemWeapon with the provided values.
+         *
+         * @param name     name of the weapon.
+         * @param level    level of the weapon.
+         * @param baseStat base stat of the weapon.
+         */
+        PerItemWeapon(String name, int level, double baseStat){
+            this.name = name;
+            this.level = level;
+            this.baseStat = baseStat;
+            this.statValue = baseStat + (2.5 * level);
+        }
+    }
+}
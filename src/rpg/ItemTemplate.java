@@ -0,0 +1,249 @@
+package rpg;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ItemTemplate class holds the immutable part of a catalog item: its type, name, base stat, effect type and effect value.
+ * Templates are interned in a registry and identified by an int id, so every copy of the same catalog item
+ * shares one template and only keeps its own mutable state.
+ */
+public final class ItemTemplate {
+
+    /** Templates by their identifying values. */
+    private static final ConcurrentHashMap<Key, ItemTemplate> BY_KEY = new ConcurrentHashMap<>();
+
+    /** Templates indexed by id. */
+    private static volatile ItemTemplate[] byId = new ItemTemplate[64];
+
+    /** Number of registered templates. */
+    private static int count;
+
+    /** Id of the template. */
+    private final int id;
+
+    /** Kind of item. */
+    private final ItemType type;
+
+    /** Name of the item. */
+    private final String name;
+
+    /** Base stat of a weapon, 0 for an accessory. */
+    private final double baseStat;
+
+    /** Type of effect of an accessory, null for a weapon. */
+    private final String effectType;
+
+    /** Value of the effect of an accessory, 0 for a weapon. */
+    private final double effectValue;
+
+    /** Interned effect type of an accessory, null for a weapon. */
+    private final EffectType effect;
+
+    /**
+     * Initializes a new ItemTemplate with the provided values.
+     *
+     * @param id  id of the template.
+     * @param key identifying values of the template.
+     */
+    private ItemTemplate(int id, Key key){
+        this.id = id;
+        this.type = key.type;
+        this.name = key.name;
+        this.baseStat = key.baseStat;
+        this.effectType = key.effectType;
+        this.effectValue = key.effectValue;
+        this.effect = key.effectType == null ? null : EffectType.of(key.effectType);
+    }
+
+    /**
+     * Retrieves the template of a weapon, registering it on first use.
+     *
+     * @param type     kind of weapon.
+     * @param name     name of the weapon.
+     * @param baseStat base stat of the weapon.
+     * @return shared template of the weapon.
+     */
+    public static ItemTemplate ofWeapon(ItemType type, String name, double baseStat){
+        return intern(new Key(type, name, baseStat, null, 0));
+    }
+
+    /**
+     * Retrieves the template of an accessory, registering it on first use.
+     *
+     * @param type        kind of accessory.
+     * @param name        name of the accessory.
+     * @param effectType  type of effect provided by the accessory.
+     * @param effectValue value of the accessory's effect.
+     * @return shared template of the accessory.
+     */
+    public static ItemTemplate ofAccessory(ItemType type, String name, String effectType, double effectValue){
+        return intern(new Key(type, name, 0, effectType, effectValue));
+    }
+
+    /**
+     * Retrieves the template of a weapon if it is registered, without registering it.
+     *
+     * @param type     kind of weapon.
+     * @param name     name of the weapon.
+     * @param baseStat base stat of the weapon.
+     * @return registered template, or null if there is none.
+     */
+    static ItemTemplate findWeapon(ItemType type, String name, double baseStat){
+        return BY_KEY.get(new Key(type, name, baseStat, null, 0));
+    }
+
+    /**
+     * Retrieves the template of an accessory if it is registered, without registering it.
+     *
+     * @param type        kind of accessory.
+     * @param name        name of the accessory.
+     * @param effectType  type of effect provided by the accessory.
+     * @param effectValue value of the accessory's effect.
+     * @return registered template, or null if there is none.
+     */
+    static ItemTemplate findAccessory(ItemType type, String name, String effectType, double effectValue){
+        return BY_KEY.get(new Key(type, name, 0, effectType, effectValue));
+    }
+
+    /**
+     * Retrieves a registered template by id.
+     *
+     * @param id id of the template.
+     * @return template with the given id.
+     */
+    public static ItemTemplate get(int id){
+        return byId[id];
+    }
+
+    /**
+     * Retrieves number of registered templates.
+     *
+     * @return number of registered templates.
+     */
+    public static synchronized int count(){
+        return count;
+    }
+
+    /**
+     * Returns the registered template with the given values, registering a new one if there is none.
+     *
+     * @param key identifying values of the template.
+     * @return shared template.
+     */
+    private static ItemTemplate intern(Key key){
+        ItemTemplate template = BY_KEY.get(key);
+        return template != null ? template : register(key);
+    }
+
+    /**
+     * Registers a new template, unless another thread registered the same values first.
+     *
+     * @param key identifying values of the template.
+     * @return shared template.
+     */
+    private static synchronized ItemTemplate register(Key key){
+        ItemTemplate template = BY_KEY.get(key);
+        if(template != null){
+            return template;
+        }
+        ItemTemplate[] table = byId;
+        if(count == table.length){
+            table = Arrays.copyOf(table, count * 2);
+        }
+        template = new ItemTemplate(count, key);
+        table[count++] = template;
+        byId = table;
+        BY_KEY.put(key, template);
+        return template;
+    }
+
+    /**
+     * Creates a new item of this template.
+     *
+     * @param level level of the item, ignored for accessories.
+     * @return new Equipment or Accessory matching the template's item type.
+     */
+    public Object newItem(int level){
+        return switch (type) {
+            case SWORD -> new Sword(name, level, baseStat);
+            case SHIELD -> new Shield(name, level, baseStat);
+            case STAFF -> new Staff(name, level, baseStat);
+            case CHARM -> new Charm(name, level, baseStat);
+            case BOW -> new Bow(name, level, baseStat);
+            case DAGGER -> new Dagger(name, level, baseStat);
+            case AMULET -> new Amulet(name, effectType, effectValue);
+            case RING -> new Ring(name, effectType, effectValue);
+            case EARRING -> new Earring(name, effectType, effectValue);
+        };
+    }
+
+    /**
+     * Retrieves id of the template.
+     *
+     * @return id of the template.
+     */
+    public int getId(){
+        return id;
+    }
+
+    /**
+     * Retrieves kind of item.
+     *
+     * @return item type of the template.
+     */
+    public ItemType getType(){
+        return type;
+    }
+
+    /**
+     * Retrieves name of the item.
+     *
+     * @return name of the item.
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Retrieves base stat of a weapon.
+     *
+     * @return base stat, 0 for an accessory.
+     */
+    public double getBaseStat(){
+        return baseStat;
+    }
+
+    /**
+     * Retrieves type of effect of an accessory.
+     *
+     * @return type of effect, null for a weapon.
+     */
+    public String getEffectType(){
+        return effectType;
+    }
+
+    /**
+     * Retrieves value of the effect of an accessory.
+     *
+     * @return value of the effect, 0 for a weapon.
+     */
+    public double getEffectValue(){
+        return effectValue;
+    }
+
+    /**
+     * Retrieves the interned effect type of an accessory.
+     *
+     * @return effect type, null for a weapon.
+     */
+    public EffectType getEffect(){
+        return effect;
+    }
+
+    /**
+     * Identifying values of a template, used to find an already registered template.
+     */
+    private record Key(ItemType type, String name, double baseStat, String effectType, double effectValue){
+    }
+}
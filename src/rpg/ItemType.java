@@ -0,0 +1,126 @@
+package rpg;
+
+/**
+ * ItemType enum lists every kind of equipment and accessory, with the slot it is equipped into.
+ * The ordinal of an item type is its type code, used as the bit position in job compatibility masks.
+ */
+public enum ItemType {
+
+    /** Sword, a main weapon. */
+    SWORD("Sword", Slot.MAIN_HAND),
+
+    /** Shield, a sub weapon. */
+    SHIELD("Shield", Slot.SUB_HAND),
+
+    /** Staff, a main weapon. */
+    STAFF("Staff", Slot.MAIN_HAND),
+
+    /** Charm, a sub weapon. */
+    CHARM("Charm", Slot.SUB_HAND),
+
+    /** Bow, a main weapon. */
+    BOW("Bow", Slot.MAIN_HAND),
+
+    /** Dagger, a sub weapon. */
+    DAGGER("Dagger", Slot.SUB_HAND),
+
+    /** Amulet accessory. */
+    AMULET("Amulet", Slot.AMULET),
+
+    /** Ring accessory. */
+    RING("Ring", Slot.RING),
+
+    /** Earring accessory. */
+    EARRING("Earring", Slot.EARRING);
+
+    /** Item types indexed by type code. */
+    private static final ItemType[] BY_CODE = values();
+
+    /** Name of the item type as shown on the console. */
+    private final String displayName;
+
+    /** Slot the item is equipped into. */
+    private final Slot slot;
+
+    /**
+     * Initializes an item type with its display name and the slot it is equipped into.
+     *
+     * @param displayName name of the item type as shown on the console.
+     * @param slot        slot the item is equipped into.
+     */
+    ItemType(String displayName, Slot slot){
+        this.displayName = displayName;
+        this.slot = slot;
+    }
+
+    /**
+     * Retrieves name of the item type as shown on the console.
+     *
+     * @return display name of the item type.
+     */
+    public String getDisplayName(){
+        return displayName;
+    }
+
+    /**
+     * Retrieves the slot the item is equipped into.
+     *
+     * @return slot of the item.
+     */
+    public Slot getSlot(){
+        return slot;
+    }
+
+    /**
+     * Tells whether the item type is a weapon, equipped into the main hand or sub hand.
+     *
+     * @return true for weapons, false for accessories.
+     */
+    public boolean isWeapon(){
+        return slot == Slot.MAIN_HAND || slot == Slot.SUB_HAND;
+    }
+
+    /**
+     * Retrieves the type code of the item type.
+     *
+     * @return type code of the item type.
+     */
+    public int code(){
+        return ordinal();
+    }
+
+    /**
+     * Retrieves the bit of the item type in a job compatibility mask.
+     *
+     * @return mask with only the bit of the item type set.
+     */
+    int bit(){
+        return 1 << ordinal();
+    }
+
+    /**
+     * Retrieves the item type with the given type code.
+     *
+     * @param code type code of the item type.
+     * @return item type with the given code.
+     */
+    public static ItemType fromCode(int code){
+        return BY_CODE[code];
+    }
+
+    /**
+     * Retrieves the item type with the given display name, as returned by getDisplayName().
+     *
+     * @param displayName display name of the item type.
+     * @return item type with the given name.
+     * @throws IllegalArgumentException if no item type has that name.
+     */
+    public static ItemType fromDisplayName(String displayName){
+        for(ItemType type : BY_CODE){
+            if(type.displayName.equals(displayName)){
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown item type: " + displayName);
+    }
+}
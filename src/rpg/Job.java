@@ -1,3 +1,5 @@
+package rpg;
+
 /**
  * Job interface represents a jobs in a role-play game.
  * Extends the RPGCharacter interface and adds methods to retrieve the job name and an array of all abilities associated with the job.
@@ -14,10 +16,13 @@ public interface Job extends RPGCharacter{
 
     /**
      * Retrieves an array of all abilities associated with the job.
+     * The names come from the job's precomputed table in AbilityRegistry; the array is a copy the caller may change.
      *
      * @return An array of all abilities.
      */
-    String[] getAllAbility();
+    default String[] getAllAbility(){
+        return AbilityRegistry.getAbilityNames(getJobType());
+    }
 
     /**
      * Displays all abilities of the job to the console.
@@ -25,9 +30,11 @@ public interface Job extends RPGCharacter{
     default void showAllAbilities() {
         System.out.println("Job : " + getJobName());
         System.out.println("Abilities : ");
-        for (String ability : getAllAbility()) {
-            System.out.print(getJobName() + " ");
+        JobType job = getJobType();
+        for (int i = 0; i < AbilityRegistry.abilityCount(job); i++) {
+            System.out.print(AbilityRegistry.getName(AbilityRegistry.abilityAt(job, i)) + " ");
         }
+        System.out.println();
     }
 }
 
@@ -58,12 +65,12 @@ interface Warrior extends Job{
     }
 
     /**
-     * Retrieves a string array of all abilities for warriors.
+     * Retrieves job type for warriors.
      *
-     * @return A string array of all abilities for warriors.
+     * @return JobType.WARRIOR.
      */
-    default String[] getAllAbility(){
-        return new String[]{"Slash", "Black"};
+    default JobType getJobType() {
+        return JobType.WARRIOR;
     }
 
 }
@@ -89,12 +96,12 @@ interface Mage extends  Job{
     }
 
     /**
-     * Retrieves a string array of all abilities for mages.
+     * Retrieves job type for mages.
      *
-     * @return A string array of all abilities for mages.
+     * @return JobType.MAGE.
      */
-    default String[] getAllAbility(){
-        return new String[]{"Cast Spell", "Teleport"};
+    default JobType getJobType() {
+        return JobType.MAGE;
     }
 }
 interface Archer extends  Job{
@@ -119,11 +126,11 @@ interface Archer extends  Job{
     }
 
     /**
-     * Retrieves a string array of all abilities for archers.
+     * Retrieves job type for archers.
      *
-     * @return A string array of all abilities for archers.
+     * @return JobType.ARCHER.
      */
-    default String[] getAllAbility(){
-        return new String[]{"Shot", "Dodge"};
+    default JobType getJobType() {
+        return JobType.ARCHER;
     }
-}
\ No newline at end of file
+}
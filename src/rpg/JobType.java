@@ -0,0 +1,150 @@
+package rpg;
+
+/**
+ * JobType enum lists the jobs and the item types each of them can equip.
+ * The allowed item types of every job are precomputed into a bitmask indexed by type code,
+ * so checking an item against a job is a single bit test.
+ */
+public enum JobType {
+
+    /** Warrior job, equips Sword and Shield. */
+    WARRIOR("Warrior", ItemType.SWORD, ItemType.SHIELD),
+
+    /** Mage job, equips Staff and Charm. */
+    MAGE("Mage", ItemType.STAFF, ItemType.CHARM),
+
+    /** Archer job, equips Bow and Dagger. */
+    ARCHER("Archer", ItemType.BOW, ItemType.DAGGER);
+
+    /** Job types indexed by job code. */
+    private static final JobType[] BY_CODE = values();
+
+    /** Job × item type compatibility matrix: allowed item type bits indexed by job code. */
+    private static final int[] ALLOWED = new int[BY_CODE.length];
+
+    static {
+        for(JobType job : BY_CODE){
+            ALLOWED[job.ordinal()] = job.allowedMask;
+        }
+    }
+
+    /** Job name. */
+    private final String jobName;
+
+    /** Main weapon and sub weapon types the job can equip. */
+    private final ItemType mainWeapon, subWeapon;
+
+    /** Bitmask of the item types the job can equip: its two weapons and every accessory. */
+    private final int allowedMask;
+
+    /**
+     * Initializes a job type with its name and weapon types.
+     *
+     * @param jobName    job name.
+     * @param mainWeapon main weapon type the job can equip.
+     * @param subWeapon  sub weapon type the job can equip.
+     */
+    JobType(String jobName, ItemType mainWeapon, ItemType subWeapon){
+        this.jobName = jobName;
+        this.mainWeapon = mainWeapon;
+        this.subWeapon = subWeapon;
+        this.allowedMask = mainWeapon.bit() | subWeapon.bit()
+                | ItemType.AMULET.bit() | ItemType.RING.bit() | ItemType.EARRING.bit();
+    }
+
+    /**
+     * Retrieves job name.
+     *
+     * @return job name.
+     */
+    public String getJobName(){
+        return jobName;
+    }
+
+    /**
+     * Retrieves the job code of the job type.
+     *
+     * @return job code of the job type.
+     */
+    public int code(){
+        return ordinal();
+    }
+
+    /**
+     * Checks whether the job can equip an item type.
+     *
+     * @param type item type to check.
+     * @return true if the job can equip the item type.
+     */
+    public boolean canEquip(ItemType type){
+        return (allowedMask & type.bit()) != 0;
+    }
+
+    /**
+     * Retrieves the message shown when the job cannot equip an equipment.
+     *
+     * @return restriction message of the job.
+     */
+    public String getRestrictionMessage(){
+        return jobName + " can equip only " + mainWeapon.getDisplayName() + "&" + subWeapon.getDisplayName();
+    }
+
+    /**
+     * Checks whether a job can equip an item type, both given by their codes.
+     *
+     * @param jobCode  job code.
+     * @param typeCode item type code.
+     * @return true if the job can equip the item type.
+     */
+    public static boolean canEquip(int jobCode, int typeCode){
+        return ((ALLOWED[jobCode] >>> typeCode) & 1) != 0;
+    }
+
+    /**
+     * Checks a batch of item type codes against a job, without looking at the items themselves.
+     *
+     * @param jobCode   job code.
+     * @param typeCodes item type codes to check.
+     * @param count     number of entries of typeCodes to check.
+     * @param result    receives, at the same index, whether each item type can be equipped.
+     * @return number of item types the job can equip.
+     */
+    public static int checkBatch(int jobCode, int[] typeCodes, int count, boolean[] result){
+        int allowed = ALLOWED[jobCode];
+        int equippable = 0;
+        for(int i = 0; i < count; i++){
+            boolean ok = ((allowed >>> typeCodes[i]) & 1) != 0;
+            result[i] = ok;
+            if(ok){
+                equippable++;
+            }
+        }
+        return equippable;
+    }
+
+    /**
+     * Retrieves the job type with the given job code.
+     *
+     * @param code job code.
+     * @return job type with the given code.
+     */
+    public static JobType fromCode(int code){
+        return BY_CODE[code];
+    }
+
+    /**
+     * Retrieves the job type with the given job name, as returned by Job.getJobName().
+     *
+     * @param jobName job name.
+     * @return job type with the given name.
+     * @throws IllegalArgumentException if no job has that name.
+     */
+    public static JobType fromJobName(String jobName){
+        for(JobType job : BY_CODE){
+            if(job.getJobName().equals(jobName)){
+                return job;
+            }
+        }
+        throw new IllegalArgumentException("Unknown job name: " + jobName);
+    }
+}
@@ -0,0 +1,537 @@
+package rpg;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Leaderboard class ranks characters by level, globally and per job, and is updated incrementally on every level up.
+ * Each ranking keeps its characters in a concurrent skip list ordered by level, for top-N and level range queries,
+ * and the number of characters per level in a Fenwick tree of atomic counters, for rank queries.
+ * Both take logarithmic time. Readers never take a lock, so a burst of level ups never makes them wait.
+ * A character whose level is changing at that instant may be ranked one place off, but is never listed twice or missing.
+ */
+public final class Leaderboard {
+
+    /** Leaderboard updated by level ups, or null. */
+    private static volatile Leaderboard active;
+
+    /** Orders keys by level, highest first, then by the order characters were added. */
+    private static final Comparator<Key> ORDER = (a, b) -> {
+        int order = Integer.compare(b.level, a.level);
+        return order != 0 ? order : Long.compare(a.seq, b.seq);
+    };
+
+    /** Entry of every ranked character. */
+    private final ConcurrentHashMap<BaseCharacter, Entry> entries = new ConcurrentHashMap<>();
+
+    /** Counter giving every added character its tie-breaking order. */
+    private final AtomicLong nextSeq = new AtomicLong();
+
+    /** Ranking of every character. */
+    private final Ranking global = new Ranking(this, -1);
+
+    /** Ranking of each job, indexed by job code. */
+    private final Ranking[] byJob = new Ranking[JobType.values().length];
+
+    /**
+     * Initializes a new empty Leaderboard.
+     */
+    public Leaderboard(){
+        for(int i = 0; i < byJob.length; i++){
+            byJob[i] = new Ranking(this, i);
+        }
+    }
+
+    /**
+     * Makes this leaderboard follow the level ups of every character from now on.
+     */
+    public void install(){
+        active = this;
+    }
+
+    /**
+     * Stops this leaderboard from following level ups, if it is the installed one.
+     */
+    public void uninstall(){
+        if(active == this){
+            active = null;
+        }
+    }
+
+    /**
+     * Moves a character that leveled up in the installed leaderboard, if any.
+     *
+     * @param character character that leveled up.
+     */
+    static void onLevelUp(BaseCharacter character){
+        Leaderboard board = active;
+        if(board != null){
+            board.update(character);
+        }
+    }
+
+    /**
+     * Removes a character that was released to a pool from the installed leaderboard, if any.
+     *
+     * @param character released character.
+     */
+    static void onReleased(BaseCharacter character){
+        Leaderboard board = active;
+        if(board != null){
+            board.remove(character);
+        }
+    }
+
+    /**
+     * Adds a character to the global ranking and to the ranking of its job.
+     *
+     * @param character character to be ranked.
+     * @return true if it was added, false if it was already ranked.
+     */
+    public boolean add(BaseCharacter character){
+        Entry entry = new Entry(character, nextSeq.getAndIncrement());
+        if(entries.putIfAbsent(character, entry) != null){
+            return false;
+        }
+        synchronized (entry){
+            Key key = new Key(character.getLevel(), entry.seq, entry);
+            insert(entry, key);
+            entry.key = key;
+        }
+        return true;
+    }
+
+    /**
+     * Removes a character from every ranking.
+     *
+     * @param character character to be removed.
+     * @return true if it was ranked.
+     */
+    public boolean remove(BaseCharacter character){
+        Entry entry = entries.remove(character);
+        if(entry == null){
+            return false;
+        }
+        synchronized (entry){
+            Key key = entry.key;
+            entry.key = null;
+            if(key != null){
+                delete(entry, key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves a character to the position of its current level. Called on every level up of the installed leaderboard,
+     * and can be called directly after a level was changed another way, such as loading a snapshot.
+     *
+     * @param character character whose level changed.
+     */
+    public void update(BaseCharacter character){
+        Entry entry = entries.get(character);
+        if(entry == null){
+            return;
+        }
+        synchronized (entry){
+            Key old = entry.key;
+            int level = character.getLevel();
+            if(old == null || old.level == level){
+                return;
+            }
+            // The new key becomes valid only when entry.key points to it, so readers skipping stale keys
+            // see the character exactly once while both keys are in the skip list.
+            Key key = new Key(level, entry.seq, entry);
+            insert(entry, key);
+            entry.key = key;
+            delete(entry, old);
+        }
+    }
+
+    /**
+     * Retrieves the ranking of every character.
+     *
+     * @return global ranking.
+     */
+    public Ranking global(){
+        return global;
+    }
+
+    /**
+     * Retrieves the ranking of one job.
+     *
+     * @param job job to rank.
+     * @return ranking of the job.
+     */
+    public Ranking forJob(JobType job){
+        return byJob[job.code()];
+    }
+
+    /**
+     * Retrieves the ranking of one job by its name.
+     *
+     * @param jobName job name, as returned by Job.getJobName().
+     * @return ranking of the job.
+     * @throws IllegalArgumentException if no job has that name.
+     */
+    public Ranking forJob(String jobName){
+        return forJob(JobType.fromJobName(jobName));
+    }
+
+    /**
+     * Puts a key into the global ranking and the ranking of the entry's job.
+     *
+     * @param entry entry of the character.
+     * @param key   key to be inserted.
+     */
+    private void insert(Entry entry, Key key){
+        global.insert(key);
+        byJob[entry.job].insert(key);
+    }
+
+    /**
+     * Takes a key out of the global ranking and the ranking of the entry's job.
+     *
+     * @param entry entry of the character.
+     * @param key   key to be deleted.
+     */
+    private void delete(Entry entry, Key key){
+        global.delete(key);
+        byJob[entry.job].delete(key);
+    }
+
+    /**
+     * Ranking class orders a set of characters by level.
+     */
+    public static final class Ranking {
+
+        /** Leaderboard the ranking belongs to. */
+        private final Leaderboard board;
+
+        /** Job code of the ranked characters, or -1 for every job. */
+        private final int job;
+
+        /** Keys of the ranked characters, highest level first. Keys replaced by a level up may linger briefly. */
+        private final ConcurrentSkipListSet<Key> keys = new ConcurrentSkipListSet<>(ORDER);
+
+        /** Number of ranked characters per level. */
+        private final LevelCounts counts = new LevelCounts();
+
+        /**
+         * Initializes a new empty Ranking.
+         *
+         * @param board leaderboard the ranking belongs to.
+         * @param job   job code of the ranked characters, or -1 for every job.
+         */
+        private Ranking(Leaderboard board, int job){
+            this.board = board;
+            this.job = job;
+        }
+
+        /**
+         * Retrieves number of ranked characters.
+         *
+         * @return number of ranked characters.
+         */
+        public long size(){
+            return counts.total();
+        }
+
+        /**
+         * Retrieves the rank of a character: one more than the number of characters with a higher level,
+         * so characters of the same level share a rank.
+         *
+         * @param character ranked character.
+         * @return rank starting at 1, or 0 if the character is not in this ranking.
+         */
+        public long rankOf(RPGCharacter character){
+            Entry entry = character instanceof BaseCharacter base ? board.entries.get(base) : null;
+            if(entry == null || (job >= 0 && entry.job != job)){
+                return 0;
+            }
+            Key key = entry.key;
+            return key == null ? 0 : rankOfLevel(key.level);
+        }
+
+        /**
+         * Retrieves the rank a character of the given level has.
+         *
+         * @param level level to rank.
+         * @return one more than the number of ranked characters with a higher level.
+         */
+        public long rankOfLevel(int level){
+            return counts.countAbove(level) + 1;
+        }
+
+        /**
+         * Retrieves the ranked characters with the highest levels, highest first.
+         *
+         * @param n largest number of characters to return.
+         * @return up to n characters.
+         */
+        public List<RPGCharacter> top(int n){
+            List<RPGCharacter> top = new ArrayList<>(Math.min(n, 64));
+            for(Key key : keys){
+                if(top.size() >= n){
+                    break;
+                }
+                if(key.isCurrent()){
+                    top.add(key.entry.character);
+                }
+            }
+            return top;
+        }
+
+        /**
+         * Retrieves the ranked characters whose level is inside the given range, highest first.
+         *
+         * @param minLevel lowest level to include.
+         * @param maxLevel highest level to include.
+         * @return characters in the range.
+         */
+        public List<RPGCharacter> range(int minLevel, int maxLevel){
+            List<RPGCharacter> range = new ArrayList<>();
+            if(minLevel > maxLevel){
+                return range;
+            }
+            for(Key key : keys.subSet(new Key(maxLevel, Long.MIN_VALUE, null), true, new Key(minLevel, Long.MAX_VALUE, null), true)){
+                if(key.isCurrent()){
+                    range.add(key.entry.character);
+                }
+            }
+            return range;
+        }
+
+        /**
+         * Retrieves number of ranked characters whose level is inside the given range.
+         *
+         * @param minLevel lowest level to include.
+         * @param maxLevel highest level to include.
+         * @return number of characters in the range.
+         */
+        public long countInRange(int minLevel, int maxLevel){
+            return minLevel > maxLevel ? 0 : counts.countAbove(minLevel - 1) - counts.countAbove(maxLevel);
+        }
+
+        /**
+         * Adds a key to the ranking.
+         *
+         * @param key key to be added.
+         */
+        private void insert(Key key){
+            keys.add(key);
+            counts.add(key.level, 1);
+        }
+
+        /**
+         * Removes a key from the ranking.
+         *
+         * @param key key to be removed.
+         */
+        private void delete(Key key){
+            keys.remove(key);
+            counts.add(key.level, -1);
+        }
+    }
+
+    /**
+     * Entry class holds a ranked character and the key it is currently ranked by.
+     */
+    private static final class Entry {
+
+        /** Ranked character. */
+        final BaseCharacter character;
+
+        /** Job code of the character. */
+        final int job;
+
+        /** Order in which the character was added, breaking ties between equal levels. */
+        final long seq;
+
+        /** Key the character is currently ranked by, or null once removed. Changed while holding the entry's lock. */
+        volatile Key key;
+
+        /**
+         * Initializes a new Entry with the provided values.
+         *
+         * @param character ranked character.
+         * @param seq       order in which the character was added.
+         */
+        Entry(BaseCharacter character, long seq){
+            this.character = character;
+            this.job = character.getJobType().code();
+            this.seq = seq;
+        }
+    }
+
+    /**
+     * Key class is one position of a character in the skip lists, at the level it had when the key was made.
+     */
+    private static final class Key {
+
+        /** Level the key ranks the character at. */
+        final int level;
+
+        /** Tie-breaking order of the character. */
+        final long seq;
+
+        /** Entry of the character, or null for a search bound. */
+        final Entry entry;
+
+        /**
+         * Initializes a new Key with the provided values.
+         *
+         * @param level level the character is ranked at.
+         * @param seq   tie-breaking order of the character.
+         * @param entry entry of the character, or null for a search bound.
+         */
+        Key(int level, long seq, Entry entry){
+            this.level = level;
+            this.seq = seq;
+            this.entry = entry;
+        }
+
+        /**
+         * Tells whether the key is still the position of its character, rather than one replaced by a level up.
+         *
+         * @return true if the key is current.
+         */
+        boolean isCurrent(){
+            return entry.key == this;
+        }
+    }
+}
+
+/**
+ * LevelCounts class counts characters per level in a Fenwick tree of atomic counters, giving the number of characters
+ * above a level in logarithmic time. Updates add to the counters with atomic increments while holding the shared side
+ * of a lock, so they never wait for each other; only doubling the tree for a new highest level takes the lock exclusively.
+ * Reads use an optimistic stamp and never write to shared memory.
+ */
+final class LevelCounts {
+
+    /** Lock guarding replacement of the tree when it grows. */
+    private final StampedLock lock = new StampedLock();
+
+    /** Fenwick tree indexed by level, position 0 unused. */
+    private volatile AtomicLongArray tree = new AtomicLongArray(128);
+
+    /**
+     * Adds to the number of characters at a level.
+     *
+     * @param level level of the characters.
+     * @param delta number of characters added, negative to remove.
+     */
+    void add(int level, long delta){
+        int index = Math.max(level, 1);
+        while(true){
+            long stamp = lock.readLock();
+            try {
+                AtomicLongArray current = tree;
+                if(index < current.length()){
+                    for(int i = index; i < current.length(); i += i & -i){
+                        current.getAndAdd(i, delta);
+                    }
+                    return;
+                }
+            }finally {
+                lock.unlockRead(stamp);
+            }
+            grow(index);
+        }
+    }
+
+    /**
+     * Retrieves number of characters with a level above the given one.
+     *
+     * @param level level to compare with.
+     * @return number of characters with a higher level.
+     */
+    long countAbove(int level){
+        long stamp = lock.tryOptimisticRead();
+        long above = countAbove(tree, level);
+        if(!lock.validate(stamp)){
+            stamp = lock.readLock();
+            try {
+                above = countAbove(tree, level);
+            }finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return above;
+    }
+
+    /**
+     * Retrieves number of counted characters.
+     *
+     * @return total of every level.
+     */
+    long total(){
+        return countAbove(0);
+    }
+
+    /**
+     * Computes the number of characters above a level in one tree.
+     *
+     * @param tree  Fenwick tree.
+     * @param level level to compare with.
+     * @return number of characters with a higher level.
+     */
+    private static long countAbove(AtomicLongArray tree, int level){
+        int last = tree.length() - 1;
+        return prefix(tree, last) - prefix(tree, Math.min(Math.max(level, 0), last));
+    }
+
+    /**
+     * Computes the number of characters at or below a level.
+     *
+     * @param tree  Fenwick tree.
+     * @param level highest level to include.
+     * @return prefix sum up to the level.
+     */
+    private static long prefix(AtomicLongArray tree, int level){
+        long sum = 0;
+        for(int i = level; i > 0; i -= i & -i){
+            sum += tree.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Doubles the tree until it can count the given level.
+     *
+     * @param level level to be counted.
+     */
+    private void grow(int level){
+        long stamp = lock.writeLock();
+        try {
+            AtomicLongArray current = tree;
+            if(level < current.length()){
+                return;
+            }
+            int length = current.length();
+            while(length <= level){
+                length *= 2;
+            }
+            // Rebuild from the per-level counts, since Fenwick nodes cover different ranges in a longer tree.
+            AtomicLongArray grown = new AtomicLongArray(length);
+            for(int i = 1; i < current.length(); i++){
+                long count = prefix(current, i) - prefix(current, i - 1);
+                if(count != 0){
+                    for(int j = i; j < length; j += j & -j){
+                        grown.getAndAdd(j, count);
+                    }
+                }
+            }
+            tree = grown;
+        }finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+}
@@ -1,3 +1,5 @@
+package rpg;
+
 public class Main {
     public static void main(String[] args) {
         // For testing
@@ -43,10 +45,10 @@ public class Main {
         System.out.println("======================================");
 
 
-        ((Warrior) james).slash();
-        ((Mage) tent).teleport();
+        james.perform(AbilityRegistry.SLASH);
+        tent.perform(AbilityRegistry.TELEPORT);
 
-        ((Warrior) james).block();
-        ((Mage) tent).castSpell();
+        james.perform(AbilityRegistry.BLOCK);
+        tent.perform(AbilityRegistry.CAST_SPELL);
     }
 }
\ No newline at end of file
@@ -0,0 +1,894 @@
+package rpg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * MutationJournal class appends every level up, equip, and weapon upgrade to a binary write-ahead journal,
+ * so progress made after the last WorldSnapshot survives a crash.
+ * Mutating threads only encode a few bytes into a pending buffer. A background writer swaps the buffer out and
+ * writes it as one checksummed frame with a single fsync, so many operations share one commit.
+ * checkpoint() writes a snapshot and starts the journal that follows it in one step, and replay() rebuilds the
+ * world from that snapshot plus the journal.
+ * Once the writer has failed, every later mutation still changes the character or weapon in memory but then throws
+ * UncheckedIOException, so no caller goes on believing its mutation is durable.
+ */
+public final class MutationJournal implements AutoCloseable {
+
+    /** Magic number at the start of every journal file, "RPGJ". */
+    static final int MAGIC = 0x5250474A;
+
+    /** Format version written into the file header. Version 2 stores the resulting vitals in level up records. */
+    static final int VERSION = 2;
+
+    /** Size of the file header, magic and version, and of a frame header, length and checksum. */
+    private static final int FILE_HEADER_SIZE = 8, FRAME_HEADER_SIZE = 8;
+
+    /** Record codes. */
+    private static final byte DEFINE_CHARACTER = 1, DEFINE_ITEM = 2, LEVEL_UP = 3, EQUIP = 4, UPGRADE = 5;
+
+    /** Id stored for an empty slot and length stored for a null string. */
+    private static final int NONE = -1;
+
+    /** Encoded size of a character's vitals: the level and six doubles. */
+    private static final int VITALS_SIZE = 4 + 6 * 8;
+
+    /** Journal receiving the mutations, or null when nothing is journaled. */
+    private static volatile MutationJournal active;
+
+    /** File the journal is written to. */
+    private final FileChannel channel;
+
+    /** Commit settings. */
+    private final Config config;
+
+    /** Lock guarding the pending buffer, the ids, and the counters. */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when the writer has work, when appenders may continue, and when a commit is durable. */
+    private final Condition work = lock.newCondition(), space = lock.newCondition(), durable = lock.newCondition();
+
+    /** Ids of the characters and items the journal knows, in the order they were defined. */
+    private final Map<BaseCharacter, Integer> characterIds = new IdentityHashMap<>();
+    private final Map<Object, Integer> itemIds = new IdentityHashMap<>();
+
+    /** Ids given to the next defined character and item. Ids are never reused, even for forgotten objects. */
+    private int nextCharacterId, nextItemId;
+
+    /** Thread writing and syncing the frames. */
+    private final Thread writer;
+
+    /** Buffer receiving new records and the buffer being written by the writer. */
+    private ByteBuffer pending, spare;
+
+    /** Number of records in the pending buffer. */
+    private int pendingRecords;
+
+    /** Sequence number of the last appended record and of the last durable record. */
+    private long appended, committed;
+
+    /** Whether a caller waits for the pending records, and whether the journal is closing. */
+    private boolean flushRequested, closing;
+
+    /** Error that stopped the writer, or null. */
+    private IOException failure;
+
+    /** Counters reported by getMetrics(). */
+    private long records, bytes, commits, maxRecordsPerCommit, syncNanos, stalls;
+
+    /**
+     * Commit settings of a journal.
+     *
+     * @param commitBytes          pending bytes that trigger a commit without waiting for the interval.
+     * @param commitIntervalMicros longest time a record waits for other records to share its commit.
+     * @param maxPendingBytes      pending bytes at which mutating threads wait for the writer.
+     * @param fsync                whether every commit is forced to the storage device.
+     */
+    public record Config(int commitBytes, long commitIntervalMicros, int maxPendingBytes, boolean fsync) {
+
+        /**
+         * Checks the settings.
+         *
+         * @throws IllegalArgumentException if a size is not positive, the interval is negative, or maxPendingBytes is below commitBytes.
+         */
+        public Config {
+            if(commitBytes <= 0 || maxPendingBytes < commitBytes || commitIntervalMicros < 0){
+                throw new IllegalArgumentException("Invalid journal config: commitBytes=" + commitBytes
+                        + ", commitIntervalMicros=" + commitIntervalMicros + ", maxPendingBytes=" + maxPendingBytes);
+            }
+        }
+
+        /**
+         * Retrieves the default settings: 64 KiB or 2 ms per commit, 4 MiB of pending records, and fsync on.
+         *
+         * @return default settings.
+         */
+        public static Config defaults(){
+            return new Config(64 * 1024, 2_000, 4 * 1024 * 1024, true);
+        }
+    }
+
+    /**
+     * Throughput counters of a journal.
+     *
+     * @param records             records written and synced.
+     * @param bytes               bytes written, including frame headers.
+     * @param commits             frames written, one fsync each when fsync is on.
+     * @param maxRecordsPerCommit largest number of records in one commit.
+     * @param syncNanos           total time spent in fsync.
+     * @param stalls              times a mutating thread waited because too many bytes were pending.
+     */
+    public record Metrics(long records, long bytes, long commits, long maxRecordsPerCommit, long syncNanos, long stalls) {
+
+        /**
+         * Retrieves the average number of records sharing one commit.
+         *
+         * @return records per commit, or 0 before the first commit.
+         */
+        public double recordsPerCommit(){
+            return commits == 0 ? 0 : (double) records / commits;
+        }
+
+        /**
+         * Retrieves the average time of one fsync.
+         *
+         * @return average fsync time in microseconds, or 0 before the first commit.
+         */
+        public double averageSyncMicros(){
+            return commits == 0 ? 0 : syncNanos / 1_000.0 / commits;
+        }
+    }
+
+    /**
+     * Initializes a new MutationJournal writing to an open file.
+     *
+     * @param channel file the journal is written to, positioned after the file header.
+     * @param config  commit settings.
+     */
+    private MutationJournal(FileChannel channel, Config config){
+        this.channel = channel;
+        this.config = config;
+        this.pending = ByteBuffer.allocate(config.commitBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        this.spare = ByteBuffer.allocate(config.commitBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        this.writer = new Thread(this::writeLoop, "mutation-journal");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Saves characters into a snapshot file and starts a journal that follows it, replacing both files if they exist.
+     * The journal is installed before the characters are read, and mutations wait to be journaled until the
+     * snapshot has given its ids to every character and item. So every mutation is either in the snapshot or
+     * journaled after it, and every record refers to the snapshot's characters and items by the ids the snapshot
+     * saved them under. A journal installed before receives no more records and should be closed.
+     * If saving fails, the new journal is closed and no journal is installed.
+     *
+     * @param snapshotFile snapshot file, see WorldSnapshot.write().
+     * @param journalFile  journal file.
+     * @param characters   characters to be saved, in the order they will be loaded.
+     * @param config       commit settings.
+     * @return started and installed journal.
+     * @throws IOException if either file cannot be written.
+     */
+    public static MutationJournal checkpoint(Path snapshotFile, Path journalFile, Collection<? extends BaseCharacter> characters,
+                                             Config config) throws IOException {
+        MutationJournal journal = create(journalFile, config);
+        try {
+            WorldSnapshot.Capture capture;
+            journal.lock.lock();
+            try {
+                journal.install();
+                capture = WorldSnapshot.capture(characters);
+                WorldSnapshot.Ids ids = capture.ids();
+                journal.characterIds.putAll(ids.characters());
+                journal.itemIds.putAll(ids.items());
+                journal.nextCharacterId = ids.characterCount();
+                journal.nextItemId = ids.items().size();
+            }finally {
+                journal.lock.unlock();
+            }
+            capture.writeTo(snapshotFile);
+        }catch (IOException | RuntimeException e){
+            try {
+                journal.close();
+            }catch (IOException suppressed){
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * Creates a journal file with its header and starts the writer.
+     *
+     * @param file   journal file, replaced if it exists.
+     * @param config commit settings.
+     * @return started journal, not yet installed.
+     * @throws IOException if the file cannot be created.
+     */
+    private static MutationJournal create(Path file, Config config) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN).putInt(MAGIC).putInt(VERSION).flip();
+            while(header.hasRemaining()){
+                channel.write(header);
+            }
+            channel.force(true);
+        }catch (IOException e){
+            channel.close();
+            throw e;
+        }
+        MutationJournal journal = new MutationJournal(channel, config);
+        journal.writer.start();
+        return journal;
+    }
+
+    /**
+     * Makes this journal receive the mutations of every character and weapon from now on.
+     * Only checkpoint() installs a journal, so that no mutation falls between the snapshot and the journal.
+     */
+    private void install(){
+        active = this;
+    }
+
+    /**
+     * Retrieves the journal receiving the mutations.
+     *
+     * @return installed journal, or null if mutations are not journaled.
+     */
+    static MutationJournal getActive(){
+        return active;
+    }
+
+    /**
+     * Records a level up into the installed journal, if any.
+     *
+     * @param character character that leveled up.
+     * @throws UncheckedIOException if the journal writer has failed.
+     */
+    static void recordLevelUp(BaseCharacter character){
+        MutationJournal journal = active;
+        if(journal != null){
+            journal.appendLevelUp(character);
+        }
+    }
+
+    /**
+     * Records an equipped item into the installed journal, if any.
+     *
+     * @param character character that equipped the item.
+     * @param slot      slot the item was equipped into.
+     * @throws UncheckedIOException if the journal writer has failed.
+     */
+    static void recordEquip(BaseCharacter character, Slot slot){
+        MutationJournal journal = active;
+        if(journal != null){
+            journal.appendEquip(character, slot);
+        }
+    }
+
+    /**
+     * Records a weapon upgrade into the installed journal, if any.
+     *
+     * @param equipment upgraded weapon.
+     * @throws UncheckedIOException if the journal writer has failed.
+     */
+    static void recordUpgrade(Equipment equipment){
+        MutationJournal journal = active;
+        if(journal != null){
+            journal.appendUpgrade(equipment);
+        }
+    }
+
+    /**
+     * Makes the installed journal, if any, forget a character or item that was released to a pool.
+     * If the object is used again, its next mutation defines it in full under a new id,
+     * so its new life is not replayed onto the old one.
+     *
+     * @param released released BaseCharacter, Equipment, or Accessory.
+     */
+    static void forget(Object released){
+        MutationJournal journal = active;
+        if(journal != null){
+            journal.lock.lock();
+            try {
+                if(released instanceof BaseCharacter character){
+                    journal.characterIds.remove(character);
+                }else {
+                    journal.itemIds.remove(released);
+                }
+            }finally {
+                journal.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Appends a level up. A character the journal does not know yet is written in full instead.
+     * The record holds the vitals read when it is appended rather than one more level, so a level up of another
+     * thread that a definition or an earlier record already includes is not replayed twice.
+     *
+     * @param character character that leveled up.
+     */
+    private void appendLevelUp(BaseCharacter character){
+        lock.lock();
+        try {
+            if(!awaitSpace()){
+                return;
+            }
+            Integer id = characterIds.get(character);
+            if(id == null){
+                defineCharacter(character);
+                return;
+            }
+            putVitals(ensure(5 + VITALS_SIZE).put(LEVEL_UP).putInt(id), character.getVitals());
+            appendedRecord();
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends an equip. A character the journal does not know yet is written in full instead.
+     * The record holds what the slot contains when it is appended rather than the item that was equipped,
+     * so when two threads equip the same slot, the record appended last matches the item that won.
+     *
+     * @param character character that equipped the item.
+     * @param slot      slot the item was equipped into.
+     */
+    private void appendEquip(BaseCharacter character, Slot slot){
+        lock.lock();
+        try {
+            if(!awaitSpace()){
+                return;
+            }
+            Integer id = characterIds.get(character);
+            if(id == null){
+                defineCharacter(character);
+                return;
+            }
+            Object item = character.getSlot(slot);
+            int itemId = item == null ? NONE : itemId(item);
+            ensure(10).put(EQUIP).putInt(id).put((byte) slot.ordinal()).putInt(itemId);
+            appendedRecord();
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends a weapon upgrade. A weapon the journal does not know yet is skipped, since it is written
+     * with its current level once a character equips it. The record holds the level read when it is appended,
+     * and replay keeps the highest level seen, so concurrent upgrades recorded out of order still replay correctly.
+     *
+     * @param equipment upgraded weapon.
+     */
+    private void appendUpgrade(Equipment equipment){
+        lock.lock();
+        try {
+            if(!awaitSpace()){
+                return;
+            }
+            Integer id = itemIds.get(equipment);
+            if(id == null){
+                return;
+            }
+            ensure(9).put(UPGRADE).putInt(id).putInt(equipment.getLevel());
+            appendedRecord();
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a character the journal does not know yet with its job, name, vitals, and equipped items.
+     *
+     * @param character character to be defined.
+     */
+    private void defineCharacter(BaseCharacter character){
+        int[] slotItems = new int[Slot.COUNT];
+        for(Slot slot : Slot.values()){
+            Object item = character.getSlot(slot);
+            slotItems[slot.ordinal()] = item == null ? NONE : itemId(item);
+        }
+        int id = nextCharacterId++;
+        characterIds.put(character, id);
+        ByteBuffer out = ensure(6 + stringSize(character.getName()) + VITALS_SIZE + 4 * Slot.COUNT);
+        out.put(DEFINE_CHARACTER).putInt(id).put((byte) character.getJobType().code());
+        putString(out, character.getName());
+        putVitals(out, character.getVitals());
+        for(int item : slotItems){
+            out.putInt(item);
+        }
+        appendedRecord();
+    }
+
+    /**
+     * Retrieves the id of an item, writing the item first if the journal does not know it yet.
+     *
+     * @param item Equipment or Accessory.
+     * @return id of the item.
+     */
+    private int itemId(Object item){
+        Integer known = itemIds.get(item);
+        if(known != null){
+            return known;
+        }
+        int id = nextItemId++;
+        itemIds.put(item, id);
+        switch (item) {
+            case Equipment equipment -> {
+                ByteBuffer out = ensure(10 + stringSize(equipment.getName()) + 8 + stringSize(null) + 8);
+                out.put(DEFINE_ITEM).putInt(id).put((byte) equipment.getItemType().code()).putInt(equipment.getLevel());
+                putString(out, equipment.getName());
+                out.putDouble(baseStat(equipment));
+                putString(out, null);
+                out.putDouble(0);
+            }
+            case Accessory accessory -> {
+                ByteBuffer out = ensure(10 + stringSize(accessory.getName()) + 8 + stringSize(accessory.getEffectType()) + 8);
+                out.put(DEFINE_ITEM).putInt(id).put((byte) accessory.getItemType().code()).putInt(0);
+                putString(out, accessory.getName());
+                out.putDouble(0);
+                putString(out, accessory.getEffectType());
+                out.putDouble(accessory.getEffectValue());
+            }
+            default -> throw new IllegalArgumentException("Cannot journal item " + item);
+        }
+        appendedRecord();
+        return id;
+    }
+
+    /**
+     * Waits while too many bytes are pending. Called before a record is encoded, so a record and the
+     * definitions it needs are always appended together.
+     *
+     * @return true if the journal still accepts records, false once it is closing.
+     * @throws UncheckedIOException if the writer has failed, since the record could never become durable.
+     */
+    private boolean awaitSpace(){
+        while(pending.position() >= config.maxPendingBytes() && failure == null && !closing){
+            stalls++;
+            work.signal();
+            space.awaitUninterruptibly();
+        }
+        if(failure != null){
+            throw new UncheckedIOException("Journal writer failed; the mutation was applied but not journaled", failure);
+        }
+        return !closing;
+    }
+
+    /**
+     * Makes room for a record in the pending buffer, growing it if needed.
+     *
+     * @param size size of the record.
+     * @return pending buffer.
+     */
+    private ByteBuffer ensure(int size){
+        if(pending.remaining() < size){
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + size)).order(ByteOrder.LITTLE_ENDIAN);
+            pending = grown.put(pending.flip());
+        }
+        return pending;
+    }
+
+    /**
+     * Counts an appended record and wakes the writer once a commit is due.
+     */
+    private void appendedRecord(){
+        appended++;
+        pendingRecords++;
+        if(pending.position() >= config.commitBytes()){
+            work.signal();
+        }
+    }
+
+    /**
+     * Waits until every record appended so far is written and, with fsync on, on the storage device.
+     *
+     * @throws IOException if the writer failed.
+     */
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            long target = appended;
+            flushRequested = true;
+            work.signal();
+            while(committed < target && failure == null){
+                durable.awaitUninterruptibly();
+            }
+            if(failure != null){
+                throw new IOException("Journal writer failed", failure);
+            }
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the throughput counters of the journal.
+     *
+     * @return current metrics.
+     */
+    public Metrics getMetrics(){
+        lock.lock();
+        try {
+            return new Metrics(records, bytes, commits, maxRecordsPerCommit, syncNanos, stalls);
+        }finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Uninstalls the journal, commits every pending record, and closes the file.
+     *
+     * @throws IOException if the writer failed or the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if(active == this){
+            active = null;
+        }
+        lock.lock();
+        try {
+            closing = true;
+            work.signal();
+            space.signalAll();
+        }finally {
+            lock.unlock();
+        }
+        boolean interrupted = false;
+        while(writer.isAlive()){
+            try {
+                writer.join();
+            }catch (InterruptedException e){
+                interrupted = true;
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if(failure != null){
+            throw new IOException("Journal writer failed", failure);
+        }
+    }
+
+    /**
+     * Waits for records, lets more records join for up to the commit interval, and writes them as one frame.
+     */
+    private void writeLoop(){
+        ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32C crc = new CRC32C();
+        long interval = TimeUnit.MICROSECONDS.toNanos(config.commitIntervalMicros());
+        while(true){
+            ByteBuffer batch;
+            int batchRecords;
+            long upTo;
+            lock.lock();
+            try {
+                while(pendingRecords == 0 && !closing){
+                    work.awaitUninterruptibly();
+                }
+                long deadline = System.nanoTime() + interval;
+                while(!closing && !flushRequested && pending.position() < config.commitBytes()){
+                    long left = deadline - System.nanoTime();
+                    if(left <= 0){
+                        break;
+                    }
+                    try {
+                        work.awaitNanos(left);
+                    }catch (InterruptedException ignored){
+                        // The writer is never interrupted on purpose, so keep collecting until the deadline.
+                    }
+                }
+                if(pendingRecords == 0){
+                    return;
+                }
+                batch = pending;
+                pending = spare.clear();
+                spare = batch;
+                batchRecords = pendingRecords;
+                pendingRecords = 0;
+                upTo = appended;
+                flushRequested = false;
+                space.signalAll();
+            }finally {
+                lock.unlock();
+            }
+
+            long syncTime = 0;
+            try {
+                batch.flip();
+                crc.reset();
+                crc.update(batch.duplicate());
+                header.clear().putInt(batch.remaining()).putInt((int) crc.getValue()).flip();
+                ByteBuffer[] frame = {header, batch};
+                while(header.hasRemaining() || batch.hasRemaining()){
+                    channel.write(frame);
+                }
+                if(config.fsync()){
+                    long start = System.nanoTime();
+                    channel.force(false);
+                    syncTime = System.nanoTime() - start;
+                }
+            }catch (IOException e){
+                lock.lock();
+                try {
+                    failure = e;
+                    durable.signalAll();
+                    space.signalAll();
+                }finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                committed = upTo;
+                commits++;
+                records += batchRecords;
+                bytes += FRAME_HEADER_SIZE + batch.limit();
+                maxRecordsPerCommit = Math.max(maxRecordsPerCommit, batchRecords);
+                syncNanos += syncTime;
+                durable.signalAll();
+            }finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the world from a snapshot and the journal that followed it. Loading stops quietly at a frame
+     * that was only partly written, since that frame was never reported as durable.
+     *
+     * @param snapshot snapshot the journal was started after.
+     * @param file     journal file.
+     * @return every character of the snapshot followed by the characters defined in the journal, with all journaled mutations applied.
+     * @throws IOException if the journal cannot be read, is not a journal, or does not match the snapshot.
+     */
+    public static List<BaseCharacter> replay(WorldSnapshot snapshot, Path file) throws IOException {
+        List<BaseCharacter> characters = new ArrayList<>(snapshot.getCharacterCount());
+        for(int i = 0; i < snapshot.getCharacterCount(); i++){
+            characters.add(snapshot.getCharacter(i));
+        }
+        List<Object> items = new ArrayList<>(snapshot.getItemCount());
+        for(int i = 0; i < snapshot.getItemCount(); i++){
+            items.add(snapshot.getItem(i));
+        }
+
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new IOException(file + " exceeds the 2 GiB mapping limit");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            if(in.remaining() < FILE_HEADER_SIZE || in.getInt() != MAGIC){
+                throw new IOException(file + " is not a mutation journal");
+            }
+            int version = in.getInt();
+            if(version != VERSION){
+                throw new IOException(file + " has journal version " + version + ", expected " + VERSION);
+            }
+            CRC32C crc = new CRC32C();
+            while(in.remaining() >= FRAME_HEADER_SIZE){
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if(length < 0 || length > in.remaining()){
+                    break;
+                }
+                ByteBuffer frame = in.slice(in.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+                crc.reset();
+                crc.update(frame.duplicate());
+                if((int) crc.getValue() != checksum){
+                    break;
+                }
+                in.position(in.position() + length);
+                while(frame.hasRemaining()){
+                    applyRecord(frame, characters, items, file);
+                }
+            }
+        }
+        return characters;
+    }
+
+    /**
+     * Applies one record to the world being replayed.
+     *
+     * @param in         frame positioned at the record.
+     * @param characters characters by id.
+     * @param items      items by id.
+     * @param file       journal file, for error messages.
+     * @throws IOException if the record does not match the world.
+     */
+    private static void applyRecord(ByteBuffer in, List<BaseCharacter> characters, List<Object> items, Path file) throws IOException {
+        byte code = in.get();
+        switch (code) {
+            case DEFINE_CHARACTER -> {
+                int id = in.getInt();
+                checkNextId(id, characters.size(), file);
+                BaseCharacter character = BaseCharacter.create(JobType.fromCode(in.get()), getString(in));
+                character.restoreVitals(getVitals(in));
+                for(Slot slot : Slot.values()){
+                    int item = in.getInt();
+                    if(item != NONE){
+                        character.restoreSlot(slot, item(items, item, file));
+                    }
+                }
+                characters.add(character);
+            }
+            case DEFINE_ITEM -> {
+                int id = in.getInt();
+                checkNextId(id, items.size(), file);
+                ItemType type = ItemType.fromCode(in.get());
+                int level = in.getInt();
+                String name = getString(in);
+                double baseStat = in.getDouble();
+                String effectType = getString(in);
+                double effectValue = in.getDouble();
+                ItemTemplate template = type.isWeapon()
+                        ? ItemTemplate.ofWeapon(type, name, baseStat)
+                        : ItemTemplate.ofAccessory(type, name, effectType, effectValue);
+                items.add(template.newItem(level));
+            }
+            case LEVEL_UP -> {
+                BaseCharacter character = character(characters, in.getInt(), file);
+                character.restoreVitals(getVitals(in));
+            }
+            case EQUIP -> {
+                BaseCharacter character = character(characters, in.getInt(), file);
+                Slot slot = Slot.values()[in.get()];
+                int item = in.getInt();
+                character.restoreSlot(slot, item == NONE ? null : item(items, item, file));
+            }
+            case UPGRADE -> {
+                Object item = item(items, in.getInt(), file);
+                int level = in.getInt();
+                if(item instanceof BaseWeapon weapon){
+                    weapon.restoreLevel(level);
+                }else if(item instanceof Equipment equipment && level > equipment.getLevel()){
+                    equipment.upgradeTo(level);
+                }
+            }
+            default -> throw new IOException(file + " has unknown record code " + code);
+        }
+    }
+
+    /**
+     * Checks that a defined id follows the ids defined before it.
+     *
+     * @param id       defined id.
+     * @param expected next free id.
+     * @param file     journal file, for error messages.
+     * @throws IOException if the id is not the next free id.
+     */
+    private static void checkNextId(int id, int expected, Path file) throws IOException {
+        if(id != expected){
+            throw new IOException(file + " defines id " + id + " where " + expected + " was expected; it does not follow this snapshot");
+        }
+    }
+
+    /**
+     * Retrieves a replayed character by id.
+     *
+     * @param characters characters by id.
+     * @param id         id of the character.
+     * @param file       journal file, for error messages.
+     * @return the character.
+     * @throws IOException if the id is unknown.
+     */
+    private static BaseCharacter character(List<BaseCharacter> characters, int id, Path file) throws IOException {
+        if(id < 0 || id >= characters.size()){
+            throw new IOException(file + " refers to unknown character " + id);
+        }
+        return characters.get(id);
+    }
+
+    /**
+     * Retrieves a replayed item by id.
+     *
+     * @param items items by id.
+     * @param id    id of the item.
+     * @param file  journal file, for error messages.
+     * @return the item.
+     * @throws IOException if the id is unknown.
+     */
+    private static Object item(List<Object> items, int id, Path file) throws IOException {
+        if(id < 0 || id >= items.size()){
+            throw new IOException(file + " refers to unknown item " + id);
+        }
+        return items.get(id);
+    }
+
+    /**
+     * Retrieves the largest encoded size of a string, used to make room before encoding it.
+     *
+     * @param value string, or null.
+     * @return upper bound of the size of its length prefix and UTF-8 bytes.
+     */
+    private static int stringSize(String value){
+        return value == null ? 4 : 4 + value.length() * 3;
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes, or NONE for null.
+     *
+     * @param out   buffer to write into.
+     * @param value string, or null.
+     */
+    private static void putString(ByteBuffer out, String value){
+        if(value == null){
+            out.putInt(NONE);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putInt(bytes.length).put(bytes);
+    }
+
+    /**
+     * Reads a string written by putString().
+     *
+     * @param in buffer to read from.
+     * @return the string, or null.
+     */
+    private static String getString(ByteBuffer in){
+        int length = in.getInt();
+        if(length == NONE){
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a character's vitals as the level followed by maximum and current hp, mana, and speed.
+     *
+     * @param out    buffer to write into.
+     * @param vitals vitals to be written.
+     */
+    private static void putVitals(ByteBuffer out, BaseCharacter.Vitals vitals){
+        out.putInt(vitals.level())
+                .putDouble(vitals.maxHp()).putDouble(vitals.hp())
+                .putDouble(vitals.maxMana()).putDouble(vitals.mana())
+                .putDouble(vitals.maxSpeed()).putDouble(vitals.speed());
+    }
+
+    /**
+     * Reads vitals written by putVitals().
+     *
+     * @param in buffer to read from.
+     * @return the vitals.
+     */
+    private static BaseCharacter.Vitals getVitals(ByteBuffer in){
+        return new BaseCharacter.Vitals(in.getInt(),
+                in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Retrieves the base stat of a weapon, the main stat it has at level 0.
+     *
+     * @param equipment weapon.
+     * @return base stat of the weapon.
+     */
+    private static double baseStat(Equipment equipment){
+        return equipment instanceof BaseWeapon weapon ? weapon.getTemplate().getBaseStat() : equipment.getMainStat() - 2.5 * equipment.getLevel();
+    }
+}
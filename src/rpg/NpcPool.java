@@ -0,0 +1,445 @@
+package rpg;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * NpcPool class hands out characters, weapons, and accessories for short-lived NPCs and takes them back for reuse,
+ * so tearing down a dungeon instance does not leave thousands of objects for the garbage collector.
+ * Released objects go to free lists of the releasing thread, one per job and per item type, so threads never contend.
+ * A reused object is reset exactly as its constructor leaves a new one.
+ *
+ * Optionally, one acquisition in every leakSampleInterval is tracked with a phantom reference and the stack of the
+ * acquiring thread. A tracked object that becomes unreachable without being released is reported by pollLeaks().
+ *
+ * Releasing a character does not release the items it has equipped, since other characters may hold them too;
+ * the caller releases each item once no character holds it. A released object must no longer be used, equipped,
+ * or held in an inventory by its previous owner. Releasing an object that is already released throws, so one
+ * object never sits twice in the free lists. Free lists belong to platform threads; with a virtual thread per task
+ * they rarely get reused.
+ */
+public final class NpcPool {
+
+    /** Number of free lists per thread: one per job, then one per item type. */
+    private static final int LISTS = JobType.values().length + ItemType.values().length;
+
+    /** Largest number of free objects of one kind a thread keeps; more are left to the garbage collector. */
+    private final int maxPerThread;
+
+    /** One acquisition in this many is tracked for leaks, or 0 when leak detection is off. */
+    private final int leakSampleInterval;
+
+    /** Free lists of each thread. */
+    private final ThreadLocal<FreeLists> free;
+
+    /** Tracked objects by identity hash code, each bucket a chain of leases. */
+    private final ConcurrentHashMap<Integer, Lease> leases = new ConcurrentHashMap<>();
+
+    /** Queue receiving the leases of tracked objects that became unreachable. */
+    private final ReferenceQueue<Object> unreachable = new ReferenceQueue<>();
+
+    /** Leaks found but not yet returned by pollLeaks(). */
+    private final ConcurrentLinkedQueue<Leak> leaks = new ConcurrentLinkedQueue<>();
+
+    /** Counters of acquired, newly created, and released objects, and of leaks found. */
+    private final LongAdder acquired = new LongAdder(), created = new LongAdder(), released = new LongAdder(), leaked = new LongAdder();
+
+    /**
+     * Leak class describes a pooled object that became unreachable without being released.
+     *
+     * @param description kind and name of the object when it was acquired.
+     * @param acquiredAt  stack of the thread that acquired it.
+     */
+    public record Leak(String description, Throwable acquiredAt) {
+    }
+
+    /**
+     * Initializes a new NpcPool.
+     *
+     * @param maxPerThread       largest number of free objects of one kind a thread keeps.
+     * @param leakSampleInterval track one acquisition in this many for leaks, 1 to track all, 0 to turn detection off.
+     * @throws IllegalArgumentException if maxPerThread or leakSampleInterval is negative.
+     */
+    public NpcPool(int maxPerThread, int leakSampleInterval){
+        if(maxPerThread < 0 || leakSampleInterval < 0){
+            throw new IllegalArgumentException("Invalid pool settings: maxPerThread=" + maxPerThread
+                    + ", leakSampleInterval=" + leakSampleInterval);
+        }
+        this.maxPerThread = maxPerThread;
+        this.leakSampleInterval = leakSampleInterval;
+        this.free = ThreadLocal.withInitial(FreeLists::new);
+    }
+
+    /**
+     * Acquires a character of the given job, at level 1 with the initial stats of its job and nothing equipped.
+     *
+     * @param job  job of the character.
+     * @param name name of the character.
+     * @return reset or new character.
+     */
+    public RPGCharacter acquire(JobType job, String name){
+        FreeLists lists = free.get();
+        BaseCharacter character = (BaseCharacter) lists.poll(job.code());
+        if(character == null){
+            character = BaseCharacter.create(job, name);
+            created.increment();
+        }else {
+            character.markAcquired();
+            character.reset(name);
+        }
+        acquired(lists, character, job.getJobName());
+        return character;
+    }
+
+    /**
+     * Acquires a weapon.
+     *
+     * @param type     weapon type.
+     * @param name     name of the weapon.
+     * @param level    level of the weapon.
+     * @param baseStat base stat of the weapon.
+     * @return reset or new weapon.
+     * @throws IllegalArgumentException if type is not a weapon type.
+     */
+    public Equipment acquireEquipment(ItemType type, String name, int level, double baseStat){
+        if(!type.isWeapon()){
+            throw new IllegalArgumentException(type.getDisplayName() + " is not a weapon");
+        }
+        ItemTemplate template = ItemTemplate.ofWeapon(type, name, baseStat);
+        FreeLists lists = free.get();
+        BaseWeapon weapon = (BaseWeapon) lists.poll(itemList(type));
+        if(weapon == null){
+            weapon = (BaseWeapon) template.newItem(level);
+            created.increment();
+        }else {
+            weapon.markAcquired();
+            weapon.reset(template, level);
+        }
+        acquired(lists, weapon, type.getDisplayName());
+        return weapon;
+    }
+
+    /**
+     * Acquires an accessory.
+     *
+     * @param type        accessory type.
+     * @param name        name of the accessory.
+     * @param effectType  type of effect provided by the accessory.
+     * @param effectValue value of the accessory's effect.
+     * @return reset or new accessory.
+     * @throws IllegalArgumentException if type is a weapon type.
+     */
+    public Accessory acquireAccessory(ItemType type, String name, String effectType, double effectValue){
+        if(type.isWeapon()){
+            throw new IllegalArgumentException(type.getDisplayName() + " is not an accessory");
+        }
+        ItemTemplate template = ItemTemplate.ofAccessory(type, name, effectType, effectValue);
+        FreeLists lists = free.get();
+        BaseAccessory accessory = (BaseAccessory) lists.poll(itemList(type));
+        if(accessory == null){
+            accessory = (BaseAccessory) template.newItem(0);
+            created.increment();
+        }else {
+            accessory.markAcquired();
+            accessory.reset(template);
+        }
+        acquired(lists, accessory, type.getDisplayName());
+        return accessory;
+    }
+
+    /**
+     * Releases a character. The character is emptied and taken out of the installed leaderboard and journal
+     * right away. Its equipped items are unequipped and items in its inventory are dropped from the inventory,
+     * but none of them is released: other characters may still hold them.
+     *
+     * @param character character to be released.
+     * @throws IllegalArgumentException if the character is not a pooled kind of character.
+     * @throws IllegalStateException    if the character is released already.
+     */
+    public void release(RPGCharacter character){
+        if(!(character instanceof BaseCharacter base)){
+            throw new IllegalArgumentException("Cannot pool " + character.getClass().getName());
+        }
+        if(!base.markReleased()){
+            throw new IllegalStateException("Character \"" + base.getName() + "\" is released already");
+        }
+        base.reset(base.getName());
+        Leaderboard.onReleased(base);
+        MutationJournal.forget(base);
+        released(base, base.getJobType().code());
+    }
+
+    /**
+     * Releases a weapon. The weapon must no longer be equipped by any character.
+     *
+     * @param equipment weapon to be released.
+     * @throws IllegalArgumentException if the weapon is not a pooled kind of weapon.
+     * @throws IllegalStateException    if the weapon is released already.
+     */
+    public void release(Equipment equipment){
+        if(!(equipment instanceof BaseWeapon weapon)){
+            throw new IllegalArgumentException("Cannot pool " + equipment.getClass().getName());
+        }
+        if(!weapon.markReleased()){
+            throw new IllegalStateException("Weapon \"" + weapon.getName() + "\" is released already");
+        }
+        Inventory.onReleased(weapon);
+        MutationJournal.forget(weapon);
+        released(weapon, itemList(weapon.getItemType()));
+    }
+
+    /**
+     * Releases an accessory. The accessory must no longer be equipped by any character.
+     *
+     * @param accessory accessory to be released.
+     * @throws IllegalArgumentException if the accessory is not a pooled kind of accessory.
+     * @throws IllegalStateException    if the accessory is released already.
+     */
+    public void release(Accessory accessory){
+        if(!(accessory instanceof BaseAccessory base)){
+            throw new IllegalArgumentException("Cannot pool " + accessory.getClass().getName());
+        }
+        if(!base.markReleased()){
+            throw new IllegalStateException("Accessory \"" + base.getName() + "\" is released already");
+        }
+        MutationJournal.forget(base);
+        released(base, itemList(base.getItemType()));
+    }
+
+    /**
+     * Retrieves the leaks found since the last call. Leaks are found once the garbage collector has cleared
+     * the unreleased objects, so a leak may show up some time after the object was dropped.
+     *
+     * @return leaks found, in the order they were found.
+     */
+    public List<Leak> pollLeaks(){
+        expungeUnreachable();
+        List<Leak> found = new ArrayList<>();
+        Leak leak;
+        while((leak = leaks.poll()) != null){
+            found.add(leak);
+        }
+        return found;
+    }
+
+    /**
+     * Retrieves the number of leaks found so far.
+     *
+     * @return number of leaks.
+     */
+    public long getLeakCount(){
+        expungeUnreachable();
+        return leaked.sum();
+    }
+
+    /**
+     * Retrieves the number of acquired objects not released yet.
+     *
+     * @return acquisitions minus releases.
+     */
+    public long getOutstanding(){
+        return acquired.sum() - released.sum();
+    }
+
+    /**
+     * Retrieves the number of objects the pool had to create because no free one was at hand.
+     *
+     * @return number of created objects.
+     */
+    public long getCreated(){
+        return created.sum();
+    }
+
+    /**
+     * Retrieves the number of acquisitions served, new and reused.
+     *
+     * @return number of acquisitions.
+     */
+    public long getAcquired(){
+        return acquired.sum();
+    }
+
+    /**
+     * Retrieves the free list index of an item type.
+     *
+     * @param type item type.
+     * @return free list index.
+     */
+    private static int itemList(ItemType type){
+        return JobType.values().length + type.code();
+    }
+
+    /**
+     * Counts an acquisition and tracks it when it is sampled for leak detection.
+     *
+     * @param lists       free lists of the acquiring thread.
+     * @param pooled      acquired object.
+     * @param description kind of the object.
+     */
+    private void acquired(FreeLists lists, Object pooled, String description){
+        acquired.increment();
+        if(leakSampleInterval == 0){
+            return;
+        }
+        expungeUnreachable();
+        if(++lists.untilSample < leakSampleInterval){
+            return;
+        }
+        lists.untilSample = 0;
+        String name = pooled instanceof RPGCharacter character ? character.getName()
+                : pooled instanceof Equipment equipment ? equipment.getName() : ((Accessory) pooled).getName();
+        Lease lease = new Lease(pooled, unreachable, description + " \"" + name + "\"",
+                new Throwable("Acquired by " + Thread.currentThread().getName()));
+        leases.compute(lease.hash, (hash, head) -> {
+            lease.next = head;
+            return lease;
+        });
+    }
+
+    /**
+     * Counts a release, stops tracking the object, and puts it on the free list of the releasing thread.
+     *
+     * @param pooled released object.
+     * @param list   free list index of the object.
+     */
+    private void released(Object pooled, int list){
+        released.increment();
+        if(leakSampleInterval != 0){
+            leases.computeIfPresent(System.identityHashCode(pooled), (hash, head) -> {
+                for(Lease lease = head; lease != null; lease = lease.next){
+                    if(lease.refersTo(pooled)){
+                        lease.live = false;
+                        return unlink(head, lease);
+                    }
+                }
+                return head;
+            });
+        }
+        free.get().offer(list, pooled, maxPerThread);
+    }
+
+    /**
+     * Records a leak for every tracked object the garbage collector found unreachable.
+     */
+    private void expungeUnreachable(){
+        Reference<?> reference;
+        while((reference = unreachable.poll()) != null){
+            Lease lease = (Lease) reference;
+            leases.computeIfPresent(lease.hash, (hash, head) -> lease.live ? unlink(head, lease) : head);
+            if(lease.live){
+                lease.live = false;
+                leaked.increment();
+                leaks.add(new Leak(lease.description, lease.acquiredAt));
+            }
+        }
+    }
+
+    /**
+     * Removes a lease from its chain.
+     *
+     * @param head  first lease of the chain.
+     * @param lease lease to remove.
+     * @return new first lease, or null if the chain is empty.
+     */
+    private static Lease unlink(Lease head, Lease lease){
+        if(head == lease){
+            return head.next;
+        }
+        for(Lease previous = head; previous.next != null; previous = previous.next){
+            if(previous.next == lease){
+                previous.next = lease.next;
+                break;
+            }
+        }
+        return head;
+    }
+
+    /**
+     * Lease class tracks one acquired object without keeping it reachable.
+     * Leases with the same identity hash code are chained; chains are only changed inside ConcurrentHashMap.compute.
+     */
+    private static final class Lease extends PhantomReference<Object> {
+
+        /** Identity hash code of the tracked object. */
+        final int hash;
+
+        /** Kind and name of the object when it was acquired. */
+        final String description;
+
+        /** Stack of the thread that acquired it. */
+        final Throwable acquiredAt;
+
+        /** Next lease with the same identity hash code. */
+        Lease next;
+
+        /** Whether the object is still acquired; cleared when it is released or reported as a leak. */
+        volatile boolean live = true;
+
+        /**
+         * Initializes a new Lease.
+         *
+         * @param pooled      tracked object.
+         * @param queue       queue receiving the lease once the object is unreachable.
+         * @param description kind and name of the object.
+         * @param acquiredAt  stack of the acquiring thread.
+         */
+        Lease(Object pooled, ReferenceQueue<Object> queue, String description, Throwable acquiredAt){
+            super(pooled, queue);
+            this.hash = System.identityHashCode(pooled);
+            this.description = description;
+            this.acquiredAt = acquiredAt;
+        }
+    }
+
+    /**
+     * FreeLists class holds the free objects of one thread, one stack per job and per item type.
+     */
+    private static final class FreeLists {
+
+        /** Free objects, indexed by free list index. */
+        private final List<ArrayDeque<Object>> lists = new ArrayList<>(LISTS);
+
+        /** Acquisitions since the last one tracked for leaks. */
+        int untilSample;
+
+        /**
+         * Initializes empty free lists.
+         */
+        FreeLists(){
+            for(int i = 0; i < LISTS; i++){
+                lists.add(new ArrayDeque<>());
+            }
+        }
+
+        /**
+         * Takes the most recently released object of a list, the one most likely still in cache.
+         *
+         * @param list free list index.
+         * @return free object, or null if the list is empty.
+         */
+        Object poll(int list){
+            return lists.get(list).pollLast();
+        }
+
+        /**
+         * Puts an object on a list unless the list is full.
+         *
+         * @param list   free list index.
+         * @param pooled released object.
+         * @param max    largest size of the list.
+         */
+        void offer(int list, Object pooled, int max){
+            ArrayDeque<Object> deque = lists.get(list);
+            if(deque.size() < max){
+                deque.addLast(pooled);
+            }
+        }
+    }
+}
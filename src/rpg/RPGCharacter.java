@@ -0,0 +1,1050 @@
+package rpg;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * RPGCharacter interface represents a character in a role-play game.
+ * Defines methods to retrieve the character's name, level, job name, and various actions.
+ * Provides methods to manage and display equipped accessories and equipment, and default method to display the character information.
+ */
+public interface RPGCharacter {
+
+    /**
+     * Retrieves name of the character.
+     *
+     * @return name of the character.
+     */
+    String getName();
+
+    /**
+     * Retrieves level of the character.
+     *
+     * @return level of the character.
+     */
+    int getLevel();
+
+    /**
+     * Retrieves job name of the character.
+     *
+     * @return job name of the character.
+     */
+    String getJobName();
+
+    /**
+     * Retrieves job type of the character.
+     *
+     * @return job type of the character.
+     */
+    JobType getJobType();
+
+    /**
+     * Levels up the character, increasing various attributes.
+     */
+    void levelUp();
+
+    /**
+     * Performs an ability by its id, without downcasting to the job interface.
+     *
+     * @param abilityId id of the ability, one of the AbilityRegistry constants.
+     * @return true if the ability was performed, false if the character's job does not have it.
+     * @throws IllegalArgumentException if no ability has that id.
+     */
+    default boolean perform(int abilityId){
+        return AbilityRegistry.perform(this, abilityId);
+    }
+
+    /**
+     * Retrieves the inventory of items the character carries besides the equipped ones.
+     *
+     * @return inventory of the character.
+     */
+    Inventory getInventory();
+
+    /**
+     * Retrieves an array of equipped accessories.
+     *
+     * @return An array of equipped accessories.
+     */
+    Accessory[] getEquippedAccessory();
+
+    /**
+     * Retrieves an array of equipped equipment.
+     *
+     * @return An array of equipped equipment.
+     */
+    Equipment[] getEquippedEquipment();
+
+    /**
+     * Performs an action for each equipped accessory in amulet, ring, earring order, skipping empty slots.
+     *
+     * @param action action to be performed for each equipped accessory.
+     */
+    default void forEachAccessory(Consumer<? super Accessory> action){
+        for(Accessory acc : getEquippedAccessory()){
+            if(acc != null){
+                action.accept(acc);
+            }
+        }
+    }
+
+    /**
+     * Performs an action for each equipped equipment in main hand, sub hand order, skipping empty slots.
+     *
+     * @param action action to be performed for each equipped equipment.
+     */
+    default void forEachEquipment(Consumer<? super Equipment> action){
+        for(Equipment equ : getEquippedEquipment()){
+            if(equ != null){
+                action.accept(equ);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the item equipped in a slot.
+     *
+     * @param slot slot to look up.
+     * @return equipped item, or null if the slot is empty.
+     */
+    default Object getSlot(Slot slot){
+        return switch (slot) {
+            case MAIN_HAND -> getEquippedEquipmentView().get(0);
+            case SUB_HAND -> getEquippedEquipmentView().get(1);
+            case AMULET -> getEquippedAccessoryView().get(0);
+            case RING -> getEquippedAccessoryView().get(1);
+            case EARRING -> getEquippedAccessoryView().get(2);
+        };
+    }
+
+    /**
+     * Retrieves an unmodifiable list of the accessory slots in amulet, ring, earring order, with null for an empty slot.
+     *
+     * @return An unmodifiable list of equipped accessories.
+     */
+    default List<Accessory> getEquippedAccessoryView(){
+        return Collections.unmodifiableList(Arrays.asList(getEquippedAccessory()));
+    }
+
+    /**
+     * Retrieves an unmodifiable list of the equipment slots in main hand, sub hand order, with null for an empty slot.
+     *
+     * @return An unmodifiable list of equipped equipment.
+     */
+    default List<Equipment> getEquippedEquipmentView(){
+        return Collections.unmodifiableList(Arrays.asList(getEquippedEquipment()));
+    }
+
+    /**
+     * Equips the provided accessory to the character.
+     *
+     * @param accessory The accessory to be equipped.
+     */
+    void equipAccessory(Accessory accessory);
+
+    /**
+     * Equips the provided equipment to the character.
+     *
+     * @param equipment The equipment to be equipped.
+     */
+    void equipEquipment(Equipment equipment);
+
+    /**
+     * Displays the character's stats.
+     */
+    void showStats();
+
+    /**
+     * Retrieves an immutable snapshot of the character and its equipped items, which stays consistent while other
+     * threads change the character.
+     * A BaseCharacter hands out the snapshot it last published. Once a snapshot was asked for, it publishes a new one
+     * at the end of every mutation and of every batch(), never in the middle of a batch, so readers see each batch
+     * as a whole.
+     *
+     * @return snapshot of the character.
+     */
+    default CharacterSnapshot snapshot(){
+        return CharacterSnapshot.of(this);
+    }
+
+    /**
+     * Runs several changes to the character as one batch: snapshot() hands out the state before the batch until it
+     * ends, then publishes one snapshot with all of its changes.
+     *
+     * @param mutations changes to be applied to the character.
+     */
+    default void batch(Consumer<? super RPGCharacter> mutations){
+        mutations.accept(this);
+    }
+
+    /**
+     * Levels up every character in the collection once, with the same result as calling levelUp() on each of them.
+     * Characters backed by a CharacterTable are grouped per table and updated column by column,
+     * and characters extending BaseCharacter are updated without console output.
+     *
+     * @param characters characters to be leveled up.
+     */
+    static void levelUpAll(Collection<? extends RPGCharacter> characters){
+        Map<CharacterTable, int[]> rowsByTable = new IdentityHashMap<>();
+        Map<CharacterTable, Integer> countByTable = new IdentityHashMap<>();
+        for(RPGCharacter character : characters){
+            if(character instanceof TableCharacter view){
+                int count = countByTable.getOrDefault(view.table, 0);
+                int[] rows = rowsByTable.computeIfAbsent(view.table, table -> new int[16]);
+                if(count == rows.length){
+                    rows = Arrays.copyOf(rows, count * 2);
+                    rowsByTable.put(view.table, rows);
+                }
+                rows[count] = view.row;
+                countByTable.put(view.table, count + 1);
+            }else if(character instanceof BaseCharacter base){
+                base.applyLevelUp();
+            }else {
+                character.levelUp();
+            }
+        }
+        rowsByTable.forEach((table, rows) -> table.levelUpRows(rows, countByTable.get(table)));
+    }
+
+    /**
+     * Displays detailed information about the character, including name, job, stats, and equipped items to the console.
+     * Characters the renderer does not know print their stats with showStats() and their items from the getters.
+     */
+    default void showCharacterInfo(){
+        if(CharacterSheetRenderer.canRender(this)){
+            System.out.print(CharacterSheetRenderer.appendText(this, new StringBuilder(256)));
+            return;
+        }
+        System.out.print(CharacterSheetRenderer.appendHeader(this, new StringBuilder(64)));
+        showStats();
+        System.out.print(CharacterSheetRenderer.appendItems(getEquippedAccessory(), getEquippedEquipment(), new StringBuilder(128)));
+    }
+}
+
+/**
+ * BaseCharacter abstract class provides a base implementation of the RPGCharacter interface.
+ * Includes attributes for the character's name, level, base statistics, and equipped items.
+ * Provides methods for leveling up, equipping accessories and equipment, and displaying stats.
+ * All methods are safe to call from several threads: level and stats live in an immutable Vitals object replaced by
+ * compare-and-set, and slots are swapped atomically, so no update is lost and readers never block writers.
+ */
+abstract class BaseCharacter implements RPGCharacter{
+
+    /** VarHandles for the compare-and-set and atomic increment of the fields below. */
+    private static final VarHandle VITALS, LEVEL_STAMP, EQUIPMENT_STAMP, ACCESSORY_STAMP, INVENTORY,
+            PUBLISHED, BATCH_DEPTH, BATCH_EPOCH, POOLED;
+
+    /** VarHandle for atomic access to the elements of the slot array. */
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VITALS = lookup.findVarHandle(BaseCharacter.class, "vitals", Vitals.class);
+            LEVEL_STAMP = lookup.findVarHandle(BaseCharacter.class, "levelStamp", int.class);
+            EQUIPMENT_STAMP = lookup.findVarHandle(BaseCharacter.class, "equipmentStamp", int.class);
+            ACCESSORY_STAMP = lookup.findVarHandle(BaseCharacter.class, "accessoryStamp", int.class);
+            INVENTORY = lookup.findVarHandle(BaseCharacter.class, "inventory", Inventory.class);
+            PUBLISHED = lookup.findVarHandle(BaseCharacter.class, "published", Published.class);
+            BATCH_DEPTH = lookup.findVarHandle(BaseCharacter.class, "batchDepth", int.class);
+            BATCH_EPOCH = lookup.findVarHandle(BaseCharacter.class, "batchEpoch", int.class);
+            POOLED = lookup.findVarHandle(BaseCharacter.class, "pooled", boolean.class);
+        }catch (ReflectiveOperationException e){
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Name of the character, replaced only when a pooled character is reset. */
+    private volatile String name;
+
+    /** Base speed of the character. */
+    private final double baseSpeed;
+
+    /** Level, hp, mana, and speed of the character, replaced as a whole on every change. */
+    private volatile Vitals vitals;
+
+    /** Equipped items indexed by Slot ordinal: main hand, sub hand, amulet, ring, and earring. */
+    private final Object[] slots;
+
+    /** Version stamps of the level and of the equipment and accessory slots, raised whenever they change. */
+    private volatile int levelStamp, equipmentStamp, accessoryStamp;
+
+    /** Derived stats, cached until one of the stamps they were computed from changes. */
+    private volatile EffectiveStats effectiveStats;
+
+    /** Cached unmodifiable views of the accessory and equipment slots, rebuilt when their stamp changes. */
+    private volatile SlotView<Accessory> accessoryView;
+    private volatile SlotView<Equipment> equipmentView;
+
+    /** Inventory of the character, created the first time it is asked for. */
+    private volatile Inventory inventory;
+
+    /** Snapshot last published, with the state it was taken from, or null before the first one. */
+    private volatile Published published;
+
+    /** Number of batches running, and a counter raised when a batch starts and when it ends. */
+    private volatile int batchDepth, batchEpoch;
+
+    /** Whether the character was released to an NpcPool and not acquired again. */
+    private volatile boolean pooled;
+
+    /**
+     * Initializes a new BaseCharacter with the provided values.
+     *
+     * @param name      name of the character.
+     * @param level     level of the character.
+     * @param maxHp     maximum hit points of the character.
+     * @param maxMana   maximum mana points of the character.
+     * @param baseSpeed base speed of the character.
+     */
+    BaseCharacter(String name, int level, double maxHp, double maxMana, double baseSpeed){
+        this.name = name;
+        this.baseSpeed = baseSpeed;
+        this.vitals = Vitals.initial(level, maxHp, maxMana, baseSpeed);
+        this.slots = new Object[Slot.COUNT];
+    }
+
+    /**
+     * Retrieves the vitals a new character of this job starts with.
+     *
+     * @return initial vitals of the job.
+     */
+    abstract Vitals initialVitals();
+
+    /**
+     * Turns the character back into a new character of its job with another name, as the constructor leaves it:
+     * initial vitals, empty slots, and an empty inventory. Every stamp is raised, so no cached stats or views survive.
+     * Used by NpcPool; the caller must make sure no other thread uses the character meanwhile.
+     *
+     * @param newName name of the reset character.
+     */
+    void reset(String newName){
+        name = newName;
+        vitals = initialVitals();
+        for(int i = 0; i < Slot.COUNT; i++){
+            SLOTS.setVolatile(slots, i, null);
+        }
+        Inventory current = inventory;
+        if(current != null){
+            current.clear();
+        }
+        LEVEL_STAMP.getAndAdd(this, 1);
+        EQUIPMENT_STAMP.getAndAdd(this, 1);
+        ACCESSORY_STAMP.getAndAdd(this, 1);
+        publishChange();
+    }
+
+    /**
+     * Marks the character as released to an NpcPool.
+     *
+     * @return true if the character was in use, false if it was released already.
+     */
+    boolean markReleased(){
+        return POOLED.compareAndSet(this, false, true);
+    }
+
+    /**
+     * Marks the character as handed out again by an NpcPool.
+     */
+    void markAcquired(){
+        pooled = false;
+    }
+
+    /**
+     * Creates a new character of the given job with the initial base stats of that job at level 1.
+     *
+     * @param job  job of the character.
+     * @param name name of the character.
+     * @return new WarriorCharacter, MageCharacter, or ArcherCharacter.
+     */
+    static BaseCharacter create(JobType job, String name){
+        return switch (job) {
+            case WARRIOR -> new WarriorCharacter(name);
+            case MAGE -> new MageCharacter(name);
+            case ARCHER -> new ArcherCharacter(name);
+        };
+    }
+
+    /**
+     * Displays the character's stats, including level, hp, maxHp, mana, maxMana, baseSpeed, speed, and maxSpeed.
+     * All values come from one consistent Vitals, even while other threads level the character up.
+     */
+    public void showStats() {
+        System.out.print(CharacterSheetRenderer.appendStats(this, new StringBuilder(128)));
+    }
+
+    /**
+     * Retrieves name of the character.
+     *
+     * @return name of the character.
+     */
+    public String getName(){
+        return name;
+    }
+
+    /**
+     * Retrieves level of the character.
+     *
+     * @return level of the character.
+     */
+    public int getLevel(){
+        return vitals.level();
+    }
+
+    /**
+     * Retrieves the inventory of the character, creating it on first use.
+     *
+     * @return inventory of the character.
+     */
+    public Inventory getInventory(){
+        Inventory current = inventory;
+        if(current == null){
+            Inventory created = new Inventory();
+            current = INVENTORY.compareAndSet(this, null, created) ? created : inventory;
+        }
+        return current;
+    }
+
+    /**
+     * Retrieves level, hp, mana, and speed of the character as one consistent value.
+     *
+     * @return current vitals of the character.
+     */
+    Vitals getVitals(){
+        return vitals;
+    }
+
+    /**
+     * Retrieves current hp of the character.
+     *
+     * @return current hp of the character.
+     */
+    public double getHp(){
+        return vitals.hp();
+    }
+
+    /**
+     * Retrieves maximum hp of the character.
+     *
+     * @return maximum hp of the character.
+     */
+    public double getMaxHp(){
+        return vitals.maxHp();
+    }
+
+    /**
+     * Retrieves current mana of the character.
+     *
+     * @return current mana of the character.
+     */
+    public double getMana(){
+        return vitals.mana();
+    }
+
+    /**
+     * Retrieves maximum mana of the character.
+     *
+     * @return maximum mana of the character.
+     */
+    public double getMaxMana(){
+        return vitals.maxMana();
+    }
+
+    /**
+     * Retrieves base speed of the character.
+     *
+     * @return base speed of the character.
+     */
+    public double getBaseSpeed(){
+        return baseSpeed;
+    }
+
+    /**
+     * Retrieves current speed of the character.
+     *
+     * @return current speed of the character.
+     */
+    public double getSpeed(){
+        return vitals.speed();
+    }
+
+    /**
+     * Retrieves maximum speed of the character.
+     *
+     * @return maximum speed of the character.
+     */
+    public double getMaxSpeed(){
+        return vitals.maxSpeed();
+    }
+
+    /**
+     * Retrieves the character's stats combined with its equipped weapons and accessories.
+     * The result is cached and only recomputed, part by part, after a level up, an equip, or an upgrade of an equipped weapon.
+     *
+     * @return effective stats of the character.
+     */
+    public EffectiveStats getEffectiveStats(){
+        EffectiveStats stats = effectiveStats;
+        if(stats == null || !stats.isCurrent(this)){
+            stats = EffectiveStats.refresh(this, stats);
+            effectiveStats = stats;
+        }
+        return stats;
+    }
+
+    /**
+     * Retrieves the version stamp of the level, raised whenever it changes.
+     *
+     * @return level stamp.
+     */
+    int getLevelStamp(){
+        return levelStamp;
+    }
+
+    /**
+     * Retrieves the version stamp of the equipment slots, raised whenever it changes.
+     *
+     * @return equipment stamp.
+     */
+    int getEquipmentStamp(){
+        return equipmentStamp;
+    }
+
+    /**
+     * Retrieves the version stamp of the accessory slots, raised whenever it changes.
+     *
+     * @return accessory stamp.
+     */
+    int getAccessoryStamp(){
+        return accessoryStamp;
+    }
+
+    /**
+     * Levels up the character, increasing level, hp, maxHp, mana, maxMana, maxSpeed, and speed.
+     */
+    public void levelUp(){
+        long start = GameMetrics.start(GameMetrics.Operation.LEVEL_UP);
+        applyLevelUp();
+        GameEvents.publish(GameEventType.LEVEL_UP, this, null);
+        GameMetrics.leveledUp(this, start);
+    }
+
+    /**
+     * Applies the stat growth of one level without any console output.
+     * Retries the compare-and-set until it wins, so concurrent level ups are never lost.
+     */
+    void applyLevelUp(){
+        Vitals current;
+        do {
+            current = vitals;
+        } while(!VITALS.compareAndSet(this, current, current.levelUp()));
+        LEVEL_STAMP.getAndAdd(this, 1);
+        Leaderboard.onLevelUp(this);
+        publishChange();
+        MutationJournal.recordLevelUp(this);
+    }
+
+    /**
+     * Equips the provided accessory to the character, into the slot of its item type.
+     *
+     * @param accessory accessory to be equipped.
+     */
+    public void equipAccessory(Accessory accessory){
+        swapAccessory(accessory);
+    }
+
+    /**
+     * Atomically equips the provided accessory into the slot of its item type and returns the accessory it replaced.
+     *
+     * @param accessory accessory to be equipped.
+     * @return previously equipped accessory of that slot, or null if the slot was empty or nothing was equipped.
+     */
+    public Accessory swapAccessory(Accessory accessory){
+        if(accessory == null){
+            return null;
+        }
+        ItemType type = accessory.getItemType();
+        if(!getJobType().canEquip(type)){
+            return null;
+        }
+        long start = GameMetrics.start(GameMetrics.Operation.EQUIP_ACCESSORY);
+        Accessory previous = (Accessory) SLOTS.getAndSet(slots, type.getSlot().ordinal(), accessory);
+        ACCESSORY_STAMP.getAndAdd(this, 1);
+        publishChange();
+        MutationJournal.recordEquip(this, type.getSlot());
+        GameEvents.publish(GameEventType.EQUIP_ACCESSORY, this, accessory);
+        GameMetrics.equipped(this, accessory, start);
+        return previous;
+    }
+
+    /**
+     * Equips the provided equipment to the character, into the slot of its item type.
+     * Equipment that the character's job cannot equip is rejected.
+     *
+     * @param equipment equipment to be equipped.
+     */
+    public void equipEquipment(Equipment equipment){
+        swapEquipment(equipment);
+    }
+
+    /**
+     * Atomically equips the provided equipment into the slot of its item type and returns the equipment it replaced.
+     * Equipment that the character's job cannot equip is rejected.
+     *
+     * @param equipment equipment to be equipped.
+     * @return previously equipped equipment of that slot, or null if the slot was empty or the equipment was rejected.
+     */
+    public Equipment swapEquipment(Equipment equipment){
+        long start = GameMetrics.start(GameMetrics.Operation.EQUIP_EQUIPMENT);
+        if(equipment != null){
+            ItemType type = equipment.getItemType();
+            if(getJobType().canEquip(type)){
+                Equipment previous = (Equipment) SLOTS.getAndSet(slots, type.getSlot().ordinal(), equipment);
+                EQUIPMENT_STAMP.getAndAdd(this, 1);
+                publishChange();
+                MutationJournal.recordEquip(this, type.getSlot());
+                GameEvents.publish(GameEventType.EQUIP_EQUIPMENT, this, equipment);
+                GameMetrics.equipped(this, equipment, start);
+                return previous;
+            }
+        }
+        GameEvents.publish(GameEventType.EQUIP_REJECTED, this, equipment);
+        GameMetrics.rejected(this, equipment, start);
+        return null;
+    }
+
+    /**
+     * Retrieves the snapshot last published. Mutations and batches publish when they end, but a weapon upgrade does
+     * not know who holds the weapon, so a snapshot whose weapon was upgraded since is replaced here, unless a batch
+     * is running. Never locks, and allocates only when a new snapshot is published.
+     *
+     * @return snapshot of the character.
+     */
+    @Override
+    public CharacterSnapshot snapshot(){
+        while(true){
+            int epoch = batchEpoch;
+            Published current = published;
+            if(current != null && (batchDepth > 0 || current.isCurrent(this))){
+                return current.snapshot();
+            }
+            Published next = Published.capture(this, current);
+            if(batchEpoch == epoch && PUBLISHED.compareAndSet(this, current, next)){
+                return next.snapshot();
+            }
+        }
+    }
+
+    /**
+     * Runs several changes to the character as one batch, then publishes one snapshot holding all of them.
+     * Until then, snapshot() keeps handing out the snapshot from before the batch.
+     *
+     * @param mutations changes to be applied to the character.
+     */
+    @Override
+    public void batch(Consumer<? super RPGCharacter> mutations){
+        snapshot();
+        BATCH_DEPTH.getAndAdd(this, 1);
+        BATCH_EPOCH.getAndAdd(this, 1);
+        try {
+            mutations.accept(this);
+        }finally {
+            BATCH_EPOCH.getAndAdd(this, 1);
+            BATCH_DEPTH.getAndAdd(this, -1);
+        }
+        snapshot();
+    }
+
+    /**
+     * Publishes a new snapshot after a mutation made outside any batch. Characters nobody asked for a snapshot of
+     * skip it, so they never allocate one.
+     */
+    private void publishChange(){
+        if(published != null && batchDepth == 0){
+            snapshot();
+        }
+    }
+
+    /**
+     * Replaces level, hp, mana, and speed without any console output, for example when loading a saved character.
+     *
+     * @param restored vitals to be set.
+     */
+    void restoreVitals(Vitals restored){
+        vitals = restored;
+        LEVEL_STAMP.getAndAdd(this, 1);
+        publishChange();
+    }
+
+    /**
+     * Puts an item into a slot without job checks or console output, for example when loading a saved character.
+     *
+     * @param slot slot to be filled.
+     * @param item item to be put into the slot, or null to empty it.
+     */
+    void restoreSlot(Slot slot, Object item){
+        SLOTS.setVolatile(slots, slot.ordinal(), item);
+        if(slot == Slot.MAIN_HAND || slot == Slot.SUB_HAND){
+            EQUIPMENT_STAMP.getAndAdd(this, 1);
+        }else {
+            ACCESSORY_STAMP.getAndAdd(this, 1);
+        }
+        publishChange();
+    }
+
+    /**
+     * Retrieves the item equipped in a slot.
+     *
+     * @param slot slot to look up.
+     * @return equipped item, or null if the slot is empty.
+     */
+    @Override
+    public Object getSlot(Slot slot){
+        return SLOTS.getVolatile(slots, slot.ordinal());
+    }
+
+    /**
+     * Retrieves an array of equipped accessories.
+     * Kept for compatibility, allocates a new array on every call; prefer forEachAccessory or getEquippedAccessoryView.
+     *
+     * @return An array of equipped accessories.
+     */
+    public Accessory[] getEquippedAccessory(){
+        return getEquippedAccessoryView().toArray(new Accessory[3]);
+    }
+
+    /**
+     * Retrieves an array of equipped equipment.
+     * Kept for compatibility, allocates a new array on every call; prefer forEachEquipment or getEquippedEquipmentView.
+     *
+     * @return An array of equipped equipment.
+     */
+    public Equipment[] getEquippedEquipment(){
+        return getEquippedEquipmentView().toArray(new Equipment[2]);
+    }
+
+    /**
+     * Retrieves an unmodifiable list of the accessory slots, rebuilt only after an accessory slot changed.
+     *
+     * @return An unmodifiable list of equipped accessories.
+     */
+    @Override
+    public List<Accessory> getEquippedAccessoryView(){
+        SlotView<Accessory> view = accessoryView;
+        int stamp = accessoryStamp;
+        if(view == null || view.stamp() != stamp){
+            view = new SlotView<>(stamp, Collections.unmodifiableList(Arrays.asList((Accessory) getSlot(Slot.AMULET),
+                    (Accessory) getSlot(Slot.RING), (Accessory) getSlot(Slot.EARRING))));
+            accessoryView = view;
+        }
+        return view.items();
+    }
+
+    /**
+     * Retrieves an unmodifiable list of the equipment slots, rebuilt only after an equipment slot changed.
+     *
+     * @return An unmodifiable list of equipped equipment.
+     */
+    @Override
+    public List<Equipment> getEquippedEquipmentView(){
+        SlotView<Equipment> view = equipmentView;
+        int stamp = equipmentStamp;
+        if(view == null || view.stamp() != stamp){
+            view = new SlotView<>(stamp, Collections.unmodifiableList(Arrays.asList((Equipment) getSlot(Slot.MAIN_HAND),
+                    (Equipment) getSlot(Slot.SUB_HAND))));
+            equipmentView = view;
+        }
+        return view.items();
+    }
+
+    /**
+     * Performs an action for each equipped accessory, reading the slots directly without allocating.
+     *
+     * @param action action to be performed for each equipped accessory.
+     */
+    @Override
+    public void forEachAccessory(Consumer<? super Accessory> action){
+        for(int i = Slot.AMULET.ordinal(); i <= Slot.EARRING.ordinal(); i++){
+            Object item = SLOTS.getVolatile(slots, i);
+            if(item != null) action.accept((Accessory) item);
+        }
+    }
+
+    /**
+     * Performs an action for each equipped equipment, reading the slots directly without allocating.
+     *
+     * @param action action to be performed for each equipped equipment.
+     */
+    @Override
+    public void forEachEquipment(Consumer<? super Equipment> action){
+        for(int i = Slot.MAIN_HAND.ordinal(); i <= Slot.SUB_HAND.ordinal(); i++){
+            Object item = SLOTS.getVolatile(slots, i);
+            if(item != null) action.accept((Equipment) item);
+        }
+    }
+
+    /**
+     * Vitals record holds the level, hp, mana, and speed of a character. It is immutable, so a reader always sees
+     * values that belong together.
+     *
+     * @param level    level of the character.
+     * @param maxHp    maximum hp of the character.
+     * @param hp       current hp of the character.
+     * @param maxMana  maximum mana of the character.
+     * @param mana     current mana of the character.
+     * @param maxSpeed maximum speed of the character.
+     * @param speed    current speed of the character.
+     */
+    record Vitals(int level, double maxHp, double hp, double maxMana, double mana, double maxSpeed, double speed){
+
+        /**
+         * Retrieves the vitals one level higher: +10 hp, +5 mana, and +1.5 speed.
+         *
+         * @return vitals after a level up.
+         */
+        Vitals levelUp(){
+            return new Vitals(level + 1, maxHp + 10, hp + 10, maxMana + 5, mana + 5, maxSpeed + 1.5, speed + 1.5);
+        }
+
+        /**
+         * Retrieves the vitals of a new character: full hp and mana, and the speed of its level.
+         *
+         * @param level     level of the character.
+         * @param maxHp     maximum hit points of the character.
+         * @param maxMana   maximum mana points of the character.
+         * @param baseSpeed base speed of the character.
+         * @return initial vitals.
+         */
+        static Vitals initial(int level, double maxHp, double maxMana, double baseSpeed){
+            double maxSpeed = baseSpeed + (1.5 * (level - 1));
+            return new Vitals(level, maxHp, maxHp, maxMana, maxMana, maxSpeed, maxSpeed);
+        }
+    }
+
+    /**
+     * Published record pairs a published snapshot with the state it was taken from, so a reader can tell whether
+     * the character changed since without building a new snapshot.
+     *
+     * @param snapshot       published snapshot.
+     * @param name           name the snapshot was taken with.
+     * @param vitals         vitals the snapshot was taken from.
+     * @param equipmentStamp equipment stamp when the snapshot was taken.
+     * @param accessoryStamp accessory stamp when the snapshot was taken.
+     * @param mainVersion    stat version of the main hand weapon, 0 for none.
+     * @param subVersion     stat version of the sub hand weapon, 0 for none.
+     */
+    private record Published(CharacterSnapshot snapshot, String name, Vitals vitals, int equipmentStamp, int accessoryStamp,
+                             int mainVersion, int subVersion){
+
+        /**
+         * Takes a snapshot of a character, reusing the item copies of the previous snapshot whose slots did not change.
+         * Stamps and versions are read before the values they guard, so a change made meanwhile is seen as a change
+         * by the next isCurrent().
+         *
+         * @param character character to copy.
+         * @param previous  previously published snapshot, or null.
+         * @return new snapshot with its state.
+         */
+        static Published capture(BaseCharacter character, Published previous){
+            int equipmentStamp = character.equipmentStamp;
+            int accessoryStamp = character.accessoryStamp;
+            Vitals v = character.vitals;
+            String name = character.name;
+            Object main = character.getSlot(Slot.MAIN_HAND), sub = character.getSlot(Slot.SUB_HAND);
+            int mainVersion = statVersion(main), subVersion = statVersion(sub);
+
+            EquipmentSnapshot mainHand, subHand, amulet, ring, earring;
+            if(previous != null && previous.equipmentStamp == equipmentStamp
+                    && previous.mainVersion == mainVersion && previous.subVersion == subVersion){
+                mainHand = previous.snapshot.mainHand();
+                subHand = previous.snapshot.subHand();
+            }else {
+                mainHand = EquipmentSnapshot.of(main);
+                subHand = EquipmentSnapshot.of(sub);
+            }
+            if(previous != null && previous.accessoryStamp == accessoryStamp){
+                amulet = previous.snapshot.amulet();
+                ring = previous.snapshot.ring();
+                earring = previous.snapshot.earring();
+            }else {
+                amulet = EquipmentSnapshot.of(character.getSlot(Slot.AMULET));
+                ring = EquipmentSnapshot.of(character.getSlot(Slot.RING));
+                earring = EquipmentSnapshot.of(character.getSlot(Slot.EARRING));
+            }
+            CharacterSnapshot snapshot = new CharacterSnapshot(name, character.getJobType(), v.level(), v.hp(), v.maxHp(),
+                    v.mana(), v.maxMana(), character.getBaseSpeed(), v.speed(), v.maxSpeed(),
+                    mainHand, subHand, amulet, ring, earring);
+            return new Published(snapshot, name, v, equipmentStamp, accessoryStamp, mainVersion, subVersion);
+        }
+
+        /**
+         * Checks whether the character is still in the state the snapshot was taken from.
+         *
+         * @param character character the snapshot was taken of.
+         * @return true if nothing in the snapshot changed.
+         */
+        boolean isCurrent(BaseCharacter character){
+            return vitals == character.vitals
+                    && equipmentStamp == character.equipmentStamp
+                    && accessoryStamp == character.accessoryStamp
+                    && name == character.name
+                    && mainVersion == statVersion(character.getSlot(Slot.MAIN_HAND))
+                    && subVersion == statVersion(character.getSlot(Slot.SUB_HAND));
+        }
+
+        /**
+         * Retrieves the stat version of an equipped weapon.
+         *
+         * @param item equipped weapon, or null.
+         * @return stat version of the weapon, 0 for an empty slot.
+         */
+        private static int statVersion(Object item){
+            return item == null ? 0 : ((Equipment) item).getStatVersion();
+        }
+    }
+
+    /**
+     * SlotView record pairs a cached slot list with the slot stamp it was built at.
+     *
+     * @param stamp stamp of the slots when the list was built.
+     * @param items unmodifiable list of the slots.
+     */
+    private record SlotView<T>(int stamp, List<T> items){
+    }
+}
+
+/**
+ * WarriorCharacter class represents a character of type Warrior, extending the BaseCharacter class.
+ * Provides a constructor to initialize the warrior character with specific values.
+ */
+class WarriorCharacter extends BaseCharacter implements Warrior{
+
+    /** Vitals of a new warrior: level 1, 150 hp, 25 mana, and speed 100. */
+    private static final Vitals INITIAL = Vitals.initial(1, 150, 25, 100);
+
+    /**
+     * Initializes a new WarriorCharacter with name and the initial base stats of a warrior job at level 1.
+     *
+     * @param name name of the warrior character.
+     */
+    WarriorCharacter(String name){
+        super(name, 1, 150, 25, 100);
+    }
+
+    /**
+     * Retrieves the vitals a new warrior starts with.
+     *
+     * @return initial vitals of a warrior.
+     */
+    @Override
+    Vitals initialVitals(){
+        return INITIAL;
+    }
+
+    /**
+     * Performs a Slash ability.
+     */
+    public void slash() {
+        perform(AbilityRegistry.SLASH);
+    }
+
+    /**
+     * Performs a Block ability.
+     */
+    public void block() {
+        perform(AbilityRegistry.BLOCK);
+    }
+}
+
+/**
+ * MageCharacter class represents a character of type Mage, extending the BaseCharacter class.
+ * Provides a constructor to initialize the mage character with specific values.
+ */
+class MageCharacter extends  BaseCharacter implements  Mage{
+
+    /** Vitals of a new mage: level 1, 50 hp, 125 mana, and speed 80. */
+    private static final Vitals INITIAL = Vitals.initial(1, 50, 125, 80);
+
+    /**
+     * Initializes a new MageCharacter with name and the initial base stats of a mage job at level 1.
+     *
+     * @param name name of the mage character.
+     */
+    MageCharacter(String name) {
+        super(name, 1, 50, 125, 80);
+    }
+
+    /**
+     * Retrieves the vitals a new mage starts with.
+     *
+     * @return initial vitals of a mage.
+     */
+    @Override
+    Vitals initialVitals(){
+        return INITIAL;
+    }
+
+    /**
+     * Performs a Cast Spell ability.
+     */
+    public void castSpell() {
+        perform(AbilityRegistry.CAST_SPELL);
+    }
+
+    /**
+     * Performs a Teleport ability.
+     */
+    public void teleport() {
+        perform(AbilityRegistry.TELEPORT);
+    }
+}
+
+/**
+ * ArcherCharacter class represents a character of type Archer, extending the BaseCharacter class.
+ * Provides a constructor to initialize the archer character with specific values.
+ */
+class ArcherCharacter extends BaseCharacter implements  Archer{
+
+    /** Vitals of a new archer: level 1, 100 hp, 75 mana, and speed 150. */
+    private static final Vitals INITIAL = Vitals.initial(1, 100, 75, 150);
+
+    /**
+     * Initializes a new ArcherCharacter with name and the initial base stats of an archer job at level 1.
+     *
+     * @param name name of the archer character.
+     */
+    ArcherCharacter(String name) {
+        super(name, 1, 100, 75, 150);
+    }
+
+    /**
+     * Retrieves the vitals a new archer starts with.
+     *
+     * @return initial vitals of a archer.
+     */
+    @Override
+    Vitals initialVitals(){
+        return INITIAL;
+    }
+
+    /**
+     * Performs a Shot ability.
+     */
+    public void shot() {
+        perform(AbilityRegistry.SHOT);
+    }
+
+    /**
+     * Performs a Dodge ability.
+     */
+    public void dodge() {
+        perform(AbilityRegistry.DODGE);
+    }
+}
@@ -0,0 +1,153 @@
+package rpg;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ServiceLoadTest class drives a CharacterService on this machine with many pipelined client connections and reports
+ * throughput and round-trip latency. It starts its own service unless a port is given.
+ * Run it with: java rpg.ServiceLoadTest [--connections N] [--requests N] [--pipeline N] [--idle N] [--port N].
+ */
+public class ServiceLoadTest {
+
+    /**
+     * Runs the load test and prints its report. Exits with status 1 if any request failed.
+     *
+     * @param args options, see the class description.
+     * @throws Exception if the service cannot be started or a connection cannot be opened.
+     */
+    public static void main(String[] args) throws Exception {
+        int connections = option(args, "--connections", 1000);
+        int requests = option(args, "--requests", 1000);
+        int pipeline = option(args, "--pipeline", 32);
+        int idle = option(args, "--idle", 1000);
+        int port = option(args, "--port", 0);
+
+        GameEvents.setSink(new NoOpEventSink());
+        CharacterService service = port == 0 ? CharacterService.start(0) : null;
+        int target = service != null ? service.getPort() : port;
+
+        List<CharacterServiceClient> idleClients = new ArrayList<>(idle);
+        long heapBefore = usedHeap();
+        for(int i = 0; i < idle; i++){
+            idleClients.add(new CharacterServiceClient(target));
+        }
+        long idleHeap = usedHeap() - heapBefore;
+
+        AtomicInteger failures = new AtomicInteger();
+        long[][] latencies = new long[connections][];
+        Thread[] threads = new Thread[connections];
+        long start = System.nanoTime();
+        for(int c = 0; c < connections; c++){
+            int connection = c;
+            threads[c] = Thread.ofVirtual().start(() -> latencies[connection] = drive(target, connection, requests, pipeline, failures));
+        }
+        for(Thread thread : threads){
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] all = Arrays.stream(latencies).filter(batch -> batch != null).flatMapToLong(Arrays::stream).sorted().toArray();
+        long total = (long) connections * requests;
+        System.out.println("Connections : " + connections + " active, " + idle + " idle");
+        System.out.println("Requests : " + total + " in " + elapsed / 1_000_000 + " ms, pipeline depth " + pipeline);
+        System.out.println("Throughput : " + Math.round(total / (elapsed / 1e9)) + " requests/s");
+        if(all.length > 0){
+            System.out.println("Batch round trip : p50 " + all[all.length / 2] / 1_000 + " us, p99 "
+                    + all[(int) Math.ceil(all.length * 0.99) - 1] / 1_000 + " us, max " + all[all.length - 1] / 1_000 + " us");
+        }
+        System.out.println("Idle connection heap : about " + Math.max(0, idleHeap) / Math.max(1, idle) + " bytes each, client and service side together");
+        System.out.println("Failures : " + failures.get());
+        if(service != null){
+            System.out.println("Left on service : " + service.getCharacterCount() + " characters, " + service.getEquipmentCount() + " equipment");
+        }
+
+        for(CharacterServiceClient client : idleClients){
+            client.close();
+        }
+        if(service != null){
+            service.close();
+        }
+        if(failures.get() > 0){
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs one connection: creates a warrior with a sword, then sends level ups and upgrades in pipelined batches,
+     * and deletes the warrior at the end so the service does not keep it.
+     *
+     * @param port       port of the service.
+     * @param connection number of the connection.
+     * @param requests   number of requests to send after the setup.
+     * @param pipeline   number of requests per batch.
+     * @param failures   counter of failed requests.
+     * @return round-trip time of every batch in nanoseconds.
+     */
+    private static long[] drive(int port, int connection, int requests, int pipeline, AtomicInteger failures){
+        long[] latencies = new long[(requests + pipeline - 1) / pipeline];
+        try(CharacterServiceClient client = new CharacterServiceClient(port)){
+            int character = client.createCharacter(JobType.WARRIOR, "Load" + connection);
+            int sword = client.equipEquipment(character, ItemType.SWORD, "Load Sword", 1, 10);
+            int sent = 0, batch = 0;
+            while(sent < requests){
+                int size = Math.min(pipeline, requests - sent);
+                long start = System.nanoTime();
+                for(int i = 0; i < size; i++){
+                    int n = sent + i;
+                    if(n % 100 == 99){
+                        client.sendShowCharacterInfo(character);
+                    }else if(n % 2 == 0){
+                        client.sendLevelUp(character);
+                    }else {
+                        client.sendUpgrade(sword);
+                    }
+                }
+                client.flush();
+                for(int i = 0; i < size; i++){
+                    if(!client.receive().isOk()){
+                        failures.incrementAndGet();
+                    }
+                }
+                latencies[batch++] = System.nanoTime() - start;
+                sent += size;
+            }
+            client.deleteCharacter(character);
+        }catch (IOException | IllegalStateException e){
+            failures.incrementAndGet();
+            System.err.println("Connection " + connection + " failed: " + e.getMessage());
+        }
+        return latencies;
+    }
+
+    /**
+     * Reads an integer option.
+     *
+     * @param args         command line arguments.
+     * @param name         option name.
+     * @param defaultValue value used when the option is missing.
+     * @return option value.
+     */
+    private static int option(String[] args, String name, int defaultValue){
+        for(int i = 0; i + 1 < args.length; i++){
+            if(args[i].equals(name)){
+                return Integer.parseInt(args[i + 1]);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Retrieves the heap in use after a garbage collection.
+     *
+     * @return used heap in bytes.
+     */
+    private static long usedHeap(){
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
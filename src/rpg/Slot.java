@@ -0,0 +1,47 @@
+package rpg;
+
+/**
+ * Slot enum lists the places where a character can hold an item.
+ * The ordinal of a slot is used as the index into slot arrays.
+ */
+public enum Slot {
+
+    /** Main hand, holding a main weapon. */
+    MAIN_HAND("Main Weapon"),
+
+    /** Sub hand, holding a sub weapon. */
+    SUB_HAND("Sub Weapon"),
+
+    /** Amulet slot. */
+    AMULET("Amulet"),
+
+    /** Ring slot. */
+    RING("Ring"),
+
+    /** Earring slot. */
+    EARRING("Earring");
+
+    /** Number of slots. */
+    static final int COUNT = values().length;
+
+    /** Name of the slot as shown on the console. */
+    private final String displayName;
+
+    /**
+     * Initializes a slot with its display name.
+     *
+     * @param displayName name of the slot as shown on the console.
+     */
+    Slot(String displayName){
+        this.displayName = displayName;
+    }
+
+    /**
+     * Retrieves name of the slot as shown on the console.
+     *
+     * @return display name of the slot.
+     */
+    public String getDisplayName(){
+        return displayName;
+    }
+}
@@ -0,0 +1,534 @@
+package rpg;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * WorldSnapshot class saves characters with their equipped items into a binary file, and loads them back lazily.
+ * The file holds a versioned header, fixed-width character records, fixed-width item records, and a pool of
+ * deduplicated UTF-8 strings. It is written and read through memory mapping, and a character is only built
+ * from its record the first time it is asked for, so opening a snapshot of millions of characters parses nothing.
+ * An item shared by several characters is saved once and is shared again after loading.
+ */
+public final class WorldSnapshot {
+
+    /** Magic number at the start of every snapshot file, "RPGS". */
+    static final int MAGIC = 0x52504753;
+
+    /** Format version written into the header. */
+    static final int VERSION = 1;
+
+    /** Size of the header: magic, version, counts, record sizes, and section offsets. */
+    static final int HEADER_SIZE = 48;
+
+    /** Size of a character record and of an item record. */
+    static final int CHARACTER_RECORD_SIZE = 80, ITEM_RECORD_SIZE = 32;
+
+    /** Field offsets inside a character record. */
+    private static final int C_JOB = 0, C_LEVEL = 4, C_NAME = 8, C_SLOTS = 12,
+            C_MAX_HP = 32, C_HP = 40, C_MAX_MANA = 48, C_MANA = 56, C_MAX_SPEED = 64, C_SPEED = 72;
+
+    /** Field offsets inside an item record. */
+    private static final int I_TYPE = 0, I_LEVEL = 4, I_NAME = 8, I_EFFECT_TYPE = 12, I_BASE_STAT = 16, I_EFFECT_VALUE = 24;
+
+    /** Reference stored for a missing string or an empty slot. */
+    private static final int NONE = -1;
+
+    /** Mapped content of the snapshot file. */
+    private final ByteBuffer buffer;
+
+    /** Number of character and item records. */
+    private final int characterCount, itemCount;
+
+    /** Byte offsets of the character records, item records, and string pool. */
+    private final int characterOffset, itemOffset, stringOffset;
+
+    /** Characters and items already built from their records. */
+    private final AtomicReferenceArray<BaseCharacter> characters;
+    private final AtomicReferenceArray<Object> items;
+
+    /**
+     * Initializes a new WorldSnapshot over a mapped file whose header has been checked.
+     *
+     * @param buffer mapped content of the snapshot file.
+     */
+    private WorldSnapshot(ByteBuffer buffer){
+        this.buffer = buffer;
+        this.characterCount = buffer.getInt(8);
+        this.itemCount = buffer.getInt(12);
+        this.characterOffset = (int) buffer.getLong(24);
+        this.itemOffset = (int) buffer.getLong(32);
+        this.stringOffset = (int) buffer.getLong(40);
+        this.characters = new AtomicReferenceArray<>(characterCount);
+        this.items = new AtomicReferenceArray<>(itemCount);
+    }
+
+    /**
+     * Saves characters and their equipped items into a snapshot file, replacing the file if it exists.
+     * Each character and each item is read once, so its record is a point-in-time copy of it even while other
+     * threads keep changing it. The snapshot as a whole is not: characters are read one after the other, and one
+     * changed meanwhile is saved as it was when it was read. MutationJournal.checkpoint() saves a snapshot that
+     * a journal follows without a gap.
+     *
+     * @param file       snapshot file.
+     * @param characters characters to be saved, in the order they will be loaded.
+     * @return ids the snapshot gave to the characters and items.
+     * @throws IOException if the file cannot be written or the snapshot would exceed 2 GiB.
+     */
+    public static Ids write(Path file, Collection<? extends BaseCharacter> characters) throws IOException {
+        Capture capture = capture(characters);
+        capture.writeTo(file);
+        return capture.ids();
+    }
+
+    /**
+     * Reads characters and their equipped items once, giving them the ids write() saves them under.
+     *
+     * @param characters characters to be saved, in the order they will be loaded.
+     * @return copies ready to be written.
+     * @throws IOException if an equipped item is neither Equipment nor Accessory.
+     */
+    static Capture capture(Collection<? extends BaseCharacter> characters) throws IOException {
+        Map<BaseCharacter, Integer> characterIds = new IdentityHashMap<>();
+        Map<Object, Integer> itemIds = new IdentityHashMap<>();
+        List<SavedItem> items = new ArrayList<>();
+        List<SavedCharacter> saved = new ArrayList<>(characters.size());
+        StringPool strings = new StringPool();
+        for(BaseCharacter character : characters){
+            characterIds.putIfAbsent(character, saved.size());
+            SavedCharacter copy = SavedCharacter.of(character);
+            saved.add(copy);
+            strings.add(copy.name());
+            for(int i = 0; i < Slot.COUNT; i++){
+                Object item = copy.slots()[i];
+                if(item == null){
+                    copy.itemIds()[i] = NONE;
+                    continue;
+                }
+                Integer id = itemIds.get(item);
+                if(id == null){
+                    id = items.size();
+                    itemIds.put(item, id);
+                    SavedItem itemCopy = SavedItem.of(item);
+                    items.add(itemCopy);
+                    strings.add(itemCopy.item().name());
+                    strings.add(itemCopy.item().effectType());
+                }
+                copy.itemIds()[i] = id;
+            }
+        }
+        Ids ids = new Ids(saved.size(), Collections.unmodifiableMap(characterIds), Collections.unmodifiableMap(itemIds));
+        return new Capture(saved, items, strings, ids);
+    }
+
+    /**
+     * Opens a snapshot file by mapping it into memory. Records are only read when a character or item is asked for.
+     *
+     * @param file snapshot file.
+     * @return opened snapshot.
+     * @throws IOException if the file cannot be read, is not a snapshot, or has an unsupported version.
+     */
+    public static WorldSnapshot open(Path file) throws IOException {
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            long size = channel.size();
+            if(size < HEADER_SIZE){
+                throw new IOException(file + " is too short to be a world snapshot");
+            }
+            if(size > Integer.MAX_VALUE){
+                throw new IOException(file + " exceeds the 2 GiB mapping limit");
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            if(in.getInt(0) != MAGIC){
+                throw new IOException(file + " is not a world snapshot");
+            }
+            if(in.getInt(4) != VERSION){
+                throw new IOException(file + " has snapshot version " + in.getInt(4) + ", expected " + VERSION);
+            }
+            if(in.getInt(16) != CHARACTER_RECORD_SIZE || in.getInt(20) != ITEM_RECORD_SIZE){
+                throw new IOException(file + " has unexpected record sizes");
+            }
+            return new WorldSnapshot(in);
+        }
+    }
+
+    /**
+     * Retrieves number of characters in the snapshot.
+     *
+     * @return number of characters.
+     */
+    public int getCharacterCount(){
+        return characterCount;
+    }
+
+    /**
+     * Retrieves number of distinct items in the snapshot.
+     *
+     * @return number of items.
+     */
+    public int getItemCount(){
+        return itemCount;
+    }
+
+    /**
+     * Reads the level of a character straight from its record, without building the character.
+     *
+     * @param index index of the character.
+     * @return level of the character.
+     */
+    public int getLevel(int index){
+        return buffer.getInt(characterRecord(index) + C_LEVEL);
+    }
+
+    /**
+     * Retrieves a character, building it with its equipped items from the records on first access.
+     * Every call with the same index returns the same character.
+     *
+     * @param index index of the character.
+     * @return loaded character.
+     */
+    public BaseCharacter getCharacter(int index){
+        BaseCharacter character = characters.get(index);
+        if(character == null){
+            character = readCharacter(index);
+            if(!characters.compareAndSet(index, null, character)){
+                character = characters.get(index);
+            }
+        }
+        return character;
+    }
+
+    /**
+     * Retrieves an item, building it from its record on first access.
+     *
+     * @param index index of the item.
+     * @return loaded Equipment or Accessory.
+     */
+    Object getItem(int index){
+        Object item = items.get(index);
+        if(item == null){
+            item = readItem(index);
+            if(!items.compareAndSet(index, null, item)){
+                item = items.get(index);
+            }
+        }
+        return item;
+    }
+
+    /**
+     * Builds a character from its record.
+     *
+     * @param index index of the character.
+     * @return new character.
+     */
+    private BaseCharacter readCharacter(int index){
+        int at = characterRecord(index);
+        BaseCharacter character = BaseCharacter.create(JobType.fromCode(buffer.getInt(at + C_JOB)), readString(buffer.getInt(at + C_NAME)));
+        character.restoreVitals(new BaseCharacter.Vitals(buffer.getInt(at + C_LEVEL),
+                buffer.getDouble(at + C_MAX_HP), buffer.getDouble(at + C_HP),
+                buffer.getDouble(at + C_MAX_MANA), buffer.getDouble(at + C_MANA),
+                buffer.getDouble(at + C_MAX_SPEED), buffer.getDouble(at + C_SPEED)));
+        for(Slot slot : Slot.values()){
+            int item = buffer.getInt(at + C_SLOTS + 4 * slot.ordinal());
+            if(item != NONE){
+                character.restoreSlot(slot, getItem(item));
+            }
+        }
+        return character;
+    }
+
+    /**
+     * Builds an item from its record.
+     *
+     * @param index index of the item.
+     * @return new Equipment or Accessory.
+     */
+    private Object readItem(int index){
+        if(index < 0 || index >= itemCount){
+            throw new IndexOutOfBoundsException("Item " + index + " out of bounds for " + itemCount + " items");
+        }
+        int at = itemOffset + index * ITEM_RECORD_SIZE;
+        ItemType type = ItemType.fromCode(buffer.getInt(at + I_TYPE));
+        String name = readString(buffer.getInt(at + I_NAME));
+        ItemTemplate template = type.isWeapon()
+                ? ItemTemplate.ofWeapon(type, name, buffer.getDouble(at + I_BASE_STAT))
+                : ItemTemplate.ofAccessory(type, name, readString(buffer.getInt(at + I_EFFECT_TYPE)), buffer.getDouble(at + I_EFFECT_VALUE));
+        return template.newItem(buffer.getInt(at + I_LEVEL));
+    }
+
+    /**
+     * Retrieves the byte offset of a character record.
+     *
+     * @param index index of the character.
+     * @return offset of the record.
+     */
+    private int characterRecord(int index){
+        if(index < 0 || index >= characterCount){
+            throw new IndexOutOfBoundsException("Character " + index + " out of bounds for " + characterCount + " characters");
+        }
+        return characterOffset + index * CHARACTER_RECORD_SIZE;
+    }
+
+    /**
+     * Reads a string from the string pool.
+     *
+     * @param offset offset of the string inside the pool, or NONE.
+     * @return the string, or null for NONE.
+     */
+    private String readString(int offset){
+        if(offset == NONE){
+            return null;
+        }
+        int at = stringOffset + offset;
+        byte[] bytes = new byte[buffer.getInt(at)];
+        buffer.get(at + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ids record holds the ids a snapshot gave to the characters and items it saved, the ids replay() refers to them by.
+     *
+     * @param characterCount number of character records, the id of the next character a journal defines.
+     * @param characters     id of every saved character, by identity; a character saved twice has its first id.
+     * @param items          id of every saved item, by identity.
+     */
+    public record Ids(int characterCount, Map<BaseCharacter, Integer> characters, Map<Object, Integer> items){
+    }
+
+    /**
+     * Capture class holds the characters and items read by capture(), ready to be written into a file.
+     */
+    static final class Capture {
+
+        /** Saved characters in load order. */
+        private final List<SavedCharacter> characters;
+
+        /** Saved items in id order. */
+        private final List<SavedItem> items;
+
+        /** Strings of the characters and items. */
+        private final StringPool strings;
+
+        /** Ids given to the characters and items. */
+        private final Ids ids;
+
+        /**
+         * Initializes a new Capture.
+         *
+         * @param characters saved characters in load order.
+         * @param items      saved items in id order.
+         * @param strings    strings of the characters and items.
+         * @param ids        ids given to the characters and items.
+         */
+        private Capture(List<SavedCharacter> characters, List<SavedItem> items, StringPool strings, Ids ids){
+            this.characters = characters;
+            this.items = items;
+            this.strings = strings;
+            this.ids = ids;
+        }
+
+        /**
+         * Retrieves the ids given to the characters and items.
+         *
+         * @return ids of the capture.
+         */
+        Ids ids(){
+            return ids;
+        }
+
+        /**
+         * Writes the captured characters and items into a snapshot file, replacing the file if it exists.
+         *
+         * @param file snapshot file.
+         * @throws IOException if the file cannot be written or the snapshot would exceed 2 GiB.
+         */
+        void writeTo(Path file) throws IOException {
+            long characterOffset = HEADER_SIZE;
+            long itemOffset = characterOffset + (long) characters.size() * CHARACTER_RECORD_SIZE;
+            long stringOffset = itemOffset + (long) items.size() * ITEM_RECORD_SIZE;
+            long size = stringOffset + strings.size();
+            if(size > Integer.MAX_VALUE){
+                throw new IOException("Snapshot of " + size + " bytes exceeds the 2 GiB mapping limit");
+            }
+
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)){
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                out.order(ByteOrder.LITTLE_ENDIAN);
+                out.putInt(0, MAGIC);
+                out.putInt(4, VERSION);
+                out.putInt(8, characters.size());
+                out.putInt(12, items.size());
+                out.putInt(16, CHARACTER_RECORD_SIZE);
+                out.putInt(20, ITEM_RECORD_SIZE);
+                out.putLong(24, characterOffset);
+                out.putLong(32, itemOffset);
+                out.putLong(40, stringOffset);
+
+                int at = (int) characterOffset;
+                for(SavedCharacter character : characters){
+                    BaseCharacter.Vitals v = character.vitals();
+                    out.putInt(at + C_JOB, character.job().code());
+                    out.putInt(at + C_LEVEL, v.level());
+                    out.putInt(at + C_NAME, strings.offsetOf(character.name()));
+                    for(int i = 0; i < Slot.COUNT; i++){
+                        out.putInt(at + C_SLOTS + 4 * i, character.itemIds()[i]);
+                    }
+                    out.putDouble(at + C_MAX_HP, v.maxHp());
+                    out.putDouble(at + C_HP, v.hp());
+                    out.putDouble(at + C_MAX_MANA, v.maxMana());
+                    out.putDouble(at + C_MANA, v.mana());
+                    out.putDouble(at + C_MAX_SPEED, v.maxSpeed());
+                    out.putDouble(at + C_SPEED, v.speed());
+                    at += CHARACTER_RECORD_SIZE;
+                }
+
+                at = (int) itemOffset;
+                for(SavedItem copy : items){
+                    EquipmentSnapshot item = copy.item();
+                    out.putInt(at + I_TYPE, item.type().code());
+                    out.putInt(at + I_LEVEL, item.level());
+                    out.putInt(at + I_NAME, strings.offsetOf(item.name()));
+                    out.putInt(at + I_EFFECT_TYPE, strings.offsetOf(item.effectType()));
+                    out.putDouble(at + I_BASE_STAT, copy.baseStat());
+                    out.putDouble(at + I_EFFECT_VALUE, item.effectValue());
+                    at += ITEM_RECORD_SIZE;
+                }
+
+                strings.writeTo(out, (int) stringOffset);
+                out.force();
+            }
+        }
+    }
+
+    /**
+     * SavedCharacter record is a character as read once by capture(), with the ids of its equipped items.
+     *
+     * @param job     job of the character.
+     * @param name    name of the character.
+     * @param vitals  vitals of the character.
+     * @param slots   equipped items indexed by Slot ordinal, null for an empty slot.
+     * @param itemIds ids of the equipped items indexed by Slot ordinal, filled by capture(), NONE for an empty slot.
+     */
+    private record SavedCharacter(JobType job, String name, BaseCharacter.Vitals vitals, Object[] slots, int[] itemIds){
+
+        /**
+         * Reads a character and each of its slots once.
+         *
+         * @param character character to be saved.
+         * @return copy of the character.
+         */
+        static SavedCharacter of(BaseCharacter character){
+            Object[] slots = new Object[Slot.COUNT];
+            for(Slot slot : Slot.values()){
+                slots[slot.ordinal()] = character.getSlot(slot);
+            }
+            return new SavedCharacter(character.getJobType(), character.getName(), character.getVitals(), slots, new int[Slot.COUNT]);
+        }
+    }
+
+    /**
+     * SavedItem record is an item as read once by capture(), with the base stat of a weapon.
+     *
+     * @param item     copy of the item.
+     * @param baseStat main stat of a weapon at level 0, 0 for an accessory.
+     */
+    private record SavedItem(EquipmentSnapshot item, double baseStat){
+
+        /**
+         * Reads an item once.
+         *
+         * @param item Equipment or Accessory.
+         * @return copy of the item.
+         * @throws IOException if item is neither Equipment nor Accessory.
+         */
+        static SavedItem of(Object item) throws IOException {
+            EquipmentSnapshot copy;
+            try {
+                copy = EquipmentSnapshot.of(item);
+            }catch (IllegalArgumentException e){
+                throw new IOException("Cannot save item " + item, e);
+            }
+            double baseStat = !copy.isWeapon() ? 0
+                    : item instanceof BaseWeapon weapon ? weapon.getTemplate().getBaseStat() : copy.mainStat() - 2.5 * copy.level();
+            return new SavedItem(copy, baseStat);
+        }
+    }
+
+    /**
+     * StringPool class collects the distinct strings of a snapshot and lays them out as length-prefixed UTF-8.
+     */
+    private static final class StringPool {
+
+        /** Offset of every added string inside the pool. */
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        /** Encoded strings in pool order. */
+        private final List<byte[]> encoded = new ArrayList<>();
+
+        /** Current size of the pool in bytes. */
+        private long size;
+
+        /**
+         * Adds a string to the pool unless it is already there.
+         *
+         * @param value string to be added, null is ignored.
+         */
+        void add(String value){
+            if(value == null || offsets.containsKey(value)){
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            offsets.put(value, (int) size);
+            encoded.add(bytes);
+            size += 4 + bytes.length;
+        }
+
+        /**
+         * Retrieves the offset of a string inside the pool.
+         *
+         * @param value string added before, or null.
+         * @return offset of the string, or NONE for null.
+         */
+        int offsetOf(String value){
+            return value == null ? NONE : offsets.get(value);
+        }
+
+        /**
+         * Retrieves size of the pool in bytes.
+         *
+         * @return size of the pool.
+         */
+        long size(){
+            return size;
+        }
+
+        /**
+         * Writes the pool into a buffer.
+         *
+         * @param out buffer to write into.
+         * @param at  offset of the pool inside the buffer.
+         */
+        void writeTo(ByteBuffer out, int at){
+            for(byte[] bytes : encoded){
+                out.putInt(at, bytes.length);
+                out.put(at + 4, bytes);
+                at += 4 + bytes.length;
+            }
+        }
+    }
+}